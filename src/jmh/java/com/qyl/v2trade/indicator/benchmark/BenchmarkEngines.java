@@ -0,0 +1,114 @@
+package com.qyl.v2trade.indicator.benchmark;
+
+import com.qyl.v2trade.indicator.definition.IndicatorDefinition;
+import com.qyl.v2trade.indicator.definition.ParameterSpec;
+import com.qyl.v2trade.indicator.definition.builtin.BuiltinIndicatorDefinitions;
+import com.qyl.v2trade.indicator.engine.IndicatorComputeRequest;
+import com.qyl.v2trade.indicator.engine.IndicatorEngine;
+import com.qyl.v2trade.indicator.engine.custom.SimpleSmaEngine;
+import com.qyl.v2trade.indicator.engine.stream.StreamIndicatorEngine;
+import com.qyl.v2trade.indicator.engine.ta4j.Ta4jIndicatorEngine;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试用的引擎与请求构建
+ *
+ * <p>引擎直接实例化（不启动Spring），指标参数取内置指标定义的默认值，
+ * 与线上订阅使用默认参数时的计算完全相同
+ *
+ * @author qyl
+ */
+public final class BenchmarkEngines {
+
+    /**
+     * 参与对比的引擎（ta4j为结果一致性的参考引擎）
+     */
+    public static final List<String> ENGINES = List.of("ta4j", "stream", "custom");
+
+    /**
+     * 指标编码 -> 默认参数（启动时构建一次，基准测试的调用中只做查找）
+     */
+    private static final Map<String, Map<String, Object>> DEFAULT_PARAMETERS = new LinkedHashMap<>();
+
+    static {
+        for (IndicatorDefinition definition : BuiltinIndicatorDefinitions.getAllBuiltinDefinitions()) {
+            Map<String, Object> parameters = new HashMap<>();
+            for (ParameterSpec.ParameterDefinition parameter : definition.parameters().parameters()) {
+                if (parameter.defaultValue() != null) {
+                    parameters.put(parameter.name(), parameter.defaultValue());
+                }
+            }
+            DEFAULT_PARAMETERS.put(definition.code(), parameters);
+        }
+    }
+
+    private BenchmarkEngines() {
+    }
+
+    /**
+     * 创建引擎
+     *
+     * @param engineName 引擎名称（ta4j / stream / custom）
+     * @param seriesManager ta4j引擎使用的常驻序列，null表示每次构建临时序列
+     */
+    public static IndicatorEngine create(String engineName, InMemoryBarSeriesManager seriesManager) {
+        switch (engineName) {
+            case "ta4j": {
+                Ta4jIndicatorEngine engine = new Ta4jIndicatorEngine();
+                ReflectionTestUtils.setField(engine, "barSeriesManager", seriesManager);
+                return engine;
+            }
+            case "stream":
+                return new StreamIndicatorEngine();
+            case "custom":
+                return new SimpleSmaEngine();
+            default:
+                throw new IllegalArgumentException("未知的引擎: " + engineName);
+        }
+    }
+
+    /**
+     * 所有内置指标编码
+     */
+    public static List<String> builtinCodes() {
+        return List.copyOf(DEFAULT_PARAMETERS.keySet());
+    }
+
+    /**
+     * 构建计算请求（内置指标定义的默认参数）
+     */
+    public static IndicatorComputeRequest request(String indicatorCode, LocalDateTime targetBarTime) {
+        return new IndicatorComputeRequest(indicatorCode, "v1", defaultParameters(indicatorCode),
+                SyntheticBarSeries.PAIR_ID, SyntheticBarSeries.TIMEFRAME, targetBarTime);
+    }
+
+    /**
+     * 内置指标定义的默认参数
+     */
+    public static Map<String, Object> defaultParameters(String indicatorCode) {
+        Map<String, Object> parameters = DEFAULT_PARAMETERS.get(indicatorCode);
+        if (parameters == null) {
+            throw new IllegalArgumentException("不是内置指标: " + indicatorCode);
+        }
+        return parameters;
+    }
+
+    /**
+     * 解析基准测试参数"引擎:指标编码"
+     *
+     * @return [引擎名称, 指标编码]
+     */
+    public static String[] parseTarget(String target) {
+        String[] parts = target.split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("target格式应为 引擎:指标编码: " + target);
+        }
+        return parts;
+    }
+}
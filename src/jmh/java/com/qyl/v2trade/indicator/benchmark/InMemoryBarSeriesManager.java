@@ -0,0 +1,48 @@
+package com.qyl.v2trade.indicator.benchmark;
+
+import com.qyl.v2trade.indicator.series.BarSeriesManager;
+import com.qyl.v2trade.indicator.series.BarSeriesView;
+import com.qyl.v2trade.indicator.series.LiveTa4jSeries;
+
+/**
+ * 基准测试用的BarSeries管理器（替代QuestDB加载和BarClosedEvent维护）
+ *
+ * <p>只持有一条常驻序列：{@link #getTa4jSeries}返回基准测试自己维护的{@link LiveTa4jSeries}，
+ * 使Ta4jIndicatorEngine走线上的常驻序列 + 指标缓存路径，而不是每次构建临时序列
+ *
+ * @author qyl
+ */
+public class InMemoryBarSeriesManager extends BarSeriesManager {
+
+    private final SyntheticBarSeries series;
+    private LiveTa4jSeries ta4jSeries;
+
+    public InMemoryBarSeriesManager(SyntheticBarSeries series) {
+        this.series = series;
+        reload();
+    }
+
+    /**
+     * 按当前窗口重建常驻序列（指标缓存随之清空，相当于修订Bar后的重建）
+     */
+    public void reload() {
+        ta4jSeries = new LiveTa4jSeries(series.getTimeframe(), series.getBars(), series.size());
+    }
+
+    /**
+     * 追加窗口内最新的Bar（窗口后移后调用，与BarSeriesManager.onBarClosed一致）
+     */
+    public void appendLatest() {
+        ta4jSeries.append(series.getLatestBar());
+    }
+
+    @Override
+    public BarSeriesView getSeries(long pairId, String timeframe) {
+        return series;
+    }
+
+    @Override
+    public LiveTa4jSeries getTa4jSeries(long pairId, String timeframe) {
+        return ta4jSeries;
+    }
+}
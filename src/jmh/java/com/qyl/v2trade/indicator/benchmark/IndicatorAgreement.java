@@ -0,0 +1,121 @@
+package com.qyl.v2trade.indicator.benchmark;
+
+import com.qyl.v2trade.indicator.engine.IndicatorComputeRequest;
+import com.qyl.v2trade.indicator.engine.IndicatorEngine;
+import com.qyl.v2trade.indicator.engine.IndicatorResult;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * 引擎结果一致性：以ta4j为参考，逐根Bar比较同一指标的结果
+ *
+ * <p>两个引擎都按实时方式从第一根Bar计算到最后一根（ta4j使用常驻序列，流式引擎增量更新），
+ * 对两边都成功的Bar比较所有结果键，统计最大绝对误差和最后一根Bar的误差
+ * （EMA类指标的种子位置不同，误差在预热期最大，随后收敛，最后一根Bar的误差反映收敛后的一致性）
+ *
+ * <p>单独运行（输出全部内置指标 × 引擎 × 序列长度的一致性表）：
+ * mvn -P benchmark test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.qyl.v2trade.indicator.benchmark.IndicatorAgreement
+ *
+ * @author qyl
+ */
+public final class IndicatorAgreement {
+
+    private static final int[] SERIES_LENGTHS = {50, 500, 5000};
+
+    private IndicatorAgreement() {
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-8s %-12s %6s %8s %8s %8s %14s %14s%n",
+                "engine", "indicator", "bars", "compared", "refOnly", "candOnly", "maxAbsDiff", "lastAbsDiff");
+        for (int bars : SERIES_LENGTHS) {
+            for (String code : BenchmarkEngines.builtinCodes()) {
+                for (String engine : BenchmarkEngines.ENGINES) {
+                    if (!"ta4j".equals(engine)) {
+                        System.out.println(compare(engine, code, bars));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 比较指定引擎与ta4j在同一序列上的结果
+     *
+     * @param engineName 候选引擎
+     * @param indicatorCode 指标编码（默认参数）
+     * @param bars 序列长度
+     */
+    public static Result compare(String engineName, String indicatorCode, int bars) {
+        SyntheticBarSeries series = new SyntheticBarSeries(bars, bars);
+        IndicatorEngine reference = BenchmarkEngines.create("ta4j", new InMemoryBarSeriesManager(series));
+        IndicatorEngine candidate = BenchmarkEngines.create(engineName, new InMemoryBarSeriesManager(series));
+        if (!candidate.supports(indicatorCode)) {
+            return new Result(engineName, indicatorCode, bars, 0, 0, 0, Double.NaN, Double.NaN);
+        }
+
+        int compared = 0;
+        int referenceOnly = 0;
+        int candidateOnly = 0;
+        double maxAbsDiff = 0;
+        double lastAbsDiff = Double.NaN;
+        for (int i = 0; i < bars; i++) {
+            IndicatorComputeRequest request = BenchmarkEngines.request(indicatorCode, series.getBarTime(i));
+            IndicatorResult expected = reference.compute(request, series);
+            IndicatorResult actual = candidate.compute(request, series);
+            boolean expectedValid = expected.status() == IndicatorResult.Status.SUCCESS;
+            boolean actualValid = actual.status() == IndicatorResult.Status.SUCCESS;
+            if (expectedValid && actualValid) {
+                double diff = maxAbsDiff(expected.values(), actual.values());
+                maxAbsDiff = Math.max(maxAbsDiff, diff);
+                lastAbsDiff = diff;
+                compared++;
+            } else if (expectedValid) {
+                referenceOnly++;
+            } else if (actualValid) {
+                candidateOnly++;
+            }
+        }
+        return new Result(engineName, indicatorCode, bars, compared, referenceOnly, candidateOnly,
+                maxAbsDiff, lastAbsDiff);
+    }
+
+    /**
+     * 所有结果键的最大绝对误差（候选引擎缺少的键视为无穷大）
+     */
+    private static double maxAbsDiff(Map<String, BigDecimal> expected, Map<String, BigDecimal> actual) {
+        double max = 0;
+        for (Map.Entry<String, BigDecimal> entry : expected.entrySet()) {
+            BigDecimal value = actual.get(entry.getKey());
+            if (value == null) {
+                return Double.POSITIVE_INFINITY;
+            }
+            max = Math.max(max, entry.getValue().subtract(value).abs().doubleValue());
+        }
+        return max;
+    }
+
+    /**
+     * 一致性结果
+     *
+     * @param compared 两边都成功的Bar数量
+     * @param referenceOnly 只有ta4j成功的Bar数量（通常为预热期：ta4j在数据不足时也输出值）
+     * @param candidateOnly 只有候选引擎成功的Bar数量
+     * @param maxAbsDiff 最大绝对误差
+     * @param lastAbsDiff 最后一根Bar的绝对误差（没有可比较的Bar时为NaN）
+     */
+    public record Result(String engine, String indicatorCode, int bars, int compared, int referenceOnly,
+                         int candidateOnly, double maxAbsDiff, double lastAbsDiff) {
+
+        @Override
+        public String toString() {
+            if (compared == 0) {
+                return String.format("%-8s %-12s %6d  不支持或无可比较的结果", engine, indicatorCode, bars);
+            }
+            return String.format("%-8s %-12s %6d %8d %8d %8d %14.3e %14.3e", engine, indicatorCode, bars,
+                    compared, referenceOnly, candidateOnly, maxAbsDiff, lastAbsDiff);
+        }
+    }
+}
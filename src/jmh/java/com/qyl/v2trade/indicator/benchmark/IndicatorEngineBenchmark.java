@@ -0,0 +1,94 @@
+package com.qyl.v2trade.indicator.benchmark;
+
+import com.qyl.v2trade.indicator.engine.IndicatorComputeRequest;
+import com.qyl.v2trade.indicator.engine.IndicatorEngine;
+import com.qyl.v2trade.indicator.engine.IndicatorResult;
+import com.qyl.v2trade.indicator.engine.stream.StreamIndicatorEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标引擎单目标计算基准测试（冷计算）
+ *
+ * <p>每次调用从整个序列计算最新一根Bar的指标值，对应历史重算和临时计算的路径：
+ * <ul>
+ *   <li>ta4j：不使用常驻序列，每次把BarSeriesView转换为临时ta4j序列再计算</li>
+ *   <li>stream：每次清空计算图，从序列起点重新预热</li>
+ *   <li>custom：SimpleSmaEngine按周期窗口求和（仅SMA）</li>
+ * </ul>
+ *
+ * <p>target参数为"引擎:指标编码"（指标使用内置定义的默认参数）。
+ * 输出ns/op，加-prof gc（benchmark profile默认开启）输出gc.alloc.rate.norm（每次调用分配的字节数）；
+ * Trial开始时打印该引擎相对ta4j的结果一致性（见{@link IndicatorAgreement}）
+ *
+ * <p>运行：mvn -P benchmark test-compile exec:exec -Djmh.includes=IndicatorEngineBenchmark
+ *
+ * @author qyl
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class IndicatorEngineBenchmark {
+
+    @Param({
+            "ta4j:SMA", "stream:SMA", "custom:SMA",
+            "ta4j:EMA", "stream:EMA",
+            "ta4j:WMA", "stream:WMA",
+            "ta4j:RSI", "stream:RSI",
+            "ta4j:ATR", "stream:ATR",
+            "ta4j:BOLL", "stream:BOLL",
+            "ta4j:MACD", "stream:MACD",
+            "ta4j:Stochastic", "stream:Stochastic",
+            "ta4j:Momentum", "stream:Momentum"
+    })
+    private String target;
+
+    @Param({"50", "500", "5000"})
+    private int bars;
+
+    private SyntheticBarSeries series;
+    private IndicatorEngine engine;
+    private StreamIndicatorEngine streamEngine;
+    private IndicatorComputeRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = BenchmarkEngines.parseTarget(target);
+        series = new SyntheticBarSeries(bars, bars);
+        engine = BenchmarkEngines.create(parts[0], null);
+        streamEngine = engine instanceof StreamIndicatorEngine stream ? stream : null;
+        request = BenchmarkEngines.request(parts[1], series.getLatestBarTime());
+
+        IndicatorResult result = compute();
+        if (result.status() != IndicatorResult.Status.SUCCESS) {
+            throw new IllegalStateException("基准测试的计算结果无效: target=" + target
+                    + ", bars=" + bars + ", error=" + result.errorMessage());
+        }
+        if (!"ta4j".equals(parts[0])) {
+            System.out.println("结果一致性（相对ta4j）: " + IndicatorAgreement.compare(parts[0], parts[1], bars));
+        }
+    }
+
+    @Benchmark
+    public IndicatorResult compute() {
+        if (streamEngine != null) {
+            streamEngine.invalidate(SyntheticBarSeries.PAIR_ID, SyntheticBarSeries.TIMEFRAME);
+        }
+        return engine.compute(request, series);
+    }
+}
@@ -0,0 +1,108 @@
+package com.qyl.v2trade.indicator.benchmark;
+
+import com.qyl.v2trade.indicator.engine.IndicatorEngine;
+import com.qyl.v2trade.indicator.engine.IndicatorResult;
+import com.qyl.v2trade.indicator.engine.stream.StreamIndicatorEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标引擎增量更新基准测试（实时路径）
+ *
+ * <p>序列长度固定为bars（与BarSeriesManager写满的环形缓冲区一致），每次调用新收盘一根Bar
+ * （窗口后移一根，最旧的Bar被裁剪），然后计算新Bar的指标值：
+ * <ul>
+ *   <li>ta4j：常驻序列追加Bar，复用缓存在序列上的指标实例（线上BarSeriesManager + LiveTa4jSeries路径）</li>
+ *   <li>stream：计算图只输入新Bar</li>
+ *   <li>custom：SimpleSmaEngine按周期窗口求和（无增量状态）</li>
+ * </ul>
+ *
+ * <p>预生成的Bar用完后窗口回到起点并重建状态（每{@value #ROLLING_BARS}次调用一次，开销均摊）。
+ * 与{@link IndicatorEngineBenchmark}的单目标冷计算对比，可以看出增量状态对各引擎的收益
+ *
+ * <p>运行：mvn -P benchmark test-compile exec:exec -Djmh.includes=IndicatorIncrementalBenchmark
+ *
+ * @author qyl
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class IndicatorIncrementalBenchmark {
+
+    /**
+     * 窗口之外预生成的Bar数量（窗口可以连续后移的次数）
+     */
+    private static final int ROLLING_BARS = 100_000;
+
+    @Param({
+            "ta4j:SMA", "stream:SMA", "custom:SMA",
+            "ta4j:EMA", "stream:EMA",
+            "ta4j:WMA", "stream:WMA",
+            "ta4j:RSI", "stream:RSI",
+            "ta4j:ATR", "stream:ATR",
+            "ta4j:BOLL", "stream:BOLL",
+            "ta4j:MACD", "stream:MACD",
+            "ta4j:Stochastic", "stream:Stochastic",
+            "ta4j:Momentum", "stream:Momentum"
+    })
+    private String target;
+
+    @Param({"50", "500", "5000"})
+    private int bars;
+
+    private String indicatorCode;
+    private SyntheticBarSeries series;
+    private InMemoryBarSeriesManager seriesManager;
+    private IndicatorEngine engine;
+    private StreamIndicatorEngine streamEngine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = BenchmarkEngines.parseTarget(target);
+        indicatorCode = parts[1];
+        series = new SyntheticBarSeries(bars + ROLLING_BARS, bars);
+        seriesManager = new InMemoryBarSeriesManager(series);
+        engine = BenchmarkEngines.create(parts[0], seriesManager);
+        streamEngine = engine instanceof StreamIndicatorEngine stream ? stream : null;
+
+        // 预热状态：计算窗口内的最新Bar（ta4j创建缓存指标，stream编译并预热计算图）
+        IndicatorResult result = latest();
+        if (result.status() != IndicatorResult.Status.SUCCESS) {
+            throw new IllegalStateException("基准测试的计算结果无效: target=" + target
+                    + ", bars=" + bars + ", error=" + result.errorMessage());
+        }
+    }
+
+    @Benchmark
+    public IndicatorResult onBarClosed() {
+        if (series.slide()) {
+            seriesManager.appendLatest();
+        } else {
+            series.reset();
+            seriesManager.reload();
+            if (streamEngine != null) {
+                streamEngine.invalidate(SyntheticBarSeries.PAIR_ID, SyntheticBarSeries.TIMEFRAME);
+            }
+        }
+        return latest();
+    }
+
+    private IndicatorResult latest() {
+        return engine.compute(BenchmarkEngines.request(indicatorCode, series.getLatestBarTime()), series);
+    }
+}
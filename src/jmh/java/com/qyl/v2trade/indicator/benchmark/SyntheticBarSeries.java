@@ -0,0 +1,212 @@
+package com.qyl.v2trade.indicator.benchmark;
+
+import com.qyl.v2trade.indicator.domain.model.NormalizedBar;
+import com.qyl.v2trade.indicator.series.BarSeriesView;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试用的合成Bar序列（BarSeriesView实现）
+ *
+ * <p>预先生成total根确定性的OHLCV（列式保存），对外暴露其中长度为length的滑动窗口：
+ * {@link #slide()}将窗口后移一根Bar，相当于BarSeriesManager中写满的环形缓冲区追加新Bar并裁剪最旧的Bar
+ *
+ * <p>价格保留两位小数，与实盘Bar的BigDecimal精度相当，ta4j与流式引擎的差异只来自算法而不是输入
+ *
+ * @author qyl
+ */
+public final class SyntheticBarSeries implements BarSeriesView {
+
+    /**
+     * 交易对ID
+     */
+    public static final long PAIR_ID = 1L;
+
+    /**
+     * 周期
+     */
+    public static final String TIMEFRAME = "5m";
+
+    /**
+     * 时间轴起点（2025-01-01 00:00 UTC）
+     */
+    private static final LocalDateTime EPOCH_START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static final long BAR_MINUTES = 5;
+
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final double[] volumes;
+    private final int length;
+
+    /**
+     * 窗口起点（全量数组下标）
+     */
+    private int start;
+
+    /**
+     * @param total 预先生成的Bar数量
+     * @param length 窗口长度（不大于total）
+     */
+    public SyntheticBarSeries(int total, int length) {
+        if (length <= 0 || length > total) {
+            throw new IllegalArgumentException("length必须在(0, total]之间: length=" + length + ", total=" + total);
+        }
+        this.length = length;
+        this.opens = new double[total];
+        this.highs = new double[total];
+        this.lows = new double[total];
+        this.closes = new double[total];
+        this.volumes = new double[total];
+
+        // 几何随机游走（固定种子），收盘价即下一根的开盘价
+        double price = 100;
+        long seed = 42;
+        for (int i = 0; i < total; i++) {
+            seed = nextSeed(seed);
+            double close = round2(price * (1 + ((seed >>> 11) % 2001 - 1000) / 100_000.0));
+            seed = nextSeed(seed);
+            double wick = round2(price * ((seed >>> 11) % 501) / 100_000.0);
+            opens[i] = round2(price);
+            closes[i] = close;
+            highs[i] = round2(Math.max(opens[i], close) + wick);
+            lows[i] = round2(Math.min(opens[i], close) - wick);
+            seed = nextSeed(seed);
+            volumes[i] = 1000 + (seed >>> 11) % 10_000;
+            price = close;
+        }
+    }
+
+    /**
+     * 窗口后移一根Bar
+     *
+     * @return 窗口已到达预生成数据的末尾时返回false（调用方需要{@link #reset()}）
+     */
+    public boolean slide() {
+        if (start + length >= closes.length) {
+            return false;
+        }
+        start++;
+        return true;
+    }
+
+    /**
+     * 窗口回到起点
+     */
+    public void reset() {
+        start = 0;
+    }
+
+    /**
+     * 窗口内最新Bar的时间
+     */
+    public LocalDateTime getLatestBarTime() {
+        return getBarTime(length - 1);
+    }
+
+    @Override
+    public List<NormalizedBar> getBars() {
+        List<NormalizedBar> bars = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            bars.add(getBar(i));
+        }
+        return bars;
+    }
+
+    @Override
+    public NormalizedBar getBar(int index) {
+        return NormalizedBar.of(PAIR_ID, "BTC-USDT", TIMEFRAME, getBarTime(index),
+                BigDecimal.valueOf(getOpen(index)), BigDecimal.valueOf(getHigh(index)),
+                BigDecimal.valueOf(getLow(index)), BigDecimal.valueOf(getClose(index)),
+                BigDecimal.valueOf(getVolume(index)));
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public NormalizedBar getLatestBar() {
+        return getBar(length - 1);
+    }
+
+    @Override
+    public List<NormalizedBar> getBarsBefore(LocalDateTime beforeTime) {
+        List<NormalizedBar> bars = new ArrayList<>();
+        for (int i = 0; i < length && getBarTime(i).isBefore(beforeTime); i++) {
+            bars.add(getBar(i));
+        }
+        return bars;
+    }
+
+    /**
+     * Bar等间隔，按时间直接换算下标（不逐根比较时间）
+     */
+    @Override
+    public int indexOf(LocalDateTime barTime) {
+        long minutes = Duration.between(EPOCH_START, barTime).toMinutes();
+        if (minutes % BAR_MINUTES != 0) {
+            return -1;
+        }
+        long index = minutes / BAR_MINUTES - start;
+        return index >= 0 && index < length ? (int) index : -1;
+    }
+
+    @Override
+    public LocalDateTime getBarTime(int index) {
+        return EPOCH_START.plusMinutes((start + index) * BAR_MINUTES);
+    }
+
+    @Override
+    public double getOpen(int index) {
+        return opens[start + index];
+    }
+
+    @Override
+    public double getHigh(int index) {
+        return highs[start + index];
+    }
+
+    @Override
+    public double getLow(int index) {
+        return lows[start + index];
+    }
+
+    @Override
+    public double getClose(int index) {
+        return closes[start + index];
+    }
+
+    @Override
+    public double getVolume(int index) {
+        return volumes[start + index];
+    }
+
+    @Override
+    public Long getTradingPairId() {
+        return PAIR_ID;
+    }
+
+    @Override
+    public String getTimeframe() {
+        return TIMEFRAME;
+    }
+
+    private static long nextSeed(long seed) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed;
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
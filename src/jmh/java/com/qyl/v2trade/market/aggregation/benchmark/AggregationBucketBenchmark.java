@@ -0,0 +1,81 @@
+package com.qyl.v2trade.market.aggregation.benchmark;
+
+import com.qyl.v2trade.market.aggregation.config.SupportedPeriod;
+import com.qyl.v2trade.market.aggregation.core.AggregationBucket;
+import com.qyl.v2trade.market.aggregation.core.PeriodCalculator;
+import com.qyl.v2trade.market.model.event.KlineEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AggregationBucket.update基准测试
+ *
+ * <p>事件在Setup阶段预先生成，只测量Bucket的OHLCV更新（含synchronized和BigDecimal比较/累加）；
+ * 窗口写满后换一个新Bucket，开销均摊到整窗的update调用上
+ *
+ * <p>运行：mvn -P benchmark test-compile exec:exec -Djmh.includes=AggregationBucketBenchmark
+ *
+ * @author qyl
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class AggregationBucketBenchmark {
+
+    private static final String SYMBOL = "BTC-USDT";
+
+    @Param({"5m", "4h"})
+    private String period;
+
+    /**
+     * 一个完整窗口的1m K线事件
+     */
+    private KlineEvent[] windowEvents;
+
+    private long windowStart;
+    private long windowEnd;
+    private AggregationBucket bucket;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        SupportedPeriod supportedPeriod = SupportedPeriod.fromPeriod(period);
+        windowStart = PeriodCalculator.calculateWindowStart(SyntheticMarketData.EPOCH_START, supportedPeriod);
+        windowEnd = PeriodCalculator.calculateWindowEnd(windowStart, supportedPeriod);
+
+        int minutes = (int) (supportedPeriod.getDurationMs() / SyntheticMarketData.MINUTE_MS);
+        windowEvents = new KlineEvent[minutes];
+        for (int i = 0; i < minutes; i++) {
+            windowEvents[i] = SyntheticMarketData.klineEvent(SYMBOL, windowStart + i * SyntheticMarketData.MINUTE_MS);
+        }
+        newBucket();
+    }
+
+    @Benchmark
+    public boolean update() {
+        boolean complete = bucket.update(windowEvents[cursor++]);
+        if (cursor == windowEvents.length) {
+            newBucket();
+        }
+        return complete;
+    }
+
+    private void newBucket() {
+        bucket = new AggregationBucket(SYMBOL, period, windowStart, windowEnd);
+        cursor = 0;
+    }
+}
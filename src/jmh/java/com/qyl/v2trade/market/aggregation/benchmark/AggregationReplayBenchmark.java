@@ -0,0 +1,99 @@
+package com.qyl.v2trade.market.aggregation.benchmark;
+
+import com.qyl.v2trade.market.aggregation.core.impl.KlineAggregatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 全市场一天回放基准测试：500个symbol × 1440分钟
+ *
+ * <p>按实时顺序（先分钟、后symbol）回放72万根1m K线，
+ * 覆盖全部周期的窗口创建、关闭、首尾重算和回调，用于评估全市场规模下的端到端吞吐
+ *
+ * <p>聚合器每个Trial创建一次（结束时关闭写入线程池），每次调用回放下一天的数据，
+ * 窗口都是新的，与使用新聚合器的工作量相同
+ *
+ * <p>结果按单个事件折算（OperationsPerInvocation），单位为微秒/事件；
+ * 配合-prof gc可得到每个事件的分配字节数（gc.alloc.rate.norm）
+ *
+ * <p>运行：mvn -P benchmark test-compile exec:exec -Djmh.includes=AggregationReplayBenchmark
+ *
+ * @author qyl
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Dlog4j2.configurationFile=log4j2-benchmark.xml"})
+public class AggregationReplayBenchmark {
+
+    private static final int SYMBOL_COUNT = 500;
+    private static final int MINUTES = 1440;
+
+    /**
+     * 每处理多少个事件执行一次过期清理（与线上定时清理相当）
+     */
+    private static final int CLEANUP_INTERVAL = 10_000;
+
+    private String[] symbols;
+    private KlineAggregatorImpl aggregator;
+    private final LongAdder publishedCount = new LongAdder();
+
+    /**
+     * 本次调用回放的起始时间（每次调用后推一天）
+     */
+    private long dayStart;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        symbols = SyntheticMarketData.symbols(SYMBOL_COUNT);
+        aggregator = new KlineAggregatorImpl(aggregated -> publishedCount.increment(),
+                new NoOpAggregatedKLineStorageService());
+        ReflectionTestUtils.setField(aggregator, "marketQueryService", new InMemoryMarketQueryService());
+        dayStart = SyntheticMarketData.EPOCH_START - MINUTES * SyntheticMarketData.MINUTE_MS;
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        publishedCount.reset();
+        dayStart += MINUTES * SyntheticMarketData.MINUTE_MS;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        aggregator.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SYMBOL_COUNT * MINUTES)
+    public long replayOneDay() {
+        int eventsSinceCleanup = 0;
+        for (int minute = 0; minute < MINUTES; minute++) {
+            long openTime = dayStart + minute * SyntheticMarketData.MINUTE_MS;
+            for (String symbol : symbols) {
+                aggregator.onKlineEvent(SyntheticMarketData.klineEvent(symbol, openTime));
+                if (++eventsSinceCleanup == CLEANUP_INTERVAL) {
+                    eventsSinceCleanup = 0;
+                    aggregator.cleanupExpiredBuckets();
+                }
+            }
+        }
+        return publishedCount.sum();
+    }
+}
@@ -0,0 +1,49 @@
+package com.qyl.v2trade.market.aggregation.benchmark;
+
+import com.qyl.v2trade.market.model.NormalizedKline;
+import com.qyl.v2trade.market.web.query.MarketQueryService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基准测试用的行情查询服务（替代QuestDB）
+ *
+ * <p>按[from, to)左闭右开返回合成的1m K线，与QuestDB查询语义一致，
+ * 只保留对象构造开销，不含网络和JDBC开销
+ *
+ * @author qyl
+ */
+public class InMemoryMarketQueryService implements MarketQueryService {
+
+    private final LongAdder queryCount = new LongAdder();
+
+    @Override
+    public List<NormalizedKline> queryKlines(String symbol, String interval,
+                                             Long fromTimestamp, Long toTimestamp, Integer limit) {
+        queryCount.increment();
+        if (fromTimestamp == null || toTimestamp == null || toTimestamp <= fromTimestamp) {
+            return new ArrayList<>();
+        }
+        List<NormalizedKline> klines = new ArrayList<>((int) ((toTimestamp - fromTimestamp) / SyntheticMarketData.MINUTE_MS));
+        for (long openTime = fromTimestamp; openTime < toTimestamp; openTime += SyntheticMarketData.MINUTE_MS) {
+            klines.add(SyntheticMarketData.normalizedKline(symbol, openTime));
+        }
+        return klines;
+    }
+
+    @Override
+    public NormalizedKline queryLatestKline(String symbol, String interval) {
+        return null;
+    }
+
+    @Override
+    public NormalizedKline queryKlineByTimestamp(String symbol, String interval, long timestamp) {
+        return SyntheticMarketData.normalizedKline(symbol, timestamp);
+    }
+
+    public long getQueryCount() {
+        return queryCount.sum();
+    }
+}
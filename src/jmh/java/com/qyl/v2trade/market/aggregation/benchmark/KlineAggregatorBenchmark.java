@@ -0,0 +1,89 @@
+package com.qyl.v2trade.market.aggregation.benchmark;
+
+import com.qyl.v2trade.market.aggregation.core.impl.KlineAggregatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * KlineAggregatorImpl.onKlineEvent基准测试（单事件延迟与吞吐）
+ *
+ * <p>QuestDB查询替换为{@link InMemoryMarketQueryService}，存储替换为{@link NoOpAggregatedKLineStorageService}，
+ * 测量的是聚合器自身的开销：窗口计算、去重、Bucket更新、窗口关闭时的首尾重算和回调
+ *
+ * <p>事件按"分钟 × symbol"的实时顺序生成，每1万个事件执行一次过期清理（与线上定时清理相当），
+ * 保证去重集合不会无限增长。事件对象在调用内构造，结果包含约5个BigDecimal的分配
+ *
+ * <p>SampleTime模式输出p50/p90/p99/p99.9等延迟分位数，加-prof gc输出分配速率
+ *
+ * <p>运行：mvn -P benchmark test-compile exec:exec -Djmh.includes=KlineAggregatorBenchmark
+ *
+ * @author qyl
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class KlineAggregatorBenchmark {
+
+    /**
+     * 每处理多少个事件执行一次过期清理
+     */
+    private static final int CLEANUP_INTERVAL = 10_000;
+
+    @Param({"1", "50"})
+    private int symbolCount;
+
+    private String[] symbols;
+    private KlineAggregatorImpl aggregator;
+    private final LongAdder publishedCount = new LongAdder();
+
+    private long currentMinute;
+    private int symbolIndex;
+    private int eventsSinceCleanup;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        symbols = SyntheticMarketData.symbols(symbolCount);
+        aggregator = new KlineAggregatorImpl(aggregated -> publishedCount.increment(),
+                new NoOpAggregatedKLineStorageService());
+        ReflectionTestUtils.setField(aggregator, "marketQueryService", new InMemoryMarketQueryService());
+        currentMinute = SyntheticMarketData.EPOCH_START;
+        symbolIndex = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        aggregator.shutdown();
+    }
+
+    @Benchmark
+    public void onKlineEvent() {
+        aggregator.onKlineEvent(SyntheticMarketData.klineEvent(symbols[symbolIndex], currentMinute));
+
+        if (++symbolIndex == symbols.length) {
+            symbolIndex = 0;
+            currentMinute += SyntheticMarketData.MINUTE_MS;
+        }
+        if (++eventsSinceCleanup == CLEANUP_INTERVAL) {
+            eventsSinceCleanup = 0;
+            aggregator.cleanupExpiredBuckets();
+        }
+    }
+}
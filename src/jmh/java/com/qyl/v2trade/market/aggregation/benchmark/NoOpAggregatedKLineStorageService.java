@@ -0,0 +1,44 @@
+package com.qyl.v2trade.market.aggregation.benchmark;
+
+import com.qyl.v2trade.market.aggregation.event.AggregatedKLine;
+import com.qyl.v2trade.market.aggregation.persistence.AggregatedKLineStorageService;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基准测试用的存储服务（只计数，不写库）
+ *
+ * @author qyl
+ */
+public class NoOpAggregatedKLineStorageService implements AggregatedKLineStorageService {
+
+    private final LongAdder savedCount = new LongAdder();
+
+    @Override
+    public boolean save(AggregatedKLine aggregatedKLine) {
+        savedCount.increment();
+        return true;
+    }
+
+    @Override
+    public int batchSave(List<AggregatedKLine> aggregatedKLines) {
+        savedCount.add(aggregatedKLines.size());
+        return aggregatedKLines.size();
+    }
+
+    @Override
+    public boolean exists(String symbol, String period, long timestamp) {
+        return false;
+    }
+
+    @Override
+    public boolean saveRevision(AggregatedKLine aggregatedKLine) {
+        savedCount.increment();
+        return true;
+    }
+
+    public long getSavedCount() {
+        return savedCount.sum();
+    }
+}
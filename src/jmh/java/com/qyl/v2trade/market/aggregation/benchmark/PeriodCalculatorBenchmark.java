@@ -0,0 +1,64 @@
+package com.qyl.v2trade.market.aggregation.benchmark;
+
+import com.qyl.v2trade.market.aggregation.config.SupportedPeriod;
+import com.qyl.v2trade.market.aggregation.core.PeriodCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PeriodCalculator基准测试
+ *
+ * <p>窗口计算在每根1m K线、每个周期上都会执行一次，是聚合热路径上调用最频繁的函数
+ *
+ * <p>运行：mvn -P benchmark test-compile exec:exec -Djmh.includes=PeriodCalculatorBenchmark
+ *
+ * @author qyl
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j2.configurationFile=log4j2-benchmark.xml")
+public class PeriodCalculatorBenchmark {
+
+    @Param({"5m", "15m", "30m", "1h", "4h"})
+    private String period;
+
+    private SupportedPeriod supportedPeriod;
+
+    /**
+     * 当前K线时间戳（每次调用前进一分钟，避免JIT常量折叠）
+     */
+    private long timestamp;
+
+    @Setup
+    public void setUp() {
+        supportedPeriod = SupportedPeriod.fromPeriod(period);
+        timestamp = SyntheticMarketData.EPOCH_START;
+    }
+
+    @Benchmark
+    public long calculateWindowStart() {
+        timestamp += SyntheticMarketData.MINUTE_MS;
+        return PeriodCalculator.calculateWindowStart(timestamp, supportedPeriod);
+    }
+
+    @Benchmark
+    public long calculateWindowStartAndEnd() {
+        timestamp += SyntheticMarketData.MINUTE_MS;
+        long windowStart = PeriodCalculator.calculateWindowStart(timestamp, supportedPeriod);
+        return PeriodCalculator.calculateWindowEnd(windowStart, supportedPeriod);
+    }
+}
@@ -0,0 +1,97 @@
+package com.qyl.v2trade.market.aggregation.benchmark;
+
+import com.qyl.v2trade.market.model.NormalizedKline;
+import com.qyl.v2trade.market.model.event.KlineEvent;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * 基准测试用的合成行情数据
+ *
+ * <p>同一(symbol, openTime)始终生成相同的OHLCV，
+ * 实时事件和{@link InMemoryMarketQueryService}的查询结果因此保持一致，
+ * 且无需预先在内存中构造整天的K线
+ *
+ * @author qyl
+ */
+public final class SyntheticMarketData {
+
+    /**
+     * 一分钟（毫秒）
+     */
+    public static final long MINUTE_MS = 60_000L;
+
+    /**
+     * 基准测试时间轴起点：2025-01-01 00:00:00 UTC（对齐所有支持的周期）
+     */
+    public static final long EPOCH_START = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"))
+            .toInstant().toEpochMilli();
+
+    private SyntheticMarketData() {
+    }
+
+    /**
+     * 生成交易对符号列表（SYM0-USDT ~ SYM{n-1}-USDT）
+     */
+    public static String[] symbols(int count) {
+        String[] symbols = new String[count];
+        for (int i = 0; i < count; i++) {
+            symbols[i] = "SYM" + i + "-USDT";
+        }
+        return symbols;
+    }
+
+    /**
+     * 生成已完结的1m K线事件
+     */
+    public static KlineEvent klineEvent(String symbol, long openTime) {
+        double[] ohlcv = ohlcv(symbol, openTime);
+        return KlineEvent.of(symbol, "OKX", openTime, openTime + MINUTE_MS, "1m",
+                BigDecimal.valueOf(ohlcv[0]), BigDecimal.valueOf(ohlcv[1]), BigDecimal.valueOf(ohlcv[2]),
+                BigDecimal.valueOf(ohlcv[3]), BigDecimal.valueOf(ohlcv[4]), true, openTime + MINUTE_MS);
+    }
+
+    /**
+     * 生成QuestDB查询结果形式的1m K线
+     */
+    public static NormalizedKline normalizedKline(String symbol, long openTime) {
+        double[] ohlcv = ohlcv(symbol, openTime);
+        return NormalizedKline.builder()
+                .symbol(symbol)
+                .interval("1m")
+                .open(ohlcv[0])
+                .high(ohlcv[1])
+                .low(ohlcv[2])
+                .close(ohlcv[3])
+                .volume(ohlcv[4])
+                .timestamp(openTime)
+                .build();
+    }
+
+    /**
+     * 确定性的OHLCV：基准价按symbol区分，每分钟在基准价附近小幅波动
+     */
+    private static double[] ohlcv(String symbol, long openTime) {
+        long minute = openTime / MINUTE_MS;
+        double base = 100 + Math.floorMod(symbol.hashCode(), 50) * 10;
+        double open = base + noise(symbol.hashCode(), minute);
+        double close = base + noise(symbol.hashCode(), minute + 1);
+        double high = Math.max(open, close) + 0.5;
+        double low = Math.min(open, close) - 0.5;
+        double volume = 1000 + Math.abs(noise(~symbol.hashCode(), minute)) * 100;
+        return new double[]{open, high, low, close, volume};
+    }
+
+    /**
+     * 廉价的确定性噪声（[-5, 5)，保留两位小数）
+     */
+    private static double noise(long seed, long minute) {
+        long x = seed * 0x9E3779B97F4A7C15L + minute;
+        x ^= x >>> 33;
+        x *= 0xFF51AFD7ED558CCDL;
+        x ^= x >>> 33;
+        return Math.floorMod(x, 1000) / 100.0 - 5;
+    }
+}
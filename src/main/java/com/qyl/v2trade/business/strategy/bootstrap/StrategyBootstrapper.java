@@ -2,6 +2,7 @@ package com.qyl.v2trade.business.strategy.bootstrap;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.qyl.v2trade.business.strategy.binder.SignalViewBinder;
+import com.qyl.v2trade.business.strategy.decision.router.StrategyInstanceLocator;
 import com.qyl.v2trade.business.strategy.factory.StrategyRuntimeFactory;
 import com.qyl.v2trade.business.strategy.factory.model.StrategyInstance;
 import com.qyl.v2trade.business.strategy.factory.model.StrategyRuntime;
@@ -24,7 +25,7 @@ import java.util.List;
  *   <li>协调整个策略实例化过程</li>
  *   <li>在系统启动/策略启停时触发</li>
  *   <li>调度所有Loader、Factory、Restorer、Binder</li>
- *   <li>维护 StrategyRuntimeRegistry</li>
+ *   <li>维护 StrategyRuntimeRegistry 和事件路由索引（StrategyInstanceLocator）</li>
  * </ul>
  * 
  * <p>阶段1约束：
@@ -48,6 +49,7 @@ public class StrategyBootstrapper {
     private final LogicStateRestorer stateRestorer;
     private final SignalViewBinder signalViewBinder;
     private final StrategyRuntimeRegistry registry;
+    private final StrategyInstanceLocator instanceLocator;
 
     /**
      * 启动所有启用的策略
@@ -104,7 +106,7 @@ public class StrategyBootstrapper {
      *   <li>创建策略运行时</li>
      *   <li>为每个实例恢复状态</li>
      *   <li>绑定信号视图</li>
-     *   <li>注册到注册表</li>
+     *   <li>注册到注册表并登记路由索引</li>
      * </ol>
      * 
      * @param strategyId 策略ID
@@ -146,8 +148,9 @@ public class StrategyBootstrapper {
                 signalViewBinder.bindSignalViews(instance, config.getSubscriptions());
             }
 
-            // 4. 注册到注册表
+            // 4. 注册到注册表，登记路由索引
             registry.register(runtime);
+            instanceLocator.register(runtime);
 
             log.info("策略启动成功: strategyId={}, instanceCount={}",
                 strategyId, runtime.getInstanceCount());
@@ -164,7 +167,7 @@ public class StrategyBootstrapper {
      * 
      * <p>停止流程：
      * <ol>
-     *   <li>从注册表注销运行时</li>
+     *   <li>从注册表注销运行时，移除路由索引</li>
      *   <li>清理内存资源</li>
      * </ol>
      * 
@@ -180,6 +183,7 @@ public class StrategyBootstrapper {
 
         try {
             StrategyRuntime removed = registry.unregister(strategyId);
+            instanceLocator.unregister(strategyId);
             if (removed != null) {
                 log.info("策略停止成功: strategyId={}", strategyId);
             } else {
@@ -12,7 +12,7 @@ import java.util.Map;
 /**
  * 指标快照（不可变）
  * 
- * <p>从 indicator_value 表读取的指标快照（最新值）
+ * <p>指标触发时从Bar级事件构建，其他触发从多周期指标存储读取截止到采样时点的最新值
  * 
  * <p>用于指标驱动策略的决策
  */
@@ -59,6 +59,20 @@ public class IndicatorSnapshot implements Serializable {
      */
     private final Map<String, BigDecimal> extraValues;
 
+    /**
+     * 同一根Bar的全部指标值（指标触发时由Bar级事件构建，其他触发为null）
+     * 
+     * <p>key不区分大小写：单值指标为指标代码（如 RSI），多值指标为指标代码.扩展键（如 MACD.signal）
+     */
+    private final Map<String, BigDecimal> barValues;
+
+    /**
+     * 多周期指标值的截止时间（IND.因子按此时间查询其他周期的指标：barTime不晚于该时间的最新值）
+     * 
+     * <p>指标/K线触发为触发Bar的收盘时间，信号/价格触发为采样时间
+     */
+    private final LocalDateTime asOfTime;
+
     /**
      * 数据质量标记
      */
@@ -70,10 +84,23 @@ public class IndicatorSnapshot implements Serializable {
     private final LocalDateTime computedAt;
 
     /**
-     * 判断指标值是否存在
+     * 判断指标值是否存在（主值或同一Bar的任意指标值）
      */
     public boolean hasValue() {
-        return value != null;
+        return value != null || (barValues != null && !barValues.isEmpty());
+    }
+
+    /**
+     * 获取同一根Bar的指标值
+     * 
+     * @param key 指标代码或指标代码.扩展键
+     * @return 指标值，如果不存在返回null
+     */
+    public BigDecimal getBarValue(String key) {
+        if (barValues == null || key == null) {
+            return null;
+        }
+        return barValues.get(key);
     }
 
     /**
@@ -6,6 +6,7 @@ import lombok.Getter;
 import java.io.Serial;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * 策略参数快照（不可变）
@@ -21,6 +22,11 @@ public class ParamSnapshot implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    /**
+     * 参数版本（strategy_param.updated_at，参数修改后变化，用于条件编译缓存）
+     */
+    private final LocalDateTime paramVersion;
+
     /**
      * 策略初始虚拟资金
      */
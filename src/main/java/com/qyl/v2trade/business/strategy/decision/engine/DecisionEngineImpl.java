@@ -82,8 +82,8 @@ public class DecisionEngineImpl implements DecisionEngine {
 
     @Override
     public void executeDecision(StrategyInstance instance, IndicatorComputedEvent event) {
-        log.debug("执行决策（指标触发）: strategyId={}, tradingPairId={}, indicatorCode={}",
-            instance.getStrategyId(), instance.getTradingPairId(), event.getIndicatorCode());
+        log.debug("执行决策（指标触发）: strategyId={}, tradingPairId={}, timeframe={}, barTime={}",
+            instance.getStrategyId(), instance.getTradingPairId(), event.getTimeframe(), event.getBarTime());
 
         try {
             DecisionContext ctx = sampler.sample(instance, event);
@@ -4,43 +4,38 @@ import org.springframework.context.ApplicationEvent;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
- * 指标计算完成事件
- * 
- * <p>当指标值写入indicator_value表成功后发布此事件
- * 
- * <p>用于触发策略决策（指标驱动策略）
- * 
+ * 指标计算完成事件（Bar级批量）
+ *
+ * <p>IndicatorCalculator计算完一根收盘Bar（pair + timeframe + barTime）的全部订阅后发布一次，
+ * 携带该Bar所有计算成功的指标值（指标值已写入最新值缓存，indicator_value异步批量落库）
+ *
+ * <p>用于触发策略决策（指标驱动策略）：每个策略实例对同一根Bar只决策一次，
+ * 决策时能看到该Bar的完整指标视图，而不是每个指标各触发一次部分决策
+ *
  * <p>路由规则：
  * <ul>
- *   <li>根据tradingPairId查找所有订阅该指标的策略实例</li>
- *   <li>需要查询strategy_signal_subscription表（如果策略订阅了该指标）</li>
+ *   <li>根据tradingPairId查找该交易对上的策略实例</li>
+ *   <li>只投递给事件中有指标结果的用户的策略实例</li>
  *   <li>如果找不到，记录DEBUG日志（正常情况，不是所有策略都订阅所有指标）</li>
  * </ul>
  */
 public class IndicatorComputedEvent extends ApplicationEvent {
 
-    /**
-     * 用户ID
-     */
-    private final Long userId;
-
     /**
      * 交易对ID
      */
     private final Long tradingPairId;
 
     /**
-     * 指标代码（如：RSI_14, MACD）
+     * 周期（如：5m, 1h）
      */
-    private final String indicatorCode;
-
-    /**
-     * 指标版本
-     */
-    private final String indicatorVersion;
+    private final String timeframe;
 
     /**
      * K线时间（指标计算的bar时间）
@@ -48,15 +43,9 @@ public class IndicatorComputedEvent extends ApplicationEvent {
     private final LocalDateTime barTime;
 
     /**
-     * 指标值（Map格式，可能包含多个值）
-     * 
-     * <p>示例：
-     * <ul>
-     *   <li>RSI: {"RSI": 30.5}</li>
-     *   <li>MACD: {"MACD": 100.0, "SIGNAL": 95.0, "HIST": 5.0}</li>
-     * </ul>
+     * 该Bar计算成功的指标（相同指标参数只计算一次，结果携带所有订阅用户）
      */
-    private final Map<String, BigDecimal> indicatorValues;
+    private final List<ComputedIndicator> indicators;
 
     /**
      * 计算完成时间
@@ -65,69 +54,94 @@ public class IndicatorComputedEvent extends ApplicationEvent {
 
     /**
      * 构造函数
-     * 
+     *
      * @param source 事件源
-     * @param userId 用户ID
      * @param tradingPairId 交易对ID
-     * @param indicatorCode 指标代码
-     * @param indicatorVersion 指标版本
+     * @param timeframe 周期
      * @param barTime K线时间
-     * @param indicatorValues 指标值
+     * @param indicators 该Bar计算成功的指标
      * @param computedAt 计算完成时间
      */
-    public IndicatorComputedEvent(Object source, Long userId, Long tradingPairId,
-                                  String indicatorCode, String indicatorVersion,
-                                  LocalDateTime barTime, Map<String, BigDecimal> indicatorValues,
+    public IndicatorComputedEvent(Object source, Long tradingPairId, String timeframe,
+                                  LocalDateTime barTime, List<ComputedIndicator> indicators,
                                   LocalDateTime computedAt) {
         super(source);
-        this.userId = userId;
         this.tradingPairId = tradingPairId;
-        this.indicatorCode = indicatorCode;
-        this.indicatorVersion = indicatorVersion;
+        this.timeframe = timeframe;
         this.barTime = barTime;
-        this.indicatorValues = indicatorValues;
+        this.indicators = indicators;
         this.computedAt = computedAt;
     }
 
-    public Long getUserId() {
-        return userId;
-    }
-
     public Long getTradingPairId() {
         return tradingPairId;
     }
 
-    public String getIndicatorCode() {
-        return indicatorCode;
-    }
-
-    public String getIndicatorVersion() {
-        return indicatorVersion;
+    public String getTimeframe() {
+        return timeframe;
     }
 
     public LocalDateTime getBarTime() {
         return barTime;
     }
 
-    public Map<String, BigDecimal> getIndicatorValues() {
-        return indicatorValues;
+    public List<ComputedIndicator> getIndicators() {
+        return indicators;
     }
 
     public LocalDateTime getComputedAt() {
         return computedAt;
     }
 
+    /**
+     * 获取指定用户订阅的指标结果（按计算顺序）
+     *
+     * @param userId 用户ID
+     * @return 指标结果列表，没有时返回空列表
+     */
+    public List<ComputedIndicator> getIndicatorsForUser(Long userId) {
+        List<ComputedIndicator> result = new ArrayList<>();
+        for (ComputedIndicator indicator : indicators) {
+            if (indicator.userIds().contains(userId)) {
+                result.add(indicator);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 是否包含指定用户订阅的指标结果
+     */
+    public boolean hasIndicatorsForUser(Long userId) {
+        for (ComputedIndicator indicator : indicators) {
+            if (indicator.userIds().contains(userId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         return "IndicatorComputedEvent{" +
-                "userId=" + userId +
-                ", tradingPairId=" + tradingPairId +
-                ", indicatorCode='" + indicatorCode + '\'' +
-                ", indicatorVersion='" + indicatorVersion + '\'' +
+                "tradingPairId=" + tradingPairId +
+                ", timeframe='" + timeframe + '\'' +
                 ", barTime=" + barTime +
-                ", indicatorValues=" + indicatorValues +
+                ", indicators=" + indicators.size() +
                 ", computedAt=" + computedAt +
                 '}';
     }
-}
 
+    /**
+     * 一次指标计算的结果
+     *
+     * @param indicatorCode 指标代码（如：RSI, MACD）
+     * @param indicatorVersion 指标版本
+     * @param value 指标主值（单值指标，多值指标为null）
+     * @param indicatorValues 全部结果值（如MACD：{"macd": 100.0, "signal": 95.0, "histogram": 5.0}）
+     * @param userIds 订阅该指标参数的用户
+     */
+    public record ComputedIndicator(String indicatorCode, String indicatorVersion, BigDecimal value,
+                                    Map<String, BigDecimal> indicatorValues, Set<Long> userIds) {
+    }
+}
@@ -54,6 +54,16 @@ public class SignalIntentActivatedEvent extends ApplicationEvent {
      */
     private final LocalDateTime activatedAt;
 
+    /**
+     * 信号产生时间（signal_intent.generated_at，可空）
+     */
+    private final LocalDateTime generatedAt;
+
+    /**
+     * 失效时间（signal_intent.expired_at，可空）
+     */
+    private final LocalDateTime expiredAt;
+
     /**
      * 构造函数
      * 
@@ -70,6 +80,29 @@ public class SignalIntentActivatedEvent extends ApplicationEvent {
                                      Long tradingPairId, Long signalIntentId, 
                                      String signalId, String intentDirection, 
                                      LocalDateTime activatedAt) {
+        this(source, userId, strategyId, tradingPairId, signalIntentId, signalId, intentDirection,
+            activatedAt, null, null);
+    }
+
+    /**
+     * 构造函数（包含信号产生时间和失效时间）
+     * 
+     * @param source 事件源
+     * @param userId 用户ID
+     * @param strategyId 策略ID
+     * @param tradingPairId 交易对ID
+     * @param signalIntentId 信号意图ID
+     * @param signalId 信号ID
+     * @param intentDirection 意图方向
+     * @param activatedAt 激活时间
+     * @param generatedAt 信号产生时间（可空）
+     * @param expiredAt 失效时间（可空）
+     */
+    public SignalIntentActivatedEvent(Object source, Long userId, Long strategyId, 
+                                     Long tradingPairId, Long signalIntentId, 
+                                     String signalId, String intentDirection, 
+                                     LocalDateTime activatedAt, LocalDateTime generatedAt,
+                                     LocalDateTime expiredAt) {
         super(source);
         this.userId = userId;
         this.strategyId = strategyId;
@@ -78,6 +111,8 @@ public class SignalIntentActivatedEvent extends ApplicationEvent {
         this.signalId = signalId;
         this.intentDirection = intentDirection;
         this.activatedAt = activatedAt;
+        this.generatedAt = generatedAt;
+        this.expiredAt = expiredAt;
     }
 
     public Long getUserId() {
@@ -108,6 +143,14 @@ public class SignalIntentActivatedEvent extends ApplicationEvent {
         return activatedAt;
     }
 
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public LocalDateTime getExpiredAt() {
+        return expiredAt;
+    }
+
     @Override
     public String toString() {
         return "SignalIntentActivatedEvent{" +
@@ -118,6 +161,7 @@ public class SignalIntentActivatedEvent extends ApplicationEvent {
                 ", signalId='" + signalId + '\'' +
                 ", intentDirection='" + intentDirection + '\'' +
                 ", activatedAt=" + activatedAt +
+                ", expiredAt=" + expiredAt +
                 '}';
     }
 }
@@ -0,0 +1,64 @@
+package com.qyl.v2trade.business.strategy.decision.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 策略定义变更事件
+ *
+ * <p>strategy_definition记录更新或删除后发布
+ *
+ * <p>用于刷新按策略定义构建的运行时缓存（如决策配置快照）
+ */
+public class StrategyDefinitionChangedEvent extends ApplicationEvent {
+
+    /**
+     * 用户ID
+     */
+    private final Long userId;
+
+    /**
+     * 策略ID
+     */
+    private final Long strategyId;
+
+    /**
+     * 是否为删除
+     */
+    private final boolean deleted;
+
+    /**
+     * 构造函数
+     *
+     * @param source 事件源
+     * @param userId 用户ID
+     * @param strategyId 策略ID
+     * @param deleted 是否为删除
+     */
+    public StrategyDefinitionChangedEvent(Object source, Long userId, Long strategyId, boolean deleted) {
+        super(source);
+        this.userId = userId;
+        this.strategyId = strategyId;
+        this.deleted = deleted;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getStrategyId() {
+        return strategyId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "StrategyDefinitionChangedEvent{" +
+                "userId=" + userId +
+                ", strategyId=" + strategyId +
+                ", deleted=" + deleted +
+                '}';
+    }
+}
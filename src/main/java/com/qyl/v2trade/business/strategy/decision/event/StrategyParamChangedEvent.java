@@ -0,0 +1,64 @@
+package com.qyl.v2trade.business.strategy.decision.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 策略参数变更事件
+ *
+ * <p>strategy_param记录创建、更新或删除后发布
+ *
+ * <p>用于失效按参数构建的运行时缓存（如编译后的入场/出场条件、决策配置快照）
+ */
+public class StrategyParamChangedEvent extends ApplicationEvent {
+
+    /**
+     * 用户ID
+     */
+    private final Long userId;
+
+    /**
+     * 策略ID
+     */
+    private final Long strategyId;
+
+    /**
+     * 是否为删除
+     */
+    private final boolean deleted;
+
+    /**
+     * 构造函数
+     *
+     * @param source 事件源
+     * @param userId 用户ID
+     * @param strategyId 策略ID
+     * @param deleted 是否为删除
+     */
+    public StrategyParamChangedEvent(Object source, Long userId, Long strategyId, boolean deleted) {
+        super(source);
+        this.userId = userId;
+        this.strategyId = strategyId;
+        this.deleted = deleted;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getStrategyId() {
+        return strategyId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "StrategyParamChangedEvent{" +
+                "userId=" + userId +
+                ", strategyId=" + strategyId +
+                ", deleted=" + deleted +
+                '}';
+    }
+}
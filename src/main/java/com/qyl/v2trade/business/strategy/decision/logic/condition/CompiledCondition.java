@@ -0,0 +1,301 @@
+package com.qyl.v2trade.business.strategy.decision.logic.condition;
+
+import com.qyl.v2trade.business.strategy.decision.context.DecisionContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 编译后的条件树（不可变）
+ *
+ * <p>由ConditionTree编译而来，编译时完成：
+ * <ul>
+ *   <li>因子key白名单校验并绑定到对应的FactorResolver</li>
+ *   <li>操作符解析为Operator枚举</li>
+ *   <li>右值字面量转换为TypedValue（因子引用绑定解析器）</li>
+ *   <li>未命中/命中的RuleHit预先构建</li>
+ * </ul>
+ * 评估时只解析因子值并比较；ALL模式遇到第一个未命中、ANY模式遇到第一个命中即返回
+ *
+ * <p>编译期发现的错误（因子不在白名单、操作符不支持、右值无法转换）不抛出，
+ * 在评估到该规则时返回blocked，与逐条解析时的行为一致
+ */
+@Slf4j
+public final class CompiledCondition {
+
+    private static final EvaluationResult RULE_PASSED = EvaluationResult.passed(null);
+    private static final EvaluationResult RULE_FAILED = EvaluationResult.failed(null);
+
+    /**
+     * 因子缺值且nullable=true：视为未命中，审计记录缺值原因（与比较未命中区分）
+     */
+    private static final EvaluationResult RULE_MISSING = EvaluationResult.failed(null);
+    private static final String MISSING_REASON = "因子值缺失（nullable=true）";
+
+    /**
+     * 根节点（条件JSON无法解析时为null）
+     */
+    private final Group root;
+
+    /**
+     * 条件JSON无法解析时的block原因
+     */
+    private final String invalidReason;
+
+    private CompiledCondition(Group root, String invalidReason) {
+        this.root = root;
+        this.invalidReason = invalidReason;
+    }
+
+    /**
+     * 编译条件树
+     *
+     * @param tree 条件树
+     * @param registry 因子解析器注册表
+     * @param operatorExecutor 操作符执行器
+     */
+    public static CompiledCondition compile(ConditionTree tree, FactorResolverRegistry registry,
+                                            OperatorExecutor operatorExecutor) {
+        return new CompiledCondition(compileGroup(tree, registry, operatorExecutor), null);
+    }
+
+    /**
+     * 无法解析的条件（每次评估都返回blocked）
+     */
+    public static CompiledCondition invalid(String reason) {
+        return new CompiledCondition(null, reason);
+    }
+
+    /**
+     * 评估条件
+     *
+     * @param ctx 决策上下文
+     * @return 评估结果（包含passed、blocked、hitReason）
+     */
+    public EvaluationResult evaluate(DecisionContext ctx) {
+        if (root == null) {
+            return EvaluationResult.blocked(invalidReason);
+        }
+        return root.evaluate(ctx);
+    }
+
+    private static Group compileGroup(ConditionTree tree, FactorResolverRegistry registry,
+                                      OperatorExecutor operatorExecutor) {
+        List<ConditionRule> treeRules = tree.getRules() != null ? tree.getRules() : List.of();
+        List<ConditionTree> treeGroups = tree.getGroups() != null ? tree.getGroups() : List.of();
+
+        Rule[] rules = new Rule[treeRules.size()];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = compileRule(treeRules.get(i), registry, operatorExecutor);
+        }
+        Group[] groups = new Group[treeGroups.size()];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = compileGroup(treeGroups.get(i), registry, operatorExecutor);
+        }
+        return new Group(tree.getMode(), "ANY".equals(tree.getMode()), rules, groups);
+    }
+
+    private static Rule compileRule(ConditionRule rule, FactorResolverRegistry registry,
+                                    OperatorExecutor operatorExecutor) {
+        Operator operator = null;
+        String operatorError = null;
+        try {
+            operator = Operator.fromString(rule.getOperator());
+        } catch (IllegalArgumentException e) {
+            operatorError = e.getMessage();
+            log.warn("条件规则操作符无效: factor={}, operator={}", rule.getFactor(), rule.getOperator());
+        }
+
+        // 右值：因子引用（如 "STATE.STOP_LOSS_PRICE"）或字面量
+        FactorResolver rightResolver = null;
+        TypedValue rightConstant = null;
+        Object value = rule.getValue();
+        if (value instanceof String valueStr && valueStr.contains(".")) {
+            rightResolver = registry.findResolver(valueStr);
+        }
+        if (rightResolver == null) {
+            rightConstant = toLiteral(value, rule.getType());
+        }
+
+        return new Rule(rule, registry.findResolver(rule.getFactor()), operator, operatorError,
+            rightResolver, rightConstant, operatorExecutor);
+    }
+
+    /**
+     * 右值字面量转换
+     *
+     * @return 转换结果，无法转换返回null
+     */
+    private static TypedValue toLiteral(Object value, String type) {
+        if (value == null || type == null) {
+            return null;
+        }
+
+        switch (type) {
+            case "NUMBER":
+                if (value instanceof Number) {
+                    return TypedValue.ofNumber(BigDecimal.valueOf(((Number) value).doubleValue()));
+                } else if (value instanceof String) {
+                    try {
+                        return TypedValue.ofNumber(new BigDecimal((String) value));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+                break;
+            case "STRING":
+                return TypedValue.ofString(String.valueOf(value));
+            case "BOOLEAN":
+                if (value instanceof Boolean) {
+                    return TypedValue.ofBoolean((Boolean) value);
+                } else if (value instanceof String) {
+                    return TypedValue.ofBoolean(Boolean.parseBoolean((String) value));
+                }
+                break;
+        }
+
+        return null;
+    }
+
+    /**
+     * 条件组
+     */
+    private static final class Group {
+        private final String mode;
+        private final boolean any;
+        private final Rule[] rules;
+        private final Group[] groups;
+
+        Group(String mode, boolean any, Rule[] rules, Group[] groups) {
+            this.mode = mode;
+            this.any = any;
+            this.rules = rules;
+            this.groups = groups;
+        }
+
+        EvaluationResult evaluate(DecisionContext ctx) {
+            List<HitReason.RuleHit> ruleHits = new ArrayList<>(rules.length);
+            List<HitReason.GroupHit> groupHits = new ArrayList<>(groups.length);
+
+            // 1. 评估规则（ANY遇到命中、ALL遇到未命中即短路）
+            for (Rule rule : rules) {
+                EvaluationResult ruleResult = rule.evaluate(ctx);
+                if (ruleResult.isBlocked()) {
+                    // 缺值且nullable=false，直接返回blocked
+                    return ruleResult;
+                }
+                ruleHits.add(ruleResult.isPassed() ? rule.hit : ruleResult == RULE_MISSING ? rule.missing : rule.miss);
+                if (ruleResult.isPassed() == any) {
+                    return result(any, ruleHits, groupHits);
+                }
+            }
+
+            // 2. 评估嵌套组
+            for (Group group : groups) {
+                EvaluationResult groupResult = group.evaluate(ctx);
+                if (groupResult.isBlocked()) {
+                    return groupResult;  // 组被block，直接返回
+                }
+                groupHits.add(HitReason.GroupHit.builder()
+                    .mode(group.mode)
+                    .hit(groupResult.isPassed())
+                    .ruleHits(groupResult.getHitReason().getRuleHits())
+                    .build());
+                if (groupResult.isPassed() == any) {
+                    return result(any, ruleHits, groupHits);
+                }
+            }
+
+            // 3. 未短路：ANY模式全部未命中，ALL模式全部命中
+            return result(!any, ruleHits, groupHits);
+        }
+
+        private static EvaluationResult result(boolean passed, List<HitReason.RuleHit> ruleHits,
+                                               List<HitReason.GroupHit> groupHits) {
+            HitReason hitReason = HitReason.builder()
+                .ruleHits(ruleHits)
+                .groupHits(groupHits)
+                .build();
+            return passed ? EvaluationResult.passed(hitReason) : EvaluationResult.failed(hitReason);
+        }
+    }
+
+    /**
+     * 单个规则（因子和右值已绑定解析器）
+     */
+    private static final class Rule {
+        private final ConditionRule source;
+        private final FactorResolver leftResolver;
+        private final Operator operator;
+        private final String operatorError;
+        private final FactorResolver rightResolver;
+        private final TypedValue rightConstant;
+        private final boolean nullable;
+        private final OperatorExecutor operatorExecutor;
+        private final HitReason.RuleHit hit;
+        private final HitReason.RuleHit miss;
+        private final HitReason.RuleHit missing;
+
+        Rule(ConditionRule source, FactorResolver leftResolver, Operator operator, String operatorError,
+             FactorResolver rightResolver, TypedValue rightConstant, OperatorExecutor operatorExecutor) {
+            this.source = source;
+            this.leftResolver = leftResolver;
+            this.operator = operator;
+            this.operatorError = operatorError;
+            this.rightResolver = rightResolver;
+            this.rightConstant = rightConstant;
+            this.nullable = Boolean.TRUE.equals(source.getNullable());
+            this.operatorExecutor = operatorExecutor;
+            this.hit = ruleHit(source, true, "命中");
+            this.miss = ruleHit(source, false, "未命中");
+            this.missing = ruleHit(source, false, MISSING_REASON);
+        }
+
+        EvaluationResult evaluate(DecisionContext ctx) {
+            // 1. 白名单校验
+            if (leftResolver == null) {
+                return EvaluationResult.blocked("因子key不在白名单: " + source.getFactor());
+            }
+
+            // 2. 解析左值（factor）
+            Optional<TypedValue> leftValue = leftResolver.resolve(source.getFactor(), ctx);
+            if (leftValue.isEmpty()) {
+                return nullable ? RULE_MISSING
+                    : EvaluationResult.blocked("因子值缺失且nullable=false: " + source.getFactor());
+            }
+
+            // 3. 解析右值（字面量已在编译时转换）
+            TypedValue rightValue = rightResolver != null
+                ? rightResolver.resolve((String) source.getValue(), ctx).orElse(null)
+                : rightConstant;
+            if (rightValue == null) {
+                return EvaluationResult.blocked("右值解析失败: " + source.getValue());
+            }
+
+            // 4. 执行比较
+            if (operator == null) {
+                return EvaluationResult.blocked("规则评估异常: " + operatorError);
+            }
+            try {
+                return operatorExecutor.execute(leftValue.get(), operator, rightValue) ? RULE_PASSED : RULE_FAILED;
+            } catch (Exception e) {
+                log.error("规则评估异常: factor={}, operator={}, value={}",
+                    source.getFactor(), source.getOperator(), source.getValue(), e);
+                return EvaluationResult.blocked("规则评估异常: " + e.getMessage());
+            }
+        }
+
+        private static HitReason.RuleHit ruleHit(ConditionRule rule, boolean hit, String reason) {
+            return HitReason.RuleHit.builder()
+                .factor(rule.getFactor())
+                .operator(rule.getOperator())
+                .value(rule.getValue())
+                .hit(hit)
+                .reason(reason)
+                .build();
+        }
+    }
+}
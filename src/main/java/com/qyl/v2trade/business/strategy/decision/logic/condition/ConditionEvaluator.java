@@ -2,24 +2,29 @@ package com.qyl.v2trade.business.strategy.decision.logic.condition;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.qyl.v2trade.business.strategy.decision.context.DecisionContext;
+import com.qyl.v2trade.business.strategy.decision.event.StrategyParamChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * 条件评估器（重构版）
  * 
  * <p>职责：
  * <ul>
- *   <li>解析JSON为结构化规则树（AST）</li>
+ *   <li>解析JSON为结构化规则树（AST）并编译为CompiledCondition</li>
  *   <li>支持ALL/ANY模式和嵌套组</li>
- *   <li>输出完整的hitReason（用于审计）</li>
+ *   <li>输出hitReason（用于审计）：记录到短路点为止已评估的规则和组</li>
  *   <li>支持多种因子类型（信号/指标/K线/价格/状态）</li>
  * </ul>
  * 
@@ -28,18 +33,41 @@ import java.util.Optional;
  *   <li>结构化规则树（不执行任意代码）</li>
  *   <li>白名单机制（factor key、operator都有白名单）</li>
  *   <li>类型安全（强类型检查）</li>
- *   <li>可审计（完整hitReason）</li>
+ *   <li>可审计（hitReason记录决定结果的规则）</li>
  * </ul>
+ * 
+ * <p>短路求值：ALL模式遇到第一个未命中、ANY模式遇到第一个命中即返回，其后的规则和组不评估，
+ * 也不出现在hitReason中。blocked只由已评估的规则产生：短路点之后的规则即使因子缺失且nullable=false
+ * 也不会使结果blocked（如ALL模式下前一条规则未命中时结果为failed）
+ * 
+ * <p>编译缓存：条件JSON按（策略ID、参数版本、条件JSON）编译一次，最多缓存{@value #MAX_COMPILED_CONDITIONS}个
+ * （LRU淘汰）；策略参数变更时失效该策略的全部条件。决策时不再解析JSON
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ConditionEvaluator {
 
+    /**
+     * 编译缓存容量（每个策略最多入场、出场两个条件）
+     */
+    static final int MAX_COMPILED_CONDITIONS = 4096;
+
     private final FactorResolverRegistry factorResolverRegistry;
     private final OperatorExecutor operatorExecutor;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * 编译缓存（访问顺序LRU，访问需持有锁）
+     */
+    private final Map<CacheKey, CompiledCondition> compiledConditions =
+        new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CompiledCondition> eldest) {
+                return size() > MAX_COMPILED_CONDITIONS;
+            }
+        };
+
     /**
      * 评估条件（主入口）
      * 
@@ -52,26 +80,108 @@ public class ConditionEvaluator {
             return EvaluationResult.blocked("条件JSON为空");
         }
 
+        return getCompiled(ctx, conditionJson).evaluate(ctx);
+    }
+
+    /**
+     * 收集条件中引用的全部因子key（规则因子和右值中的因子引用）
+     * 
+     * <p>用于按策略实际使用的指标路由事件
+     * 
+     * @param conditionJson 条件JSON字符串
+     * @return 因子key集合，条件为空或无法解析时返回空集合
+     */
+    public Set<String> collectFactorKeys(String conditionJson) {
+        if (conditionJson == null || conditionJson.isEmpty()) {
+            return Set.of();
+        }
         try {
-            // 1. 解析JSON为条件树
-            ConditionTree tree = parseConditionTree(conditionJson);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> json = objectMapper.readValue(conditionJson, Map.class);
+            Set<String> factorKeys = new LinkedHashSet<>();
+            collectFactorKeys(parseConditionTree(json), factorKeys);
+            return factorKeys;
+        } catch (Exception e) {
+            log.warn("条件解析失败，无法收集因子: conditionJson={}, error={}", conditionJson, e.getMessage());
+            return Set.of();
+        }
+    }
 
-            // 2. 评估条件树
-            return evaluateTree(ctx, tree);
+    private void collectFactorKeys(ConditionTree tree, Set<String> factorKeys) {
+        for (ConditionRule rule : tree.getRules()) {
+            if (rule.getFactor() != null) {
+                factorKeys.add(rule.getFactor());
+            }
+            if (rule.getValue() instanceof String value && value.contains(".")
+                    && factorResolverRegistry.isFactorKeyAllowed(value)) {
+                factorKeys.add(value);
+            }
+        }
+        for (ConditionTree group : tree.getGroups()) {
+            collectFactorKeys(group, factorKeys);
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("条件评估失败: conditionJson={}", conditionJson, e);
-            return EvaluationResult.blocked("条件解析失败: " + e.getMessage());
+    /**
+     * 策略参数变更时失效该策略的编译缓存
+     */
+    @EventListener
+    public void onStrategyParamChanged(StrategyParamChangedEvent event) {
+        invalidate(event.getStrategyId());
+    }
+
+    /**
+     * 失效策略的编译缓存
+     * 
+     * @param strategyId 策略ID
+     */
+    public void invalidate(Long strategyId) {
+        synchronized (compiledConditions) {
+            compiledConditions.keySet().removeIf(key -> Objects.equals(key.strategyId(), strategyId));
         }
+        log.debug("条件编译缓存已失效: strategyId={}", strategyId);
     }
 
     /**
-     * 解析条件树
+     * 获取编译后的条件（缓存未命中时编译）
      */
-    private ConditionTree parseConditionTree(String conditionJson) throws Exception {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> json = objectMapper.readValue(conditionJson, Map.class);
+    private CompiledCondition getCompiled(DecisionContext ctx, String conditionJson) {
+        CacheKey key = new CacheKey(ctx.getStrategyId(),
+            ctx.getParamSnapshot() != null ? ctx.getParamSnapshot().getParamVersion() : null, conditionJson);
+        CompiledCondition compiled;
+        synchronized (compiledConditions) {
+            compiled = compiledConditions.get(key);
+        }
+        if (compiled != null) {
+            return compiled;
+        }
 
+        // 编译在锁外进行（相同条件并发编译的结果等价，后写入的覆盖先写入的）
+        compiled = compile(conditionJson);
+        synchronized (compiledConditions) {
+            compiledConditions.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * 编译条件JSON（无法解析时返回始终blocked的条件）
+     */
+    private CompiledCondition compile(String conditionJson) {
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> json = objectMapper.readValue(conditionJson, Map.class);
+            return CompiledCondition.compile(parseConditionTree(json), factorResolverRegistry, operatorExecutor);
+        } catch (Exception e) {
+            log.error("条件解析失败: conditionJson={}", conditionJson, e);
+            return CompiledCondition.invalid("条件解析失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 解析条件树（嵌套组直接递归解析，不重新序列化）
+     */
+    private ConditionTree parseConditionTree(Map<String, Object> json) {
         // 解析规则
         List<ConditionRule> rules = new ArrayList<>();
         @SuppressWarnings("unchecked")
@@ -95,8 +205,7 @@ public class ConditionEvaluator {
         List<Map<String, Object>> groupsJson = (List<Map<String, Object>>) json.get("groups");
         if (groupsJson != null) {
             for (Map<String, Object> groupJson : groupsJson) {
-                ConditionTree group = parseConditionTree(objectMapper.writeValueAsString(groupJson));
-                groups.add(group);
+                groups.add(parseConditionTree(groupJson));
             }
         }
 
@@ -109,194 +218,12 @@ public class ConditionEvaluator {
     }
 
     /**
-     * 评估条件树（递归）
-     */
-    private EvaluationResult evaluateTree(DecisionContext ctx, ConditionTree tree) {
-        List<HitReason.RuleHit> ruleHits = new ArrayList<>();
-        List<HitReason.GroupHit> groupHits = new ArrayList<>();
-
-        // 1. 评估规则
-        List<Boolean> ruleResults = new ArrayList<>();
-        for (ConditionRule rule : tree.getRules()) {
-            EvaluationResult ruleResult = evaluateRule(ctx, rule);
-            ruleHits.add(HitReason.RuleHit.builder()
-                .factor(rule.getFactor())
-                .operator(rule.getOperator())
-                .value(rule.getValue())
-                .hit(ruleResult.isPassed())
-                .reason(ruleResult.isBlocked() ? ruleResult.getBlockReason() :
-                       (ruleResult.isPassed() ? "命中" : "未命中"))
-                .build());
-
-            if (ruleResult.isBlocked()) {
-                // 缺值且nullable=false，直接返回blocked
-                return EvaluationResult.blocked(ruleResult.getBlockReason());
-            }
-
-            ruleResults.add(ruleResult.isPassed());
-
-            // ANY模式短路：找到第一个true即返回
-            if ("ANY".equals(tree.getMode()) && ruleResult.isPassed()) {
-                return EvaluationResult.passed(HitReason.builder()
-                    .ruleHits(ruleHits)
-                    .groupHits(groupHits)
-                    .build());
-            }
-        }
-
-        // 2. 评估嵌套组
-        List<Boolean> groupResults = new ArrayList<>();
-        for (ConditionTree group : tree.getGroups()) {
-            EvaluationResult groupResult = evaluateTree(ctx, group);
-            if (groupResult.isBlocked()) {
-                return groupResult;  // 组被block，直接返回
-            }
-
-            groupHits.add(HitReason.GroupHit.builder()
-                .mode(group.getMode())
-                .hit(groupResult.isPassed())
-                .ruleHits(groupResult.getHitReason() != null ?
-                    groupResult.getHitReason().getRuleHits() : List.of())
-                .build());
-
-            groupResults.add(groupResult.isPassed());
-
-            // ANY模式短路
-            if ("ANY".equals(tree.getMode()) && groupResult.isPassed()) {
-                return EvaluationResult.passed(HitReason.builder()
-                    .ruleHits(ruleHits)
-                    .groupHits(groupHits)
-                    .build());
-            }
-        }
-
-        // 3. 组合结果
-        boolean passed;
-        if ("ANY".equals(tree.getMode())) {
-            // ANY模式：规则或组任一满足即可
-            passed = ruleResults.stream().anyMatch(b -> b) ||
-                    groupResults.stream().anyMatch(b -> b);
-        } else {
-            // ALL模式：所有规则和组都必须满足
-            passed = ruleResults.stream().allMatch(b -> b) &&
-                    groupResults.stream().allMatch(b -> b);
-        }
-
-        HitReason hitReason = HitReason.builder()
-            .ruleHits(ruleHits)
-            .groupHits(groupHits)
-            .build();
-
-        return passed ? EvaluationResult.passed(hitReason) : EvaluationResult.failed(hitReason);
-    }
-
-    /**
-     * 评估单个规则
-     */
-    private EvaluationResult evaluateRule(DecisionContext ctx, ConditionRule rule) {
-        // 1. 白名单校验
-        if (!factorResolverRegistry.isFactorKeyAllowed(rule.getFactor())) {
-            return EvaluationResult.blocked("因子key不在白名单: " + rule.getFactor());
-        }
-
-        // 2. 解析左值（factor）
-        Optional<TypedValue> leftValueOpt = factorResolverRegistry.resolve(rule.getFactor(), ctx);
-        if (leftValueOpt.isEmpty()) {
-            // 值缺失
-            if (Boolean.TRUE.equals(rule.getNullable())) {
-                return EvaluationResult.failed(HitReason.builder()
-                    .ruleHits(List.of(HitReason.RuleHit.builder()
-                        .factor(rule.getFactor())
-                        .operator(rule.getOperator())
-                        .value(rule.getValue())
-                        .hit(false)
-                        .reason("因子值缺失（nullable=true）")
-                        .build()))
-                    .build());
-            } else {
-                return EvaluationResult.blocked("因子值缺失且nullable=false: " + rule.getFactor());
-            }
-        }
-
-        // 3. 解析右值（value，可能是字面量或因子引用）
-        TypedValue rightValue = resolveRightValue(ctx, rule.getValue(), rule.getType());
-        if (rightValue == null) {
-            return EvaluationResult.blocked("右值解析失败: " + rule.getValue());
-        }
-
-        // 4. 执行比较
-        try {
-            Operator operator = Operator.fromString(rule.getOperator());
-            boolean result = operatorExecutor.execute(leftValueOpt.get(), operator, rightValue);
-
-            return result ?
-                EvaluationResult.passed(HitReason.builder()
-                    .ruleHits(List.of(HitReason.RuleHit.builder()
-                        .factor(rule.getFactor())
-                        .operator(rule.getOperator())
-                        .value(rule.getValue())
-                        .hit(true)
-                        .reason("命中")
-                        .build()))
-                    .build()) :
-                EvaluationResult.failed(HitReason.builder()
-                    .ruleHits(List.of(HitReason.RuleHit.builder()
-                        .factor(rule.getFactor())
-                        .operator(rule.getOperator())
-                        .value(rule.getValue())
-                        .hit(false)
-                        .reason("未命中")
-                        .build()))
-                    .build());
-
-        } catch (Exception e) {
-            log.error("规则评估异常: rule={}", rule, e);
-            return EvaluationResult.blocked("规则评估异常: " + e.getMessage());
-        }
-    }
-
-    /**
-     * 解析右值（支持字面量和因子引用）
+     * 编译缓存key
+     * 
+     * @param strategyId 策略ID
+     * @param paramVersion 参数版本（strategy_param.updated_at）
+     * @param conditionJson 条件JSON（同一版本的入场、出场条件分别缓存）
      */
-    private TypedValue resolveRightValue(DecisionContext ctx, Object value, String type) {
-        if (value == null) {
-            return null;
-        }
-
-        // 如果是因子引用（如 "STATE.STOP_LOSS_PRICE"）
-        if (value instanceof String && ((String) value).contains(".")) {
-            String valueStr = (String) value;
-            if (factorResolverRegistry.isFactorKeyAllowed(valueStr)) {
-                Optional<TypedValue> factorValue = factorResolverRegistry.resolve(valueStr, ctx);
-                return factorValue.orElse(null);
-            }
-        }
-
-        // 字面量
-        switch (type) {
-            case "NUMBER":
-                if (value instanceof Number) {
-                    return TypedValue.ofNumber(BigDecimal.valueOf(((Number) value).doubleValue()));
-                } else if (value instanceof String) {
-                    try {
-                        return TypedValue.ofNumber(new BigDecimal((String) value));
-                    } catch (NumberFormatException e) {
-                        return null;
-                    }
-                }
-                break;
-            case "STRING":
-                return TypedValue.ofString(String.valueOf(value));
-            case "BOOLEAN":
-                if (value instanceof Boolean) {
-                    return TypedValue.ofBoolean((Boolean) value);
-                } else if (value instanceof String) {
-                    return TypedValue.ofBoolean(Boolean.parseBoolean((String) value));
-                }
-                break;
-        }
-
-        return null;
+    private record CacheKey(Long strategyId, LocalDateTime paramVersion, String conditionJson) {
     }
 }
-
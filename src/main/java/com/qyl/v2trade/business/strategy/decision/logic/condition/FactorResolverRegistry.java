@@ -78,6 +78,24 @@ public class FactorResolverRegistry {
         return Optional.empty();
     }
 
+    /**
+     * 查找因子key对应的解析器（条件编译时绑定，评估时不再按前缀路由）
+     * 
+     * @param factorKey 因子key
+     * @return 解析器，不在白名单中返回null
+     */
+    public FactorResolver findResolver(String factorKey) {
+        if (factorKey == null || factorKey.isEmpty()) {
+            return null;
+        }
+        for (Map.Entry<String, FactorResolver> entry : resolverMap.entrySet()) {
+            if (factorKey.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
     /**
      * 校验因子key是否在白名单中
      * 
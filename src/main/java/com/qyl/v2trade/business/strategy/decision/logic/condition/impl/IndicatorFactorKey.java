@@ -0,0 +1,57 @@
+package com.qyl.v2trade.business.strategy.decision.logic.condition.impl;
+
+/**
+ * 指标因子key解析结果
+ * 
+ * <p>格式：IND.{indicatorCode}[.{extraKey}][@{timeframe}]，如 IND.RSI、IND.MACD.SIGNAL、IND.RSI@1h
+ * 
+ * @param indicatorCode 指标编码（如 "MACD"）
+ * @param extraKey 扩展值key（如 "SIGNAL"），主值为null
+ * @param timeframe 指定的周期，未指定为null
+ */
+public record IndicatorFactorKey(String indicatorCode, String extraKey, String timeframe) {
+
+    /**
+     * 指标因子前缀
+     */
+    public static final String PREFIX = "IND.";
+
+    /**
+     * 解析指标因子key
+     * 
+     * @param factorKey 因子key
+     * @return 解析结果，不是指标因子或格式错误返回null
+     */
+    public static IndicatorFactorKey parse(String factorKey) {
+        if (factorKey == null || !factorKey.startsWith(PREFIX)) {
+            return null;
+        }
+
+        String valueKey = factorKey.substring(PREFIX.length());
+        String timeframe = null;
+        int at = valueKey.indexOf('@');
+        if (at >= 0) {
+            timeframe = valueKey.substring(at + 1);
+            valueKey = valueKey.substring(0, at);
+            if (timeframe.isEmpty()) {
+                return null;
+            }
+        }
+        if (valueKey.isEmpty()) {
+            return null;
+        }
+
+        int dot = valueKey.indexOf('.');
+        if (dot > 0) {
+            return new IndicatorFactorKey(valueKey.substring(0, dot), valueKey.substring(dot + 1), timeframe);
+        }
+        return new IndicatorFactorKey(valueKey, null, timeframe);
+    }
+
+    /**
+     * 同一根Bar指标值的key（如 "RSI"、"MACD.SIGNAL"）
+     */
+    public String valueKey() {
+        return extraKey != null ? indicatorCode + "." + extraKey : indicatorCode;
+    }
+}
@@ -4,10 +4,22 @@ import com.qyl.v2trade.business.strategy.decision.context.DecisionContext;
 import com.qyl.v2trade.business.strategy.decision.context.snapshot.IndicatorSnapshot;
 import com.qyl.v2trade.business.strategy.decision.logic.condition.FactorResolver;
 import com.qyl.v2trade.business.strategy.decision.logic.condition.TypedValue;
+import com.qyl.v2trade.indicator.calculator.SubscriptionIndex;
+import com.qyl.v2trade.indicator.persistence.LatestIndicatorValueCache;
+import com.qyl.v2trade.indicator.persistence.MultiTimeframeIndicatorStore;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorValue;
+import com.qyl.v2trade.indicator.series.LiveTa4jSeries;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -17,45 +29,181 @@ import java.util.Optional;
  * <ul>
  *   <li>IND.{indicatorCode}：指标主值（如 IND.RSI_14）</li>
  *   <li>IND.{extraKey}：指标扩展值（如 IND.MACD.SIGNAL）</li>
+ *   <li>IND.{indicatorCode}@{timeframe}：指定周期的指标值（如 5m策略中使用 IND.RSI@1h、IND.MACD.SIGNAL@4h）</li>
  * </ul>
+ * 
+ * <p>解析顺序：
+ * <ol>
+ *   <li>指标快照中同一根Bar的指标值（未指定周期或周期与快照相同时）</li>
+ *   <li>多周期指标存储中barTime不晚于快照截止时间（asOfTime，缺省为换算到UTC的触发时间）的最新值，
+ *       保证决策不会使用截止时间之后才收盘的Bar</li>
+ *   <li>最新指标值缓存（存储尚未写入时，如刚启动），只接受周期、版本与订阅一致，
+ *       且barTime在截止时间之前一根Bar以内的值</li>
+ * </ol>
+ * 不查询数据库
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class IndicatorFactorResolver implements FactorResolver {
 
+    private final LatestIndicatorValueCache latestIndicatorValueCache;
+    private final MultiTimeframeIndicatorStore multiTimeframeStore;
+    private final SubscriptionIndex subscriptionIndex;
+
     @Override
     public String getSupportedPrefix() {
-        return "IND.";
+        return IndicatorFactorKey.PREFIX;
     }
 
     @Override
     public Optional<TypedValue> resolve(String factorKey, DecisionContext ctx) {
-        if (!factorKey.startsWith("IND.")) {
+        if (!factorKey.startsWith(IndicatorFactorKey.PREFIX)) {
             return Optional.empty();
         }
 
-        // 提取指标代码（如 "IND.RSI_14" -> "RSI_14"）
-        String indicatorCode = factorKey.substring(4);
+        // 提取指标代码和周期（如 "IND.RSI_14" -> "RSI_14"，"IND.RSI@1h" -> "RSI" + "1h"）
+        IndicatorFactorKey key = IndicatorFactorKey.parse(factorKey);
+        if (key == null) {
+            log.warn("指标因子格式错误: {}", factorKey);
+            return Optional.empty();
+        }
+        String indicatorCode = key.valueKey();
+        String timeframe = key.timeframe();
 
         IndicatorSnapshot indicator = ctx.getIndicatorSnapshot();
-        if (indicator == null || !indicator.hasValue()) {
+        if (indicator != null && indicator.hasValue()
+                && (timeframe == null || timeframe.equals(indicator.getTimeframe()))) {
+            // 同一根Bar的指标值（如 "IND.RSI"、"IND.MACD.signal"）
+            BigDecimal barValue = indicator.getBarValue(indicatorCode);
+            if (barValue != null) {
+                return Optional.of(TypedValue.ofNumber(barValue));
+            }
+
+            // 主值匹配
+            if (indicatorCode.equals(indicator.getIndicatorCode()) && indicator.getValue() != null) {
+                return Optional.of(TypedValue.ofNumber(indicator.getValue()));
+            }
+
+            // 扩展值匹配（如 "IND.MACD.SIGNAL"）
+            if (indicator.getExtraValues() != null) {
+                BigDecimal extraValue = indicator.getExtraValues().get(indicatorCode);
+                if (extraValue != null) {
+                    return Optional.of(TypedValue.ofNumber(extraValue));
+                }
+            }
+        }
+
+        if (ctx.getUserId() == null || ctx.getTradingPairId() == null) {
             return Optional.empty();
         }
 
-        // 主值匹配
-        if (indicatorCode.equals(indicator.getIndicatorCode())) {
-            return Optional.of(TypedValue.ofNumber(indicator.getValue()));
+        String code = key.indicatorCode();
+        String extraKey = key.extraKey();
+        // 未指定周期时优先与快照相同的周期
+        String preferredTimeframe = timeframe != null ? timeframe
+                : (indicator != null ? indicator.getTimeframe() : null);
+        LocalDateTime asOf = indicator != null && indicator.getAsOfTime() != null
+                ? indicator.getAsOfTime() : toUtc(ctx.getTriggeredAt());
+
+        Optional<TypedValue> stored = resolveFromStore(code, extraKey, ctx, preferredTimeframe, asOf);
+        if (stored.isEmpty() && timeframe == null && preferredTimeframe != null) {
+            stored = resolveFromStore(code, extraKey, ctx, null, asOf);
+        }
+        if (stored.isPresent()) {
+            return stored;
         }
 
-        // 扩展值匹配（如 "IND.MACD.SIGNAL"）
-        if (indicator.getExtraValues() != null) {
-            BigDecimal extraValue = indicator.getExtraValues().get(indicatorCode);
-            if (extraValue != null) {
-                return Optional.of(TypedValue.ofNumber(extraValue));
-            }
+        return resolveFromCache(code, extraKey, ctx, timeframe, preferredTimeframe, asOf);
+    }
+
+    /**
+     * 触发时间（JVM时区）转换为UTC，与指标barTime的时间语义一致
+     */
+    private static LocalDateTime toUtc(LocalDateTime triggeredAt) {
+        if (triggeredAt == null) {
+            return LocalDateTime.now(ZoneOffset.UTC);
         }
+        return triggeredAt.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
 
+    /**
+     * 从多周期指标存储解析截止到asOf的值
+     */
+    private Optional<TypedValue> resolveFromStore(String code, String extraKey, DecisionContext ctx,
+                                                  String timeframe, LocalDateTime asOf) {
+        Optional<MultiTimeframeIndicatorStore.AsOfValue> stored =
+            multiTimeframeStore.find(ctx.getUserId(), ctx.getTradingPairId(), timeframe, code, asOf);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        BigDecimal value = extraKey == null ? stored.get().value() : stored.get().getValue(extraKey);
+        return value != null ? Optional.of(TypedValue.ofNumber(value)) : Optional.empty();
+    }
+
+    /**
+     * 从最新指标值缓存解析（如 "RSI" -> 主值，"MACD.SIGNAL" -> MACD的signal扩展值）
+     *
+     * <p>只接受周期、版本与订阅完全一致，且barTime在截止时间之前一根Bar以内的值；
+     * 周期或版本无法确定、缓存值过旧时返回空（由规则的nullable决定是否放行）
+     *
+     * @param timeframe 因子指定的周期
+     * @param preferredTimeframe 因子未指定周期时使用的快照周期
+     * @param asOf 截止时间，晚于该时间收盘或早于该时间一根Bar以上的值不使用
+     */
+    private Optional<TypedValue> resolveFromCache(String code, String extraKey, DecisionContext ctx,
+                                                  String timeframe, String preferredTimeframe, LocalDateTime asOf) {
+        String cacheTimeframe = timeframe != null ? timeframe : preferredTimeframe;
+        if (cacheTimeframe == null || asOf == null) {
+            return Optional.empty();
+        }
+        IndicatorSubscription subscription = findSubscription(ctx, cacheTimeframe, code);
+        if (subscription == null) {
+            return Optional.empty();
+        }
+        Optional<IndicatorValue> cached = latestIndicatorValueCache.findCached(ctx.getUserId(), ctx.getTradingPairId(),
+            cacheTimeframe, subscription.getIndicatorCode(), subscription.getIndicatorVersion());
+        if (cached.isEmpty()) {
+            return Optional.empty();
+        }
+
+        IndicatorValue value = cached.get();
+        LocalDateTime oldest = asOf.minus(LiveTa4jSeries.parseTimeframeToDuration(cacheTimeframe));
+        if (value.getBarTime() == null || value.getBarTime().isAfter(asOf) || value.getBarTime().isBefore(oldest)) {
+            return Optional.empty();
+        }
+        if (extraKey == null) {
+            return value.getValue() != null ? Optional.of(TypedValue.ofNumber(value.getValue())) : Optional.empty();
+        }
+        if (value.getExtraValues() != null) {
+            for (Map.Entry<String, BigDecimal> entry : value.getExtraValues().entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(extraKey) && entry.getValue() != null) {
+                    return Optional.of(TypedValue.ofNumber(entry.getValue()));
+                }
+            }
+        }
         return Optional.empty();
     }
-}
 
+    /**
+     * 查找用户在该周期订阅的指标（确定缓存查询使用的版本）
+     *
+     * @return 订阅，未订阅或订阅了多个版本（无法确定版本）时返回null
+     */
+    private IndicatorSubscription findSubscription(DecisionContext ctx, String timeframe, String code) {
+        IndicatorSubscription found = null;
+        for (IndicatorSubscription subscription
+                : subscriptionIndex.get(ctx.getUserId(), ctx.getTradingPairId(), timeframe)) {
+            if (!code.equalsIgnoreCase(subscription.getIndicatorCode())) {
+                continue;
+            }
+            if (found != null && !Objects.equals(found.getIndicatorVersion(), subscription.getIndicatorVersion())) {
+                log.debug("指标订阅了多个版本，缓存无法确定版本: userId={}, tradingPairId={}, timeframe={}, code={}",
+                    ctx.getUserId(), ctx.getTradingPairId(), timeframe, code);
+                return null;
+            }
+            found = subscription;
+        }
+        return found;
+    }
+}
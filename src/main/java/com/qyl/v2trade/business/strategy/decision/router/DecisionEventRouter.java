@@ -11,7 +11,9 @@ import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 决策事件路由器
@@ -81,40 +83,48 @@ public class DecisionEventRouter {
     /**
      * 处理指标计算完成事件
      * 
-     * <p>路由规则：根据tradingPairId查找所有订阅该指标的策略实例
+     * <p>路由规则：每根Bar一个事件，投递给条件中引用了该Bar指标（相同周期或未指定周期）
+     * 且该用户有指标结果的策略实例，每个实例决策一次
      * 
-     * @param event 指标计算完成事件
+     * @param event 指标计算完成事件（Bar级批量）
      */
     @Async("decisionEventExecutor")
     @EventListener
     public void handleIndicatorComputed(IndicatorComputedEvent event) {
-        log.debug("收到指标计算完成事件: tradingPairId={}, indicatorCode={}, barTime={}",
-            event.getTradingPairId(), event.getIndicatorCode(), event.getBarTime());
+        log.debug("收到指标计算完成事件: tradingPairId={}, timeframe={}, barTime={}, indicators={}",
+            event.getTradingPairId(), event.getTimeframe(), event.getBarTime(), event.getIndicators().size());
 
         try {
-            List<StrategyInstance> instances = instanceLocator.locateByTradingPairAndIndicator(
-                event.getTradingPairId(), event.getIndicatorCode()
-            );
-
-            if (instances.isEmpty()) {
-                log.debug("没有策略实例订阅该指标: tradingPairId={}, indicatorCode={}",
-                    event.getTradingPairId(), event.getIndicatorCode());
-                return;
+            Set<StrategyInstance> instances = new LinkedHashSet<>();
+            for (IndicatorComputedEvent.ComputedIndicator indicator : event.getIndicators()) {
+                instances.addAll(instanceLocator.locateByTradingPairAndIndicator(
+                    event.getTradingPairId(), indicator.indicatorCode(), event.getTimeframe()));
             }
 
-            // 为每个实例投递任务
+            // 为每个订阅了该Bar指标的实例投递一个任务
+            int routed = 0;
             for (StrategyInstance instance : instances) {
+                if (!event.hasIndicatorsForUser(instance.getLogicState().getUserId())) {
+                    continue;
+                }
                 InstanceKey instanceKey = InstanceKey.of(instance.getStrategyId(), instance.getTradingPairId());
                 Runnable task = taskFactory.createDecisionTask(instance, event);
                 stripedExecutor.submit(instanceKey, task);
+                routed++;
             }
 
-            log.debug("指标计算完成事件已路由: tradingPairId={}, indicatorCode={}, instanceCount={}",
-                event.getTradingPairId(), event.getIndicatorCode(), instances.size());
+            if (routed == 0) {
+                log.debug("没有策略实例订阅该Bar的指标: tradingPairId={}, timeframe={}",
+                    event.getTradingPairId(), event.getTimeframe());
+                return;
+            }
+
+            log.debug("指标计算完成事件已路由: tradingPairId={}, timeframe={}, barTime={}, instanceCount={}",
+                event.getTradingPairId(), event.getTimeframe(), event.getBarTime(), routed);
 
         } catch (Exception e) {
-            log.error("处理指标计算完成事件失败: tradingPairId={}, indicatorCode={}",
-                event.getTradingPairId(), event.getIndicatorCode(), e);
+            log.error("处理指标计算完成事件失败: tradingPairId={}, timeframe={}, barTime={}",
+                event.getTradingPairId(), event.getTimeframe(), event.getBarTime(), e);
             // 不抛异常，允许继续处理其他事件
         }
     }
@@ -132,6 +142,13 @@ public class DecisionEventRouter {
         log.debug("收到K线闭合事件: tradingPairId={}, timeframe={}, barCloseTime={}",
             event.tradingPairId(), event.timeframe(), event.barCloseTime());
 
+        // 修订Bar只修正历史序列，不触发实时决策
+        if (event.isAmendment()) {
+            log.debug("跳过修订K线闭合事件: tradingPairId={}, timeframe={}, barCloseTime={}, revision={}",
+                event.tradingPairId(), event.timeframe(), event.barCloseTime(), event.revision());
+            return;
+        }
+
         try {
             List<StrategyInstance> instances = instanceLocator.locateByTradingPair(event.tradingPairId());
 
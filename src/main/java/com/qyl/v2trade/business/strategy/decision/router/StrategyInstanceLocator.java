@@ -1,14 +1,26 @@
 package com.qyl.v2trade.business.strategy.decision.router;
 
 import com.qyl.v2trade.business.strategy.bootstrap.StrategyRuntimeRegistry;
+import com.qyl.v2trade.business.strategy.decision.event.StrategyParamChangedEvent;
+import com.qyl.v2trade.business.strategy.decision.logic.condition.ConditionEvaluator;
+import com.qyl.v2trade.business.strategy.decision.logic.condition.impl.IndicatorFactorKey;
 import com.qyl.v2trade.business.strategy.factory.model.StrategyInstance;
 import com.qyl.v2trade.business.strategy.factory.model.StrategyRuntime;
+import com.qyl.v2trade.business.strategy.loader.StrategyConfigLoader;
+import com.qyl.v2trade.business.strategy.loader.model.StrategyDecisionConfig;
+import com.qyl.v2trade.business.strategy.model.entity.StrategyParam;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 策略实例定位器
@@ -16,15 +28,101 @@ import java.util.List;
  * <p>职责：
  * <ul>
  *   <li>根据事件信息查找受影响的策略实例</li>
- *   <li>支持多种查找方式（按strategyId+tradingPairId、按tradingPairId等）</li>
+ *   <li>支持多种查找方式（按strategyId+tradingPairId、按tradingPairId、按tradingPairId+指标+周期）</li>
  * </ul>
+ * 
+ * <p>倒排索引（写时复制）：
+ * <ul>
+ *   <li>tradingPairId -> 策略实例</li>
+ *   <li>tradingPairId:指标编码:周期 -> 引用该指标的策略实例（从入场/出场条件的IND.因子收集，
+ *       未指定周期的因子登记为任意周期）</li>
+ * </ul>
+ * 由StrategyBootstrapper在策略启动/停止时维护，策略参数变更时重新收集指标引用；
+ * 查找无锁且只访问命中的实例，不遍历全部运行时
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class StrategyInstanceLocator {
 
+    /**
+     * 未指定周期的指标引用
+     */
+    private static final String ANY_TIMEFRAME = "*";
+
     private final StrategyRuntimeRegistry runtimeRegistry;
+    private final ConditionEvaluator conditionEvaluator;
+    private final StrategyConfigLoader configLoader;
+
+    /**
+     * strategyId -> 登记信息（持有this锁修改）
+     */
+    private final Map<Long, Registration> registrations = new HashMap<>();
+
+    /**
+     * tradingPairId -> 策略实例（不可变，整体替换）
+     */
+    private volatile Map<Long, List<StrategyInstance>> instancesByPair = Map.of();
+
+    /**
+     * tradingPairId:指标编码:周期 -> 策略实例（不可变，整体替换）
+     */
+    private volatile Map<String, List<StrategyInstance>> instancesByIndicator = Map.of();
+
+    /**
+     * 登记策略运行时（策略启动时调用，重复登记时替换）
+     * 
+     * @param runtime 策略运行时
+     */
+    public void register(StrategyRuntime runtime) {
+        Set<String> indicatorRefs = collectIndicatorRefs(runtime.getParam());
+        synchronized (this) {
+            registrations.put(runtime.getStrategyId(), new Registration(runtime.getAllInstances(), indicatorRefs));
+            rebuildIndexes();
+        }
+        log.info("策略实例已登记到路由索引: strategyId={}, instanceCount={}, indicatorRefs={}",
+            runtime.getStrategyId(), runtime.getInstanceCount(), indicatorRefs);
+    }
+
+    /**
+     * 注销策略运行时（策略停止时调用）
+     * 
+     * @param strategyId 策略ID
+     */
+    public void unregister(Long strategyId) {
+        synchronized (this) {
+            if (registrations.remove(strategyId) == null) {
+                return;
+            }
+            rebuildIndexes();
+        }
+        log.info("策略实例已从路由索引移除: strategyId={}", strategyId);
+    }
+
+    /**
+     * 策略参数变更（事务提交后）：重新收集运行中策略的指标引用
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStrategyParamChanged(StrategyParamChangedEvent event) {
+        Long strategyId = event.getStrategyId();
+        synchronized (this) {
+            if (!registrations.containsKey(strategyId)) {
+                return;
+            }
+        }
+
+        StrategyDecisionConfig config = configLoader.loadDecisionConfig(strategyId);
+        Set<String> indicatorRefs = collectIndicatorRefs(config != null ? config.getParam() : null);
+        synchronized (this) {
+            Registration registration = registrations.get(strategyId);
+            if (registration == null) {
+                return;
+            }
+            registrations.put(strategyId, new Registration(registration.instances(), indicatorRefs));
+            rebuildIndexes();
+        }
+        log.info("策略指标引用已更新: strategyId={}, indicatorRefs={}", strategyId, indicatorRefs);
+    }
 
     /**
      * 根据策略ID和交易对ID查找策略实例
@@ -58,46 +156,111 @@ public class StrategyInstanceLocator {
     /**
      * 根据交易对ID查找所有策略实例
      * 
-     * <p>用于BarClosedEvent和IndicatorComputedEvent
+     * <p>用于BarClosedEvent
      * 
      * @param tradingPairId 交易对ID
-     * @return 策略实例列表
+     * @return 策略实例列表（不可修改）
      */
     public List<StrategyInstance> locateByTradingPair(Long tradingPairId) {
         if (tradingPairId == null) {
-            return new ArrayList<>();
-        }
-
-        List<StrategyInstance> instances = new ArrayList<>();
-
-        // 遍历所有运行时，查找包含该交易对的实例
-        for (StrategyRuntime runtime : runtimeRegistry.getAllRuntimes()) {
-            StrategyInstance instance = runtime.getInstance(tradingPairId);
-            if (instance != null) {
-                instances.add(instance);
-            }
+            return List.of();
         }
 
+        List<StrategyInstance> instances = instancesByPair.getOrDefault(tradingPairId, List.of());
         log.debug("找到策略实例: tradingPairId={}, count={}", tradingPairId, instances.size());
         return instances;
     }
 
     /**
-     * 根据交易对ID和指标代码查找订阅该指标的策略实例
-     * 
-     * <p>用于IndicatorComputedEvent
+     * 根据交易对ID、指标代码和周期查找引用该指标的策略实例
      * 
-     * <p>注意：当前实现返回所有在该交易对上运行的策略实例
-     * 后续可以优化为只返回订阅了该指标的策略实例
+     * <p>用于IndicatorComputedEvent：条件中引用了该周期（IND.{code}@{timeframe}）
+     * 或未指定周期（IND.{code}）的策略实例
      * 
      * @param tradingPairId 交易对ID
-     * @param indicatorCode 指标代码（可选，用于未来优化）
-     * @return 策略实例列表
+     * @param indicatorCode 指标代码（不区分大小写）
+     * @param timeframe 周期
+     * @return 策略实例列表（不可修改）
      */
-    public List<StrategyInstance> locateByTradingPairAndIndicator(Long tradingPairId, String indicatorCode) {
-        // 当前实现：返回所有在该交易对上运行的策略实例
-        // 后续优化：可以查询strategy_signal_subscription表，只返回订阅了该指标的策略
-        return locateByTradingPair(tradingPairId);
+    public List<StrategyInstance> locateByTradingPairAndIndicator(Long tradingPairId, String indicatorCode,
+                                                                  String timeframe) {
+        if (tradingPairId == null || indicatorCode == null) {
+            return List.of();
+        }
+
+        Map<String, List<StrategyInstance>> index = instancesByIndicator;
+        String code = normalize(indicatorCode);
+        List<StrategyInstance> anyTimeframe = index.getOrDefault(buildIndicatorKey(tradingPairId, code, ANY_TIMEFRAME), List.of());
+        if (timeframe == null) {
+            return anyTimeframe;
+        }
+        List<StrategyInstance> sameTimeframe = index.getOrDefault(buildIndicatorKey(tradingPairId, code, timeframe), List.of());
+        if (anyTimeframe.isEmpty()) {
+            return sameTimeframe;
+        }
+        if (sameTimeframe.isEmpty()) {
+            return anyTimeframe;
+        }
+        Set<StrategyInstance> merged = new LinkedHashSet<>(sameTimeframe);
+        merged.addAll(anyTimeframe);
+        return List.copyOf(merged);
     }
-}
 
+    /**
+     * 收集入场/出场条件中引用的指标（编码:周期）
+     */
+    private Set<String> collectIndicatorRefs(StrategyParam param) {
+        Set<String> refs = new LinkedHashSet<>();
+        if (param == null) {
+            return refs;
+        }
+        List<String> factorKeys = new ArrayList<>(conditionEvaluator.collectFactorKeys(param.getEntryCondition()));
+        factorKeys.addAll(conditionEvaluator.collectFactorKeys(param.getExitCondition()));
+        for (String factorKey : factorKeys) {
+            IndicatorFactorKey key = IndicatorFactorKey.parse(factorKey);
+            if (key != null) {
+                refs.add(normalize(key.indicatorCode()) + ":"
+                    + (key.timeframe() != null ? key.timeframe() : ANY_TIMEFRAME));
+            }
+        }
+        return refs;
+    }
+
+    /**
+     * 从登记信息重建索引（持有this锁调用）
+     */
+    private void rebuildIndexes() {
+        Map<Long, List<StrategyInstance>> byPair = new HashMap<>();
+        Map<String, List<StrategyInstance>> byIndicator = new HashMap<>();
+        for (Registration registration : registrations.values()) {
+            for (StrategyInstance instance : registration.instances()) {
+                Long tradingPairId = instance.getTradingPairId();
+                byPair.computeIfAbsent(tradingPairId, k -> new ArrayList<>()).add(instance);
+                for (String ref : registration.indicatorRefs()) {
+                    byIndicator.computeIfAbsent(tradingPairId + ":" + ref, k -> new ArrayList<>()).add(instance);
+                }
+            }
+        }
+        byPair.replaceAll((k, v) -> List.copyOf(v));
+        byIndicator.replaceAll((k, v) -> List.copyOf(v));
+        instancesByPair = Map.copyOf(byPair);
+        instancesByIndicator = Map.copyOf(byIndicator);
+    }
+
+    private String buildIndicatorKey(Long tradingPairId, String indicatorCode, String timeframe) {
+        return tradingPairId + ":" + indicatorCode + ":" + timeframe;
+    }
+
+    private String normalize(String indicatorCode) {
+        return indicatorCode.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 策略登记信息
+     * 
+     * @param instances 策略实例
+     * @param indicatorRefs 引用的指标（编码:周期，未指定周期为编码:*）
+     */
+    private record Registration(List<StrategyInstance> instances, Set<String> indicatorRefs) {
+    }
+}
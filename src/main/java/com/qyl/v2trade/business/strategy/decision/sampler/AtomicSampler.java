@@ -5,16 +5,23 @@ import com.qyl.v2trade.business.strategy.decision.context.DecisionContext;
 import com.qyl.v2trade.business.strategy.decision.context.snapshot.*;
 import com.qyl.v2trade.business.strategy.decision.event.*;
 import com.qyl.v2trade.business.strategy.factory.model.StrategyInstance;
+import com.qyl.v2trade.business.strategy.loader.StrategyDecisionConfigCache;
+import com.qyl.v2trade.business.strategy.loader.model.StrategyDecisionConfig;
 import com.qyl.v2trade.business.strategy.mapper.*;
 import com.qyl.v2trade.business.strategy.model.entity.*;
 import com.qyl.v2trade.common.constants.DecisionTriggerTypeEnum;
 import com.qyl.v2trade.indicator.domain.event.BarClosedEvent;
-import com.qyl.v2trade.indicator.repository.IndicatorValueRepository;
+import com.qyl.v2trade.indicator.persistence.MultiTimeframeIndicatorStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * 原子采样器
@@ -29,7 +36,8 @@ import java.time.LocalDateTime;
  * <p>阶段2约束：
  * <ul>
  *   <li>只读操作，不修改任何数据</li>
- *   <li>不缓存数据，每次决策都重新采集</li>
+ *   <li>状态、信号每次决策都重新采集；策略定义和参数读取内存中的决策配置快照（随配置变更刷新）</li>
+ *   <li>指标值按截止时间从多周期指标存储读取（内存），不读取截止时间之后收盘的Bar</li>
  *   <li>允许部分数据为空（在GuardChain中校验）</li>
  * </ul>
  */
@@ -38,11 +46,10 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class AtomicSampler {
 
-    private final StrategyParamMapper paramMapper;
+    private final StrategyDecisionConfigCache configCache;
     private final SignalIntentMapper signalIntentMapper;
-    private final StrategyDefinitionMapper definitionMapper;
-    private final IndicatorValueRepository indicatorValueRepository;
     private final PriceSnapshotLoader priceSnapshotLoader;
+    private final MultiTimeframeIndicatorStore multiTimeframeStore;
 
     /**
      * 采样决策上下文（信号触发）
@@ -69,8 +76,8 @@ public class AtomicSampler {
         // 4. 读取信号快照（从事件中获取，但需要验证时效）
         SignalSnapshot signal = buildSignalSnapshot(event);
 
-        // 5. 读取指标快照（如果有订阅）
-        IndicatorSnapshot indicator = loadIndicatorSnapshot(instance, null);
+        // 5. 读取指标快照（如果有订阅，截止到采样时点；指标barTime为UTC，截止时间按UTC取当前时间）
+        IndicatorSnapshot indicator = loadIndicatorSnapshot(instance, null, LocalDateTime.now(ZoneOffset.UTC));
 
         // 6. K线快照为空（信号触发不需要K线）
 
@@ -102,8 +109,8 @@ public class AtomicSampler {
      * @return 决策上下文
      */
     public DecisionContext sample(StrategyInstance instance, IndicatorComputedEvent event) {
-        log.debug("开始采样决策上下文（指标触发）: strategyId={}, tradingPairId={}, indicatorCode={}",
-            instance.getStrategyId(), instance.getTradingPairId(), event.getIndicatorCode());
+        log.debug("开始采样决策上下文（指标触发）: strategyId={}, tradingPairId={}, timeframe={}, barTime={}",
+            instance.getStrategyId(), instance.getTradingPairId(), event.getTimeframe(), event.getBarTime());
 
         LocalDateTime now = LocalDateTime.now();
 
@@ -119,8 +126,8 @@ public class AtomicSampler {
         // 4. 读取信号快照（LATEST_ONLY）
         SignalSnapshot signal = loadSignalSnapshot(instance);
 
-        // 5. 读取指标快照（从事件中构建）
-        IndicatorSnapshot indicator = buildIndicatorSnapshot(event);
+        // 5. 读取指标快照（从事件中构建，包含该Bar该用户的全部指标）
+        IndicatorSnapshot indicator = buildIndicatorSnapshot(instance, event);
 
         // 6. K线快照为空
 
@@ -169,8 +176,8 @@ public class AtomicSampler {
         // 4. 读取信号快照
         SignalSnapshot signal = loadSignalSnapshot(instance);
 
-        // 5. 读取指标快照（如果有订阅）
-        IndicatorSnapshot indicator = loadIndicatorSnapshot(instance, event.timeframe());
+        // 5. 读取指标快照（如果有订阅，截止到该Bar收盘时间）
+        IndicatorSnapshot indicator = loadIndicatorSnapshot(instance, event.timeframe(), event.barCloseTime());
 
         // 6. 构建K线快照
         BarSnapshot bar = buildBarSnapshot(event);
@@ -220,8 +227,8 @@ public class AtomicSampler {
         // 4. 读取信号快照
         SignalSnapshot signal = loadSignalSnapshot(instance);
 
-        // 5. 读取指标快照（如果有订阅）
-        IndicatorSnapshot indicator = loadIndicatorSnapshot(instance, null);
+        // 5. 读取指标快照（如果有订阅，截止到采样时点；指标barTime为UTC，截止时间按UTC取当前时间）
+        IndicatorSnapshot indicator = loadIndicatorSnapshot(instance, null, LocalDateTime.now(ZoneOffset.UTC));
 
         // 6. K线快照为空
 
@@ -275,16 +282,11 @@ public class AtomicSampler {
     }
 
     /**
-     * 加载策略参数快照
+     * 加载策略参数快照（读取内存中的决策配置快照，不查询数据库）
      */
     private ParamSnapshot loadParam(StrategyInstance instance) {
-        // 从StrategyRuntime中获取（已在阶段1加载）
-        // 这里需要从数据库重新读取，确保是最新的
-        StrategyParam param = paramMapper.selectOne(
-            new LambdaQueryWrapper<StrategyParam>()
-                .eq(StrategyParam::getStrategyId, instance.getStrategyId())
-                .last("LIMIT 1")
-        );
+        StrategyDecisionConfig config = configCache.get(instance.getStrategyId());
+        StrategyParam param = config != null ? config.getParam() : null;
 
         if (param == null) {
             log.warn("策略参数不存在: strategyId={}", instance.getStrategyId());
@@ -292,6 +294,7 @@ public class AtomicSampler {
         }
 
         return ParamSnapshot.builder()
+            .paramVersion(config.getParamVersion())
             .initialCapital(param.getInitialCapital())
             .baseOrderRatio(param.getBaseOrderRatio())
             .takeProfitRatio(param.getTakeProfitRatio())
@@ -306,12 +309,12 @@ public class AtomicSampler {
      * 加载策略类型
      */
     private String loadStrategyType(Long strategyId) {
-        StrategyDefinition definition = definitionMapper.selectById(strategyId);
-        if (definition == null) {
+        StrategyDecisionConfig config = configCache.get(strategyId);
+        if (config == null) {
             log.warn("策略定义不存在: strategyId={}", strategyId);
             return null;
         }
-        return definition.getStrategyType();
+        return config.getStrategyType();
     }
 
     /**
@@ -352,34 +355,109 @@ public class AtomicSampler {
             .signalId(event.getSignalId())
             .intentDirection(event.getIntentDirection())
             .intentStatus("ACTIVE")  // 事件触发时肯定是ACTIVE
-            .generatedAt(null)  // 事件中没有，需要从数据库查询
+            .generatedAt(event.getGeneratedAt())
             .receivedAt(event.getActivatedAt())
-            .expiredAt(null)
+            .expiredAt(event.getExpiredAt())
+            .build();
+    }
+
+    /**
+     * 加载指标快照（从多周期指标存储读取截止到asOf的最新值，不查询数据库）
+     *
+     * <p>主值取指定周期（为空时为所有周期）中barTime最新的指标，优先单值指标；
+     * 与主值同周期同Bar的指标值放入barValues，其他周期的指标由IND.因子按asOfTime查询
+     *
+     * @param timeframe 优先的周期（可选）
+     * @param asOf 截止时间
+     */
+    private IndicatorSnapshot loadIndicatorSnapshot(StrategyInstance instance, String timeframe, LocalDateTime asOf) {
+        if (instance.getLogicState() == null || instance.getLogicState().getUserId() == null) {
+            return null;
+        }
+        List<MultiTimeframeIndicatorStore.AsOfValue> values = multiTimeframeStore.snapshot(
+            instance.getLogicState().getUserId(), instance.getTradingPairId(), asOf);
+
+        MultiTimeframeIndicatorStore.AsOfValue primary = null;
+        for (MultiTimeframeIndicatorStore.AsOfValue value : values) {
+            if (timeframe != null && !timeframe.equals(value.timeframe())) {
+                continue;
+            }
+            if (primary == null || value.barTime().isAfter(primary.barTime())
+                || (value.barTime().equals(primary.barTime()) && primary.value() == null && value.value() != null)) {
+                primary = value;
+            }
+        }
+        if (primary == null) {
+            return null;
+        }
+
+        Map<String, BigDecimal> barValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (MultiTimeframeIndicatorStore.AsOfValue value : values) {
+            if (value.timeframe().equals(primary.timeframe()) && value.barTime().equals(primary.barTime())) {
+                putBarValues(barValues, value.indicatorCode(), value.value(), value.values());
+            }
+        }
+
+        return IndicatorSnapshot.builder()
+            .indicatorCode(primary.indicatorCode())
+            .indicatorVersion(primary.indicatorVersion())
+            .timeframe(primary.timeframe())
+            .barTime(primary.barTime())
+            .value(primary.value())
+            .extraValues(primary.value() == null ? primary.values() : null)
+            .barValues(barValues)
+            .asOfTime(asOf)
+            .dataQuality("OK")
+            .computedAt(primary.computedAt())
             .build();
     }
 
     /**
-     * 加载指标快照（最新值）
+     * 放入同一根Bar的指标值：单值指标key为指标代码，多值指标key为指标代码.扩展键
      */
-    private IndicatorSnapshot loadIndicatorSnapshot(StrategyInstance instance, String timeframe) {
-        // TODO: 需要知道策略订阅了哪些指标
-        // 当前实现：返回null，后续在GuardChain中校验
-        // 如果是指标触发的事件，指标值会从事件中获取
-        return null;
+    private void putBarValues(Map<String, BigDecimal> barValues, String indicatorCode,
+                              BigDecimal value, Map<String, BigDecimal> indicatorValues) {
+        if (value != null) {
+            barValues.putIfAbsent(indicatorCode, value);
+        } else if (indicatorValues != null) {
+            for (Map.Entry<String, BigDecimal> entry : indicatorValues.entrySet()) {
+                barValues.putIfAbsent(indicatorCode + "." + entry.getKey(), entry.getValue());
+            }
+        }
     }
 
     /**
      * 从事件构建指标快照
+     *
+     * <p>主值取该用户第一个单值指标（没有单值指标时取第一个指标的扩展值）；
+     * 该Bar该用户的全部指标值放入barValues，条件因子可以引用同一根Bar的任意指标
      */
-    private IndicatorSnapshot buildIndicatorSnapshot(IndicatorComputedEvent event) {
+    private IndicatorSnapshot buildIndicatorSnapshot(StrategyInstance instance, IndicatorComputedEvent event) {
+        List<IndicatorComputedEvent.ComputedIndicator> indicators =
+            event.getIndicatorsForUser(instance.getLogicState().getUserId());
+        if (indicators.isEmpty()) {
+            return null;
+        }
+
+        IndicatorComputedEvent.ComputedIndicator primary = indicators.get(0);
+        Map<String, BigDecimal> barValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (IndicatorComputedEvent.ComputedIndicator indicator : indicators) {
+            putBarValues(barValues, indicator.indicatorCode(), indicator.value(), indicator.indicatorValues());
+            if (indicator.value() != null && primary.value() == null) {
+                primary = indicator;
+            }
+        }
+
         return IndicatorSnapshot.builder()
-            .indicatorCode(event.getIndicatorCode())
-            .indicatorVersion(event.getIndicatorVersion())
-            .timeframe(null)  // 事件中没有，需要从数据库查询
+            .indicatorCode(primary.indicatorCode())
+            .indicatorVersion(primary.indicatorVersion())
+            .timeframe(event.getTimeframe())
             .barTime(event.getBarTime())
-            .value(null)  // 事件中是Map，需要提取主值
-            .extraValues(event.getIndicatorValues())
-            .dataQuality(null)
+            .value(primary.value())
+            .extraValues(primary.value() == null ? primary.indicatorValues() : null)
+            .barValues(barValues)
+            .asOfTime(event.getBarTime())
+            .dataQuality("OK")
             .computedAt(event.getComputedAt())
             .build();
     }
@@ -2,6 +2,7 @@ package com.qyl.v2trade.business.strategy.loader;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.qyl.v2trade.business.strategy.loader.model.StrategyConfigSnapshot;
+import com.qyl.v2trade.business.strategy.loader.model.StrategyDecisionConfig;
 import com.qyl.v2trade.business.strategy.mapper.StrategyDefinitionMapper;
 import com.qyl.v2trade.business.strategy.mapper.StrategyParamMapper;
 import com.qyl.v2trade.business.strategy.mapper.StrategySignalSubscriptionMapper;
@@ -138,5 +139,36 @@ public class StrategyConfigLoader {
             throw new RuntimeException("加载策略配置失败: strategyId=" + strategyId, e);
         }
     }
+
+    /**
+     * 加载策略决策配置快照（策略定义 + 策略参数）
+     * 
+     * <p>不要求策略启用和交易对完整（运行中的策略被禁用时仍需读取其配置完成当前决策），
+     * 用于AtomicSampler的内存配置缓存
+     * 
+     * @param strategyId 策略ID
+     * @return 决策配置快照，如果策略定义不存在返回null
+     */
+    public StrategyDecisionConfig loadDecisionConfig(Long strategyId) {
+        StrategyDefinition definition = definitionMapper.selectById(strategyId);
+        if (definition == null) {
+            log.warn("策略定义不存在: strategyId={}", strategyId);
+            return null;
+        }
+
+        StrategyParam param = paramMapper.selectOne(
+            new LambdaQueryWrapper<StrategyParam>()
+                .eq(StrategyParam::getStrategyId, strategyId)
+                .last("LIMIT 1")
+        );
+
+        return StrategyDecisionConfig.builder()
+            .strategyId(strategyId)
+            .definition(definition)
+            .param(param)
+            .definitionVersion(definition.getUpdatedAt())
+            .paramVersion(param != null ? param.getUpdatedAt() : null)
+            .build();
+    }
 }
 
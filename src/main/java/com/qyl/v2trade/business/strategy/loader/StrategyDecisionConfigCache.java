@@ -0,0 +1,178 @@
+package com.qyl.v2trade.business.strategy.loader;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.qyl.v2trade.business.strategy.decision.event.StrategyDefinitionChangedEvent;
+import com.qyl.v2trade.business.strategy.decision.event.StrategyParamChangedEvent;
+import com.qyl.v2trade.business.strategy.loader.model.StrategyDecisionConfig;
+import com.qyl.v2trade.business.strategy.mapper.StrategyDefinitionMapper;
+import com.qyl.v2trade.business.strategy.mapper.StrategyParamMapper;
+import com.qyl.v2trade.business.strategy.model.entity.StrategyDefinition;
+import com.qyl.v2trade.business.strategy.model.entity.StrategyParam;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 策略决策配置缓存
+ * 
+ * <p>职责：
+ * <ul>
+ *   <li>按策略保存StrategyConfigLoader构建的决策配置快照（策略定义 + 策略参数），决策采样只读内存</li>
+ *   <li>策略参数/定义变更事件（事务提交后）触发重新加载</li>
+ *   <li>定时比对数据库中的updated_at，重新加载不一致的快照（覆盖直接修改数据库、其他节点修改的情况）</li>
+ * </ul>
+ * 
+ * <p>首次读取时加载；数据库读取不在ConcurrentHashMap的compute中执行，不阻塞同一分段上其他策略的读取。
+ * 每次重新加载先推进该策略的版本号，加载完成后只在版本号未变时安装（compute），
+ * 事务提交前开始的加载不会覆盖提交后的重新加载结果
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StrategyDecisionConfigCache {
+
+    private final StrategyConfigLoader configLoader;
+    private final StrategyDefinitionMapper definitionMapper;
+    private final StrategyParamMapper paramMapper;
+
+    /**
+     * strategyId -> 决策配置快照
+     */
+    private final Map<Long, StrategyDecisionConfig> configs = new ConcurrentHashMap<>();
+
+    /**
+     * strategyId -> 版本号（每次重新加载推进，加载结果只在版本号未变时安装）
+     */
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * 获取策略决策配置快照（未缓存时从数据库加载）
+     * 
+     * @param strategyId 策略ID
+     * @return 决策配置快照，策略定义不存在返回null
+     */
+    public StrategyDecisionConfig get(Long strategyId) {
+        if (strategyId == null) {
+            return null;
+        }
+        AtomicLong generation = generation(strategyId);
+        while (true) {
+            StrategyDecisionConfig config = configs.get(strategyId);
+            if (config != null) {
+                return config;
+            }
+            long loadGeneration = generation.get();
+            StrategyDecisionConfig loaded = configLoader.loadDecisionConfig(strategyId);
+            if (loaded == null) {
+                return null;
+            }
+            // 加载期间有变更事件（版本号已推进）时丢弃结果重新加载，避免缓存提交前的快照
+            StrategyDecisionConfig installed = configs.compute(strategyId, (id, current) ->
+                current != null ? current : generation.get() == loadGeneration ? loaded : null);
+            if (installed != null) {
+                return installed;
+            }
+        }
+    }
+
+    /**
+     * 策略参数变更（事务提交后）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStrategyParamChanged(StrategyParamChangedEvent event) {
+        reload(event.getStrategyId());
+    }
+
+    /**
+     * 策略定义变更（事务提交后）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStrategyDefinitionChanged(StrategyDefinitionChangedEvent event) {
+        reload(event.getStrategyId());
+    }
+
+    /**
+     * 重新加载已缓存的快照（未缓存的策略不加载，首次读取时再加载）
+     * 
+     * @param strategyId 策略ID
+     */
+    public void reload(Long strategyId) {
+        if (strategyId == null) {
+            return;
+        }
+        AtomicLong generation = generation(strategyId);
+        long reloadGeneration = generation.incrementAndGet();
+        // 在key的锁内检查是否已缓存：与get的安装串行，推进版本号之后进行中的首次加载不会再安装
+        if (configs.computeIfPresent(strategyId, (id, current) -> current) == null) {
+            return;
+        }
+        StrategyDecisionConfig loaded = configLoader.loadDecisionConfig(strategyId);
+        // 之后开始的重新加载（版本号已推进）优先；策略定义已删除时loaded为null，移除快照
+        configs.computeIfPresent(strategyId, (id, current) ->
+            generation.get() == reloadGeneration ? loaded : current);
+        log.debug("策略决策配置已刷新: strategyId={}", strategyId);
+    }
+
+    private AtomicLong generation(Long strategyId) {
+        return generations.computeIfAbsent(strategyId, id -> new AtomicLong());
+    }
+
+    /**
+     * 定时比对版本（strategy_definition.updated_at、strategy_param.updated_at）
+     */
+    @Scheduled(fixedDelay = 30_000L, initialDelay = 30_000L)
+    public void verifyVersions() {
+        if (configs.isEmpty()) {
+            return;
+        }
+        List<Long> strategyIds = new ArrayList<>(configs.keySet());
+
+        try {
+            Map<Long, LocalDateTime> definitionVersions = new HashMap<>();
+            for (StrategyDefinition definition : definitionMapper.selectList(
+                    new LambdaQueryWrapper<StrategyDefinition>()
+                        .select(StrategyDefinition::getId, StrategyDefinition::getUpdatedAt)
+                        .in(StrategyDefinition::getId, strategyIds))) {
+                definitionVersions.put(definition.getId(), definition.getUpdatedAt());
+            }
+            Map<Long, LocalDateTime> paramVersions = new HashMap<>();
+            for (StrategyParam param : paramMapper.selectList(
+                    new LambdaQueryWrapper<StrategyParam>()
+                        .select(StrategyParam::getStrategyId, StrategyParam::getUpdatedAt)
+                        .in(StrategyParam::getStrategyId, strategyIds))) {
+                paramVersions.put(param.getStrategyId(), param.getUpdatedAt());
+            }
+
+            int reloaded = 0;
+            for (Long strategyId : strategyIds) {
+                StrategyDecisionConfig config = configs.get(strategyId);
+                if (config == null) {
+                    continue;
+                }
+                if (!definitionVersions.containsKey(strategyId)) {
+                    // 策略定义已删除
+                    configs.remove(strategyId, config);
+                    reloaded++;
+                } else if (!config.isVersion(definitionVersions.get(strategyId), paramVersions.get(strategyId))) {
+                    reload(strategyId);
+                    reloaded++;
+                }
+            }
+            if (reloaded > 0) {
+                log.info("策略决策配置版本比对完成: cached={}, reloaded={}", strategyIds.size(), reloaded);
+            }
+        } catch (Exception e) {
+            log.error("策略决策配置版本比对失败", e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.qyl.v2trade.business.strategy.loader.model;
+
+import com.qyl.v2trade.business.strategy.model.entity.StrategyDefinition;
+import com.qyl.v2trade.business.strategy.model.entity.StrategyParam;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 策略决策配置快照（不可变对象）
+ * 
+ * <p>职责：
+ * <ul>
+ *   <li>保存决策采样需要的策略定义和策略参数</li>
+ *   <li>记录加载时的版本（updated_at），用于与数据库比对</li>
+ * </ul>
+ * 
+ * <p>definition、param只读，不得修改
+ */
+@Getter
+@Builder
+public class StrategyDecisionConfig implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 策略ID
+     */
+    private final Long strategyId;
+
+    /**
+     * 策略定义
+     */
+    private final StrategyDefinition definition;
+
+    /**
+     * 策略参数（可能为null：参数尚未配置）
+     */
+    private final StrategyParam param;
+
+    /**
+     * 策略定义版本（strategy_definition.updated_at）
+     */
+    private final LocalDateTime definitionVersion;
+
+    /**
+     * 策略参数版本（strategy_param.updated_at）
+     */
+    private final LocalDateTime paramVersion;
+
+    /**
+     * 获取策略类型
+     * 
+     * @return 策略类型
+     */
+    public String getStrategyType() {
+        return definition != null ? definition.getStrategyType() : null;
+    }
+
+    /**
+     * 判断版本是否与数据库一致
+     * 
+     * @param currentDefinitionVersion 数据库中的策略定义版本
+     * @param currentParamVersion 数据库中的策略参数版本
+     * @return true如果一致
+     */
+    public boolean isVersion(LocalDateTime currentDefinitionVersion, LocalDateTime currentParamVersion) {
+        return Objects.equals(definitionVersion, currentDefinitionVersion)
+            && Objects.equals(paramVersion, currentParamVersion);
+    }
+}
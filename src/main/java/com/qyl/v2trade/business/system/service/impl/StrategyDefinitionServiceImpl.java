@@ -2,6 +2,7 @@ package com.qyl.v2trade.business.system.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.qyl.v2trade.business.strategy.decision.event.StrategyDefinitionChangedEvent;
 import com.qyl.v2trade.business.strategy.mapper.StrategyDefinitionMapper;
 import com.qyl.v2trade.business.system.model.dto.StrategyCreateRequest;
 import com.qyl.v2trade.business.system.model.dto.*;
@@ -24,6 +25,7 @@ import com.qyl.v2trade.exception.BusinessException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +40,9 @@ public class StrategyDefinitionServiceImpl extends ServiceImpl<StrategyDefinitio
 
     private static final Logger logger = LoggerFactory.getLogger(StrategyDefinitionServiceImpl.class);
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public List<StrategyDefinition> listByUserId(Long userId) {
         logger.debug("查询用户策略定义列表: userId={}", userId);
@@ -145,6 +150,7 @@ public class StrategyDefinitionServiceImpl extends ServiceImpl<StrategyDefinitio
         }
 
         updateById(strategy);
+        eventPublisher.publishEvent(new StrategyDefinitionChangedEvent(this, userId, strategyId, false));
         
         logger.info("策略定义更新成功: strategyId={}", strategyId);
         return strategy;
@@ -168,6 +174,7 @@ public class StrategyDefinitionServiceImpl extends ServiceImpl<StrategyDefinitio
         // TODO: 检查是否有关联的参数、交易对、订阅等，如果有则不允许删除或级联删除
         // 这里先简单实现物理删除
         removeById(strategyId);
+        eventPublisher.publishEvent(new StrategyDefinitionChangedEvent(this, userId, strategyId, true));
         
         logger.info("策略定义删除成功: strategyId={}", strategyId);
     }
@@ -2,6 +2,7 @@ package com.qyl.v2trade.business.system.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.qyl.v2trade.business.strategy.decision.event.StrategyParamChangedEvent;
 import com.qyl.v2trade.business.strategy.mapper.StrategyParamMapper;
 import com.qyl.v2trade.business.strategy.model.entity.StrategyParam;
 import com.qyl.v2trade.business.strategy.service.StrategyDefinitionService;
@@ -10,6 +11,7 @@ import com.qyl.v2trade.exception.BusinessException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +31,9 @@ public class StrategyParamServiceImpl extends ServiceImpl<StrategyParamMapper, S
     @Lazy
     private StrategyDefinitionService strategyDefinitionService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     public StrategyParam getByStrategyId(Long strategyId) {
         logger.debug("查询策略参数: strategyId={}", strategyId);
@@ -101,6 +106,8 @@ public class StrategyParamServiceImpl extends ServiceImpl<StrategyParamMapper, S
             logger.info("策略参数更新成功: paramId={}", param.getId());
         }
 
+        eventPublisher.publishEvent(new StrategyParamChangedEvent(this, userId, strategyId, false));
+
         return param;
     }
 
@@ -120,6 +127,7 @@ public class StrategyParamServiceImpl extends ServiceImpl<StrategyParamMapper, S
         }
 
         removeById(param.getId());
+        eventPublisher.publishEvent(new StrategyParamChangedEvent(this, userId, strategyId, true));
         
         logger.info("策略参数删除成功: strategyId={}", strategyId);
     }
@@ -0,0 +1,171 @@
+package com.qyl.v2trade.common.job;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步任务（运行时状态）
+ *
+ * <p>一个任务拆成多个相互独立的子任务在{@link AsyncJobService}的ForkJoinPool上并行执行，
+ * 子任务结束时记录完成/跳过/失败；子类只增加各自的业务计数器并填充进度快照
+ *
+ * <p>线程安全：计数器使用原子类，状态字段使用volatile
+ *
+ * @param <S> 进度快照类型
+ * @author qyl
+ */
+public abstract class AsyncJob<S extends AsyncJobStatus> {
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        /**
+         * 执行中
+         */
+        RUNNING,
+        /**
+         * 已完成
+         */
+        COMPLETED,
+        /**
+         * 已取消
+         */
+        CANCELLED,
+        /**
+         * 部分子任务失败
+         */
+        FAILED
+    }
+
+    private final String jobId;
+    private final long startTime;
+    private final long endTime;
+    private final int totalTasks;
+    private final long submittedAt;
+
+    private volatile Status status = Status.RUNNING;
+    private volatile boolean cancelRequested;
+    private volatile long finishedAt;
+    private volatile String lastError;
+
+    private final AtomicInteger completedTasks = new AtomicInteger();
+    private final AtomicInteger skippedTasks = new AtomicInteger();
+    private final AtomicInteger failedTasks = new AtomicInteger();
+
+    protected AsyncJob(String jobId, long startTime, long endTime, int totalTasks) {
+        this.jobId = jobId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.totalTasks = totalTasks;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 记录一个子任务完成
+     */
+    public void recordTaskCompleted() {
+        completedTasks.incrementAndGet();
+    }
+
+    /**
+     * 记录一个子任务因取消而跳过（或中途停止）
+     */
+    public void recordTaskSkipped() {
+        skippedTasks.incrementAndGet();
+    }
+
+    /**
+     * 记录一个子任务失败
+     *
+     * @param error 错误信息
+     */
+    public void recordTaskFailed(String error) {
+        failedTasks.incrementAndGet();
+        lastError = error;
+    }
+
+    /**
+     * 请求取消（未开始的子任务跳过，执行中的子任务由子类决定何时停止）
+     *
+     * @return 如果任务仍在执行返回true
+     */
+    public boolean requestCancel() {
+        if (status != Status.RUNNING) {
+            return false;
+        }
+        cancelRequested = true;
+        return true;
+    }
+
+    /**
+     * 所有子任务结束后调用
+     */
+    public void finish() {
+        finishedAt = System.currentTimeMillis();
+        if (cancelRequested) {
+            status = Status.CANCELLED;
+        } else if (failedTasks.get() > 0) {
+            status = Status.FAILED;
+        } else {
+            status = Status.COMPLETED;
+        }
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+
+    /**
+     * 生成进度快照（用于接口返回）
+     *
+     * @return 进度快照
+     */
+    public S snapshot() {
+        long elapsedMs = (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - submittedAt;
+        int doneTasks = completedTasks.get() + skippedTasks.get() + failedTasks.get();
+
+        S snapshot = newStatus();
+        snapshot.setJobId(jobId);
+        snapshot.setStatus(status.name());
+        snapshot.setStartTime(startTime);
+        snapshot.setEndTime(endTime);
+        snapshot.setTotalTasks(totalTasks);
+        snapshot.setCompletedTasks(completedTasks.get());
+        snapshot.setSkippedTasks(skippedTasks.get());
+        snapshot.setFailedTasks(failedTasks.get());
+        snapshot.setProgressPercent(totalTasks == 0 ? 100.0 : doneTasks * 100.0 / totalTasks);
+        snapshot.setElapsedMs(elapsedMs);
+        snapshot.setLastError(lastError);
+        fillStatus(snapshot, elapsedMs);
+        return snapshot;
+    }
+
+    /**
+     * 创建空的进度快照
+     */
+    protected abstract S newStatus();
+
+    /**
+     * 填充子类的业务计数器和吞吐
+     *
+     * @param snapshot 已填充通用字段的进度快照
+     * @param elapsedMs 已耗时（毫秒）
+     */
+    protected abstract void fillStatus(S snapshot, long elapsedMs);
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+}
@@ -0,0 +1,77 @@
+package com.qyl.v2trade.common.job;
+
+import com.qyl.v2trade.common.Result;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import java.util.List;
+
+/**
+ * 异步任务控制器基类
+ *
+ * <p>在子类的@RequestMapping路径下提供通用的任务接口：
+ * <ul>
+ *   <li>GET /jobs/{jobId}：查询任务进度</li>
+ *   <li>GET /jobs：查询所有保留的任务</li>
+ *   <li>POST /jobs/{jobId}/cancel：取消任务</li>
+ * </ul>
+ * 提交接口（POST /jobs）的请求参数各不相同，由子类实现
+ *
+ * @param <J> 任务类型
+ * @param <S> 进度快照类型
+ * @author qyl
+ */
+public abstract class AsyncJobController<J extends AsyncJob<S>, S extends AsyncJobStatus> {
+
+    /**
+     * 任务服务
+     */
+    protected abstract AsyncJobService<J> jobService();
+
+    /**
+     * 查询任务进度（包含吞吐）
+     *
+     * @param jobId 任务ID
+     * @return 任务进度快照
+     */
+    @GetMapping("/jobs/{jobId}")
+    public Result<S> getJob(@PathVariable String jobId) {
+        J job = jobService().getJob(jobId);
+        if (job == null) {
+            return Result.error(404, "任务不存在: " + jobId);
+        }
+        return Result.success("获取成功", job.snapshot());
+    }
+
+    /**
+     * 查询所有保留的任务
+     *
+     * @return 任务进度快照列表（按提交时间倒序）
+     */
+    @GetMapping("/jobs")
+    public Result<List<S>> listJobs() {
+        List<S> result = jobService().listJobs().stream()
+                .map(AsyncJob::snapshot)
+                .toList();
+        return Result.success("获取成功", result);
+    }
+
+    /**
+     * 取消任务
+     *
+     * @param jobId 任务ID
+     * @return 任务进度快照
+     */
+    @PostMapping("/jobs/{jobId}/cancel")
+    public Result<S> cancelJob(@PathVariable String jobId) {
+        J job = jobService().getJob(jobId);
+        if (job == null) {
+            return Result.error(404, "任务不存在: " + jobId);
+        }
+        if (!jobService().cancel(jobId)) {
+            return Result.error("任务已结束，无法取消: " + jobId);
+        }
+        return Result.success("已请求取消", job.snapshot());
+    }
+}
@@ -0,0 +1,167 @@
+package com.qyl.v2trade.common.job;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * 异步任务服务基类
+ *
+ * <p>负责任务的生命周期：线程池、提交子任务、任务表、进度查询、取消和已结束任务清理；
+ * 子类只负责拆分子任务和实现子任务的执行逻辑
+ *
+ * @param <J> 任务类型
+ * @author qyl
+ */
+@Slf4j
+public abstract class AsyncJobService<J extends AsyncJob<?>> {
+
+    /**
+     * 任务执行线程池
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * 任务表：jobId -> 任务
+     */
+    private final ConcurrentHashMap<String, J> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 任务名称（用于日志）
+     */
+    protected abstract String jobName();
+
+    /**
+     * 保留的已结束任务数量上限
+     */
+    protected abstract int maxRetainedJobs();
+
+    /**
+     * 任务结束回调（所有子任务结束、状态已更新后调用）
+     *
+     * @param job 任务
+     */
+    protected abstract void onJobFinished(J job);
+
+    /**
+     * 创建任务线程池（子类在初始化时调用）
+     *
+     * @param threadNamePrefix 线程名前缀
+     * @param parallelism 并行度，小于等于0时使用CPU核数
+     */
+    protected void initPool(String threadNamePrefix, int parallelism) {
+        int effective = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(effective, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName(threadNamePrefix + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        log.info("{}线程池已初始化: parallelism={}", jobName(), effective);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobs.values().forEach(AsyncJob::requestCancel);
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 生成任务ID
+     */
+    protected String newJobId() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    /**
+     * 登记任务并并行执行子任务，所有子任务结束后更新任务状态
+     *
+     * @param job 任务
+     * @param tasks 子任务（子任务自行记录完成/跳过/失败）
+     * @return 任务
+     */
+    protected J launch(J job, List<Runnable> tasks) {
+        evictFinishedJobs();
+        jobs.put(job.getJobId(), job);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            futures.add(CompletableFuture.runAsync(task, pool));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .whenComplete((v, e) -> {
+                    job.finish();
+                    onJobFinished(job);
+                });
+        return job;
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param jobId 任务ID
+     * @return 任务，不存在返回null
+     */
+    public J getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    /**
+     * 查询所有保留的任务（按提交时间倒序）
+     *
+     * @return 任务列表
+     */
+    public List<J> listJobs() {
+        List<J> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparingLong((J job) -> job.getSubmittedAt()).reversed());
+        return result;
+    }
+
+    /**
+     * 取消任务
+     *
+     * @param jobId 任务ID
+     * @return 如果任务存在且仍在执行返回true
+     */
+    public boolean cancel(String jobId) {
+        J job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        boolean cancelled = job.requestCancel();
+        if (cancelled) {
+            log.info("{}已请求取消: jobId={}", jobName(), jobId);
+        }
+        return cancelled;
+    }
+
+    /**
+     * 清理超出保留数量的已结束任务（从最早提交的开始）
+     */
+    private void evictFinishedJobs() {
+        int maxRetained = Math.max(1, maxRetainedJobs());
+        List<J> finished = new ArrayList<>();
+        for (J job : jobs.values()) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() < maxRetained) {
+            return;
+        }
+        finished.sort(Comparator.comparingLong(AsyncJob::getSubmittedAt));
+        for (int i = 0; i <= finished.size() - maxRetained; i++) {
+            jobs.remove(finished.get(i).getJobId());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.qyl.v2trade.common.job;
+
+import lombok.Data;
+
+/**
+ * 异步任务进度快照（通用字段）
+ *
+ * @author qyl
+ */
+@Data
+public class AsyncJobStatus {
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 任务状态（RUNNING/COMPLETED/CANCELLED/FAILED）
+     */
+    private String status;
+
+    /**
+     * 开始时间戳（毫秒）
+     */
+    private long startTime;
+
+    /**
+     * 结束时间戳（毫秒）
+     */
+    private long endTime;
+
+    /**
+     * 子任务总数
+     */
+    private int totalTasks;
+
+    /**
+     * 已完成子任务数
+     */
+    private int completedTasks;
+
+    /**
+     * 因取消跳过的子任务数
+     */
+    private int skippedTasks;
+
+    /**
+     * 失败子任务数
+     */
+    private int failedTasks;
+
+    /**
+     * 进度百分比
+     */
+    private double progressPercent;
+
+    /**
+     * 已耗时（毫秒）
+     */
+    private long elapsedMs;
+
+    /**
+     * 最近一次子任务失败的错误信息
+     */
+    private String lastError;
+}
@@ -2,7 +2,7 @@ package com.qyl.v2trade.indicator.api;
 
 import com.qyl.v2trade.common.Result;
 import com.qyl.v2trade.indicator.api.dto.IndicatorValueDTO;
-import com.qyl.v2trade.indicator.repository.IndicatorValueRepository;
+import com.qyl.v2trade.indicator.persistence.LatestIndicatorValueCache;
 import com.qyl.v2trade.indicator.repository.entity.IndicatorValue;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,14 +30,14 @@ import java.util.Optional;
 public class IndicatorController {
     
     @Autowired
-    private IndicatorValueRepository valueRepository;
+    private LatestIndicatorValueCache latestValueCache;
     
     /**
      * 查询最新指标值
      * 
      * <p>GET /api/indicator/latest?userId=&pairId=&timeframe=&code=&version=
      * 
-     * <p>从MySQL indicator_value表查询最新一条（按bar_time desc limit 1）
+     * <p>优先读取最新指标值缓存，未命中时从MySQL indicator_value表查询最新一条（按bar_time desc limit 1）
      * 
      * @param userId 用户ID（必填）
      * @param pairId 交易对ID（必填）
@@ -61,7 +61,7 @@ public class IndicatorController {
             }
             
             // 查询最新指标值
-            Optional<IndicatorValue> valueOpt = valueRepository.findLatest(userId, pairId, timeframe, code, version);
+            Optional<IndicatorValue> valueOpt = latestValueCache.getLatest(userId, pairId, timeframe, code, version);
             
             if (valueOpt.isEmpty()) {
                 log.debug("未找到指标值: userId={}, pairId={}, timeframe={}, code={}, version={}",
@@ -2,11 +2,18 @@ package com.qyl.v2trade.indicator.api;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.qyl.v2trade.common.Result;
+import com.qyl.v2trade.indicator.api.dto.FormulaDefinitionCreateRequest;
+import com.qyl.v2trade.indicator.definition.FormulaIndicatorService;
+import com.qyl.v2trade.indicator.definition.IndicatorCategory;
+import com.qyl.v2trade.indicator.definition.impl.FormulaIndicatorDefinition;
 import com.qyl.v2trade.indicator.repository.IndicatorDefinitionRepository;
 import com.qyl.v2trade.indicator.repository.entity.IndicatorDefinition;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,7 +24,7 @@ import java.util.Map;
 /**
  * 指标定义API控制器
  * 
- * <p>提供指标定义的查询接口（只读）
+ * <p>提供指标定义的查询接口和公式指标的创建接口
  *
  * @author qyl
  */
@@ -29,6 +36,9 @@ public class IndicatorDefinitionController {
     @Autowired
     private IndicatorDefinitionRepository definitionRepository;
     
+    @Autowired
+    private FormulaIndicatorService formulaIndicatorService;
+    
     /**
      * 查询指标定义列表（分页）
      * 
@@ -73,5 +83,58 @@ public class IndicatorDefinitionController {
             return Result.error("查询失败: " + e.getMessage());
         }
     }
+    
+    /**
+     * 创建公式指标
+     * 
+     * <p>POST /api/indicator/definitions/formulas
+     * <pre>
+     * {
+     *   "userId": 1,
+     *   "indicatorCode": "MY_MACD",
+     *   "formula": "ema(close, fast) - ema(close, slow)",
+     *   "parameters": {"fast": 12, "slow": 26}
+     * }
+     * </pre>
+     * 
+     * <p>公式在创建时解析校验，语法错误返回400和错误位置；创建后即可按指标编码订阅
+     * 
+     * @param request 创建请求
+     * @return 公式、参数和最小所需bar数量
+     */
+    @PostMapping("/formulas")
+    public Result<Map<String, Object>> createFormula(@RequestBody FormulaDefinitionCreateRequest request) {
+        try {
+            if (request.getUserId() == null || request.getIndicatorCode() == null || request.getFormula() == null) {
+                return Result.error(400, "参数不完整：userId、indicatorCode、formula为必填项");
+            }
+            
+            IndicatorCategory category = request.getCategory() != null
+                    ? IndicatorCategory.valueOf(request.getCategory()) : IndicatorCategory.GENERAL;
+            FormulaIndicatorDefinition definition = formulaIndicatorService.create(
+                    request.getUserId(),
+                    request.getIndicatorCode(),
+                    request.getIndicatorVersion() != null ? request.getIndicatorVersion() : "v1",
+                    request.getIndicatorName(),
+                    category,
+                    request.getFormula(),
+                    request.getParameters());
+            
+            Map<String, Object> data = new HashMap<>();
+            data.put("indicatorCode", definition.code());
+            data.put("indicatorVersion", definition.version());
+            data.put("formula", definition.formula().source());
+            data.put("parameters", definition.parameters().toMap());
+            data.put("minRequiredBars", definition.minRequiredBars());
+            return Result.success("创建成功", data);
+            
+        } catch (IllegalArgumentException e) {
+            return Result.error(400, e.getMessage());
+        } catch (DuplicateKeyException e) {
+            return Result.error(400, "指标已存在: code=" + request.getIndicatorCode());
+        } catch (Exception e) {
+            log.error("创建公式指标失败: request={}", request, e);
+            return Result.error("创建失败: " + e.getMessage());
+        }
+    }
 }
-
@@ -0,0 +1,94 @@
+package com.qyl.v2trade.indicator.api;
+
+import com.qyl.v2trade.common.Result;
+import com.qyl.v2trade.common.job.AsyncJobController;
+import com.qyl.v2trade.common.job.AsyncJobService;
+import com.qyl.v2trade.indicator.api.dto.IndicatorRecomputeRequest;
+import com.qyl.v2trade.indicator.recompute.IndicatorRecomputeJob;
+import com.qyl.v2trade.indicator.recompute.IndicatorRecomputeJobService;
+import com.qyl.v2trade.indicator.recompute.IndicatorRecomputeJobStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 指标历史重算API控制器
+ *
+ * <p>为新订阅或指标版本变更回填历史indicator_value：按pair/timeframe序列并行重算，
+ * 进度查询和取消接口由{@link AsyncJobController}提供
+ *
+ * @author qyl
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/indicator/recompute")
+public class IndicatorRecomputeController
+        extends AsyncJobController<IndicatorRecomputeJob, IndicatorRecomputeJobStatus> {
+
+    @Autowired
+    private IndicatorRecomputeJobService jobService;
+
+    /**
+     * 提交历史重算任务
+     *
+     * <p>请求示例：
+     * <pre>
+     * POST /api/indicator/recompute/jobs
+     * {
+     *   "tradingPairIds": [1, 2],
+     *   "timeframes": ["5m"],
+     *   "indicatorCodes": ["RSI"],
+     *   "startTime": 1704067200000,
+     *   "endTime": 1735689600000
+     * }
+     * </pre>
+     *
+     * @param request 重算请求
+     * @return 任务进度快照（包含jobId）
+     */
+    @PostMapping("/jobs")
+    public Result<IndicatorRecomputeJobStatus> submitJob(@RequestBody IndicatorRecomputeRequest request) {
+        try {
+            if (request.getStartTime() == null || request.getEndTime() == null) {
+                return Result.error("开始时间和结束时间不能为空");
+            }
+            if (request.getStartTime() >= request.getEndTime()) {
+                return Result.error("开始时间必须小于结束时间");
+            }
+
+            IndicatorRecomputeJob job = jobService.submit(
+                    request.getUserId(),
+                    toSet(request.getTradingPairIds()),
+                    toSet(request.getTimeframes()),
+                    toSet(request.getIndicatorCodes()),
+                    request.getStartTime(),
+                    request.getEndTime());
+            return Result.success("任务已提交", job.snapshot());
+        } catch (Exception e) {
+            log.error("提交指标历史重算任务失败: request={}", request, e);
+            return Result.error("提交指标历史重算任务失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected AsyncJobService<IndicatorRecomputeJob> jobService() {
+        return jobService;
+    }
+
+    private <T> Set<T> toSet(List<T> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        Set<T> result = new HashSet<>();
+        for (T value : values) {
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+}
@@ -4,9 +4,11 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.qyl.v2trade.common.Result;
 import com.qyl.v2trade.indicator.api.dto.SubscriptionCreateRequest;
 import com.qyl.v2trade.indicator.api.dto.SubscriptionToggleRequest;
+import com.qyl.v2trade.indicator.calculator.SubscriptionIndex;
 import com.qyl.v2trade.indicator.infrastructure.resolver.TradingPairResolver;
 import com.qyl.v2trade.indicator.repository.IndicatorSubscriptionRepository;
 import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
+import com.qyl.v2trade.indicator.series.BarSeriesManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
@@ -33,6 +35,12 @@ public class IndicatorSubscriptionController {
     @Autowired
     private TradingPairResolver tradingPairResolver;
     
+    @Autowired
+    private SubscriptionIndex subscriptionIndex;
+    
+    @Autowired
+    private BarSeriesManager barSeriesManager;
+    
     /**
      * 查询订阅列表（分页）
      * 
@@ -126,6 +134,12 @@ public class IndicatorSubscriptionController {
                 }
             }
             
+            // 更新内存订阅索引
+            subscriptionIndex.apply(saved);
+            
+            // 确保K线序列已加载（延迟加载模式下首个订阅触发加载）
+            ensureSeries(saved);
+            
             return Result.success("订阅创建成功", saved);
             
         } catch (DuplicateKeyException e) {
@@ -160,6 +174,13 @@ public class IndicatorSubscriptionController {
             subscriptionRepository.upsert(subscription);
             
             IndicatorSubscription updated = subscriptionRepository.findById(id);
+            
+            // 更新内存订阅索引
+            subscriptionIndex.apply(updated);
+            if (updated != null && updated.getEnabled() != null && updated.getEnabled() == 1) {
+                ensureSeries(updated);
+            }
+            
             return Result.success("操作成功", updated);
             
         } catch (Exception e) {
@@ -167,5 +188,19 @@ public class IndicatorSubscriptionController {
             return Result.error("操作失败: " + e.getMessage());
         }
     }
+    
+    /**
+     * 确保订阅的K线序列已加载（加载失败不影响订阅操作，后续BarClosedEvent到达时重试）
+     */
+    private void ensureSeries(IndicatorSubscription subscription) {
+        if (subscription == null || subscription.getTradingPairId() == null) {
+            return;
+        }
+        try {
+            barSeriesManager.ensureSeries(subscription.getTradingPairId(), subscription.getTimeframe());
+        } catch (Exception e) {
+            log.warn("加载订阅的K线序列失败: pairId={}, timeframe={}",
+                    subscription.getTradingPairId(), subscription.getTimeframe(), e);
+        }
+    }
 }
-
@@ -3,6 +3,7 @@ package com.qyl.v2trade.indicator.api;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.qyl.v2trade.common.Result;
 import com.qyl.v2trade.indicator.api.dto.IndicatorValueDTO;
+import com.qyl.v2trade.indicator.persistence.LatestIndicatorValueCache;
 import com.qyl.v2trade.indicator.repository.IndicatorValueRepository;
 import com.qyl.v2trade.indicator.repository.entity.IndicatorValue;
 import lombok.extern.slf4j.Slf4j;
@@ -31,8 +32,11 @@ public class IndicatorValueController {
     @Autowired
     private IndicatorValueRepository valueRepository;
     
+    @Autowired
+    private LatestIndicatorValueCache latestValueCache;
+    
     /**
-     * 查询最新指标值
+     * 查询最新指标值（优先读取内存缓存，未命中时查询MySQL）
      * 
      * <p>GET /api/indicator/values/latest?userId=&tradingPairId=&timeframe=&indicatorCode=&indicatorVersion=
      */
@@ -52,7 +56,7 @@ public class IndicatorValueController {
                 return Result.error(400, "参数不完整：userId、tradingPairId、timeframe、indicatorCode为必填项");
             }
             
-            IndicatorValue value = valueRepository.findLatest(
+            IndicatorValue value = latestValueCache.getLatest(
                     userId, tradingPairId, timeframe, indicatorCode, indicatorVersion)
                     .orElse(null);
             
@@ -0,0 +1,49 @@
+package com.qyl.v2trade.indicator.api.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 创建公式指标请求DTO
+ *
+ * @author qyl
+ */
+@Data
+public class FormulaDefinitionCreateRequest {
+    
+    /**
+     * 用户ID
+     */
+    private Long userId;
+    
+    /**
+     * 指标编码（不能与已有指标重复）
+     */
+    private String indicatorCode;
+    
+    /**
+     * 指标名称
+     */
+    private String indicatorName;
+    
+    /**
+     * 指标版本（默认v1）
+     */
+    private String indicatorVersion;
+    
+    /**
+     * 分类（TREND/MOMENTUM/VOLATILITY/VOLUME/GENERAL，默认GENERAL）
+     */
+    private String category;
+    
+    /**
+     * 公式（如：ema(close, fast) - ema(close, slow)）
+     */
+    private String formula;
+    
+    /**
+     * 参数名到默认值（如：{"fast": 12, "slow": 26}）
+     */
+    private Map<String, Object> parameters;
+}
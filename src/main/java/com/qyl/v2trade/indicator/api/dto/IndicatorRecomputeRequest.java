@@ -0,0 +1,46 @@
+package com.qyl.v2trade.indicator.api.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 指标历史重算请求DTO
+ *
+ * <p>重算范围为启用订阅中满足全部过滤条件的订阅，过滤条件为空表示不过滤
+ *
+ * @author qyl
+ */
+@Data
+public class IndicatorRecomputeRequest {
+
+    /**
+     * 用户ID（可选）
+     */
+    private Long userId;
+
+    /**
+     * 交易对ID列表（可选）
+     */
+    private List<Long> tradingPairIds;
+
+    /**
+     * 周期列表（可选，如：5m, 1h）
+     */
+    private List<String> timeframes;
+
+    /**
+     * 指标编码列表（可选，如：RSI, MACD）
+     */
+    private List<String> indicatorCodes;
+
+    /**
+     * 开始时间戳（毫秒，包含，按bar_time过滤）
+     */
+    private Long startTime;
+
+    /**
+     * 结束时间戳（毫秒，不包含，按bar_time过滤）
+     */
+    private Long endTime;
+}
@@ -1,5 +1,6 @@
 package com.qyl.v2trade.indicator.bootstrap;
 
+import com.qyl.v2trade.indicator.calculator.SubscriptionIndex;
 import com.qyl.v2trade.indicator.series.BarSeriesManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,10 +27,20 @@ public class IndicatorBootstrapListener implements CommandLineRunner {
     @Autowired
     private BarSeriesManager barSeriesManager;
     
+    @Autowired
+    private SubscriptionIndex subscriptionIndex;
+    
     @Override
     public void run(String... args) {
         log.info("========== 开始初始化指标模块（从行情订阅配置加载K线数据） ==========");
         
+        try {
+            // 加载启用订阅的内存索引（BarClosedEvent处理时不再查询数据库）
+            subscriptionIndex.reload();
+        } catch (Exception e) {
+            log.error("加载订阅索引失败，BarClosedEvent处理将回退到数据库查询", e);
+        }
+        
         try {
             // 加载BarSeries历史数据（从行情订阅配置获取交易对）
             barSeriesManager.bootstrap();
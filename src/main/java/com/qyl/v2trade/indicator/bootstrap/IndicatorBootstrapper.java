@@ -1,5 +1,6 @@
 package com.qyl.v2trade.indicator.bootstrap;
 
+import com.qyl.v2trade.indicator.definition.FormulaIndicatorService;
 import com.qyl.v2trade.indicator.definition.IndicatorDefinition;
 import com.qyl.v2trade.indicator.definition.IndicatorRegistry;
 import com.qyl.v2trade.indicator.definition.builtin.BuiltinIndicatorDefinitions;
@@ -19,6 +20,7 @@ import java.util.List;
  * <p>负责：
  * 1. 注册内置指标定义到内存Registry
  * 2. 将指标定义写入数据库（user_id=0）
+ * 3. 加载数据库中的公式指标定义到内存Registry
  * 
  * <p>执行顺序：
  * - Order(150)：在QuestDbTsSemanticsProbe（100）之后，IndicatorBootstrapListener（200）之前
@@ -36,6 +38,9 @@ public class IndicatorBootstrapper implements CommandLineRunner {
     @Autowired
     private IndicatorDefinitionRepository definitionRepository;
     
+    @Autowired
+    private FormulaIndicatorService formulaIndicatorService;
+    
     @Override
     public void run(String... args) {
         log.info("开始注册内置指标定义");
@@ -64,6 +69,10 @@ public class IndicatorBootstrapper implements CommandLineRunner {
             
             log.info("内置指标定义注册完成: count={}", builtinDefs.size());
             
+            // 5. 注册公式指标（公式无效的定义跳过，不中止启动）
+            int formulaCount = formulaIndicatorService.loadAll();
+            log.info("公式指标定义注册完成: count={}", formulaCount);
+            
         } catch (Exception e) {
             log.error("注册内置指标定义失败", e);
             throw new RuntimeException("指标定义注册失败，系统启动中止", e);
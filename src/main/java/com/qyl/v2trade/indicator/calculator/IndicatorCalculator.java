@@ -1,17 +1,18 @@
 package com.qyl.v2trade.indicator.calculator;
 
+import com.qyl.v2trade.business.strategy.decision.event.IndicatorComputedEvent;
 import com.qyl.v2trade.indicator.domain.event.BarClosedEvent;
 import com.qyl.v2trade.indicator.engine.IndicatorComputeRequest;
 import com.qyl.v2trade.indicator.engine.IndicatorEngine;
 import com.qyl.v2trade.indicator.engine.IndicatorResult;
 import com.qyl.v2trade.indicator.definition.IndicatorDefinition;
 import com.qyl.v2trade.indicator.definition.IndicatorRegistry;
+import com.qyl.v2trade.indicator.observability.IndicatorCostTracker;
 import com.qyl.v2trade.indicator.observability.IndicatorMetrics;
 import com.qyl.v2trade.indicator.persistence.CalcFingerprint;
-import com.qyl.v2trade.indicator.repository.IndicatorCalcLogRepository;
-import com.qyl.v2trade.indicator.repository.IndicatorSubscriptionRepository;
-import com.qyl.v2trade.indicator.repository.IndicatorValueRepository;
-import com.qyl.v2trade.indicator.repository.IndicatorValueRepository.WriteResult;
+import com.qyl.v2trade.indicator.persistence.IndicatorWriteBehind;
+import com.qyl.v2trade.indicator.persistence.LatestIndicatorValueCache;
+import com.qyl.v2trade.indicator.persistence.MultiTimeframeIndicatorStore;
 import com.qyl.v2trade.indicator.repository.entity.IndicatorCalcLog;
 import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
 import com.qyl.v2trade.indicator.repository.entity.IndicatorValue;
@@ -20,14 +21,22 @@ import com.qyl.v2trade.indicator.series.BarSeriesView;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * 指标计算器
@@ -36,9 +45,11 @@ import java.util.Map;
  * 1. 监听BarClosedEvent（handler：快速投递任务，不阻塞）
  * 2. 根据订阅查询需要计算的指标
  * 3. 路由到对应的引擎进行计算
+ * 4. 每根Bar计算完成后发布一个IndicatorComputedEvent（携带该Bar全部指标结果）
  * 
  * <p>规则：
  * - 每次BAR_CLOSED对该pair/timeframe只计算订阅指标
+ * - 不同用户订阅的相同指标参数只计算一次，结果分发到各用户
  * - handler不阻塞行情线程（使用异步处理）
  *
  * @author qyl
@@ -48,7 +59,7 @@ import java.util.Map;
 public class IndicatorCalculator {
     
     @Autowired
-    private IndicatorSubscriptionRepository subscriptionRepository;
+    private SubscriptionIndex subscriptionIndex;
     
     @Autowired
     private IndicatorRegistry indicatorRegistry;
@@ -60,14 +71,23 @@ public class IndicatorCalculator {
     private BarSeriesManager barSeriesManager;
     
     @Autowired
-    private IndicatorValueRepository valueRepository;
+    private IndicatorWriteBehind writeBehind;
     
     @Autowired
-    private IndicatorCalcLogRepository calcLogRepository;
+    private LatestIndicatorValueCache latestValueCache;
+    
+    @Autowired
+    private MultiTimeframeIndicatorStore multiTimeframeStore;
     
     @Autowired
     private IndicatorMetrics metrics;
     
+    @Autowired
+    private IndicatorCostTracker costTracker;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * 处理BarClosedEvent（handler：快速投递任务）
      * 
@@ -89,119 +109,158 @@ public class IndicatorCalculator {
             return;
         }
         
+        // 修订Bar：BarSeriesManager已替换序列中的该Bar，后续Bar的指标基于修正后的序列计算；
+        // 历史指标值按写入规则不覆盖
+        if (event.isAmendment()) {
+            log.info("收到修订BarClosedEvent，跳过历史指标重算: pairId={}, timeframe={}, barTime={}, revision={}",
+                    event.tradingPairId(), event.timeframe(), event.barCloseTime(), event.revision());
+            return;
+        }
+        
         log.debug("收到BarClosedEvent，准备计算指标: pairId={}, timeframe={}, barTime={}",
                 event.tradingPairId(), event.timeframe(), event.barCloseTime());
         
-        // 查询所有订阅了该pair/timeframe的订阅（包含userId信息）
-        List<IndicatorSubscription> subscriptions = subscriptionRepository.findByPairAndTimeframe(
+        // 从内存索引获取所有订阅了该pair/timeframe的订阅（包含userId信息），不查询数据库
+        List<IndicatorSubscription> subscriptions = subscriptionIndex.get(
                 event.tradingPairId(), event.timeframe());
         
-        if (subscriptions.isEmpty()) {
+        List<IndicatorSubscription> enabledSubscriptions = subscriptions.stream()
+                .filter(sub -> sub.getEnabled() != null && sub.getEnabled() == 1)
+                .collect(Collectors.toList());
+        
+        if (enabledSubscriptions.isEmpty()) {
             log.debug("没有找到订阅，跳过计算: pairId={}, timeframe={}",
                     event.tradingPairId(), event.timeframe());
             return;
         }
         
-        // 按userId分组处理
-        Map<Long, List<IndicatorSubscription>> subscriptionsByUser = subscriptions.stream()
-                .filter(sub -> sub.getEnabled() != null && sub.getEnabled() == 1)
-                .collect(java.util.stream.Collectors.groupingBy(IndicatorSubscription::getUserId));
+        // 所有用户的订阅一起计算：相同指标参数只计算一次，结果分发到各用户
+        computeForSubscriptions(event.tradingPairId(), event.timeframe(), event.barCloseTime(), enabledSubscriptions);
         
-        // 对每个用户进行计算
-        for (Map.Entry<Long, List<IndicatorSubscription>> entry : subscriptionsByUser.entrySet()) {
-            Long userId = entry.getKey();
-            
-            // 执行计算
-            computeForPairTfBar(userId, event.tradingPairId(), event.timeframe(), event.barCloseTime());
+        // Bar收盘（事件产生）到该批次最后一个结果的延迟，包含异步排队时间
+        if (event.eventTime() != null) {
+            long latencyNanos = Duration.between(event.eventTime(), LocalDateTime.now()).toNanos();
+            metrics.recordBarLatency(event.timeframe(), latencyNanos);
+            costTracker.recordBatch(event.tradingPairId(), event.timeframe(), enabledSubscriptions.size(), latencyNanos);
         }
     }
     
     /**
-     * 计算指定pair/timeframe/barTime的指标（worker执行）
+     * 计算一组订阅（可跨用户）的指标
+     * 
+     * <p>按(指标编码, 版本, 规范化参数)去重：每个不同的计算只执行一次，
+     * 结果分发写入每个订阅用户的indicator_value/calc_log
      * 
-     * @param userId 用户ID
      * @param pairId 交易对ID
      * @param timeframe 周期
      * @param barTime Bar收盘时间
+     * @param subscriptions 已启用的订阅（同一pair/timeframe）
      */
-    public void computeForPairTfBar(long userId, long pairId, String timeframe, LocalDateTime barTime) {
+    public void computeForSubscriptions(long pairId, String timeframe, LocalDateTime barTime,
+                                        List<IndicatorSubscription> subscriptions) {
         try {
-            log.debug("开始计算指标: userId={}, pairId={}, timeframe={}, barTime={}",
-                    userId, pairId, timeframe, barTime);
-            
-            // 1. 查询该pair/timeframe的订阅
-            List<IndicatorSubscription> subscriptions = subscriptionRepository.findByUserAndPairAndTimeframe(
-                    userId, pairId, timeframe);
-            
-            if (subscriptions.isEmpty()) {
-                log.debug("用户没有订阅，跳过计算: userId={}, pairId={}, timeframe={}",
-                        userId, pairId, timeframe);
-                return;
-            }
-            
-            // 2. 获取BarSeries（K线数据是共享的，不区分用户）
+            // 1. 获取BarSeries（K线数据是共享的，不区分用户）
             BarSeriesView series = barSeriesManager.getSeries(pairId, timeframe);
             if (series == null || series.size() == 0) {
-                log.warn("BarSeries为空，跳过计算: userId={}, pairId={}, timeframe={}",
-                        userId, pairId, timeframe);
+                log.warn("BarSeries为空，跳过计算: pairId={}, timeframe={}, subscriptions={}",
+                        pairId, timeframe, subscriptions.size());
                 return;
             }
             
-            // 3. 对每个订阅的指标进行计算
+            // 2. 按计算key分组（同一pair/timeframe下，指标编码+版本+规范化参数相同即为同一计算）
+            Map<String, List<IndicatorSubscription>> computations = new LinkedHashMap<>();
             for (IndicatorSubscription subscription : subscriptions) {
-                if (subscription.getEnabled() == null || subscription.getEnabled() != 1) {
-                    continue;
+                computations.computeIfAbsent(buildComputationKey(subscription), k -> new ArrayList<>())
+                        .add(subscription);
+            }
+            
+            // 3. 每个计算执行一次，结果分发到各订阅
+            List<IndicatorComputedEvent.ComputedIndicator> computed = new ArrayList<>(computations.size());
+            for (Map.Entry<String, List<IndicatorSubscription>> entry : computations.entrySet()) {
+                List<IndicatorSubscription> group = entry.getValue();
+                ComputeOutcome outcome = computeOnce(group.get(0), series, barTime);
+                costTracker.recordComputation(pairId, timeframe, entry.getKey(), group.get(0).getIndicatorCode(),
+                        outcome.engineName(), group.size(), outcome.costNanos());
+                fanOut(group, barTime, outcome);
+                if (outcome.result() != null) {
+                    IndicatorComputedEvent.ComputedIndicator indicator = toComputedIndicator(group, outcome.result());
+                    // 多周期as-of视图在事件发布前更新，决策时可以读取本Bar及其他周期的指标
+                    multiTimeframeStore.put(indicator.userIds(), pairId, timeframe, barTime,
+                            indicator.indicatorCode(), indicator.indicatorVersion(), indicator.indicatorValues(),
+                            LocalDateTime.now());
+                    computed.add(indicator);
                 }
-                
-                computeIndicator(userId, subscription, series, barTime);
+            }
+            
+            // 4. 整根Bar发布一个事件（策略实例对该Bar只决策一次）
+            if (!computed.isEmpty()) {
+                eventPublisher.publishEvent(new IndicatorComputedEvent(
+                        this, pairId, timeframe, barTime, computed, LocalDateTime.now()));
+            }
+            
+            // 5. 去重统计
+            metrics.recordDedup(subscriptions.size(), computations.size());
+            if (subscriptions.size() > computations.size()) {
+                log.info("指标计算去重: pairId={}, timeframe={}, barTime={}, subscriptions={}, computations={}, dedupRatio={}",
+                        pairId, timeframe, barTime, subscriptions.size(), computations.size(),
+                        String.format("%.2f", (double) subscriptions.size() / computations.size()));
             }
             
         } catch (Exception e) {
-            log.error("计算指标失败: userId={}, pairId={}, timeframe={}, barTime={}",
-                    userId, pairId, timeframe, barTime, e);
+            log.error("计算指标失败: pairId={}, timeframe={}, barTime={}",
+                    pairId, timeframe, barTime, e);
         }
     }
     
     /**
-     * 计算单个指标（阶段5：包含落库逻辑）
+     * 构建事件中的指标结果（主值规则与indicator_value一致：单值指标为value，多值指标只有扩展值）
      */
-    private void computeIndicator(
-            long userId,
-            IndicatorSubscription subscription,
-            BarSeriesView series,
-            LocalDateTime barTime) {
-        
-        long startTime = System.currentTimeMillis();
+    private IndicatorComputedEvent.ComputedIndicator toComputedIndicator(List<IndicatorSubscription> group,
+                                                                        IndicatorResult result) {
+        IndicatorSubscription first = group.get(0);
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (IndicatorSubscription subscription : group) {
+            userIds.add(subscription.getUserId());
+        }
+        Map<String, BigDecimal> values = result.values();
+        BigDecimal mainValue = values != null && values.size() == 1 ? values.values().iterator().next() : null;
+        return new IndicatorComputedEvent.ComputedIndicator(first.getIndicatorCode(), first.getIndicatorVersion(),
+                mainValue, values, userIds);
+    }
+    
+    /**
+     * 构建计算key：code:version:规范化参数
+     */
+    private String buildComputationKey(IndicatorSubscription subscription) {
+        return subscription.getIndicatorCode() + ":" + subscription.getIndicatorVersion() + ":"
+                + CalcFingerprint.canonicalParams(subscription.getParams());
+    }
+    
+    /**
+     * 执行一次指标计算（不落库）
+     */
+    private ComputeOutcome computeOnce(IndicatorSubscription subscription, BarSeriesView series, LocalDateTime barTime) {
+        long startNanos = System.nanoTime();
         String indicatorCode = subscription.getIndicatorCode();
         String indicatorVersion = subscription.getIndicatorVersion();
         String engineName = null;
-        IndicatorResult result = null;
-        String errorMsg = null;
         
         try {
             // 1. 从Registry获取指标定义
             IndicatorDefinition definition = indicatorRegistry.getDefinition(indicatorCode, indicatorVersion);
             if (definition == null) {
-                errorMsg = "找不到指标定义: code=" + indicatorCode + ", version=" + indicatorVersion;
+                String errorMsg = "找不到指标定义: code=" + indicatorCode + ", version=" + indicatorVersion;
                 log.warn(errorMsg);
-                int costMs = (int)(System.currentTimeMillis() - startTime);
-                writeCalcLog(userId, subscription, barTime, null, "FAILED", costMs, errorMsg, null);
-                metrics.recordFail(indicatorCode, null);
-                metrics.recordCalcCost(costMs);
-                return;
+                return ComputeOutcome.failed(null, errorMsg, System.nanoTime() - startNanos);
             }
             
-            // 2. 获取引擎
-            engineName = definition.engine();
-            IndicatorEngine engine = engineRouter.getEngine(engineName);
+            // 2. 获取引擎（流式引擎支持的指标优先路由到流式引擎）
+            IndicatorEngine engine = engineRouter.route(definition);
+            engineName = engine != null ? engine.getEngineName() : definition.engine();
             if (engine == null) {
-                errorMsg = "找不到引擎: engineName=" + engineName + ", indicatorCode=" + indicatorCode;
+                String errorMsg = "找不到引擎: engineName=" + engineName + ", indicatorCode=" + indicatorCode;
                 log.warn(errorMsg);
-                int costMs = (int)(System.currentTimeMillis() - startTime);
-                writeCalcLog(userId, subscription, barTime, engineName, "FAILED", costMs, errorMsg, null);
-                metrics.recordFail(indicatorCode, engineName);
-                metrics.recordCalcCost(costMs);
-                return;
+                return ComputeOutcome.failed(engineName, errorMsg, System.nanoTime() - startNanos);
             }
             
             // 3. 构建计算请求
@@ -215,60 +274,74 @@ public class IndicatorCalculator {
             );
             
             // 4. 执行计算
-            result = engine.compute(request, series);
-            
-            // 5. 计算耗时
-            int costMs = (int)(System.currentTimeMillis() - startTime);
-            
-            // 6. 记录Metrics（阶段6）
-            metrics.recordCalcCost(costMs);
-            
-            // 7. 落库逻辑（阶段5）
+            IndicatorResult result = engine.compute(request, series);
+            long costNanos = System.nanoTime() - startNanos;
             if (result.status() == IndicatorResult.Status.SUCCESS) {
-                // 7.1 生成计算指纹
-                String fingerprint = CalcFingerprint.generate(
-                        indicatorCode, indicatorVersion, subscription.getParams(), engineName);
-                
-                // 7.2 写入calc_log（SUCCESS）
-                writeCalcLog(userId, subscription, barTime, engineName, "SUCCESS", costMs, null, fingerprint);
-                
-                // 7.3 写入indicator_value（insert ignore）
-                IndicatorValueRepository.WriteResult writeResult = writeIndicatorValue(
-                        userId, subscription, barTime, result, engineName, fingerprint, costMs);
-                
-                // 7.4 冲突检测（如果被ignore）
-                if (writeResult == IndicatorValueRepository.WriteResult.IGNORED) {
-                    boolean hasConflict = checkConflict(userId, subscription, barTime, result, fingerprint);
-                    if (hasConflict) {
-                        metrics.recordConflict(indicatorCode, engineName);
-                    }
-                }
-                
-                // 7.5 结构化日志（阶段6）
-                logStructuredCalcResult(userId, subscription, barTime, engineName, "SUCCESS", 
-                        costMs, fingerprint, result.values(), null);
-            } else {
-                // 计算失败，只写calc_log（FAILED）
-                errorMsg = result.errorMessage();
-                writeCalcLog(userId, subscription, barTime, engineName, "FAILED", costMs, errorMsg, null);
-                metrics.recordFail(indicatorCode, engineName);
-                
-                // 结构化日志（阶段6）
-                logStructuredCalcResult(userId, subscription, barTime, engineName, "FAILED", 
-                        costMs, null, null, errorMsg);
+                return new ComputeOutcome(engineName, result, null, costNanos);
             }
+            return ComputeOutcome.failed(engineName, result.errorMessage(), costNanos);
             
         } catch (Exception e) {
-            // 异常情况，写FAILED日志
-            errorMsg = "计算异常: " + e.getMessage();
-            int costMs = (int)(System.currentTimeMillis() - startTime);
-            writeCalcLog(userId, subscription, barTime, engineName, "FAILED", costMs, errorMsg, null);
+            return ComputeOutcome.failed(engineName, "计算异常: " + e.getMessage(),
+                    System.nanoTime() - startNanos);
+        }
+    }
+    
+    /**
+     * 将一次计算的结果分发到各订阅（阶段5：包含落库逻辑）
+     */
+    private void fanOut(List<IndicatorSubscription> group, LocalDateTime barTime, ComputeOutcome outcome) {
+        IndicatorSubscription first = group.get(0);
+        String indicatorCode = first.getIndicatorCode();
+        String engineName = outcome.engineName();
+        
+        // 1. 记录Metrics（阶段6）：每次计算记录一次
+        metrics.recordCalcCost(indicatorCode, engineName, first.getTimeframe(), outcome.costNanos());
+        if (outcome.result() == null) {
             metrics.recordFail(indicatorCode, engineName);
-            metrics.recordCalcCost(costMs);
-            
-            // 结构化日志（阶段6）
-            logStructuredCalcResult(userId, subscription, barTime, engineName, "FAILED", 
-                    costMs, null, null, errorMsg);
+        }
+        
+        // 2. 落库逻辑（阶段5）：每个订阅用户一行
+        for (IndicatorSubscription subscription : group) {
+            long userId = subscription.getUserId();
+            try {
+                if (outcome.result() != null) {
+                    // 2.1 生成计算指纹（使用订阅自身的参数，保持与历史指纹一致）
+                    String fingerprint = CalcFingerprint.generate(
+                            indicatorCode, subscription.getIndicatorVersion(), subscription.getParams(), engineName);
+                    
+                    // 2.2 写入calc_log（SUCCESS）
+                    writeCalcLog(userId, subscription, barTime, engineName, "SUCCESS", outcome.costMs(), null, fingerprint);
+                    
+                    // 2.3 写入indicator_value（insert ignore，异步批量）
+                    IndicatorValue existingValue = writeIndicatorValue(
+                            userId, subscription, barTime, outcome.result(), engineName, fingerprint, outcome.costMs());
+                    
+                    // 2.4 冲突检测（如果被ignore）
+                    if (existingValue != null) {
+                        boolean hasConflict = checkConflict(userId, subscription, barTime, outcome.result(),
+                                fingerprint, existingValue);
+                        if (hasConflict) {
+                            metrics.recordConflict(indicatorCode, engineName);
+                        }
+                    }
+                    
+                    // 2.5 结构化日志（阶段6）
+                    logStructuredCalcResult(userId, subscription, barTime, engineName, "SUCCESS", 
+                            outcome.costMs(), fingerprint, outcome.result().values(), null);
+                } else {
+                    // 计算失败，只写calc_log（FAILED）
+                    writeCalcLog(userId, subscription, barTime, engineName, "FAILED", outcome.costMs(), 
+                            outcome.errorMsg(), null);
+                    
+                    // 结构化日志（阶段6）
+                    logStructuredCalcResult(userId, subscription, barTime, engineName, "FAILED", 
+                            outcome.costMs(), null, null, outcome.errorMsg());
+                }
+            } catch (Exception e) {
+                log.error("指标结果分发失败: userId={}, indicatorCode={}, barTime={}",
+                        userId, indicatorCode, barTime, e);
+            }
         }
     }
     
@@ -292,7 +365,7 @@ public class IndicatorCalculator {
             log.setCostMs(costMs);
             log.setErrorMsg(errorMsg);
             
-            calcLogRepository.append(log);
+            writeBehind.submitLog(log);
         } catch (Exception e) {
             log.error("写入计算日志失败: userId={}, indicatorCode={}, status={}",
                     userId, subscription.getIndicatorCode(), status, e);
@@ -301,8 +374,10 @@ public class IndicatorCalculator {
     
     /**
      * 写入指标值
+     * 
+     * @return 同一唯一键已存在的指标值（被ignore），新写入返回null
      */
-    private WriteResult writeIndicatorValue(
+    private IndicatorValue writeIndicatorValue(
             long userId, IndicatorSubscription subscription, LocalDateTime barTime,
             IndicatorResult result, String engineName, String fingerprint, int costMs) {
         
@@ -336,12 +411,15 @@ public class IndicatorCalculator {
                 }
             }
             
-            return valueRepository.insertIgnore(value);
+            IndicatorValue existing = writeBehind.submitValue(value);
+            // 结果产生后立即更新最新值缓存（不等待批量落库）
+            latestValueCache.put(existing != null ? existing : value);
+            return existing;
             
         } catch (Exception e) {
             log.error("写入指标值失败: userId={}, indicatorCode={}",
                     userId, subscription.getIndicatorCode(), e);
-            return IndicatorValueRepository.WriteResult.IGNORED;
+            return null;
         }
     }
     
@@ -386,29 +464,15 @@ public class IndicatorCalculator {
     /**
      * 冲突检测
      * 
+     * <p>已存在的指标值来自写入阶段的内存指纹表（未启用异步写入时为数据库回读），不再单独查询
+     * 
+     * @param existingValue 同一唯一键已存在的指标值
      * @return 是否检测到冲突
      */
     private boolean checkConflict(long userId, IndicatorSubscription subscription, LocalDateTime barTime,
-                               IndicatorResult result, String fingerprint) {
+                               IndicatorResult result, String fingerprint, IndicatorValue existingValue) {
         
         try {
-            // 查询已存在的记录
-            java.util.Optional<IndicatorValue> existing = valueRepository.findOneKey(
-                    userId,
-                    subscription.getTradingPairId(),
-                    subscription.getTimeframe(),
-                    barTime,
-                    subscription.getIndicatorCode(),
-                    subscription.getIndicatorVersion()
-            );
-            
-            if (!existing.isPresent()) {
-                // 不存在记录（可能被其他线程删除了），不算冲突
-                return false;
-            }
-            
-            IndicatorValue existingValue = existing.get();
-            
             // 检查指纹是否相同
             if (!fingerprint.equals(existingValue.getCalcFingerprint())) {
                 // 指纹不同，检测值是否不同
@@ -457,5 +521,26 @@ public class IndicatorCalculator {
             return false;
         }
     }
+    
+    /**
+     * 一次计算的结果
+     * 
+     * @param engineName 引擎名称
+     * @param result 成功结果（失败时为null）
+     * @param errorMsg 错误信息（成功时为null）
+     * @param costNanos 计算耗时（纳秒，System.nanoTime计时）
+     */
+    private record ComputeOutcome(String engineName, IndicatorResult result, String errorMsg, long costNanos) {
+        
+        static ComputeOutcome failed(String engineName, String errorMsg, long costNanos) {
+            return new ComputeOutcome(engineName, null, errorMsg, costNanos);
+        }
+        
+        /**
+         * 计算耗时（毫秒，写入calc_log/indicator_value的cost_ms列）
+         */
+        int costMs() {
+            return (int) TimeUnit.NANOSECONDS.toMillis(costNanos);
+        }
+    }
 }
-
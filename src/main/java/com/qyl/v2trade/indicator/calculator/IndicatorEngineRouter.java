@@ -1,7 +1,11 @@
 package com.qyl.v2trade.indicator.calculator;
 
+import com.qyl.v2trade.indicator.config.IndicatorEngineProperties;
+import com.qyl.v2trade.indicator.definition.IndicatorDefinition;
+import com.qyl.v2trade.indicator.definition.impl.FormulaIndicatorDefinition;
 import com.qyl.v2trade.indicator.engine.IndicatorEngine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -12,6 +16,11 @@ import java.util.concurrent.ConcurrentHashMap;
  * 指标引擎路由器
  * 
  * <p>根据引擎名称路由到对应的引擎实现
+ * 
+ * <p>启用流式引擎时（indicator.engine.stream-enabled），流式引擎支持的指标优先路由到流式引擎，
+ * 其余指标按指标定义的引擎计算
+ * 
+ * <p>公式指标（engine=formula）只能由流式引擎编译计算，不受stream-enabled开关影响
  *
  * @author qyl
  */
@@ -19,6 +28,14 @@ import java.util.concurrent.ConcurrentHashMap;
 @Component
 public class IndicatorEngineRouter {
     
+    /**
+     * 流式引擎名称
+     */
+    public static final String STREAM_ENGINE = "stream";
+    
+    @Autowired(required = false)
+    private IndicatorEngineProperties properties;
+    
     /**
      * 引擎存储：key = engineName
      */
@@ -62,6 +79,25 @@ public class IndicatorEngineRouter {
         return engineMap.get(engineName);
     }
     
+    /**
+     * 按指标定义路由引擎
+     * 
+     * @param definition 指标定义
+     * @return 引擎实例，如果不存在返回null
+     */
+    public IndicatorEngine route(IndicatorDefinition definition) {
+        if (FormulaIndicatorDefinition.ENGINE.equals(definition.engine())) {
+            return engineMap.get(STREAM_ENGINE);
+        }
+        if (properties != null && properties.isStreamEnabled()) {
+            IndicatorEngine streamEngine = engineMap.get(STREAM_ENGINE);
+            if (streamEngine != null && streamEngine.supports(definition.code())) {
+                return streamEngine;
+            }
+        }
+        return engineMap.get(definition.engine());
+    }
+    
     /**
      * 检查引擎是否存在
      */
@@ -0,0 +1,161 @@
+package com.qyl.v2trade.indicator.calculator;
+
+import com.qyl.v2trade.indicator.repository.IndicatorSubscriptionRepository;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 启用订阅的内存索引（key = pairId:timeframe）
+ *
+ * <p>BarClosedEvent处理时直接从索引取出该pair/timeframe的全部启用订阅，不再查询数据库
+ *
+ * <p>维护方式：
+ * <ul>
+ *   <li>启动时全量加载（IndicatorBootstrapListener）</li>
+ *   <li>订阅API创建/启停后立即更新（{@link #apply}）</li>
+ *   <li>定期检查订阅表版本（行数 + 最大updated_at），与上次全量加载的版本不同时全量重建
+ *       （包括API变更本身，保证同期绕过API的变更不会被API变更的版本掩盖）</li>
+ * </ul>
+ *
+ * <p>线程安全：索引为不可变快照，写操作复制后整体替换（写少读多）
+ *
+ * @author qyl
+ */
+@Slf4j
+@Component
+public class SubscriptionIndex {
+
+    @Autowired
+    private IndicatorSubscriptionRepository subscriptionRepository;
+
+    /**
+     * 索引快照：key = pairId:timeframe，value为不可变列表
+     */
+    private volatile Map<String, List<IndicatorSubscription>> index = Collections.emptyMap();
+
+    /**
+     * 最近一次加载时的订阅表版本
+     */
+    private volatile String loadedVersion;
+
+    private volatile boolean loaded;
+
+    /**
+     * 全量加载启用订阅
+     */
+    public synchronized void reload() {
+        String version = subscriptionRepository.getVersion();
+        List<IndicatorSubscription> enabled = subscriptionRepository.listAllEnabled();
+
+        Map<String, List<IndicatorSubscription>> rebuilt = new HashMap<>();
+        for (IndicatorSubscription subscription : enabled) {
+            rebuilt.computeIfAbsent(buildKey(subscription.getTradingPairId(), subscription.getTimeframe()),
+                    k -> new ArrayList<>()).add(subscription);
+        }
+        rebuilt.replaceAll((key, list) -> List.copyOf(list));
+
+        index = Collections.unmodifiableMap(rebuilt);
+        loadedVersion = version;
+        loaded = true;
+        log.info("订阅索引已加载: subscriptions={}, pairTimeframes={}, version={}",
+                enabled.size(), rebuilt.size(), version);
+    }
+
+    /**
+     * 订阅变更后更新索引（启用则加入/替换，禁用则移除）
+     *
+     * @param subscription 变更后的订阅（需包含ID）
+     */
+    public synchronized void apply(IndicatorSubscription subscription) {
+        if (subscription == null || subscription.getId() == null) {
+            return;
+        }
+        String key = buildKey(subscription.getTradingPairId(), subscription.getTimeframe());
+        Map<String, List<IndicatorSubscription>> updated = new HashMap<>(index);
+
+        List<IndicatorSubscription> list = new ArrayList<>(updated.getOrDefault(key, List.of()));
+        list.removeIf(existing -> Objects.equals(existing.getId(), subscription.getId()));
+        if (subscription.getEnabled() != null && subscription.getEnabled() == 1) {
+            list.add(subscription);
+        }
+
+        if (list.isEmpty()) {
+            updated.remove(key);
+        } else {
+            updated.put(key, List.copyOf(list));
+        }
+        index = Collections.unmodifiableMap(updated);
+
+        // 不推进loadedVersion：此刻读到的表版本可能同时包含其他节点或直接改库的变更，
+        // 只有全量加载的版本才可信。API写入使下次版本检查做一次全量重建
+        log.debug("订阅索引已更新: id={}, key={}, enabled={}, count={}",
+                subscription.getId(), key, subscription.getEnabled(), list.size());
+    }
+
+    /**
+     * 定期检查订阅表版本，发现绕过API的变更（如直接改库）时全量重建
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    public void checkVersion() {
+        if (!loaded) {
+            return;
+        }
+        try {
+            String version = subscriptionRepository.getVersion();
+            if (!Objects.equals(version, loadedVersion)) {
+                log.info("订阅表版本变化，重建订阅索引: {} -> {}", loadedVersion, version);
+                reload();
+            }
+        } catch (Exception e) {
+            log.error("检查订阅表版本失败", e);
+        }
+    }
+
+    /**
+     * 获取指定pair/timeframe的启用订阅
+     *
+     * <p>索引尚未加载时（启动阶段）回退到数据库查询
+     *
+     * @return 不可变列表
+     */
+    public List<IndicatorSubscription> get(long pairId, String timeframe) {
+        if (!loaded) {
+            return subscriptionRepository.findByPairAndTimeframe(pairId, timeframe);
+        }
+        return index.getOrDefault(buildKey(pairId, timeframe), List.of());
+    }
+
+    /**
+     * 获取指定用户在pair/timeframe的启用订阅
+     */
+    public List<IndicatorSubscription> get(long userId, long pairId, String timeframe) {
+        List<IndicatorSubscription> result = new ArrayList<>();
+        for (IndicatorSubscription subscription : get(pairId, timeframe)) {
+            if (subscription.getUserId() != null && subscription.getUserId() == userId) {
+                result.add(subscription);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取索引中的启用订阅总数
+     */
+    public int size() {
+        return index.values().stream().mapToInt(List::size).sum();
+    }
+
+    private String buildKey(Long pairId, String timeframe) {
+        return pairId + ":" + timeframe;
+    }
+}
@@ -0,0 +1,47 @@
+package com.qyl.v2trade.indicator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 指标引擎配置属性
+ *
+ * @author qyl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "indicator.engine")
+public class IndicatorEngineProperties {
+
+    /**
+     * 是否将流式引擎支持的指标路由到流式引擎（stream），否则按指标定义的引擎计算
+     * 默认：true
+     */
+    private boolean streamEnabled = true;
+
+    /**
+     * 流式指标状态的空闲淘汰时间（分钟），超过该时间未被计算的状态会被清理，下次计算时重新预热
+     * 默认：1440分钟（1天）
+     */
+    private int streamStateIdleMinutes = 1440;
+
+    /**
+     * 历史重算任务的并行度（同时处理的pair/timeframe序列数），0表示使用CPU核数
+     * 默认：0
+     */
+    private int recomputeParallelism = 0;
+
+    /**
+     * 历史重算的预热Bar数量：从开始时间之前多读取的Bar数，使EMA等递推指标收敛后再输出
+     * （实际预热数量不小于指标所需的最少Bar数）
+     * 默认：500
+     */
+    private int recomputeWarmupBars = 500;
+
+    /**
+     * 保留的已结束历史重算任务数量（超出后清理最早提交的任务）
+     * 默认：20
+     */
+    private int recomputeMaxRetainedJobs = 20;
+}
@@ -0,0 +1,46 @@
+package com.qyl.v2trade.indicator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 指标落库配置属性
+ *
+ * @author qyl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "indicator.persistence")
+public class IndicatorPersistenceProperties {
+
+    /**
+     * 是否启用异步批量写入（indicator_value / indicator_calc_log），关闭后逐行同步写入
+     * 默认：true
+     */
+    private boolean writeBehindEnabled = true;
+
+    /**
+     * 单次批量写入的最大行数
+     * 默认：500
+     */
+    private int batchSize = 500;
+
+    /**
+     * 最长刷写间隔（毫秒），未攒满一批时到期也会写入
+     * 默认：200毫秒
+     */
+    private long flushIntervalMs = 200;
+
+    /**
+     * 每个写入队列的容量，队列满时退化为调用线程同步写入
+     * 默认：100000
+     */
+    private int queueCapacity = 100000;
+
+    /**
+     * 内存指纹表的保留时间（分钟），用于同一Bar重复计算的冲突检测，早于该时间的Bar不再检测
+     * 默认：240分钟
+     */
+    private int fingerprintRetentionMinutes = 240;
+}
@@ -0,0 +1,58 @@
+package com.qyl.v2trade.indicator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * BarSeries配置属性
+ *
+ * @author qyl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "indicator.series")
+public class IndicatorSeriesProperties {
+
+    /**
+     * 启动加载BarSeries的并发度（同时查询QuestDB的序列数）
+     * 默认：8
+     */
+    private int bootstrapParallelism = 8;
+
+    /**
+     * 是否延迟加载：启动时只加载已有启用订阅的序列，其余序列在收到第一个订阅或BarClosedEvent时加载
+     * 默认：false（启动时加载所有行情订阅交易对的全部周期）
+     */
+    private boolean lazyLoad = false;
+
+    /**
+     * 启动耗时报告中列出的最慢序列数量
+     * 默认：5
+     */
+    private int bootstrapReportSlowest = 5;
+
+    /**
+     * 预热系数：序列深度 = 订阅中最大回看长度 × 预热系数，保证EMA、RSI等递推指标收敛
+     * 默认：3.0
+     */
+    private double warmupFactor = 3.0;
+
+    /**
+     * 没有启用订阅的序列深度（只维护基础K线）
+     * 默认：100
+     */
+    private int defaultDepth = 100;
+
+    /**
+     * 序列最小深度
+     * 默认：50
+     */
+    private int minDepth = 50;
+
+    /**
+     * 序列最大深度（限制单个序列的内存占用）
+     * 默认：2000
+     */
+    private int maxDepth = 2000;
+}
@@ -0,0 +1,40 @@
+package com.qyl.v2trade.indicator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 指标计算SLO配置属性
+ *
+ * @author qyl
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "indicator.slo")
+public class IndicatorSloProperties {
+
+    /**
+     * 单次计算的耗时预算（微秒），订阅最近一段时间的平均耗时超过预算时标记为超预算
+     * 默认：2000微秒（2毫秒）
+     */
+    private long calcBudgetMicros = 2000;
+
+    /**
+     * Bar收盘到该Bar最后一个指标结果的延迟预算（毫秒）
+     * 默认：1000毫秒
+     */
+    private long barLatencyBudgetMillis = 1000;
+
+    /**
+     * 耗时报告默认列出的最慢订阅/批次数量
+     * 默认：20
+     */
+    private int topN = 20;
+
+    /**
+     * 耗时统计的空闲淘汰时间（分钟），超过该时间没有计算的订阅/批次从报告中移除
+     * 默认：1440分钟（1天）
+     */
+    private int statsIdleMinutes = 1440;
+}
@@ -0,0 +1,138 @@
+package com.qyl.v2trade.indicator.definition;
+
+import com.qyl.v2trade.indicator.definition.impl.FormulaIndicatorDefinition;
+import com.qyl.v2trade.indicator.repository.IndicatorDefinitionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 公式指标服务
+ *
+ * <p>公式指标与内置指标一样保存在indicator_definition表（engine=formula，公式在formula列），
+ * 创建时解析校验一次后注册到内存Registry，由IndicatorEngineRouter路由到流式引擎计算
+ *
+ * @author qyl
+ */
+@Slf4j
+@Service
+public class FormulaIndicatorService {
+
+    /**
+     * 公式指标默认支持的周期（与指标模块支持的聚合周期一致）
+     */
+    private static final Set<String> DEFAULT_TIMEFRAMES = Set.of("5m", "15m", "30m", "1h", "4h");
+
+    @Autowired
+    private IndicatorRegistry indicatorRegistry;
+
+    @Autowired
+    private IndicatorDefinitionRepository definitionRepository;
+
+    /**
+     * 加载数据库中所有启用的公式指标并注册（启动时调用，公式不合法的定义跳过）
+     *
+     * @return 注册成功的数量
+     */
+    public int loadAll() {
+        int registered = 0;
+        for (com.qyl.v2trade.indicator.repository.entity.IndicatorDefinition entity
+                : definitionRepository.listEnabledByEngine(FormulaIndicatorDefinition.ENGINE)) {
+            try {
+                indicatorRegistry.register(toDefinition(entity));
+                registered++;
+            } catch (Exception e) {
+                log.warn("公式指标定义无效，跳过: code={}, version={}, formula={}, error={}",
+                        entity.getIndicatorCode(), entity.getIndicatorVersion(), entity.getFormula(), e.getMessage());
+            }
+        }
+        return registered;
+    }
+
+    /**
+     * 创建公式指标：解析校验公式、保存定义并注册
+     *
+     * @param userId 用户ID
+     * @param code 指标编码（不能与已注册的指标重复）
+     * @param version 版本
+     * @param name 名称
+     * @param category 分类
+     * @param formula 公式
+     * @param parameters 参数名到默认值（整数默认值为INT参数，可作为周期；其余为DECIMAL参数）
+     * @return 注册的指标定义
+     * @throws IllegalArgumentException 公式或参数不合法、编码已存在
+     */
+    public FormulaIndicatorDefinition create(long userId, String code, String version, String name,
+                                             IndicatorCategory category, String formula,
+                                             Map<String, Object> parameters) {
+        if (indicatorRegistry.isRegistered(code, version)) {
+            throw new IllegalArgumentException("指标已存在: code=" + code + ", version=" + version);
+        }
+
+        FormulaIndicatorDefinition definition = FormulaIndicatorDefinition.of(code, version,
+                name != null ? name : code, category, toParameterSpec(parameters), formula, DEFAULT_TIMEFRAMES);
+
+        definitionRepository.saveDefinition(toEntity(userId, definition));
+        indicatorRegistry.register(definition);
+        log.info("创建公式指标: userId={}, code={}, version={}, formula={}, minRequiredBars={}",
+                userId, code, version, formula, definition.minRequiredBars());
+        return definition;
+    }
+
+    private FormulaIndicatorDefinition toDefinition(com.qyl.v2trade.indicator.repository.entity.IndicatorDefinition entity) {
+        IndicatorCategory category = IndicatorCategory.GENERAL;
+        if (entity.getCategory() != null) {
+            category = IndicatorCategory.valueOf(entity.getCategory());
+        }
+        Set<String> timeframes = entity.getSupportedTimeframes() != null && !entity.getSupportedTimeframes().isEmpty()
+                ? new LinkedHashSet<>(entity.getSupportedTimeframes()) : DEFAULT_TIMEFRAMES;
+        return FormulaIndicatorDefinition.of(entity.getIndicatorCode(), entity.getIndicatorVersion(),
+                entity.getIndicatorName(), category, ParameterSpec.fromMap(entity.getParamSchema()),
+                entity.getFormula(), timeframes);
+    }
+
+    private com.qyl.v2trade.indicator.repository.entity.IndicatorDefinition toEntity(
+            long userId, FormulaIndicatorDefinition def) {
+        com.qyl.v2trade.indicator.repository.entity.IndicatorDefinition entity =
+                new com.qyl.v2trade.indicator.repository.entity.IndicatorDefinition();
+        entity.setUserId(userId);
+        entity.setIndicatorCode(def.code());
+        entity.setIndicatorName(def.name());
+        entity.setIndicatorVersion(def.version());
+        entity.setCategory(def.category().name());
+        entity.setEngine(def.engine());
+        entity.setFormula(def.formula().source());
+        entity.setParamSchema(def.parameters().toMap());
+        entity.setReturnSchema(def.returns().toMap());
+        entity.setMinRequiredBars(def.minRequiredBars());
+        entity.setSupportedTimeframes(new ArrayList<>(def.supportedTimeframes()));
+        entity.setEnabled(1);
+        return entity;
+    }
+
+    private ParameterSpec toParameterSpec(Map<String, Object> parameters) {
+        List<ParameterSpec.ParameterDefinition> definitions = new ArrayList<>();
+        if (parameters != null) {
+            for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+                Object defaultValue = entry.getValue();
+                if (defaultValue != null && !(defaultValue instanceof Number)) {
+                    throw new IllegalArgumentException("参数默认值必须为数字: " + entry.getKey() + "=" + defaultValue);
+                }
+                boolean integral = defaultValue == null || defaultValue instanceof Integer || defaultValue instanceof Long;
+                definitions.add(new ParameterSpec.ParameterDefinition(
+                        entry.getKey(),
+                        integral ? ParameterSpec.ParamType.INT : ParameterSpec.ParamType.DECIMAL,
+                        defaultValue == null,
+                        defaultValue,
+                        null));
+            }
+        }
+        return ParameterSpec.of(definitions);
+    }
+}
@@ -1,5 +1,6 @@
 package com.qyl.v2trade.indicator.definition;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -48,6 +49,34 @@ public record ParameterSpec(
         return new ParameterSpec(parameters);
     }
     
+    /**
+     * 从Map还原（{@link #toMap()}的逆转换，用于读取数据库中的param_schema）
+     */
+    @SuppressWarnings("unchecked")
+    public static ParameterSpec fromMap(Map<String, Object> map) {
+        List<ParameterDefinition> parameters = new ArrayList<>();
+        Object list = map != null ? map.get("parameters") : null;
+        if (list instanceof List<?> items) {
+            for (Object item : items) {
+                if (!(item instanceof Map<?, ?>)) {
+                    continue;
+                }
+                Map<String, Object> p = (Map<String, Object>) item;
+                Object defaultValue = p.get("defaultValue");
+                Object range = p.get("range");
+                Map<String, Object> rangeMap = range instanceof Map<?, ?> ? (Map<String, Object>) range : Map.of();
+                parameters.add(new ParameterDefinition(
+                    String.valueOf(p.get("name")),
+                    ParamType.valueOf(String.valueOf(p.getOrDefault("type", ParamType.STRING.name()))),
+                    Boolean.TRUE.equals(p.get("required")),
+                    "".equals(defaultValue) ? null : defaultValue,
+                    rangeMap.isEmpty() ? null : new Range(rangeMap.get("min"), rangeMap.get("max"))
+                ));
+            }
+        }
+        return new ParameterSpec(parameters);
+    }
+    
     /**
      * 转换为Map（用于存储JSON）
      */
@@ -0,0 +1,67 @@
+package com.qyl.v2trade.indicator.definition.impl;
+
+import com.qyl.v2trade.indicator.definition.IndicatorCategory;
+import com.qyl.v2trade.indicator.definition.IndicatorDefinition;
+import com.qyl.v2trade.indicator.definition.ParameterSpec;
+import com.qyl.v2trade.indicator.definition.ReturnSpec;
+import com.qyl.v2trade.indicator.engine.stream.IndicatorFormula;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 公式指标定义（用户以表达式定义的指标，由流式引擎编译计算）
+ *
+ * <p>公式在创建定义时解析和校验，注册后直接使用解析结果，计算时不再解析
+ */
+public record FormulaIndicatorDefinition(
+    String code,
+    String version,
+    String name,
+    IndicatorCategory category,
+    ParameterSpec parameters,
+    ReturnSpec returns,
+    int minRequiredBars,
+    Set<String> supportedTimeframes,
+    IndicatorFormula formula
+) implements IndicatorDefinition {
+
+    /**
+     * 公式指标的引擎名称
+     */
+    public static final String ENGINE = "formula";
+
+    @Override
+    public String engine() {
+        return ENGINE;
+    }
+
+    /**
+     * 解析公式并创建定义
+     *
+     * @param formula 公式（参数名引用parameters中声明的参数）
+     * @throws IllegalArgumentException 公式不合法
+     */
+    public static FormulaIndicatorDefinition of(String code, String version, String name, IndicatorCategory category,
+                                                ParameterSpec parameters, String formula,
+                                                Set<String> supportedTimeframes) {
+        ParameterSpec spec = parameters != null ? parameters : ParameterSpec.of(List.of());
+        Map<String, Object> defaults = new HashMap<>();
+        for (ParameterSpec.ParameterDefinition parameter : spec.parameters()) {
+            defaults.put(parameter.name(), parameter.defaultValue());
+        }
+        IndicatorFormula parsed = IndicatorFormula.parse(formula, defaults);
+
+        int minRequiredBars;
+        try {
+            minRequiredBars = parsed.requiredBars(Map.of());
+        } catch (IllegalArgumentException e) {
+            // 存在没有默认值的参数，订阅编译时再确定
+            minRequiredBars = 1;
+        }
+        return new FormulaIndicatorDefinition(code, version, name, category != null ? category : IndicatorCategory.GENERAL,
+                spec, ReturnSpec.single(), minRequiredBars, supportedTimeframes, parsed);
+    }
+}
@@ -67,6 +67,11 @@ public record BarClosedEvent(
      */
     int sourceCount,
     
+    /**
+     * 修订版本号（0表示首次闭合；大于0表示迟到/补拉数据修正后的修订Bar）
+     */
+    int revision,
+    
     /**
      * 事件产生时间（本地时间）
      */
@@ -90,6 +95,25 @@ public record BarClosedEvent(
             BigDecimal close,
             BigDecimal volume,
             int sourceCount) {
+        return of(tradingPairId, symbol, timeframe, barCloseTime,
+                open, high, low, close, volume, sourceCount, 0);
+    }
+    
+    /**
+     * 创建BarClosedEvent（指定修订版本号）
+     */
+    public static BarClosedEvent of(
+            Long tradingPairId,
+            String symbol,
+            String timeframe,
+            LocalDateTime barCloseTime,
+            BigDecimal open,
+            BigDecimal high,
+            BigDecimal low,
+            BigDecimal close,
+            BigDecimal volume,
+            int sourceCount,
+            int revision) {
         return new BarClosedEvent(
                 tradingPairId,
                 symbol,
@@ -101,8 +125,18 @@ public record BarClosedEvent(
                 close,
                 volume,
                 sourceCount,
+                revision,
                 LocalDateTime.now()
         );
     }
+    
+    /**
+     * 是否为修订Bar（已闭合的Bar被迟到/补拉数据修正）
+     * 
+     * <p>修订Bar只用于修正历史序列，不应再触发实时决策
+     */
+    public boolean isAmendment() {
+        return revision > 0;
+    }
 }
 
@@ -32,5 +32,15 @@ public interface IndicatorEngine {
      * @return 引擎名称（如："ta4j", "custom"）
      */
     String getEngineName();
+    
+    /**
+     * 是否支持指定指标
+     * 
+     * @param indicatorCode 指标编码
+     * @return 默认支持所有指标（由compute返回INVALID结果表示不支持）
+     */
+    default boolean supports(String indicatorCode) {
+        return true;
+    }
 }
 
@@ -1,6 +1,5 @@
 package com.qyl.v2trade.indicator.engine.custom;
 
-import com.qyl.v2trade.indicator.domain.model.NormalizedBar;
 import com.qyl.v2trade.indicator.engine.IndicatorComputeRequest;
 import com.qyl.v2trade.indicator.engine.IndicatorEngine;
 import com.qyl.v2trade.indicator.engine.IndicatorResult;
@@ -10,8 +9,6 @@ import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -51,11 +48,8 @@ public class SimpleSmaEngine implements IndicatorEngine {
                 return IndicatorResult.invalid("period必须大于0");
             }
             
-            // 3. 获取目标时间之前的bars
-            List<NormalizedBar> bars = series.getBars();
-            
-            // 找到目标时间的索引
-            int targetIndex = findTargetIndex(bars, request.targetBarTime());
+            // 3. 找到目标时间的索引
+            int targetIndex = series.indexOf(request.targetBarTime());
             if (targetIndex < 0) {
                 return IndicatorResult.invalid("找不到目标时间的Bar: " + request.targetBarTime());
             }
@@ -70,8 +64,7 @@ public class SimpleSmaEngine implements IndicatorEngine {
             int startIndex = targetIndex - period + 1;
             
             for (int i = startIndex; i <= targetIndex; i++) {
-                NormalizedBar bar = bars.get(i);
-                sum = sum.add(bar.close());
+                sum = sum.add(series.getBar(i).close());
             }
             
             BigDecimal sma = sum.divide(BigDecimal.valueOf(period), 8, RoundingMode.HALF_UP);
@@ -85,19 +78,6 @@ public class SimpleSmaEngine implements IndicatorEngine {
         }
     }
     
-    /**
-     * 查找目标时间的索引
-     */
-    private int findTargetIndex(List<NormalizedBar> bars, LocalDateTime targetTime) {
-        for (int i = 0; i < bars.size(); i++) {
-            NormalizedBar bar = bars.get(i);
-            if (bar.barTime().equals(targetTime)) {
-                return i;
-            }
-        }
-        return -1;
-    }
-    
     /**
      * 获取int参数
      */
@@ -0,0 +1,49 @@
+package com.qyl.v2trade.indicator.engine.stream;
+
+/**
+ * 指数平均递推（EMA/Wilder平滑的公共部分）
+ *
+ * <p>与ta4j的AbstractEMAIndicator一致：第一个值作为种子，之后 value = value + (x - value) * alpha
+ *
+ * @author qyl
+ */
+class ExponentialAverage {
+
+    private final double alpha;
+
+    private double value = Double.NaN;
+
+    private int count;
+
+    ExponentialAverage(double alpha) {
+        this.alpha = alpha;
+    }
+
+    /**
+     * EMA平滑：alpha = 2 / (period + 1)
+     */
+    static ExponentialAverage ema(int period) {
+        return new ExponentialAverage(2.0 / (period + 1));
+    }
+
+    /**
+     * Wilder平滑（ta4j的MMAIndicator）：alpha = 1 / period
+     */
+    static ExponentialAverage wilder(int period) {
+        return new ExponentialAverage(1.0 / period);
+    }
+
+    double update(double x) {
+        value = count == 0 ? x : value + (x - value) * alpha;
+        count++;
+        return value;
+    }
+
+    double value() {
+        return value;
+    }
+
+    int count() {
+        return count;
+    }
+}
@@ -0,0 +1,491 @@
+package com.qyl.v2trade.indicator.engine.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 公式指标（用户以表达式定义的指标，如 ema(close, fast) - ema(close, slow)）
+ *
+ * <p>公式在定义注册时解析和校验一次，得到语法树；订阅编译时把语法树编译到所属pair/timeframe的
+ * {@link IndicatorGraph}上，每个函数调用对应一个增量基础算子节点，每根Bar O(1)求值。
+ * 节点按表达式key与内置指标共享：ema(close, 12) - ema(close, 26) 与MACD订阅使用同一组EMA和SUB节点
+ *
+ * <p>语法：
+ * <pre>
+ * 表达式 := 项 (('+' | '-') 项)*
+ * 项     := 因子 (('*' | '/') 因子)*
+ * 因子   := '-' 因子 | 数字 | 序列 | 参数名 | 函数 '(' 参数列表 ')' | '(' 表达式 ')'
+ * 序列   := open | high | low | close | volume
+ * </pre>
+ *
+ * <p>函数（n为周期，只能是正整数常量或参数名）：
+ * <ul>
+ *   <li>sma/ema/wma/rma/stdev/highest/lowest/roc(x, n)</li>
+ *   <li>change(x)、tr()、abs(x)、sqrt(x)、max(a, b)、min(a, b)</li>
+ * </ul>
+ *
+ * <p>除数为0等无效结果为NaN，由引擎转换为INVALID结果
+ *
+ * <p>线程安全：解析后不可变
+ *
+ * @author qyl
+ */
+public final class IndicatorFormula {
+
+    /**
+     * 公式最大长度
+     */
+    public static final int MAX_LENGTH = 1024;
+
+    private static final Set<String> SOURCES = Set.of("open", "high", "low", "close", "volume");
+
+    private final String source;
+    private final Expr root;
+    private final Map<String, Object> parameterDefaults;
+    private final Set<String> referencedParameters;
+
+    private IndicatorFormula(String source, Expr root, Map<String, Object> parameterDefaults,
+                             Set<String> referencedParameters) {
+        this.source = source;
+        this.root = root;
+        this.parameterDefaults = parameterDefaults;
+        this.referencedParameters = Collections.unmodifiableSet(referencedParameters);
+    }
+
+    /**
+     * 解析并校验公式
+     *
+     * @param source 公式
+     * @param parameterDefaults 声明的参数及默认值（默认值可为null，表示订阅必须提供）
+     * @return 解析后的公式
+     * @throws IllegalArgumentException 语法错误、未知函数/标识符、参数个数或周期不合法
+     */
+    public static IndicatorFormula parse(String source, Map<String, Object> parameterDefaults) {
+        if (source == null || source.isBlank()) {
+            throw new IllegalArgumentException("公式不能为空");
+        }
+        if (source.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("公式长度不能超过" + MAX_LENGTH);
+        }
+        Map<String, Object> defaults = parameterDefaults != null ? Map.copyOf(withoutNullValues(parameterDefaults))
+                : Map.of();
+        Parser parser = new Parser(source, parameterDefaults != null ? parameterDefaults.keySet() : Set.of());
+        Expr root = parser.parseFormula();
+        IndicatorFormula formula = new IndicatorFormula(source, root, defaults, parser.referencedParameters);
+        // 按默认参数校验一次周期（没有默认值的参数在订阅编译时校验）
+        formula.requiredBars(Map.of(), false);
+        return formula;
+    }
+
+    /**
+     * 公式原文
+     */
+    public String source() {
+        return source;
+    }
+
+    /**
+     * 公式中引用的参数名
+     */
+    public Set<String> referencedParameters() {
+        return referencedParameters;
+    }
+
+    /**
+     * 将公式编译到计算图
+     *
+     * @param params 订阅参数（未设置的参数取默认值）
+     * @param graph 计算图（已有的相同节点会被复用）
+     * @return 编译结果（单值，结果键为value）
+     * @throws IllegalArgumentException 参数缺失或周期不合法
+     */
+    public StreamIndicators.CompiledIndicator compile(Map<String, Object> params, IndicatorGraph graph) {
+        return StreamIndicators.CompiledIndicator.single(compile(root, params, graph), requiredBars(params, true));
+    }
+
+    /**
+     * 计算最少需要的Bar数量
+     *
+     * @param params 订阅参数（未设置的参数取默认值）
+     */
+    public int requiredBars(Map<String, Object> params) {
+        return requiredBars(params, true);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    // ========== 编译 ==========
+
+    private IndicatorGraph.Node compile(Expr expr, Map<String, Object> params, IndicatorGraph graph) {
+        if (expr instanceof Constant constant) {
+            return graph.constant(constant.value());
+        }
+        if (expr instanceof Source series) {
+            return switch (series.name()) {
+                case "open" -> graph.open();
+                case "high" -> graph.high();
+                case "low" -> graph.low();
+                case "volume" -> graph.volume();
+                default -> graph.close();
+            };
+        }
+        if (expr instanceof Parameter parameter) {
+            return graph.constant(parameterValue(parameter.name(), params));
+        }
+        if (expr instanceof Negate negate) {
+            return graph.unary("NEG", compile(negate.operand(), params, graph), x -> -x);
+        }
+        if (expr instanceof Binary binary) {
+            IndicatorGraph.Node left = compile(binary.left(), params, graph);
+            IndicatorGraph.Node right = compile(binary.right(), params, graph);
+            return switch (binary.operator()) {
+                case '+' -> graph.binary("ADD", left, right, (a, b) -> a + b);
+                case '-' -> graph.binary("SUB", left, right, (a, b) -> a - b);
+                case '*' -> graph.binary("MUL", left, right, (a, b) -> a * b);
+                default -> graph.binary("DIV", left, right, (a, b) -> b == 0 ? Double.NaN : a / b);
+            };
+        }
+
+        Call call = (Call) expr;
+        List<Expr> args = call.arguments();
+        switch (call.function()) {
+            case TR:
+                return graph.trueRange();
+            case CHANGE:
+                return graph.change(compile(args.get(0), params, graph));
+            case ABS:
+                return graph.unary("ABS", compile(args.get(0), params, graph), Math::abs);
+            case SQRT:
+                return graph.unary("SQRT", compile(args.get(0), params, graph), Math::sqrt);
+            case MAX:
+                return graph.binary("MAX2", compile(args.get(0), params, graph),
+                        compile(args.get(1), params, graph), Math::max);
+            case MIN:
+                return graph.binary("MIN2", compile(args.get(0), params, graph),
+                        compile(args.get(1), params, graph), Math::min);
+            default:
+                break;
+        }
+
+        IndicatorGraph.Node input = compile(args.get(0), params, graph);
+        int period = period(args.get(1), params, true);
+        return switch (call.function()) {
+            case SMA -> graph.sma(input, period);
+            case EMA -> graph.ema(input, period);
+            case WMA -> graph.wma(input, period);
+            case RMA -> graph.wilder(input, period);
+            case STDEV -> graph.standardDeviation(input, period);
+            case HIGHEST -> graph.highest(input, period);
+            case LOWEST -> graph.lowest(input, period);
+            default -> graph.rateOfChange(input, period);
+        };
+    }
+
+    /**
+     * 最少需要的Bar数量：窗口类函数在输入有效后再需要n-1根，roc需要n根，change需要1根
+     *
+     * @param strict false时跳过没有默认值的参数（解析时校验）
+     */
+    private int requiredBars(Map<String, Object> params, boolean strict) {
+        return requiredBars(root, params, strict);
+    }
+
+    private int requiredBars(Expr expr, Map<String, Object> params, boolean strict) {
+        if (expr instanceof Negate negate) {
+            return requiredBars(negate.operand(), params, strict);
+        }
+        if (expr instanceof Binary binary) {
+            return Math.max(requiredBars(binary.left(), params, strict),
+                    requiredBars(binary.right(), params, strict));
+        }
+        if (!(expr instanceof Call call)) {
+            return 1;
+        }
+
+        Function function = call.function();
+        if (!function.periodic) {
+            int required = 1;
+            for (Expr arg : call.arguments()) {
+                required = Math.max(required, requiredBars(arg, params, strict));
+            }
+            return function == Function.CHANGE ? required + 1 : required;
+        }
+        int input = requiredBars(call.arguments().get(0), params, strict);
+        int period = period(call.arguments().get(1), params, strict);
+        return function == Function.ROC ? input + period : input + period - 1;
+    }
+
+    private int period(Expr expr, Map<String, Object> params, boolean strict) {
+        double value;
+        if (expr instanceof Constant constant) {
+            value = constant.value();
+        } else {
+            String name = ((Parameter) expr).name();
+            if (!strict && !parameterDefaults.containsKey(name)) {
+                return 1;
+            }
+            value = parameterValue(name, params);
+        }
+        if (value <= 0 || value != Math.floor(value) || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("周期必须为正整数: " + expr);
+        }
+        return (int) value;
+    }
+
+    private double parameterValue(String name, Map<String, Object> params) {
+        Object value = params != null ? params.get(name) : null;
+        if (value == null) {
+            value = parameterDefaults.get(name);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("缺少参数: " + name);
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("参数不是数字: " + name + "=" + value);
+        }
+    }
+
+    private static Map<String, Object> withoutNullValues(Map<String, Object> values) {
+        Map<String, Object> result = new HashMap<>();
+        values.forEach((key, value) -> {
+            if (value != null) {
+                result.put(key, value);
+            }
+        });
+        return result;
+    }
+
+    // ========== 语法树 ==========
+
+    private sealed interface Expr permits Constant, Source, Parameter, Negate, Binary, Call {
+    }
+
+    private record Constant(double value) implements Expr {
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    private record Source(String name) implements Expr {
+    }
+
+    private record Parameter(String name) implements Expr {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private record Negate(Expr operand) implements Expr {
+    }
+
+    private record Binary(char operator, Expr left, Expr right) implements Expr {
+    }
+
+    private record Call(Function function, List<Expr> arguments) implements Expr {
+    }
+
+    /**
+     * 支持的函数
+     */
+    private enum Function {
+        SMA(2, true), EMA(2, true), WMA(2, true), RMA(2, true), STDEV(2, true),
+        HIGHEST(2, true), LOWEST(2, true), ROC(2, true),
+        CHANGE(1, false), TR(0, false), ABS(1, false), SQRT(1, false), MAX(2, false), MIN(2, false);
+
+        /**
+         * 参数个数
+         */
+        private final int arity;
+
+        /**
+         * 是否为窗口函数（最后一个参数为周期）
+         */
+        private final boolean periodic;
+
+        Function(int arity, boolean periodic) {
+            this.arity = arity;
+            this.periodic = periodic;
+        }
+
+        static Function of(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    // ========== 解析 ==========
+
+    /**
+     * 递归下降解析器
+     */
+    private static final class Parser {
+        private final String text;
+        private final Set<String> declaredParameters;
+        private final Set<String> referencedParameters = new LinkedHashSet<>();
+        private int pos;
+
+        Parser(String text, Set<String> declaredParameters) {
+            this.text = text;
+            this.declaredParameters = declaredParameters;
+        }
+
+        Expr parseFormula() {
+            Expr expr = parseExpression();
+            skipWhitespace();
+            if (pos < text.length()) {
+                throw error("多余的字符 '" + text.charAt(pos) + "'");
+            }
+            return expr;
+        }
+
+        private Expr parseExpression() {
+            Expr left = parseTerm();
+            while (true) {
+                char c = peek();
+                if (c != '+' && c != '-') {
+                    return left;
+                }
+                pos++;
+                left = new Binary(c, left, parseTerm());
+            }
+        }
+
+        private Expr parseTerm() {
+            Expr left = parseFactor();
+            while (true) {
+                char c = peek();
+                if (c != '*' && c != '/') {
+                    return left;
+                }
+                pos++;
+                left = new Binary(c, left, parseFactor());
+            }
+        }
+
+        private Expr parseFactor() {
+            char c = peek();
+            if (c == '-') {
+                pos++;
+                Expr operand = parseFactor();
+                return operand instanceof Constant constant ? new Constant(-constant.value()) : new Negate(operand);
+            }
+            if (c == '(') {
+                pos++;
+                Expr expr = parseExpression();
+                expect(')');
+                return expr;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                return parseNumber();
+            }
+            if (Character.isLetter(c) || c == '_') {
+                return parseIdentifier();
+            }
+            throw error(c == 0 ? "公式不完整" : "无法识别的字符 '" + c + "'");
+        }
+
+        private Expr parseNumber() {
+            int start = pos;
+            while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                pos++;
+            }
+            try {
+                return new Constant(Double.parseDouble(text.substring(start, pos)));
+            } catch (NumberFormatException e) {
+                pos = start;
+                throw error("数字格式错误");
+            }
+        }
+
+        private Expr parseIdentifier() {
+            int start = pos;
+            while (pos < text.length()
+                    && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+                pos++;
+            }
+            String name = text.substring(start, pos);
+
+            if (peek() == '(') {
+                Function function = Function.of(name);
+                if (function == null) {
+                    pos = start;
+                    throw error("未知函数 '" + name + "'");
+                }
+                pos++;
+                List<Expr> args = new ArrayList<>();
+                if (peek() != ')') {
+                    args.add(parseExpression());
+                    while (peek() == ',') {
+                        pos++;
+                        args.add(parseExpression());
+                    }
+                }
+                expect(')');
+                if (args.size() != function.arity) {
+                    pos = start;
+                    throw error(name + "需要" + function.arity + "个参数，实际" + args.size() + "个");
+                }
+                if (function.periodic && !(args.get(1) instanceof Constant || args.get(1) instanceof Parameter)) {
+                    pos = start;
+                    throw error(name + "的周期只能是整数或参数名");
+                }
+                return new Call(function, List.copyOf(args));
+            }
+
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (SOURCES.contains(lower)) {
+                return new Source(lower);
+            }
+            if (declaredParameters.contains(name)) {
+                referencedParameters.add(name);
+                return new Parameter(name);
+            }
+            pos = start;
+            throw error("未知标识符 '" + name + "'（可用序列：open/high/low/close/volume，或已声明的参数）");
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected) {
+                throw error("缺少 '" + expected + "'");
+            }
+            pos++;
+        }
+
+        /**
+         * 跳过空白后返回当前字符（已到末尾返回0）
+         */
+        private char peek() {
+            skipWhitespace();
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("公式语法错误（位置" + (pos + 1) + "）: " + message);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.qyl.v2trade.indicator.engine.stream;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+/**
+ * 指标计算图（同一pair/timeframe的所有订阅共享一张图）
+ *
+ * <p>订阅被编译为基础算子节点（close、SMA、EMA、标准差、真实波幅……）组成的DAG，
+ * 节点按表达式key去重：MACD内部的EMA(12)与用户单独订阅的EMA(12)、BOLL的中轨与SMA(20)是同一个节点
+ *
+ * <p>节点按创建顺序保存，输入节点总是先于使用它的节点创建，因此创建顺序即拓扑顺序；
+ * 每根收盘Bar按该顺序对每个节点求值一次
+ *
+ * <p>非线程安全，由{@link StreamIndicatorEngine}加锁访问
+ *
+ * @author qyl
+ */
+public final class IndicatorGraph {
+
+    private final Map<String, Node> nodesByKey = new HashMap<>();
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * 已输入的Bar数量
+     */
+    private int barCount;
+
+    /**
+     * 输入一根收盘Bar，按拓扑顺序对所有节点求值一次
+     */
+    public void update(double open, double high, double low, double close, double volume) {
+        for (int i = 0, n = nodes.size(); i < n; i++) {
+            nodes.get(i).evaluate(open, high, low, close, volume);
+        }
+        barCount++;
+    }
+
+    public int getBarCount() {
+        return barCount;
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    // ========== 节点（相同key返回已有节点） ==========
+
+    Node open() {
+        return source("OPEN", 0);
+    }
+
+    Node high() {
+        return source("HIGH", 1);
+    }
+
+    Node low() {
+        return source("LOW", 2);
+    }
+
+    Node close() {
+        return source("CLOSE", 3);
+    }
+
+    Node volume() {
+        return source("VOLUME", 4);
+    }
+
+    /**
+     * 简单移动平均
+     */
+    Node sma(Node input, int period) {
+        return node("SMA(" + input.key + "," + period + ")", key -> new Node(key) {
+            private final RollingWindow window = new RollingWindow(period);
+
+            @Override
+            void evaluate(double open, double high, double low, double close, double volume) {
+                window.add(input.value);
+                value = window.sum() / window.size();
+            }
+        });
+    }
+
+    /**
+     * 指数移动平均：alpha = 2 / (period + 1)
+     */
+    Node ema(Node input, int period) {
+        return node("EMA(" + input.key + "," + period + ")",
+                key -> new AverageNode(key, input, ExponentialAverage.ema(period)));
+    }
+
+    /**
+     * Wilder平滑（ta4j的MMAIndicator）：alpha = 1 / period
+     */
+    Node wilder(Node input, int period) {
+        return node("MMA(" + input.key + "," + period + ")",
+                key -> new AverageNode(key, input, ExponentialAverage.wilder(period)));
+    }
+
+    /**
+     * 加权移动平均：权重1..period
+     *
+     * <p>窗口满后滚动更新加权和：W' = W - S + period * x（S为更新前的窗口和），
+     * 窗口每滚动一圈按权重重新求和一次
+     */
+    Node wma(Node input, int period) {
+        return node("WMA(" + input.key + "," + period + ")", key -> new Node(key) {
+            private final RollingWindow window = new RollingWindow(period);
+            private double weightedSum;
+            private int updatesSinceResum;
+
+            @Override
+            void evaluate(double open, double high, double low, double close, double volume) {
+                double x = input.value;
+                if (window.isFull()) {
+                    weightedSum += period * x - window.sum();
+                } else {
+                    weightedSum += (window.size() + 1) * x;
+                }
+                window.add(x);
+
+                if (++updatesSinceResum >= period) {
+                    updatesSinceResum = 0;
+                    double exact = 0;
+                    for (int i = 0; i < window.size(); i++) {
+                        exact += (i + 1) * window.get(i);
+                    }
+                    weightedSum = exact;
+                }
+                value = weightedSum / (period * (period + 1) / 2.0);
+            }
+        });
+    }
+
+    /**
+     * 总体标准差
+     *
+     * <p>均值和离差平方和使用滑动Welford递推（数值稳定），窗口每滚动一圈从缓冲区重新计算一次
+     */
+    Node standardDeviation(Node input, int period) {
+        return node("STD(" + input.key + "," + period + ")", key -> new Node(key) {
+            private final RollingWindow window = new RollingWindow(period);
+            private double mean;
+            private double squaredDeviationSum;
+            private int updatesSinceResum;
+
+            @Override
+            void evaluate(double open, double high, double low, double close, double volume) {
+                double x = input.value;
+                double evicted = window.add(x);
+                if (Double.isNaN(evicted)) {
+                    double delta = x - mean;
+                    mean += delta / window.size();
+                    squaredDeviationSum += delta * (x - mean);
+                } else {
+                    double previousMean = mean;
+                    mean += (x - evicted) / period;
+                    squaredDeviationSum += (x - evicted) * (x - mean + evicted - previousMean);
+                }
+
+                if (++updatesSinceResum >= period) {
+                    updatesSinceResum = 0;
+                    double exactMean = window.sum() / window.size();
+                    double exactSum = 0;
+                    for (int i = 0; i < window.size(); i++) {
+                        double d = window.get(i) - exactMean;
+                        exactSum += d * d;
+                    }
+                    mean = exactMean;
+                    squaredDeviationSum = exactSum;
+                }
+                value = Math.sqrt(Math.max(squaredDeviationSum, 0) / window.size());
+            }
+        });
+    }
+
+    /**
+     * 滑动窗口最大值
+     */
+    Node highest(Node input, int period) {
+        return node("MAX(" + input.key + "," + period + ")", key -> new ExtremumNode(key, input,
+                SlidingExtremum.max(period)));
+    }
+
+    /**
+     * 滑动窗口最小值
+     */
+    Node lowest(Node input, int period) {
+        return node("MIN(" + input.key + "," + period + ")", key -> new ExtremumNode(key, input,
+                SlidingExtremum.min(period)));
+    }
+
+    /**
+     * 变化率：(x - x[n]) / x[n] * 100（ta4j的ROCIndicator）
+     */
+    Node rateOfChange(Node input, int period) {
+        return node("ROC(" + input.key + "," + period + ")", key -> new Node(key) {
+            private final RollingWindow window = new RollingWindow(period + 1);
+
+            @Override
+            void evaluate(double open, double high, double low, double close, double volume) {
+                window.add(input.value);
+                double base = window.get(0);
+                value = (window.last() - base) / base * 100;
+            }
+        });
+    }
+
+    /**
+     * 与上一根的差值（首根为0，与ta4j一致）
+     */
+    Node change(Node input) {
+        return node("CHANGE(" + input.key + ")", key -> new Node(key) {
+            private double previous = Double.NaN;
+
+            @Override
+            void evaluate(double open, double high, double low, double close, double volume) {
+                double x = input.value;
+                value = Double.isNaN(previous) ? 0 : x - previous;
+                previous = x;
+            }
+        });
+    }
+
+    /**
+     * 真实波幅（首根为high - low，与ta4j一致）
+     */
+    Node trueRange() {
+        return node("TR", key -> new Node(key) {
+            private double previousClose = Double.NaN;
+
+            @Override
+            void evaluate(double open, double high, double low, double close, double volume) {
+                double range = high - low;
+                if (!Double.isNaN(previousClose)) {
+                    range = Math.max(range, Math.max(Math.abs(high - previousClose), Math.abs(low - previousClose)));
+                }
+                value = range;
+                previousClose = close;
+            }
+        });
+    }
+
+    /**
+     * 常量
+     */
+    Node constant(double constant) {
+        return node("CONST(" + constant + ")", key -> new Node(key) {
+            @Override
+            void evaluate(double open, double high, double low, double close, double volume) {
+                value = constant;
+            }
+        });
+    }
+
+    /**
+     * 一元运算（name需唯一描述运算，作为节点key的一部分）
+     */
+    Node unary(String name, Node input, DoubleUnaryOperator operator) {
+        return node(name + "(" + input.key + ")", key -> new Node(key) {
+            @Override
+            void evaluate(double open, double high, double low, double close, double volume) {
+                value = operator.applyAsDouble(input.value);
+            }
+        });
+    }
+
+    /**
+     * 二元运算（name需唯一描述运算及其常量参数，作为节点key的一部分）
+     */
+    Node binary(String name, Node left, Node right, DoubleBinaryOperator operator) {
+        return node(name + "(" + left.key + "," + right.key + ")", key -> new Node(key) {
+            @Override
+            void evaluate(double open, double high, double low, double close, double volume) {
+                value = operator.applyAsDouble(left.value, right.value);
+            }
+        });
+    }
+
+    private Node source(String key, int column) {
+        return node(key, k -> new Node(k) {
+            @Override
+            void evaluate(double open, double high, double low, double close, double volume) {
+                switch (column) {
+                    case 0 -> value = open;
+                    case 1 -> value = high;
+                    case 2 -> value = low;
+                    case 3 -> value = close;
+                    default -> value = volume;
+                }
+            }
+        });
+    }
+
+    private Node node(String key, Function<String, Node> factory) {
+        Node existing = nodesByKey.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (barCount > 0) {
+            throw new IllegalStateException("计算图已开始计算，不能再添加节点: " + key);
+        }
+        Node created = factory.apply(key);
+        nodesByKey.put(key, created);
+        nodes.add(created);
+        return created;
+    }
+
+    /**
+     * 是否包含另一张图的全部节点（用于判断编译新订阅是否会新增节点）
+     */
+    boolean containsAll(IndicatorGraph other) {
+        return nodesByKey.keySet().containsAll(other.nodesByKey.keySet());
+    }
+
+    // ========== 节点类型 ==========
+
+    /**
+     * 计算图节点：每根Bar求值一次，value为当前Bar的输出
+     */
+    abstract static class Node {
+        final String key;
+        double value = Double.NaN;
+
+        Node(String key) {
+            this.key = key;
+        }
+
+        abstract void evaluate(double open, double high, double low, double close, double volume);
+
+        double value() {
+            return value;
+        }
+    }
+
+    private static final class AverageNode extends Node {
+        private final Node input;
+        private final ExponentialAverage average;
+
+        AverageNode(String key, Node input, ExponentialAverage average) {
+            super(key);
+            this.input = input;
+            this.average = average;
+        }
+
+        @Override
+        void evaluate(double open, double high, double low, double close, double volume) {
+            value = average.update(input.value);
+        }
+    }
+
+    private static final class ExtremumNode extends Node {
+        private final Node input;
+        private final SlidingExtremum extremum;
+
+        ExtremumNode(String key, Node input, SlidingExtremum extremum) {
+            super(key);
+            this.input = input;
+            this.extremum = extremum;
+        }
+
+        @Override
+        void evaluate(double open, double high, double low, double close, double volume) {
+            value = extremum.update(input.value);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.qyl.v2trade.indicator.engine.stream;
+
+/**
+ * 固定长度的滑动窗口（环形缓冲区）
+ *
+ * <p>维护窗口内的滚动和：每次add为O(1)；窗口每滚动一整圈从缓冲区重新求和一次（均摊O(1)），
+ * 避免double滚动加减长期运行产生的累积误差
+ *
+ * @author qyl
+ */
+class RollingWindow {
+
+    private final double[] buffer;
+
+    /**
+     * 下一个写入位置
+     */
+    private int head;
+
+    private int size;
+
+    private double sum;
+
+    /**
+     * 距离上次重新求和的add次数
+     */
+    private int addsSinceResum;
+
+    RollingWindow(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("窗口长度必须大于0: " + capacity);
+        }
+        this.buffer = new double[capacity];
+    }
+
+    /**
+     * 追加一个值
+     *
+     * @return 被挤出窗口的最旧值，窗口未满时返回NaN
+     */
+    double add(double value) {
+        double evicted = Double.NaN;
+        if (size == buffer.length) {
+            evicted = buffer[head];
+            sum -= evicted;
+        } else {
+            size++;
+        }
+        buffer[head] = value;
+        head = (head + 1) % buffer.length;
+        sum += value;
+
+        if (++addsSinceResum >= buffer.length) {
+            addsSinceResum = 0;
+            double exact = 0;
+            for (int i = 0; i < size; i++) {
+                exact += buffer[i];
+            }
+            sum = exact;
+        }
+        return evicted;
+    }
+
+    /**
+     * 按时间顺序获取窗口内的值
+     *
+     * @param index 0为最旧的值
+     */
+    double get(int index) {
+        int start = size == buffer.length ? head : 0;
+        return buffer[(start + index) % buffer.length];
+    }
+
+    /**
+     * 最新的值
+     */
+    double last() {
+        return buffer[(head - 1 + buffer.length) % buffer.length];
+    }
+
+    double sum() {
+        return sum;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    boolean isFull() {
+        return size == buffer.length;
+    }
+}
@@ -0,0 +1,65 @@
+package com.qyl.v2trade.indicator.engine.stream;
+
+/**
+ * 滑动窗口最大值/最小值（单调队列）
+ *
+ * <p>每个值最多入队、出队各一次，update均摊O(1)；队列长度不超过窗口长度，使用定长数组避免分配
+ *
+ * @author qyl
+ */
+class SlidingExtremum {
+
+    private final int window;
+    private final boolean max;
+    private final double[] values;
+    private final long[] indexes;
+
+    private int head;
+    private int count;
+    private long nextIndex;
+
+    private SlidingExtremum(int window, boolean max) {
+        this.window = window;
+        this.max = max;
+        this.values = new double[window];
+        this.indexes = new long[window];
+    }
+
+    static SlidingExtremum max(int window) {
+        return new SlidingExtremum(window, true);
+    }
+
+    static SlidingExtremum min(int window) {
+        return new SlidingExtremum(window, false);
+    }
+
+    /**
+     * 追加一个值
+     *
+     * @return 最近window个值中的最大值（或最小值）
+     */
+    double update(double value) {
+        long index = nextIndex++;
+
+        // 队尾被新值支配的元素不可能再成为极值，出队
+        while (count > 0) {
+            int tail = (head + count - 1) % window;
+            if (max ? values[tail] <= value : values[tail] >= value) {
+                count--;
+            } else {
+                break;
+            }
+        }
+        // 队首滑出窗口的元素出队
+        while (count > 0 && indexes[head] <= index - window) {
+            head = (head + 1) % window;
+            count--;
+        }
+
+        int tail = (head + count) % window;
+        values[tail] = value;
+        indexes[tail] = index;
+        count++;
+        return values[head];
+    }
+}
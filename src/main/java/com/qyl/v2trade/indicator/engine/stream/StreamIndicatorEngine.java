@@ -0,0 +1,360 @@
+package com.qyl.v2trade.indicator.engine.stream;
+
+import com.qyl.v2trade.indicator.config.IndicatorEngineProperties;
+import com.qyl.v2trade.indicator.definition.IndicatorDefinition;
+import com.qyl.v2trade.indicator.definition.IndicatorRegistry;
+import com.qyl.v2trade.indicator.domain.event.BarClosedEvent;
+import com.qyl.v2trade.indicator.engine.IndicatorComputeRequest;
+import com.qyl.v2trade.indicator.engine.IndicatorEngine;
+import com.qyl.v2trade.indicator.engine.IndicatorResult;
+import com.qyl.v2trade.indicator.series.BarSeriesView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 流式指标计算引擎
+ *
+ * <p>每个pair/timeframe维护一张共享的{@link IndicatorGraph}，该序列上所有订阅的指标都编译到这张图上：
+ * <ul>
+ *   <li>相同的子表达式（如MACD内部的EMA(12)与单独订阅的EMA(12)）只有一个节点</li>
+ *   <li>首次计算：用BarSeriesManager中的历史Bar预热一次（O(n)）</li>
+ *   <li>之后每根收盘Bar：图中每个节点只求值一次（O(节点数)，不随序列长度增长），
+ *       同一Bar的其他订阅直接读取各自的输出节点</li>
+ *   <li>新订阅引入新节点时：按全部订阅重新编译并重新预热</li>
+ *   <li>早于图最新Bar的目标时间（历史重算）：用临时图从头计算，不影响实时状态</li>
+ * </ul>
+ *
+ * <p>除内置指标外，所有公式指标（engine=formula）都由本引擎计算：公式已在定义注册时解析，这里只编译到计算图
+ *
+ * <p>修订Bar（BarClosedEvent.revision > 0）会使该pair/timeframe的计算图失效，下次计算时重新预热
+ *
+ * <p>线程安全：计算图表使用ConcurrentHashMap，单张图的编译和更新使用synchronized；
+ * 定位和读取Bar在{@link BarSeriesView#read}中完成，输入的是序列某一时刻的一致内容
+ *
+ * @author qyl
+ */
+@Slf4j
+@Component
+public class StreamIndicatorEngine implements IndicatorEngine {
+
+    @Autowired
+    private IndicatorEngineProperties properties;
+
+    @Autowired
+    private IndicatorRegistry indicatorRegistry;
+
+    /**
+     * 计算图：key = pairId:timeframe
+     */
+    private final Map<String, SeriesGraph> graphs = new ConcurrentHashMap<>();
+
+    @Override
+    public String getEngineName() {
+        return "stream";
+    }
+
+    @Override
+    public boolean supports(String indicatorCode) {
+        return StreamIndicators.SUPPORTED_CODES.contains(indicatorCode);
+    }
+
+    @Override
+    public IndicatorResult compute(IndicatorComputeRequest request, BarSeriesView series) {
+        try {
+            // 1. 验证输入
+            if (request == null || series == null) {
+                return IndicatorResult.invalid("请求或系列数据为空");
+            }
+            if (series.size() == 0) {
+                return IndicatorResult.invalid("BarSeries为空");
+            }
+            // 内置指标按编码编译，其余指标从Registry获取定义（公式指标）
+            boolean builtin = supports(request.indicatorCode());
+            IndicatorDefinition definition = builtin ? null
+                    : indicatorRegistry.getDefinition(request.indicatorCode(), request.indicatorVersion());
+            if (!builtin && (definition == null || !StreamIndicators.supports(definition))) {
+                return IndicatorResult.invalid("不支持的指标: " + request.indicatorCode());
+            }
+
+            // 2. 获取或创建该pair/timeframe的计算图
+            String graphKey = request.tradingPairId() + ":" + request.timeframe();
+            SeriesGraph existing = graphs.get(graphKey);
+            SeriesGraph seriesGraph = existing != null ? existing
+                    : graphs.computeIfAbsent(graphKey, k -> new SeriesGraph());
+
+            synchronized (seriesGraph) {
+                // 3. 编译订阅（已编译的直接复用输出节点）
+                String outputKey = buildOutputKey(request);
+                GraphSubscription registered = seriesGraph.subscriptions.get(outputKey);
+                GraphSubscription subscription = registered != null ? registered
+                        : register(graphKey, seriesGraph, outputKey, request, definition);
+                subscription.lastAccessMillis = System.currentTimeMillis();
+
+                // 4. 增量更新（在序列锁内定位并读取Bar，下标不会在读取期间移动）
+                return series.read(view -> advance(graphKey, seriesGraph, subscription, request, definition, view));
+            }
+
+        } catch (Exception e) {
+            log.error("流式指标计算失败: code={}, error={}",
+                    request != null ? request.indicatorCode() : "unknown", e.getMessage(), e);
+            return IndicatorResult.invalid("计算失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 修订Bar：清理该pair/timeframe的计算图（已输入的旧Bar无法增量撤销）
+     */
+    @EventListener
+    public void onBarClosed(BarClosedEvent event) {
+        if (event == null || !event.isAmendment() || event.tradingPairId() == null) {
+            return;
+        }
+        int removed = invalidate(event.tradingPairId(), event.timeframe());
+        if (removed > 0) {
+            log.info("修订Bar使流式指标状态失效: pairId={}, timeframe={}, barTime={}, removed={}",
+                    event.tradingPairId(), event.timeframe(), event.barCloseTime(), removed);
+        }
+    }
+
+    /**
+     * 清理指定pair/timeframe的计算图
+     *
+     * @return 清理的订阅数量
+     */
+    public int invalidate(long pairId, String timeframe) {
+        SeriesGraph removed = graphs.remove(pairId + ":" + timeframe);
+        return removed != null ? removed.subscriptions.size() : 0;
+    }
+
+    /**
+     * 定期清理空闲订阅（订阅被禁用后不再计算），剩余订阅重新编译，不再为其求值无用节点
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000L, initialDelay = 60 * 60 * 1000L)
+    public void evictIdleStates() {
+        long threshold = System.currentTimeMillis() - properties.getStreamStateIdleMinutes() * 60_000L;
+        int removed = 0;
+        for (Map.Entry<String, SeriesGraph> entry : graphs.entrySet()) {
+            SeriesGraph seriesGraph = entry.getValue();
+            synchronized (seriesGraph) {
+                int before = seriesGraph.subscriptions.size();
+                seriesGraph.subscriptions.values().removeIf(sub -> sub.lastAccessMillis < threshold);
+                int evicted = before - seriesGraph.subscriptions.size();
+                if (evicted == 0) {
+                    continue;
+                }
+                removed += evicted;
+                if (seriesGraph.subscriptions.isEmpty()) {
+                    graphs.remove(entry.getKey(), seriesGraph);
+                } else {
+                    rebuild(seriesGraph);
+                }
+            }
+        }
+        if (removed > 0) {
+            log.info("清理空闲的流式指标订阅: removed={}, remaining={}", removed, getStateCount());
+        }
+    }
+
+    /**
+     * 获取已编译的订阅数量
+     */
+    public int getStateCount() {
+        return graphs.values().stream().mapToInt(g -> g.subscriptions.size()).sum();
+    }
+
+    /**
+     * 获取所有计算图的节点数量（与订阅数量对比可反映子表达式共享程度）
+     */
+    public int getNodeCount() {
+        return graphs.values().stream().mapToInt(g -> g.graph.getNodeCount()).sum();
+    }
+
+    /**
+     * 编译新订阅到计算图
+     *
+     * <p>先在临时图上编译：如果所有节点都已存在，直接在当前图上编译（只复用节点，状态不受影响）；
+     * 否则按全部订阅重建计算图，下次更新时重新预热
+     */
+    private GraphSubscription register(String graphKey, SeriesGraph seriesGraph, String outputKey,
+                                       IndicatorComputeRequest request, IndicatorDefinition definition) {
+        GraphSubscription subscription = new GraphSubscription(
+                request.indicatorCode(), definition, request.parameters());
+        IndicatorGraph probe = new IndicatorGraph();
+        subscription.compile(probe);
+
+        seriesGraph.subscriptions.put(outputKey, subscription);
+        if (seriesGraph.graph.containsAll(probe)) {
+            subscription.compiled = subscription.compile(seriesGraph.graph);
+        } else {
+            rebuild(seriesGraph);
+            log.debug("计算图重建: key={}, subscriptions={}, nodes={}",
+                    graphKey, seriesGraph.subscriptions.size(), seriesGraph.graph.getNodeCount());
+        }
+        return subscription;
+    }
+
+    /**
+     * 按全部订阅重新编译计算图（状态清空，下次更新时从序列起点预热）
+     */
+    private void rebuild(SeriesGraph seriesGraph) {
+        IndicatorGraph graph = new IndicatorGraph();
+        for (GraphSubscription subscription : seriesGraph.subscriptions.values()) {
+            subscription.compiled = subscription.compile(graph);
+        }
+        seriesGraph.graph = graph;
+        seriesGraph.lastBarTime = null;
+    }
+
+    /**
+     * 把计算图推进到目标Bar并返回订阅的输出（调用方持有计算图锁，series为一致视图）
+     */
+    private IndicatorResult advance(String graphKey, SeriesGraph seriesGraph, GraphSubscription subscription,
+                                    IndicatorComputeRequest request, IndicatorDefinition definition,
+                                    BarSeriesView series) {
+        LocalDateTime targetTime = request.targetBarTime();
+        if (seriesGraph.lastBarTime != null) {
+            if (targetTime.equals(seriesGraph.lastBarTime)) {
+                return toResult(subscription.compiled, seriesGraph.graph);
+            }
+            if (targetTime.isBefore(seriesGraph.lastBarTime)) {
+                log.debug("目标时间早于计算图，临时重算: key={}, targetTime={}, graphTime={}",
+                        graphKey, targetTime, seriesGraph.lastBarTime);
+                return computeDetached(request, definition, series);
+            }
+        }
+
+        int targetIndex = series.indexOf(targetTime);
+        if (targetIndex < 0) {
+            return IndicatorResult.invalid("找不到目标时间的Bar: " + targetTime);
+        }
+        int startIndex = findStartIndex(series, seriesGraph.lastBarTime, targetIndex);
+        if (seriesGraph.lastBarTime == null) {
+            log.debug("计算图预热: key={}, bars={}, subscriptions={}, nodes={}", graphKey,
+                    targetIndex - startIndex + 1, seriesGraph.subscriptions.size(),
+                    seriesGraph.graph.getNodeCount());
+        }
+
+        feed(seriesGraph.graph, series, startIndex, targetIndex);
+        seriesGraph.lastBarTime = targetTime;
+        return toResult(subscription.compiled, seriesGraph.graph);
+    }
+
+    /**
+     * 用临时图从序列起点计算到目标时间（不影响实时状态）
+     */
+    private IndicatorResult computeDetached(IndicatorComputeRequest request, IndicatorDefinition definition,
+                                            BarSeriesView series) {
+        int targetIndex = series.indexOf(request.targetBarTime());
+        if (targetIndex < 0) {
+            return IndicatorResult.invalid("找不到目标时间的Bar: " + request.targetBarTime());
+        }
+        IndicatorGraph graph = new IndicatorGraph();
+        StreamIndicators.CompiledIndicator compiled = new GraphSubscription(
+                request.indicatorCode(), definition, request.parameters()).compile(graph);
+        feed(graph, series, 0, targetIndex);
+        return toResult(compiled, graph);
+    }
+
+    /**
+     * 从目标下标向前查找(afterTime, target]区间的起点下标
+     *
+     * <p>实时计算时只需回溯一两根Bar
+     *
+     * @param afterTime 状态最新Bar时间（不包含），null表示从序列起点开始
+     */
+    private int findStartIndex(BarSeriesView series, LocalDateTime afterTime, int targetIndex) {
+        if (afterTime == null) {
+            return 0;
+        }
+        int start = targetIndex;
+        while (start > 0 && series.getBarTime(start - 1).isAfter(afterTime)) {
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * 按下标区间[from, to]输入Bar（直接读取原始类型，不创建NormalizedBar）
+     */
+    private void feed(IndicatorGraph graph, BarSeriesView series, int from, int to) {
+        for (int i = from; i <= to; i++) {
+            graph.update(series.getOpen(i), series.getHigh(i), series.getLow(i),
+                    series.getClose(i), series.getVolume(i));
+        }
+    }
+
+    /**
+     * 转换为结果（精度与Ta4jIndicatorEngine一致：8位小数）
+     */
+    private IndicatorResult toResult(StreamIndicators.CompiledIndicator compiled, IndicatorGraph graph) {
+        if (graph.getBarCount() < compiled.requiredBars()) {
+            return IndicatorResult.invalid("数据不足，需要至少" + compiled.requiredBars() + "根Bar");
+        }
+        Map<String, BigDecimal> resultMap = new HashMap<>();
+        for (Map.Entry<String, Double> entry : compiled.values().entrySet()) {
+            double value = entry.getValue();
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                return IndicatorResult.invalid("计算结果为NaN");
+            }
+            resultMap.put(entry.getKey(), BigDecimal.valueOf(value).setScale(8, RoundingMode.HALF_UP));
+        }
+        return IndicatorResult.success(resultMap);
+    }
+
+    /**
+     * 构建订阅输出key（参数按名称排序，保证相同参数得到相同key）
+     */
+    private String buildOutputKey(IndicatorComputeRequest request) {
+        Map<String, Object> sortedParams = request.parameters() != null
+                ? new TreeMap<>(request.parameters()) : Collections.emptyMap();
+        return request.indicatorCode() + ":" + request.indicatorVersion() + ":" + sortedParams;
+    }
+
+    /**
+     * 单个pair/timeframe的计算图及其订阅
+     */
+    private static class SeriesGraph {
+        private final Map<String, GraphSubscription> subscriptions = new LinkedHashMap<>();
+        private IndicatorGraph graph = new IndicatorGraph();
+        private LocalDateTime lastBarTime;
+    }
+
+    /**
+     * 编译到计算图上的订阅
+     */
+    private static class GraphSubscription {
+        private final String indicatorCode;
+        /**
+         * 公式指标的定义（内置指标为null，按编码编译）
+         */
+        private final IndicatorDefinition definition;
+        private final Map<String, Object> parameters;
+        private StreamIndicators.CompiledIndicator compiled;
+        private volatile long lastAccessMillis = System.currentTimeMillis();
+
+        GraphSubscription(String indicatorCode, IndicatorDefinition definition, Map<String, Object> parameters) {
+            this.indicatorCode = indicatorCode;
+            this.definition = definition;
+            this.parameters = parameters;
+        }
+
+        StreamIndicators.CompiledIndicator compile(IndicatorGraph graph) {
+            return definition != null
+                    ? StreamIndicators.compile(definition, parameters, graph)
+                    : StreamIndicators.compile(indicatorCode, parameters, graph);
+        }
+    }
+}
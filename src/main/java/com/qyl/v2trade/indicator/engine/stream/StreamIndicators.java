@@ -0,0 +1,234 @@
+package com.qyl.v2trade.indicator.engine.stream;
+
+import com.qyl.v2trade.indicator.definition.IndicatorDefinition;
+import com.qyl.v2trade.indicator.definition.impl.FormulaIndicatorDefinition;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流式指标编译器
+ *
+ * <p>把订阅的指标编译到所属pair/timeframe的{@link IndicatorGraph}上：
+ * 指标拆成基础算子节点，相同的子表达式（如MACD与EMA订阅共用的EMA(12)）在图中只有一个节点
+ *
+ * <p>公式与Ta4jIndicatorEngine使用的ta4j指标保持一致（EMA/MMA以首值为种子、方差为总体方差、
+ * ROC作为Momentum），预热完成后的结果与ta4j在8位小数内一致（EMA类指标的种子位置不同，
+ * 在预热若干周期后收敛）
+ *
+ * <p>用户定义的公式指标由{@link IndicatorFormula}编译到同一张图，与内置指标共享节点
+ *
+ * @author qyl
+ */
+public final class StreamIndicators {
+
+    /**
+     * 支持的指标编码
+     */
+    public static final Set<String> SUPPORTED_CODES = Set.of(
+            "SMA", "EMA", "WMA", "RSI", "ATR", "BOLL", "MACD", "Stochastic", "Momentum");
+
+    private StreamIndicators() {
+    }
+
+    /**
+     * 将指标编译到计算图
+     *
+     * @param code 指标编码
+     * @param params 指标参数
+     * @param graph 计算图（已有的相同节点会被复用）
+     * @return 编译结果，不支持的编码返回null
+     */
+    public static CompiledIndicator compile(String code, Map<String, Object> params, IndicatorGraph graph) {
+        if (code == null) {
+            return null;
+        }
+        switch (code) {
+            case "SMA": {
+                int period = positive(getIntParam(params, "period", 20), "period");
+                return CompiledIndicator.single(graph.sma(graph.close(), period), period);
+            }
+            case "EMA": {
+                int period = positive(getIntParam(params, "period", 20), "period");
+                return CompiledIndicator.single(graph.ema(graph.close(), period), period);
+            }
+            case "WMA": {
+                int period = positive(getIntParam(params, "period", 20), "period");
+                return CompiledIndicator.single(graph.wma(graph.close(), period), period);
+            }
+            case "RSI":
+                return rsi(graph, positive(getIntParam(params, "period", 14), "period"));
+            case "ATR": {
+                int period = positive(getIntParam(params, "period", 14), "period");
+                return CompiledIndicator.single(graph.wilder(graph.trueRange(), period), period);
+            }
+            case "BOLL":
+                return boll(graph, positive(getIntParam(params, "period", 20), "period"),
+                        getDoubleParam(params, "deviation", 2.0));
+            case "MACD":
+                return macd(graph, positive(getIntParam(params, "shortPeriod", 12), "shortPeriod"),
+                        positive(getIntParam(params, "longPeriod", 26), "longPeriod"),
+                        positive(getIntParam(params, "signalPeriod", 9), "signalPeriod"));
+            case "Stochastic":
+                return stochastic(graph, positive(getIntParam(params, "kPeriod", 14), "kPeriod"),
+                        positive(getIntParam(params, "dPeriod", 3), "dPeriod"));
+            case "Momentum": {
+                int period = positive(getIntParam(params, "period", 10), "period");
+                return CompiledIndicator.single(graph.rateOfChange(graph.close(), period), period + 1);
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 按指标定义编译到计算图（公式指标编译其公式，内置指标按编码编译）
+     *
+     * @return 编译结果，不支持的指标返回null
+     */
+    public static CompiledIndicator compile(IndicatorDefinition definition, Map<String, Object> params,
+                                            IndicatorGraph graph) {
+        if (definition instanceof FormulaIndicatorDefinition formulaDefinition) {
+            return formulaDefinition.formula().compile(params, graph);
+        }
+        return compile(definition.code(), params, graph);
+    }
+
+    /**
+     * 是否支持指定指标定义（内置的流式指标和所有公式指标）
+     */
+    public static boolean supports(IndicatorDefinition definition) {
+        return definition instanceof FormulaIndicatorDefinition || SUPPORTED_CODES.contains(definition.code());
+    }
+
+    /**
+     * RSI：涨跌幅分别做Wilder平滑（首根Bar的涨跌幅为0，与ta4j一致）
+     */
+    private static CompiledIndicator rsi(IndicatorGraph graph, int period) {
+        IndicatorGraph.Node change = graph.change(graph.close());
+        IndicatorGraph.Node averageGain = graph.wilder(graph.unary("GAIN", change, x -> Math.max(x, 0)), period);
+        IndicatorGraph.Node averageLoss = graph.wilder(graph.unary("LOSS", change, x -> Math.max(-x, 0)), period);
+        IndicatorGraph.Node rsi = graph.binary("RSI", averageGain, averageLoss, (gain, loss) -> {
+            if (loss == 0) {
+                return gain == 0 ? 0.0 : 100.0;
+            }
+            return 100 - 100 / (1 + gain / loss);
+        });
+        return CompiledIndicator.single(rsi, period + 1);
+    }
+
+    /**
+     * BOLL：middle = SMA，upper/lower = middle ± deviation * 总体标准差
+     */
+    private static CompiledIndicator boll(IndicatorGraph graph, int period, double deviation) {
+        IndicatorGraph.Node middle = graph.sma(graph.close(), period);
+        IndicatorGraph.Node standardDeviation = graph.standardDeviation(graph.close(), period);
+        Map<String, IndicatorGraph.Node> outputs = new LinkedHashMap<>();
+        outputs.put("upper", graph.binary("BAND[+" + deviation + "]", middle, standardDeviation,
+                (m, sd) -> m + deviation * sd));
+        outputs.put("middle", middle);
+        outputs.put("lower", graph.binary("BAND[-" + deviation + "]", middle, standardDeviation,
+                (m, sd) -> m - deviation * sd));
+        return new CompiledIndicator(outputs, period);
+    }
+
+    /**
+     * MACD：EMA(short) - EMA(long)，signal = EMA(macd, signalPeriod)
+     */
+    private static CompiledIndicator macd(IndicatorGraph graph, int shortPeriod, int longPeriod, int signalPeriod) {
+        IndicatorGraph.Node close = graph.close();
+        IndicatorGraph.Node macd = graph.binary("SUB", graph.ema(close, shortPeriod), graph.ema(close, longPeriod),
+                (a, b) -> a - b);
+        IndicatorGraph.Node signal = graph.ema(macd, signalPeriod);
+        Map<String, IndicatorGraph.Node> outputs = new LinkedHashMap<>();
+        outputs.put("macd", macd);
+        outputs.put("signal", signal);
+        outputs.put("histogram", graph.binary("SUB", macd, signal, (a, b) -> a - b));
+        return new CompiledIndicator(outputs, longPeriod + signalPeriod - 1);
+    }
+
+    /**
+     * Stochastic：K = (close - LL) / (HH - LL) * 100，D = SMA(K, dPeriod)
+     *
+     * <p>HH/LL使用单调队列维护，均摊O(1)
+     */
+    private static CompiledIndicator stochastic(IndicatorGraph graph, int kPeriod, int dPeriod) {
+        IndicatorGraph.Node lowestLow = graph.lowest(graph.low(), kPeriod);
+        IndicatorGraph.Node highestHigh = graph.highest(graph.high(), kPeriod);
+        IndicatorGraph.Node numerator = graph.binary("SUB", graph.close(), lowestLow, (a, b) -> a - b);
+        IndicatorGraph.Node range = graph.binary("SUB", highestHigh, lowestLow, (a, b) -> a - b);
+        IndicatorGraph.Node k = graph.binary("PCT", numerator, range, (a, b) -> b == 0 ? Double.NaN : a / b * 100);
+        Map<String, IndicatorGraph.Node> outputs = new LinkedHashMap<>();
+        outputs.put("k", k);
+        outputs.put("d", graph.sma(k, dPeriod));
+        return new CompiledIndicator(outputs, kPeriod + dPeriod - 1);
+    }
+
+    /**
+     * 编译后的指标：结果键到图节点的映射
+     *
+     * @param outputs 结果键（与Ta4jIndicatorEngine一致：单值为value，多值如macd/signal/histogram）到节点
+     * @param requiredBars 最少需要的Bar数量（图输入的Bar数量达到后结果有效）
+     */
+    public record CompiledIndicator(Map<String, IndicatorGraph.Node> outputs, int requiredBars) {
+
+        static CompiledIndicator single(IndicatorGraph.Node node, int requiredBars) {
+            return new CompiledIndicator(Map.of("value", node), requiredBars);
+        }
+
+        /**
+         * 当前结果值（值可能为NaN，如最高价等于最低价时的Stochastic，由引擎转换为INVALID结果）
+         */
+        public Map<String, Double> values() {
+            Map<String, Double> values = new LinkedHashMap<>();
+            outputs.forEach((key, node) -> values.put(key, node.value()));
+            return values;
+        }
+    }
+
+    // ========== 参数解析 ==========
+
+    private static int positive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + "必须大于0");
+        }
+        return value;
+    }
+
+    private static int getIntParam(Map<String, Object> params, String key, int defaultValue) {
+        if (params == null) {
+            return defaultValue;
+        }
+        Object value = params.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        try {
+            return Integer.parseInt(value.toString());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static double getDoubleParam(Map<String, Object> params, String key, double defaultValue) {
+        if (params == null) {
+            return defaultValue;
+        }
+        Object value = params.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
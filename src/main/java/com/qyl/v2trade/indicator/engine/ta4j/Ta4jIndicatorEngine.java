@@ -4,34 +4,39 @@ import com.qyl.v2trade.indicator.domain.model.NormalizedBar;
 import com.qyl.v2trade.indicator.engine.IndicatorComputeRequest;
 import com.qyl.v2trade.indicator.engine.IndicatorEngine;
 import com.qyl.v2trade.indicator.engine.IndicatorResult;
+import com.qyl.v2trade.indicator.series.BarSeriesManager;
 import com.qyl.v2trade.indicator.series.BarSeriesView;
+import com.qyl.v2trade.indicator.series.LiveTa4jSeries;
 import lombok.extern.slf4j.Slf4j;
 import org.ta4j.core.Bar;
 import org.ta4j.core.BarSeries;
-import org.ta4j.core.BaseBar;
 import org.ta4j.core.BaseBarSeries;
 import org.ta4j.core.Indicator;
 import org.ta4j.core.num.Num;
 import org.ta4j.core.indicators.*;
 import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
 import org.ta4j.core.indicators.statistics.StandardDeviationIndicator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
 
 /**
  * Ta4j指标计算引擎
  * 
  * <p>实现基于ta4j库的指标计算
  * 
+ * <p>优先使用BarSeriesManager维护的常驻ta4j序列（{@link LiveTa4jSeries}），
+ * 指标实例按(指标编码, 版本, 参数)缓存在常驻序列上，新Bar到来后只计算最新下标；
+ * 目标Bar不在常驻序列中时（如历史重算），回退为临时构建序列
+ * 
  * <p>契约：
  * - series的时间戳语义已是bar_close_time（UTC）
  * - 不暴露ta4j类型到外层
@@ -43,11 +48,14 @@ import java.util.Map;
 @Component
 public class Ta4jIndicatorEngine implements IndicatorEngine {
     
+    @Autowired(required = false)
+    private BarSeriesManager barSeriesManager;
+    
     @Override
     public String getEngineName() {
         return "ta4j";
     }
-    
+
     @Override
     public IndicatorResult compute(IndicatorComputeRequest request, BarSeriesView series) {
         try {
@@ -60,38 +68,33 @@ public class Ta4jIndicatorEngine implements IndicatorEngine {
                 return IndicatorResult.invalid("BarSeries为空");
             }
             
-            // 2. 转换为ta4j的BarSeries
-            BarSeries ta4jSeries = convertToTa4jSeries(series);
-            
-            // 3. 根据指标编码创建Indicator
-            Indicator<Num> indicator = createIndicator(request, ta4jSeries);
-            
-            if (indicator == null) {
-                return IndicatorResult.invalid("不支持的指标: " + request.indicatorCode());
+            // 2. 优先使用常驻序列和缓存的指标
+            LiveTa4jSeries liveSeries = barSeriesManager != null && request.tradingPairId() != null
+                    ? barSeriesManager.getTa4jSeries(request.tradingPairId(), request.timeframe())
+                    : null;
+            if (liveSeries != null) {
+                synchronized (liveSeries) {
+                    int targetIndex = liveSeries.findIndex(request.targetBarTime());
+                    if (targetIndex >= 0) {
+                        Ta4jComputation computation = liveSeries.computeIfAbsent(buildCacheKey(request),
+                                ta4jSeries -> createComputation(request, ta4jSeries));
+                        return evaluate(request, computation, targetIndex);
+                    }
+                }
+                log.debug("目标Bar不在常驻序列中，使用临时序列计算: pairId={}, timeframe={}, targetTime={}",
+                        request.tradingPairId(), request.timeframe(), request.targetBarTime());
             }
             
+            // 3. 转换为临时的ta4j BarSeries
+            BarSeries ta4jSeries = convertToTa4jSeries(series);
+            
             // 4. 获取目标索引
             int targetIndex = findTargetIndex(ta4jSeries, request.targetBarTime());
             if (targetIndex < 0) {
                 return IndicatorResult.invalid("找不到目标时间的Bar: " + request.targetBarTime());
             }
             
-            // 5. 验证数据是否充足
-            if (targetIndex >= indicator.getBarSeries().getBarCount()) {
-                return IndicatorResult.invalid("目标索引超出范围");
-            }
-            
-            // 6. 计算结果
-            Num indicatorValue = indicator.getValue(targetIndex);
-            
-            if (indicatorValue == null || indicatorValue.isNaN()) {
-                return IndicatorResult.invalid("计算结果为NaN");
-            }
-            
-            // 7. 转换为结果
-            Map<String, BigDecimal> resultMap = buildResultMap(request, indicator, targetIndex);
-            
-            return IndicatorResult.success(resultMap);
+            return evaluate(request, createComputation(request, ta4jSeries), targetIndex);
             
         } catch (Exception e) {
             log.error("Ta4j指标计算失败: code={}, error={}", 
@@ -100,6 +103,30 @@ public class Ta4jIndicatorEngine implements IndicatorEngine {
         }
     }
     
+    /**
+     * 计算目标下标的指标值
+     */
+    private IndicatorResult evaluate(IndicatorComputeRequest request, Ta4jComputation computation, int targetIndex) {
+        if (computation == null) {
+            return IndicatorResult.invalid("不支持的指标: " + request.indicatorCode());
+        }
+        
+        // 验证数据是否充足
+        if (targetIndex > computation.indicator().getBarSeries().getEndIndex()) {
+            return IndicatorResult.invalid("目标索引超出范围");
+        }
+        
+        // 计算结果
+        Num indicatorValue = computation.indicator().getValue(targetIndex);
+        
+        if (indicatorValue == null || indicatorValue.isNaN()) {
+            return IndicatorResult.invalid("计算结果为NaN");
+        }
+        
+        // 转换为结果
+        return IndicatorResult.success(computation.values().apply(targetIndex));
+    }
+    
     /**
      * 转换为ta4j的BarSeries
      */
@@ -111,31 +138,13 @@ public class Ta4jIndicatorEngine implements IndicatorEngine {
         }
         
         // 获取timeframe以确定时间周期
-        String timeframe = bars.get(0).timeframe();
-        Duration timePeriod = parseTimeframeToDuration(timeframe);
+        Duration timePeriod = LiveTa4jSeries.parseTimeframeToDuration(bars.get(0).timeframe());
         
         BaseBarSeries ta4jSeries = new BaseBarSeries();
         
         for (NormalizedBar bar : bars) {
             try {
-                // 创建ta4j的Bar
-                // ta4j 0.16 要求：需要设置时间周期和开始时间
-                LocalDateTime barTime = bar.barTime();
-                ZonedDateTime beginTime = barTime.atZone(ZoneId.of("UTC"));
-                
-                // 构建BaseBar，需要时间周期和开始时间
-                BaseBar ta4jBar = BaseBar.builder()
-                        .timePeriod(timePeriod)
-                        .endTime(beginTime.plus(timePeriod)) // endTime = beginTime + period
-                        .openPrice(ta4jSeries.numOf(bar.open().doubleValue()))
-                        .highPrice(ta4jSeries.numOf(bar.high().doubleValue()))
-                        .lowPrice(ta4jSeries.numOf(bar.low().doubleValue()))
-                        .closePrice(ta4jSeries.numOf(bar.close().doubleValue()))
-                        .volume(ta4jSeries.numOf(bar.volume().doubleValue()))
-                        .build();
-                
-                ta4jSeries.addBar(ta4jBar);
-                
+                ta4jSeries.addBar(LiveTa4jSeries.toTa4jBar(bar, timePeriod, ta4jSeries));
             } catch (Exception e) {
                 log.warn("转换Bar失败，跳过: barTime={}, timeframe={}, error={}", 
                         bar.barTime(), bar.timeframe(), e.getMessage());
@@ -146,48 +155,12 @@ public class Ta4jIndicatorEngine implements IndicatorEngine {
     }
     
     /**
-     * 解析timeframe字符串为Duration
-     * 例如：5m -> Duration.ofMinutes(5), 1h -> Duration.ofHours(1)
+     * 创建指标计算（主指标 + 结果Map构建）
+     * 
+     * <p>多值指标需要的附加指标（如MACD的signal、BOLL的标准差）在这里一并创建，
+     * 缓存在常驻序列上时随主指标一起复用
      */
-    private Duration parseTimeframeToDuration(String timeframe) {
-        if (timeframe == null || timeframe.isEmpty()) {
-            return Duration.ofMinutes(1); // 默认1分钟
-        }
-        
-        try {
-            // 提取数字和单位
-            String numberStr = timeframe.replaceAll("[^0-9]", "");
-            String unit = timeframe.replaceAll("[0-9]", "").toLowerCase();
-            
-            if (numberStr.isEmpty()) {
-                return Duration.ofMinutes(1);
-            }
-            
-            long number = Long.parseLong(numberStr);
-            
-            switch (unit) {
-                case "m":
-                    return Duration.ofMinutes(number);
-                case "h":
-                    return Duration.ofHours(number);
-                case "d":
-                    return Duration.ofDays(number);
-                case "w":
-                    return Duration.ofDays(number * 7);
-                default:
-                    log.warn("未知的timeframe单位: {}, 使用默认1分钟", unit);
-                    return Duration.ofMinutes(1);
-            }
-        } catch (Exception e) {
-            log.warn("解析timeframe失败: {}, 使用默认1分钟", timeframe, e);
-            return Duration.ofMinutes(1);
-        }
-    }
-    
-    /**
-     * 创建Indicator
-     */
-    private Indicator<Num> createIndicator(IndicatorComputeRequest request, BarSeries ta4jSeries) {
+    private Ta4jComputation createComputation(IndicatorComputeRequest request, BarSeries ta4jSeries) {
         String code = request.indicatorCode();
         Map<String, Object> params = request.parameters();
         
@@ -196,48 +169,77 @@ public class Ta4jIndicatorEngine implements IndicatorEngine {
         switch (code) {
             case "SMA":
                 int periodSMA = getIntParam(params, "period", 20);
-                return new SMAIndicator(closePrice, periodSMA);
+                return single(new SMAIndicator(closePrice, periodSMA));
                 
             case "EMA":
                 int periodEMA = getIntParam(params, "period", 20);
-                return new EMAIndicator(closePrice, periodEMA);
+                return single(new EMAIndicator(closePrice, periodEMA));
                 
             case "WMA":
                 int periodWMA = getIntParam(params, "period", 20);
-                return new WMAIndicator(closePrice, periodWMA);
+                return single(new WMAIndicator(closePrice, periodWMA));
                 
             case "RSI":
                 int periodRSI = getIntParam(params, "period", 14);
-                return new RSIIndicator(closePrice, periodRSI);
+                return single(new RSIIndicator(closePrice, periodRSI));
                 
             case "ATR":
                 int periodATR = getIntParam(params, "period", 14);
-                return new ATRIndicator(ta4jSeries, periodATR);
+                return single(new ATRIndicator(ta4jSeries, periodATR));
                 
-            case "BOLL":
-                int periodBOLL = getIntParam(params, "period", 20);
-                SMAIndicator smaForBOLL = new SMAIndicator(closePrice, periodBOLL);
-                return smaForBOLL; // BOLL需要特殊处理，返回SMA作为middle
+            case "BOLL": {
+                // BOLL返回三个值
+                int period = getIntParam(params, "period", 20);
+                Num deviation = ta4jSeries.numOf(getDoubleParam(params, "deviation", 2.0));
+                SMAIndicator sma = new SMAIndicator(closePrice, period);
+                StandardDeviationIndicator stdDev = new StandardDeviationIndicator(closePrice, period);
+                return new Ta4jComputation(sma, index -> {
+                    Map<String, BigDecimal> resultMap = new HashMap<>();
+                    Num middle = sma.getValue(index);
+                    Num stdDevValue = stdDev.getValue(index);
+                    resultMap.put("upper", toBigDecimal(middle.plus(stdDevValue.multipliedBy(deviation))));
+                    resultMap.put("middle", toBigDecimal(middle));
+                    resultMap.put("lower", toBigDecimal(middle.minus(stdDevValue.multipliedBy(deviation))));
+                    return resultMap;
+                });
+            }
                 
-            case "MACD":
+            case "MACD": {
+                // MACD返回三个值
                 int shortPeriod = getIntParam(params, "shortPeriod", 12);
                 int longPeriod = getIntParam(params, "longPeriod", 26);
-                // MACD需要返回多个值，这里需要特殊处理
-                MACDIndicator macdIndicator = new MACDIndicator(closePrice, shortPeriod, longPeriod);
-                return macdIndicator;
+                int signalPeriod = getIntParam(params, "signalPeriod", 9);
+                MACDIndicator macd = new MACDIndicator(closePrice, shortPeriod, longPeriod);
+                EMAIndicator signal = new EMAIndicator(macd, signalPeriod);
+                return new Ta4jComputation(macd, index -> {
+                    Map<String, BigDecimal> resultMap = new HashMap<>();
+                    Num macdValue = macd.getValue(index);
+                    Num signalValue = signal.getValue(index);
+                    resultMap.put("macd", toBigDecimal(macdValue));
+                    resultMap.put("signal", toBigDecimal(signalValue));
+                    resultMap.put("histogram", toBigDecimal(macdValue.minus(signalValue)));
+                    return resultMap;
+                });
+            }
                 
-            case "Stochastic":
+            case "Stochastic": {
                 int kPeriod = getIntParam(params, "kPeriod", 14);
-                StochasticOscillatorKIndicator stochK = new StochasticOscillatorKIndicator(
-                        ta4jSeries, kPeriod);
-                // Stochastic需要返回k和d两个值
-                return stochK;
+                int dPeriod = getIntParam(params, "dPeriod", 3);
+                StochasticOscillatorKIndicator stochK = new StochasticOscillatorKIndicator(ta4jSeries, kPeriod);
+                // Stochastic返回k和d两个值：D = SMA(K, dPeriod)，与流式引擎一致
+                SMAIndicator stochD = new SMAIndicator(stochK, dPeriod);
+                return new Ta4jComputation(stochK, index -> {
+                    Map<String, BigDecimal> resultMap = new HashMap<>();
+                    resultMap.put("k", toBigDecimal(stochK.getValue(index)));
+                    resultMap.put("d", toBigDecimal(stochD.getValue(index)));
+                    return resultMap;
+                });
+            }
                 
             case "Momentum":
                 int periodMomentum = getIntParam(params, "period", 10);
                 // ROCIndicator用于计算动量
-                ROCIndicator momentumIndicator = new ROCIndicator(closePrice, periodMomentum);
-                return momentumIndicator;
+                return single(new ROCIndicator(closePrice, periodMomentum));
                 
             default:
                 log.warn("不支持的指标: {}", code);
@@ -246,62 +248,23 @@ public class Ta4jIndicatorEngine implements IndicatorEngine {
     }
     
     /**
-     * 构建结果Map
+     * 单值指标
      */
-    private Map<String, BigDecimal> buildResultMap(
-            IndicatorComputeRequest request, 
-            Indicator<Num> indicator, 
-            int index) {
-        Map<String, BigDecimal> resultMap = new HashMap<>();
-        String code = request.indicatorCode();
-        
-        // 需要特殊处理的多值指标
-        if ("MACD".equals(code)) {
-            // MACD返回三个值
-            MACDIndicator macd = (MACDIndicator) indicator;
-            int signalPeriod = getIntParam(request.parameters(), "signalPeriod", 9);
-            EMAIndicator signal = new EMAIndicator(macd, signalPeriod);
-            
-            Num macdValue = macd.getValue(index);
-            Num signalValue = signal.getValue(index);
-            
-            resultMap.put("macd", toBigDecimal(macdValue));
-            resultMap.put("signal", toBigDecimal(signalValue));
-            resultMap.put("histogram", toBigDecimal(macdValue.minus(signalValue)));
-        } else if ("BOLL".equals(code)) {
-            // BOLL返回三个值
-            int period = getIntParam(request.parameters(), "period", 20);
-            double deviation = getDoubleParam(request.parameters(), "deviation", 2.0);
-            ClosePriceIndicator closePrice = new ClosePriceIndicator(indicator.getBarSeries());
-            SMAIndicator sma = new SMAIndicator(closePrice, period);
-            StandardDeviationIndicator stdDev = new StandardDeviationIndicator(closePrice, period);
-            
-            Num middle = sma.getValue(index);
-            Num stdDevValue = stdDev.getValue(index);
-            Num upper = middle.plus(stdDevValue.multipliedBy(indicator.getBarSeries().numOf(deviation)));
-            Num lower = middle.minus(stdDevValue.multipliedBy(indicator.getBarSeries().numOf(deviation)));
-            
-            resultMap.put("upper", toBigDecimal(upper));
-            resultMap.put("middle", toBigDecimal(middle));
-            resultMap.put("lower", toBigDecimal(lower));
-        } else if ("Stochastic".equals(code)) {
-            // Stochastic返回k和d两个值
-            // 注意：StochasticOscillatorDIndicator的构造函数可能需要K指标
-            // 这里简化处理，只返回K值
-            StochasticOscillatorKIndicator stochK = (StochasticOscillatorKIndicator) indicator;
-            resultMap.put("k", toBigDecimal(stochK.getValue(index)));
-            // D值需要基于K值计算，这里暂时返回K值作为占位
-            resultMap.put("d", toBigDecimal(stochK.getValue(index)));
-        } else if ("KDJ".equals(code)) {
-            // KDJ暂时不支持，返回空Map（调用者应该已经在createIndicator中处理不支持的情况）
-            // 这里不应该被调用到，因为createIndicator会返回null
-            resultMap.put("value", BigDecimal.ZERO);
-        } else {
-            // 单值指标
+    private Ta4jComputation single(Indicator<Num> indicator) {
+        return new Ta4jComputation(indicator, index -> {
+            Map<String, BigDecimal> resultMap = new HashMap<>();
             resultMap.put("value", toBigDecimal(indicator.getValue(index)));
-        }
-        
-        return resultMap;
+            return resultMap;
+        });
+    }
+    
+    /**
+     * 指标缓存key（参数按名称排序，保证相同参数得到相同key）
+     */
+    private String buildCacheKey(IndicatorComputeRequest request) {
+        Map<String, Object> sortedParams = request.parameters() != null
+                ? new TreeMap<>(request.parameters()) : Map.of();
+        return request.indicatorCode() + ":" + request.indicatorVersion() + ":" + sortedParams;
     }
     
     /**
@@ -371,5 +334,10 @@ public class Ta4jIndicatorEngine implements IndicatorEngine {
         }
         return BigDecimal.valueOf(num.doubleValue()).setScale(8, RoundingMode.HALF_UP);
     }
+    
+    /**
+     * 指标计算：主指标（用于NaN判断）+ 按下标构建结果Map
+     */
+    private record Ta4jComputation(Indicator<Num> indicator, IntFunction<Map<String, BigDecimal>> values) {
+    }
 }
-
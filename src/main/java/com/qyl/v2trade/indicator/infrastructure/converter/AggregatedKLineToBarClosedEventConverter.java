@@ -73,7 +73,8 @@ public class AggregatedKLineToBarClosedEventConverter {
                 aggregatedKLine.low(),
                 aggregatedKLine.close(),
                 aggregatedKLine.volume(),
-                aggregatedKLine.sourceKlineCount()
+                aggregatedKLine.sourceKlineCount(),
+                aggregatedKLine.revision()
         );
     }
     
@@ -0,0 +1,32 @@
+package com.qyl.v2trade.indicator.observability;
+
+import com.qyl.v2trade.indicator.config.IndicatorSloProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * 指标计算耗时actuator端点
+ *
+ * <p>GET /actuator/indicatorcost?limit=N：最慢的N个计算（订阅粒度）和pair/timeframe批次，
+ * 以及超出计算预算的计算数量
+ *
+ * @author qyl
+ */
+@Component
+@Endpoint(id = "indicatorcost")
+public class IndicatorCostEndpoint {
+
+    @Autowired
+    private IndicatorCostTracker costTracker;
+
+    @Autowired
+    private IndicatorSloProperties properties;
+
+    @ReadOperation
+    public IndicatorCostTracker.CostReport report(@Nullable Integer limit) {
+        return costTracker.report(limit != null ? limit : properties.getTopN());
+    }
+}
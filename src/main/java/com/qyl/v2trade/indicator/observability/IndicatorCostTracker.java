@@ -0,0 +1,268 @@
+package com.qyl.v2trade.indicator.observability;
+
+import com.qyl.v2trade.indicator.config.IndicatorSloProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 指标计算耗时跟踪
+ *
+ * <p>按去重后的计算（pair + timeframe + 指标编码 + 版本 + 规范化参数，即IndicatorCalculator的计算key）
+ * 和pair/timeframe批次分别保留最近{@value #ROLLING_SAMPLES}次的耗时，用于：
+ * <ul>
+ *   <li>最慢订阅Top-N报告（按滚动平均耗时排序，通过actuator端点indicatorcost查看）</li>
+ *   <li>超预算标记：滚动平均耗时超过indicator.slo.calc-budget-micros的计算标记为超预算，
+ *       进入超预算状态时记录一次WARN日志</li>
+ * </ul>
+ *
+ * <p>Micrometer的Timer只能看到按指标编码聚合的分布，无法定位到具体的订阅参数，这里补充订阅粒度的视图
+ *
+ * @author qyl
+ */
+@Slf4j
+@Component
+public class IndicatorCostTracker {
+
+    /**
+     * 每个计算/批次保留的最近耗时样本数
+     */
+    static final int ROLLING_SAMPLES = 64;
+
+    @Autowired
+    private IndicatorSloProperties properties;
+
+    @Autowired
+    private IndicatorMetrics metrics;
+
+    /**
+     * 计算key -> 耗时统计
+     */
+    private final Map<String, CostStats> computations = new ConcurrentHashMap<>();
+
+    /**
+     * pairId:timeframe -> Bar收盘到最后结果的延迟统计
+     */
+    private final Map<String, CostStats> batches = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次计算的耗时
+     *
+     * @param pairId 交易对ID
+     * @param timeframe 周期
+     * @param computationKey 计算key（code:version:规范化参数）
+     * @param indicatorCode 指标编码
+     * @param engine 引擎名称
+     * @param subscriberCount 共享该计算的订阅数
+     * @param costNanos 计算耗时（纳秒）
+     */
+    public void recordComputation(long pairId, String timeframe, String computationKey, String indicatorCode,
+                                  String engine, int subscriberCount, long costNanos) {
+        String key = pairId + ":" + timeframe + ":" + computationKey;
+        CostStats stats = computations.computeIfAbsent(key,
+                k -> new CostStats(pairId, timeframe, computationKey, indicatorCode));
+        long budgetNanos = properties.getCalcBudgetMicros() * 1_000L;
+
+        boolean enteredOverBudget;
+        double averageNanos;
+        synchronized (stats) {
+            stats.engine = engine;
+            stats.subscribers = subscriberCount;
+            stats.add(costNanos);
+            if (costNanos > budgetNanos) {
+                stats.overBudgetCount++;
+            }
+            averageNanos = stats.average();
+            boolean overBudget = averageNanos > budgetNanos;
+            enteredOverBudget = overBudget && !stats.overBudget;
+            stats.overBudget = overBudget;
+        }
+
+        if (costNanos > budgetNanos) {
+            metrics.recordOverBudget(indicatorCode, engine);
+        }
+        if (enteredOverBudget) {
+            log.warn("指标计算超出耗时预算: pairId={}, timeframe={}, computation={}, engine={}, subscribers={}, " +
+                            "avgMicros={}, budgetMicros={}",
+                    pairId, timeframe, computationKey, engine, subscriberCount,
+                    Math.round(averageNanos / 1_000), properties.getCalcBudgetMicros());
+        }
+    }
+
+    /**
+     * 记录一个pair/timeframe批次从Bar收盘到最后一个结果产生的延迟
+     *
+     * @param pairId 交易对ID
+     * @param timeframe 周期
+     * @param subscriptionCount 批次中的订阅数
+     * @param latencyNanos 延迟（纳秒）
+     */
+    public void recordBatch(long pairId, String timeframe, int subscriptionCount, long latencyNanos) {
+        CostStats stats = batches.computeIfAbsent(pairId + ":" + timeframe,
+                k -> new CostStats(pairId, timeframe, null, null));
+        synchronized (stats) {
+            stats.subscribers = subscriptionCount;
+            stats.add(latencyNanos);
+            stats.overBudget = latencyNanos > properties.getBarLatencyBudgetMillis() * 1_000_000L;
+            if (stats.overBudget) {
+                stats.overBudgetCount++;
+            }
+        }
+    }
+
+    /**
+     * 生成耗时报告
+     *
+     * @param limit 最慢计算/批次的数量
+     */
+    public CostReport report(int limit) {
+        List<SlowComputation> slowComputations = new ArrayList<>(computations.size());
+        int overBudget = 0;
+        for (CostStats stats : computations.values()) {
+            synchronized (stats) {
+                slowComputations.add(new SlowComputation(stats.pairId, stats.timeframe, stats.computationKey,
+                        stats.indicatorCode, stats.engine, stats.subscribers, stats.samples,
+                        stats.last() / 1_000, stats.average() / 1_000, stats.max() / 1_000,
+                        stats.overBudgetCount, stats.overBudget));
+                if (stats.overBudget) {
+                    overBudget++;
+                }
+            }
+        }
+        slowComputations.sort(Comparator.comparingDouble(SlowComputation::avgMicros).reversed());
+
+        List<SlowBatch> slowBatches = new ArrayList<>(batches.size());
+        for (CostStats stats : batches.values()) {
+            synchronized (stats) {
+                slowBatches.add(new SlowBatch(stats.pairId, stats.timeframe, stats.subscribers, stats.samples,
+                        stats.last() / 1_000_000, stats.average() / 1_000_000, stats.max() / 1_000_000,
+                        stats.overBudgetCount, stats.overBudget));
+            }
+        }
+        slowBatches.sort(Comparator.comparingDouble(SlowBatch::avgMillis).reversed());
+
+        int n = Math.max(0, limit);
+        return new CostReport(properties.getCalcBudgetMicros(), properties.getBarLatencyBudgetMillis(),
+                computations.size(), overBudget,
+                slowComputations.subList(0, Math.min(n, slowComputations.size())),
+                slowBatches.subList(0, Math.min(n, slowBatches.size())));
+    }
+
+    /**
+     * 定期清理空闲的统计（订阅被禁用或序列不再计算）
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000L, initialDelay = 60 * 60 * 1000L)
+    public void evictIdleStats() {
+        long threshold = System.currentTimeMillis() - properties.getStatsIdleMinutes() * 60_000L;
+        int before = computations.size() + batches.size();
+        computations.values().removeIf(stats -> stats.lastSeenMillis < threshold);
+        batches.values().removeIf(stats -> stats.lastSeenMillis < threshold);
+        int removed = before - computations.size() - batches.size();
+        if (removed > 0) {
+            log.info("清理空闲的指标耗时统计: removed={}, computations={}, batches={}",
+                    removed, computations.size(), batches.size());
+        }
+    }
+
+    /**
+     * 单个计算或批次的滚动耗时统计（环形缓冲区保存最近的样本，由调用方对实例加锁）
+     */
+    private static class CostStats {
+        private final long pairId;
+        private final String timeframe;
+        private final String computationKey;
+        private final String indicatorCode;
+        private final long[] window = new long[ROLLING_SAMPLES];
+        private String engine;
+        private int subscribers;
+        private long samples;
+        private long overBudgetCount;
+        private boolean overBudget;
+        private volatile long lastSeenMillis;
+
+        CostStats(long pairId, String timeframe, String computationKey, String indicatorCode) {
+            this.pairId = pairId;
+            this.timeframe = timeframe;
+            this.computationKey = computationKey;
+            this.indicatorCode = indicatorCode;
+        }
+
+        void add(long nanos) {
+            window[(int) (samples % ROLLING_SAMPLES)] = nanos;
+            samples++;
+            lastSeenMillis = System.currentTimeMillis();
+        }
+
+        double last() {
+            return samples == 0 ? 0 : window[(int) ((samples - 1) % ROLLING_SAMPLES)];
+        }
+
+        double average() {
+            int count = (int) Math.min(samples, ROLLING_SAMPLES);
+            if (count == 0) {
+                return 0;
+            }
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += window[i];
+            }
+            return (double) sum / count;
+        }
+
+        double max() {
+            int count = (int) Math.min(samples, ROLLING_SAMPLES);
+            long max = 0;
+            for (int i = 0; i < count; i++) {
+                max = Math.max(max, window[i]);
+            }
+            return max;
+        }
+    }
+
+    /**
+     * 耗时报告
+     *
+     * @param calcBudgetMicros 单次计算的耗时预算（微秒）
+     * @param barLatencyBudgetMillis Bar收盘到最后结果的延迟预算（毫秒）
+     * @param trackedComputations 跟踪的计算数量
+     * @param overBudgetComputations 滚动平均耗时超预算的计算数量
+     * @param slowestComputations 滚动平均耗时最高的计算
+     * @param slowestBatches 滚动平均延迟最高的pair/timeframe批次
+     */
+    public record CostReport(long calcBudgetMicros, long barLatencyBudgetMillis, int trackedComputations,
+                             int overBudgetComputations, List<SlowComputation> slowestComputations,
+                             List<SlowBatch> slowestBatches) {
+    }
+
+    /**
+     * 一个计算（相同指标参数的订阅共享）的耗时，耗时单位为微秒，统计范围为最近{@value #ROLLING_SAMPLES}次
+     *
+     * @param subscribers 共享该计算的订阅数
+     * @param samples 累计计算次数
+     * @param overBudgetCount 单次耗时超预算的累计次数
+     * @param overBudget 滚动平均耗时是否超预算
+     */
+    public record SlowComputation(long tradingPairId, String timeframe, String computationKey, String indicatorCode,
+                                  String engine, int subscribers, long samples, double lastMicros,
+                                  double avgMicros, double maxMicros, long overBudgetCount, boolean overBudget) {
+    }
+
+    /**
+     * 一个pair/timeframe批次的Bar收盘到最后结果的延迟，单位为毫秒，统计范围为最近{@value #ROLLING_SAMPLES}根Bar
+     *
+     * @param subscriptions 最近一次批次的订阅数
+     * @param overBudgetCount 延迟超预算的累计次数
+     * @param overBudget 最近一次批次是否超预算
+     */
+    public record SlowBatch(long tradingPairId, String timeframe, int subscriptions, long samples,
+                            double lastMillis, double avgMillis, double maxMillis, long overBudgetCount,
+                            boolean overBudget) {
+    }
+}
@@ -1,6 +1,7 @@
 package com.qyl.v2trade.indicator.observability;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
@@ -8,17 +9,24 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
 
 /**
  * 指标监控
  * 
  * <p>提供指标计算的监控指标：
- * - cost_ms P50/P95/P99
+ * - 计算耗时 P50/P95/P99（纳秒计时，按指标编码/引擎/周期打标签）
+ * - Bar收盘到该Bar最后一个结果产生的延迟（按周期打标签）
+ * - 超出计算预算的次数
  * - fail_count
  * - conflict_count
  * - subscription_enabled_count
+ * - 跨用户计算去重（订阅数/实际计算数/每次计算分发的订阅数）
+ * - 异步批量写入（队列深度、刷写耗时、写入行数）
+ * - 最新指标值缓存（命中/未命中次数、缓存条目数）
  *
  * @author qyl
  */
@@ -28,8 +36,12 @@ public class IndicatorMetrics {
     
     private final MeterRegistry meterRegistry;
     
-    // Timer for cost_ms metrics (P50/P95/P99)
-    private Timer calcCostTimer;
+    // 计算耗时Timer：indicator_code + engine + timeframe -> Timer（避免每次计算都走builder注册查找）
+    // 沿用原meter名indicator.calc.cost_ms，已有的看板和告警按名称查询不受影响
+    private final ConcurrentHashMap<String, Timer> calcCostTimers = new ConcurrentHashMap<>();
+    
+    // Bar收盘到最后结果的延迟Timer：timeframe -> Timer
+    private final ConcurrentHashMap<String, Timer> barLatencyTimers = new ConcurrentHashMap<>();
     
     // Counter for fail_count
     private Counter failCounter;
@@ -37,6 +49,15 @@ public class IndicatorMetrics {
     // Counter for conflict_count
     private Counter conflictCounter;
     
+    // 跨用户计算去重：订阅数、实际计算数、每次计算分发的订阅数
+    private Counter dedupSubscriptionCounter;
+    private Counter dedupComputationCounter;
+    private DistributionSummary fanoutSummary;
+    
+    // 最新指标值缓存：命中/未命中
+    private Counter latestCacheHitCounter;
+    private Counter latestCacheMissCounter;
+    
     // Gauge for subscription_enabled_count (动态计数)
     private final ConcurrentHashMap<String, Long> subscriptionCountMap = new ConcurrentHashMap<>();
     
@@ -46,12 +67,6 @@ public class IndicatorMetrics {
     
     @PostConstruct
     public void init() {
-        // 初始化Timer（自动提供P50/P95/P99等分位数）
-        calcCostTimer = Timer.builder("indicator.calc.cost_ms")
-                .description("指标计算耗时（毫秒）")
-                .publishPercentiles(0.5, 0.95, 0.99) // P50, P95, P99
-                .register(meterRegistry);
-        
         // 初始化Counter
         failCounter = Counter.builder("indicator.calc.fail_count")
                 .description("指标计算失败次数")
@@ -61,6 +76,28 @@ public class IndicatorMetrics {
                 .description("指标计算冲突次数")
                 .register(meterRegistry);
         
+        dedupSubscriptionCounter = Counter.builder("indicator.calc.subscriptions")
+                .description("参与计算的订阅数")
+                .register(meterRegistry);
+        
+        dedupComputationCounter = Counter.builder("indicator.calc.computations")
+                .description("去重后实际执行的计算数")
+                .register(meterRegistry);
+        
+        fanoutSummary = DistributionSummary.builder("indicator.calc.fanout")
+                .description("每次Bar收盘平均每个计算分发的订阅数（去重率）")
+                .register(meterRegistry);
+        
+        latestCacheHitCounter = Counter.builder("indicator.latest_cache.requests")
+                .description("最新指标值缓存查询次数")
+                .tags("result", "hit")
+                .register(meterRegistry);
+        
+        latestCacheMissCounter = Counter.builder("indicator.latest_cache.requests")
+                .description("最新指标值缓存查询次数")
+                .tags("result", "miss")
+                .register(meterRegistry);
+        
         // 注册Gauge（动态计数）
         meterRegistry.gauge("indicator.subscription.enabled_count", subscriptionCountMap,
                 map -> map.values().stream().mapToLong(Long::longValue).sum());
@@ -69,12 +106,53 @@ public class IndicatorMetrics {
     }
     
     /**
-     * 记录计算耗时
+     * 记录一次计算的耗时（自动提供P50/P95/P99等分位数）
+     * 
+     * @param indicatorCode 指标编码
+     * @param engine 引擎名称
+     * @param timeframe 周期
+     * @param costNanos 计算耗时（纳秒，System.nanoTime计时）
      */
-    public void recordCalcCost(long costMs) {
-        if (calcCostTimer != null) {
-            calcCostTimer.record(costMs, TimeUnit.MILLISECONDS);
-        }
+    public void recordCalcCost(String indicatorCode, String engine, String timeframe, long costNanos) {
+        String code = indicatorCode != null ? indicatorCode : "unknown";
+        String engineName = engine != null ? engine : "unknown";
+        String tf = timeframe != null ? timeframe : "unknown";
+        calcCostTimers.computeIfAbsent(code + "|" + engineName + "|" + tf, k -> Timer.builder("indicator.calc.cost_ms")
+                        .description("指标计算耗时")
+                        .tags("indicator_code", code, "engine", engineName, "timeframe", tf)
+                        .publishPercentiles(0.5, 0.95, 0.99) // P50, P95, P99
+                        .register(meterRegistry))
+                .record(costNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 记录Bar收盘到该Bar最后一个指标结果产生的延迟（一个pair/timeframe批次一次）
+     * 
+     * @param timeframe 周期
+     * @param latencyNanos 延迟（纳秒）
+     */
+    public void recordBarLatency(String timeframe, long latencyNanos) {
+        String tf = timeframe != null ? timeframe : "unknown";
+        barLatencyTimers.computeIfAbsent(tf, k -> Timer.builder("indicator.bar.latency")
+                        .description("Bar收盘到最后一个指标结果的延迟")
+                        .tags("timeframe", tf)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry))
+                .record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 记录一次超出计算预算的计算
+     */
+    public void recordOverBudget(String indicatorCode, String engine) {
+        Counter.builder("indicator.calc.over_budget")
+                .description("超出计算预算的计算次数")
+                .tags(Tags.of(
+                        "indicator_code", indicatorCode != null ? indicatorCode : "unknown",
+                        "engine", engine != null ? engine : "unknown"
+                ))
+                .register(meterRegistry)
+                .increment();
     }
     
     /**
@@ -109,6 +187,74 @@ public class IndicatorMetrics {
         }
     }
     
+    /**
+     * 记录跨用户计算去重
+     * 
+     * @param subscriptionCount 参与计算的订阅数
+     * @param computationCount 去重后实际执行的计算数
+     */
+    public void recordDedup(int subscriptionCount, int computationCount) {
+        if (dedupSubscriptionCounter == null || computationCount <= 0) {
+            return;
+        }
+        dedupSubscriptionCounter.increment(subscriptionCount);
+        dedupComputationCounter.increment(computationCount);
+        fanoutSummary.record((double) subscriptionCount / computationCount);
+    }
+    
+    /**
+     * 注册写入队列深度Gauge
+     * 
+     * @param type 队列类型（value/log）
+     * @param queue 写入队列
+     */
+    public void registerWriteQueue(String type, Collection<?> queue) {
+        meterRegistry.gauge("indicator.write.queue.depth", Tags.of("type", type), queue, Collection::size);
+    }
+    
+    /**
+     * 记录一次批量刷写
+     * 
+     * @param type 队列类型（value/log）
+     * @param rows 写入行数
+     * @param costNanos 刷写耗时（纳秒）
+     */
+    public void recordWriteFlush(String type, int rows, long costNanos) {
+        Timer.builder("indicator.write.flush.latency")
+                .description("指标批量写入耗时")
+                .tags("type", type)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(costNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("indicator.write.rows")
+                .description("指标批量写入行数")
+                .tags("type", type)
+                .register(meterRegistry)
+                .increment(rows);
+    }
+    
+    /**
+     * 记录一次最新指标值缓存查询
+     * 
+     * @param hit 是否命中（未命中时回退到MySQL）
+     */
+    public void recordLatestCacheLookup(boolean hit) {
+        Counter counter = hit ? latestCacheHitCounter : latestCacheMissCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+    
+    /**
+     * 注册最新指标值缓存条目数Gauge
+     * 
+     * @param cache 缓存
+     * @param sizeFunction 条目数
+     */
+    public <T> void registerLatestCache(T cache, ToDoubleFunction<T> sizeFunction) {
+        meterRegistry.gauge("indicator.latest_cache.size", cache, sizeFunction);
+    }
+    
     /**
      * 更新订阅计数
      */
@@ -1,5 +1,6 @@
 package com.qyl.v2trade.indicator.persistence;
 
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -67,5 +68,33 @@ public class CalcFingerprint {
             throw new RuntimeException("SHA-256算法不可用", e);
         }
     }
+    
+    /**
+     * 生成规范化参数字符串（用于跨用户计算去重）
+     * 
+     * <p>参数按key排序；数值统一为去掉末尾0的普通字符串（如 14、14.0、"14" 视为相同）
+     * 
+     * @param params 参数
+     * @return 规范化后的参数字符串，如 "period=14,source=close"
+     */
+    public static String canonicalParams(Map<String, Object> params) {
+        if (params == null || params.isEmpty()) {
+            return "";
+        }
+        return params.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(e -> e.getKey() + "=" + canonicalValue(e.getValue()))
+                .collect(Collectors.joining(","));
+    }
+    
+    private static String canonicalValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        try {
+            return new BigDecimal(value.toString().trim()).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return value.toString();
+        }
+    }
 }
-
@@ -0,0 +1,294 @@
+package com.qyl.v2trade.indicator.persistence;
+
+import com.qyl.v2trade.indicator.config.IndicatorPersistenceProperties;
+import com.qyl.v2trade.indicator.observability.IndicatorMetrics;
+import com.qyl.v2trade.indicator.repository.IndicatorCalcLogRepository;
+import com.qyl.v2trade.indicator.repository.IndicatorValueRepository;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorCalcLog;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorValue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标结果异步批量写入（write-behind）
+ *
+ * <p>计算线程只把indicator_value / indicator_calc_log行放入内存队列，
+ * 由单个写入线程按批量大小或刷写间隔合并为多行INSERT IGNORE / INSERT，
+ * 避免整点时大量订阅逐行同步写MySQL
+ *
+ * <p>冲突检测使用内存指纹表（唯一键 -> 首次写入的指标值），不再回读数据库：
+ * 同一唯一键再次提交时直接返回已记录的值，由调用方比较指纹和值
+ *
+ * <p>队列满时退化为调用线程同步写入；关闭时写完队列中剩余的行
+ *
+ * @author qyl
+ */
+@Slf4j
+@Component
+public class IndicatorWriteBehind {
+
+    private static final String TYPE_VALUE = "value";
+    private static final String TYPE_LOG = "log";
+
+    @Autowired
+    private IndicatorPersistenceProperties properties;
+
+    @Autowired
+    private IndicatorValueRepository valueRepository;
+
+    @Autowired
+    private IndicatorCalcLogRepository calcLogRepository;
+
+    @Autowired
+    private IndicatorMetrics metrics;
+
+    private BlockingQueue<IndicatorValue> valueQueue;
+    private BlockingQueue<IndicatorCalcLog> logQueue;
+
+    /**
+     * 内存指纹表：key = userId:pairId:timeframe:barTime:code:version（indicator_value唯一键）
+     */
+    private final Map<String, IndicatorValue> writtenValues = new ConcurrentHashMap<>();
+
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Indicator-Write-Behind");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        valueQueue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+        logQueue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+        metrics.registerWriteQueue(TYPE_VALUE, valueQueue);
+        metrics.registerWriteQueue(TYPE_LOG, logQueue);
+
+        if (properties.isWriteBehindEnabled()) {
+            running = true;
+            flushExecutor.submit(this::flushLoop);
+            log.info("指标异步批量写入已启动: batchSize={}, flushIntervalMs={}, queueCapacity={}",
+                    properties.getBatchSize(), properties.getFlushIntervalMs(), properties.getQueueCapacity());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("指标写入线程未在10秒内结束: pendingValues={}, pendingLogs={}",
+                        valueQueue.size(), logQueue.size());
+                flushExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flushExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 提交指标值（INSERT IGNORE语义）
+     *
+     * @param value 指标值（需已设置指纹）
+     * @return 同一唯一键已提交过的指标值（用于冲突检测），首次提交返回null
+     */
+    public IndicatorValue submitValue(IndicatorValue value) {
+        if (!properties.isWriteBehindEnabled()) {
+            return writeValueDirectly(value);
+        }
+
+        IndicatorValue existing = writtenValues.putIfAbsent(buildValueKey(value), value);
+        if (existing != null) {
+            return existing;
+        }
+        if (!valueQueue.offer(value)) {
+            log.warn("指标值写入队列已满，同步写入: userId={}, code={}, barTime={}",
+                    value.getUserId(), value.getIndicatorCode(), value.getBarTime());
+            flushValues(List.of(value));
+        }
+        return null;
+    }
+
+    /**
+     * 提交计算日志（追加写入）
+     */
+    public void submitLog(IndicatorCalcLog calcLog) {
+        if (!properties.isWriteBehindEnabled()) {
+            calcLogRepository.append(calcLog);
+            return;
+        }
+        if (!logQueue.offer(calcLog)) {
+            log.warn("计算日志写入队列已满，同步写入: userId={}, code={}, barTime={}",
+                    calcLog.getUserId(), calcLog.getIndicatorCode(), calcLog.getBarTime());
+            flushLogs(List.of(calcLog));
+        }
+    }
+
+    /**
+     * 获取待写入的行数
+     */
+    public int getPendingCount() {
+        return (valueQueue != null ? valueQueue.size() : 0) + (logQueue != null ? logQueue.size() : 0);
+    }
+
+    /**
+     * 同步写入（未启用write-behind时）：逐行INSERT IGNORE，被忽略时回读已存在的行
+     */
+    private IndicatorValue writeValueDirectly(IndicatorValue value) {
+        IndicatorValueRepository.WriteResult result = valueRepository.insertIgnore(value);
+        if (result == IndicatorValueRepository.WriteResult.INSERTED) {
+            return null;
+        }
+        return valueRepository.findOneKey(
+                value.getUserId(),
+                value.getTradingPairId(),
+                value.getTimeframe(),
+                value.getBarTime(),
+                value.getIndicatorCode(),
+                value.getIndicatorVersion()
+        ).orElse(null);
+    }
+
+    /**
+     * 写入线程主循环：攒满一批或到达刷写间隔即写入
+     */
+    private void flushLoop() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getFlushIntervalMs()));
+        List<IndicatorValue> values = new ArrayList<>(batchSize);
+        List<IndicatorCalcLog> logs = new ArrayList<>(batchSize);
+        long lastFlush = System.nanoTime();
+        long lastEviction = System.currentTimeMillis();
+
+        while (running || !valueQueue.isEmpty() || !logQueue.isEmpty()) {
+            try {
+                IndicatorValue first = valueQueue.poll(Math.max(1, properties.getFlushIntervalMs() / 4),
+                        TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    values.add(first);
+                }
+                valueQueue.drainTo(values, batchSize - values.size());
+                logQueue.drainTo(logs, batchSize - logs.size());
+
+                boolean due = System.nanoTime() - lastFlush >= intervalNanos || !running;
+                if (values.size() >= batchSize || (due && !values.isEmpty())) {
+                    flushValues(values);
+                    values.clear();
+                }
+                if (logs.size() >= batchSize || (due && !logs.isEmpty())) {
+                    flushLogs(logs);
+                    logs.clear();
+                }
+                if (due) {
+                    lastFlush = System.nanoTime();
+                }
+
+                if (System.currentTimeMillis() - lastEviction >= 60_000L) {
+                    lastEviction = System.currentTimeMillis();
+                    evictFingerprints();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("指标批量写入循环异常", e);
+            }
+        }
+
+        // 退出前写完已取出的行
+        flushValues(values);
+        flushLogs(logs);
+        log.info("指标异步批量写入已停止");
+    }
+
+    /**
+     * 批量写入指标值；批量失败时逐行重试
+     */
+    private void flushValues(List<IndicatorValue> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            int inserted = valueRepository.insertIgnoreBatch(values);
+            metrics.recordWriteFlush(TYPE_VALUE, values.size(), System.nanoTime() - startNanos);
+            if (inserted < values.size()) {
+                log.debug("批量写入指标值存在已存在的行: rows={}, ignored={}", values.size(), values.size() - inserted);
+            }
+        } catch (Exception e) {
+            log.error("批量写入指标值失败，逐行重试: rows={}", values.size(), e);
+            for (IndicatorValue value : values) {
+                try {
+                    valueRepository.insertIgnore(value);
+                } catch (Exception ex) {
+                    log.error("写入指标值失败: userId={}, code={}, barTime={}",
+                            value.getUserId(), value.getIndicatorCode(), value.getBarTime(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * 批量写入计算日志；批量失败时逐行重试
+     */
+    private void flushLogs(List<IndicatorCalcLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            calcLogRepository.appendBatch(logs);
+            metrics.recordWriteFlush(TYPE_LOG, logs.size(), System.nanoTime() - startNanos);
+        } catch (Exception e) {
+            log.error("批量写入计算日志失败，逐行重试: rows={}", logs.size(), e);
+            for (IndicatorCalcLog calcLog : logs) {
+                try {
+                    calcLogRepository.append(calcLog);
+                } catch (Exception ex) {
+                    log.error("写入计算日志失败: userId={}, code={}, barTime={}",
+                            calcLog.getUserId(), calcLog.getIndicatorCode(), calcLog.getBarTime(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * 清理过期的内存指纹（Bar时间早于保留时间）
+     */
+    private void evictFingerprints() {
+        LocalDateTime threshold = LocalDateTime.now(ZoneOffset.UTC)
+                .minusMinutes(properties.getFingerprintRetentionMinutes());
+        int before = writtenValues.size();
+        writtenValues.values().removeIf(value -> value.getBarTime().isBefore(threshold));
+        int removed = before - writtenValues.size();
+        if (removed > 0) {
+            log.debug("清理过期的指标指纹: removed={}, remaining={}", removed, writtenValues.size());
+        }
+    }
+
+    private String buildValueKey(IndicatorValue value) {
+        return value.getUserId() + ":" + value.getTradingPairId() + ":" + value.getTimeframe() + ":"
+                + value.getBarTime() + ":" + value.getIndicatorCode() + ":" + value.getIndicatorVersion();
+    }
+}
@@ -0,0 +1,135 @@
+package com.qyl.v2trade.indicator.persistence;
+
+import com.qyl.v2trade.indicator.observability.IndicatorMetrics;
+import com.qyl.v2trade.indicator.repository.IndicatorValueRepository;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorValue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 最新指标值缓存（key = userId:pairId → timeframe:code:version）
+ *
+ * <p>IndicatorCalculator产生结果后立即写入（早于异步批量落库），
+ * 查询API、策略采样和因子解析直接读取内存，MySQL只承担冷启动和历史查询
+ *
+ * <p>只保留每个key的最新Bar：新值的barTime晚于已缓存的值才替换；
+ * 同一Bar重复计算时保留先写入的值，与indicator_value的INSERT IGNORE语义一致
+ *
+ * @author qyl
+ */
+@Slf4j
+@Component
+public class LatestIndicatorValueCache {
+
+    @Autowired
+    private IndicatorValueRepository valueRepository;
+
+    @Autowired
+    private IndicatorMetrics metrics;
+
+    /**
+     * 两级索引：userId:pairId -> (timeframe:code:version -> 最新指标值)
+     */
+    private final Map<String, Map<String, IndicatorValue>> latestValues = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        metrics.registerLatestCache(this, LatestIndicatorValueCache::size);
+    }
+
+    /**
+     * 写入指标值（只在barTime更新时替换）
+     *
+     * @param value 指标值
+     */
+    public void put(IndicatorValue value) {
+        if (value == null || value.getBarTime() == null) {
+            return;
+        }
+        latestValues.computeIfAbsent(buildPairKey(value.getUserId(), value.getTradingPairId()),
+                        k -> new ConcurrentHashMap<>())
+                .merge(buildIndicatorKey(value.getTimeframe(), value.getIndicatorCode(), value.getIndicatorVersion()),
+                        value,
+                        (existing, incoming) -> incoming.getBarTime().isAfter(existing.getBarTime())
+                                ? incoming : existing);
+    }
+
+    /**
+     * 查询最新指标值（未命中时回退到MySQL并回填缓存）
+     *
+     * @return 最新指标值，不存在返回Optional.empty()
+     */
+    public Optional<IndicatorValue> getLatest(long userId, long tradingPairId, String timeframe,
+                                              String indicatorCode, String indicatorVersion) {
+        Map<String, IndicatorValue> pairValues = latestValues.get(buildPairKey(userId, tradingPairId));
+        IndicatorValue cached = pairValues != null
+                ? pairValues.get(buildIndicatorKey(timeframe, indicatorCode, indicatorVersion))
+                : null;
+        metrics.recordLatestCacheLookup(cached != null);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<IndicatorValue> loaded = valueRepository.findLatest(
+                userId, tradingPairId, timeframe, indicatorCode, indicatorVersion);
+        loaded.ifPresent(this::put);
+        return loaded;
+    }
+
+    /**
+     * 只从内存查询指定指标的最新值（策略决策路径使用，不访问数据库）
+     *
+     * @param timeframe 周期（可选，为空时在所有周期中取barTime最新的值）
+     * @param indicatorCode 指标编码
+     * @param indicatorVersion 指标版本（可选，为空时匹配所有版本）
+     * @return 最新指标值，缓存中不存在返回Optional.empty()
+     */
+    public Optional<IndicatorValue> findCached(long userId, long tradingPairId, String timeframe,
+                                               String indicatorCode, String indicatorVersion) {
+        Map<String, IndicatorValue> pairValues = latestValues.get(buildPairKey(userId, tradingPairId));
+        IndicatorValue latest = null;
+        if (pairValues != null) {
+            if (timeframe != null && indicatorVersion != null) {
+                latest = pairValues.get(buildIndicatorKey(timeframe, indicatorCode, indicatorVersion));
+            } else {
+                for (IndicatorValue value : pairValues.values()) {
+                    if (!indicatorCode.equals(value.getIndicatorCode())
+                            || (timeframe != null && !timeframe.equals(value.getTimeframe()))
+                            || (indicatorVersion != null && !indicatorVersion.equals(value.getIndicatorVersion()))) {
+                        continue;
+                    }
+                    if (latest == null || value.getBarTime().isAfter(latest.getBarTime())) {
+                        latest = value;
+                    }
+                }
+            }
+        }
+        metrics.recordLatestCacheLookup(latest != null);
+        return Optional.ofNullable(latest);
+    }
+
+    /**
+     * 获取缓存条目总数
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, IndicatorValue> pairValues : latestValues.values()) {
+            size += pairValues.size();
+        }
+        return size;
+    }
+
+    private String buildPairKey(Long userId, Long tradingPairId) {
+        return userId + ":" + tradingPairId;
+    }
+
+    private String buildIndicatorKey(String timeframe, String indicatorCode, String indicatorVersion) {
+        return timeframe + ":" + indicatorCode + ":" + indicatorVersion;
+    }
+}
@@ -0,0 +1,220 @@
+package com.qyl.v2trade.indicator.persistence;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多周期指标值存储（as-of查询）
+ *
+ * <p>索引：userId:pairId -> 指标编码 -> timeframe:version -> 最近{@value #HISTORY_DEPTH}根Bar的指标值。
+ * IndicatorCalculator每计算完一个指标立即写入（早于IndicatorComputedEvent发布），
+ * 策略采样和IND.因子解析按"截止时间T"读取：取barTime（bar_close_time）不晚于T的最新值，
+ * 因此5m决策可以同时使用1h/4h指标，且不会看到T之后才收盘的Bar
+ *
+ * <p>单个因子的查询只做两次哈希查找和一次小数组扫描，与订阅的指标总数无关，不访问数据库
+ *
+ * <p>写入在每个序列上加锁（同一pair/timeframe的计算串行，几乎无竞争），
+ * 读取无锁：每个序列的值数组写时复制，读到的总是完整的数组
+ *
+ * @author qyl
+ */
+@Component
+public class MultiTimeframeIndicatorStore {
+
+    /**
+     * 每个序列保留的Bar数量（覆盖截止时间略早于最新Bar的查询，如延迟处理的事件）
+     */
+    static final int HISTORY_DEPTH = 16;
+
+    /**
+     * userId:pairId -> 指标编码（大写） -> timeframe:version -> 序列
+     */
+    private final Map<String, Map<String, Map<String, ValueSeries>>> values = new ConcurrentHashMap<>();
+
+    /**
+     * 写入一次计算的结果（相同指标参数的订阅共享一次计算，按订阅用户分别索引）
+     *
+     * @param userIds 订阅该指标参数的用户
+     * @param tradingPairId 交易对ID
+     * @param timeframe 周期
+     * @param barTime Bar收盘时间
+     * @param indicatorCode 指标编码
+     * @param indicatorVersion 指标版本
+     * @param indicatorValues 全部结果值（单值指标为{"value": x}）
+     * @param computedAt 计算完成时间
+     */
+    public void put(Collection<Long> userIds, long tradingPairId, String timeframe, LocalDateTime barTime,
+                    String indicatorCode, String indicatorVersion, Map<String, BigDecimal> indicatorValues,
+                    LocalDateTime computedAt) {
+        if (userIds == null || userIds.isEmpty() || barTime == null || indicatorCode == null
+                || indicatorValues == null || indicatorValues.isEmpty()) {
+            return;
+        }
+        BigDecimal mainValue = indicatorValues.size() == 1 ? indicatorValues.values().iterator().next() : null;
+        AsOfValue value = new AsOfValue(timeframe, indicatorCode, indicatorVersion, barTime, mainValue,
+                Map.copyOf(indicatorValues), computedAt);
+        String code = normalize(indicatorCode);
+        String seriesKey = timeframe + ":" + indicatorVersion;
+        for (Long userId : userIds) {
+            values.computeIfAbsent(buildPairKey(userId, tradingPairId), k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(code, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(seriesKey, k -> new ValueSeries())
+                    .add(value);
+        }
+    }
+
+    /**
+     * 查询指定指标截止到asOf的最新值
+     *
+     * @param userId 用户ID
+     * @param tradingPairId 交易对ID
+     * @param timeframe 周期（可选，为空时在所有周期中取barTime最新的值）
+     * @param indicatorCode 指标编码（不区分大小写）
+     * @param asOf 截止时间（包含），为空表示不限制
+     * @return 指标值，不存在返回Optional.empty()
+     */
+    public Optional<AsOfValue> find(long userId, long tradingPairId, String timeframe, String indicatorCode,
+                                    LocalDateTime asOf) {
+        Map<String, Map<String, ValueSeries>> pairValues = values.get(buildPairKey(userId, tradingPairId));
+        if (pairValues == null || indicatorCode == null) {
+            return Optional.empty();
+        }
+        Map<String, ValueSeries> codeSeries = pairValues.get(normalize(indicatorCode));
+        if (codeSeries == null) {
+            return Optional.empty();
+        }
+        AsOfValue latest = null;
+        for (ValueSeries series : codeSeries.values()) {
+            AsOfValue candidate = series.asOf(asOf);
+            if (candidate == null || (timeframe != null && !timeframe.equals(candidate.timeframe()))) {
+                continue;
+            }
+            if (latest == null || candidate.barTime().isAfter(latest.barTime())) {
+                latest = candidate;
+            }
+        }
+        return Optional.ofNullable(latest);
+    }
+
+    /**
+     * 查询该用户在交易对上所有指标截止到asOf的最新值（每个指标 × 周期 × 版本一个值）
+     *
+     * @param asOf 截止时间（包含），为空表示不限制
+     * @return 指标值列表，没有时返回空列表
+     */
+    public List<AsOfValue> snapshot(long userId, long tradingPairId, LocalDateTime asOf) {
+        Map<String, Map<String, ValueSeries>> pairValues = values.get(buildPairKey(userId, tradingPairId));
+        if (pairValues == null) {
+            return List.of();
+        }
+        List<AsOfValue> result = new ArrayList<>();
+        for (Map<String, ValueSeries> codeSeries : pairValues.values()) {
+            for (ValueSeries series : codeSeries.values()) {
+                AsOfValue value = series.asOf(asOf);
+                if (value != null) {
+                    result.add(value);
+                }
+            }
+        }
+        return result;
+    }
+
+    private String buildPairKey(Long userId, long tradingPairId) {
+        return userId + ":" + tradingPairId;
+    }
+
+    private String normalize(String indicatorCode) {
+        return indicatorCode.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 单个指标序列（同一用户、交易对、指标、周期、版本）最近的值，按barTime升序
+     */
+    private static class ValueSeries {
+
+        private volatile AsOfValue[] entries = new AsOfValue[0];
+
+        /**
+         * 写入一根Bar的值：同一barTime已存在时保留先写入的值（与indicator_value的INSERT IGNORE一致），
+         * 乱序的旧Bar插入到对应位置，超出容量时丢弃最旧的值
+         */
+        synchronized void add(AsOfValue value) {
+            AsOfValue[] current = entries;
+            int insertAt = current.length;
+            while (insertAt > 0 && current[insertAt - 1].barTime().isAfter(value.barTime())) {
+                insertAt--;
+            }
+            if (insertAt > 0 && current[insertAt - 1].barTime().equals(value.barTime())) {
+                return;
+            }
+            if (insertAt == 0 && current.length >= HISTORY_DEPTH) {
+                return;
+            }
+
+            AsOfValue[] updated = new AsOfValue[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, insertAt);
+            updated[insertAt] = value;
+            System.arraycopy(current, insertAt, updated, insertAt + 1, current.length - insertAt);
+            if (updated.length > HISTORY_DEPTH) {
+                AsOfValue[] trimmed = new AsOfValue[HISTORY_DEPTH];
+                System.arraycopy(updated, updated.length - HISTORY_DEPTH, trimmed, 0, HISTORY_DEPTH);
+                updated = trimmed;
+            }
+            entries = updated;
+        }
+
+        /**
+         * barTime不晚于asOf的最新值（从最新一根向前查找，实时查询时O(1)）
+         */
+        AsOfValue asOf(LocalDateTime asOf) {
+            AsOfValue[] current = entries;
+            for (int i = current.length - 1; i >= 0; i--) {
+                if (asOf == null || !current[i].barTime().isAfter(asOf)) {
+                    return current[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 某根Bar的指标值
+     *
+     * @param timeframe 周期
+     * @param indicatorCode 指标编码
+     * @param indicatorVersion 指标版本
+     * @param barTime Bar收盘时间
+     * @param value 指标主值（单值指标，多值指标为null）
+     * @param values 全部结果值（如MACD：{"macd": 100.0, "signal": 95.0, "histogram": 5.0}）
+     * @param computedAt 计算完成时间
+     */
+    public record AsOfValue(String timeframe, String indicatorCode, String indicatorVersion, LocalDateTime barTime,
+                            BigDecimal value, Map<String, BigDecimal> values, LocalDateTime computedAt) {
+
+        /**
+         * 获取扩展值（key不区分大小写）
+         *
+         * @return 扩展值，不存在返回null
+         */
+        public BigDecimal getValue(String key) {
+            if (key == null) {
+                return null;
+            }
+            for (Map.Entry<String, BigDecimal> entry : values.entrySet()) {
+                if (entry.getKey().equalsIgnoreCase(key)) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        }
+    }
+}
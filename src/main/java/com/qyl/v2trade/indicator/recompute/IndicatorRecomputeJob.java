@@ -0,0 +1,75 @@
+package com.qyl.v2trade.indicator.recompute;
+
+import com.qyl.v2trade.common.job.AsyncJob;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 指标历史重算任务（运行时状态）
+ *
+ * <p>一个任务按pair/timeframe序列拆成多个子任务在ForkJoinPool上并行执行，
+ * 每个序列内按时间顺序单遍计算，Bar和写入行数实时累加（用于吞吐统计）
+ *
+ * @author qyl
+ */
+public class IndicatorRecomputeJob extends AsyncJob<IndicatorRecomputeJobStatus> {
+
+    private final List<String> series;
+    private final int subscriptionCount;
+
+    private final AtomicInteger unsupportedSubscriptions = new AtomicInteger();
+    private final LongAdder barCount = new LongAdder();
+    private final LongAdder valueCount = new LongAdder();
+    private final LongAdder insertedCount = new LongAdder();
+
+    public IndicatorRecomputeJob(String jobId, List<String> series, long startTime, long endTime,
+                                 int subscriptionCount) {
+        super(jobId, startTime, endTime, series.size());
+        this.series = List.copyOf(series);
+        this.subscriptionCount = subscriptionCount;
+    }
+
+    /**
+     * 记录已输入计算图的Bar（包括预热Bar）
+     */
+    public void recordBar() {
+        barCount.increment();
+    }
+
+    /**
+     * 记录一批指标值写入完成
+     *
+     * @param values 提交写入的行数
+     * @param inserted 实际插入的行数（已存在的行被忽略）
+     */
+    public void recordWrite(int values, int inserted) {
+        valueCount.add(values);
+        insertedCount.add(inserted);
+    }
+
+    /**
+     * 记录流式引擎不支持、未参与重算的订阅
+     */
+    public void recordUnsupported(int count) {
+        unsupportedSubscriptions.addAndGet(count);
+    }
+
+    @Override
+    protected IndicatorRecomputeJobStatus newStatus() {
+        return new IndicatorRecomputeJobStatus();
+    }
+
+    @Override
+    protected void fillStatus(IndicatorRecomputeJobStatus snapshot, long elapsedMs) {
+        snapshot.setSeries(series);
+        snapshot.setSubscriptionCount(subscriptionCount);
+        snapshot.setUnsupportedSubscriptions(unsupportedSubscriptions.get());
+        snapshot.setBarCount(barCount.sum());
+        snapshot.setValueCount(valueCount.sum());
+        snapshot.setInsertedCount(insertedCount.sum());
+        snapshot.setBarsPerSecond(elapsedMs > 0 ? barCount.sum() * 1000.0 / elapsedMs : 0.0);
+        snapshot.setValuesPerSecond(elapsedMs > 0 ? valueCount.sum() * 1000.0 / elapsedMs : 0.0);
+    }
+}
@@ -0,0 +1,310 @@
+package com.qyl.v2trade.indicator.recompute;
+
+import com.qyl.v2trade.common.job.AsyncJobService;
+import com.qyl.v2trade.indicator.config.IndicatorEngineProperties;
+import com.qyl.v2trade.indicator.config.IndicatorPersistenceProperties;
+import com.qyl.v2trade.indicator.definition.IndicatorDefinition;
+import com.qyl.v2trade.indicator.definition.IndicatorRegistry;
+import com.qyl.v2trade.indicator.domain.model.NormalizedBar;
+import com.qyl.v2trade.indicator.engine.stream.IndicatorGraph;
+import com.qyl.v2trade.indicator.engine.stream.StreamIndicators;
+import com.qyl.v2trade.indicator.observability.IndicatorMetrics;
+import com.qyl.v2trade.indicator.persistence.CalcFingerprint;
+import com.qyl.v2trade.indicator.repository.IndicatorSubscriptionRepository;
+import com.qyl.v2trade.indicator.repository.IndicatorValueRepository;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorValue;
+import com.qyl.v2trade.indicator.series.LiveTa4jSeries;
+import com.qyl.v2trade.indicator.series.QuestDbKlineReader;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 指标历史重算任务服务
+ *
+ * <p>为新订阅或指标版本变更回填过去Bar的indicator_value：
+ * 每个pair/timeframe序列从QuestDB流式读取时间范围内的K线（含开始时间之前的预热Bar），
+ * 该序列上所有待重算订阅编译到同一张计算图，按时间顺序单遍输入，每根Bar对每个节点只求值一次
+ *
+ * <p>不同序列相互独立，在ForkJoinPool上并行执行；结果攒满一批即多行INSERT IGNORE写入，
+ * 已存在的行保持不变
+ *
+ * <p>只重算流式引擎支持的指标（内置流式指标和公式指标，计算结果与实时路径的stream引擎一致），其他指标计入unsupported
+ *
+ * @author qyl
+ */
+@Slf4j
+@Service
+public class IndicatorRecomputeJobService extends AsyncJobService<IndicatorRecomputeJob> {
+
+    private static final String ENGINE_NAME = "stream";
+    private static final String METRICS_TYPE = "recompute";
+
+    @Autowired
+    private QuestDbKlineReader klineReader;
+
+    @Autowired
+    private IndicatorSubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private IndicatorValueRepository valueRepository;
+
+    @Autowired
+    private IndicatorEngineProperties engineProperties;
+
+    @Autowired
+    private IndicatorPersistenceProperties persistenceProperties;
+
+    @Autowired
+    private IndicatorMetrics metrics;
+
+    @Autowired
+    private IndicatorRegistry indicatorRegistry;
+
+    @PostConstruct
+    public void init() {
+        initPool("Indicator-Recompute-Worker-", engineProperties.getRecomputeParallelism());
+    }
+
+    /**
+     * 提交历史重算任务
+     *
+     * <p>重算范围为启用订阅中满足全部过滤条件的订阅（过滤条件为空表示不过滤）
+     *
+     * @param userId 用户ID（可选）
+     * @param pairIds 交易对ID列表（可选）
+     * @param timeframes 周期列表（可选）
+     * @param indicatorCodes 指标编码列表（可选）
+     * @param startTime 开始时间戳（毫秒，包含）
+     * @param endTime 结束时间戳（毫秒，不包含）
+     * @return 任务
+     */
+    public IndicatorRecomputeJob submit(Long userId, Set<Long> pairIds, Set<String> timeframes,
+                                        Set<String> indicatorCodes, long startTime, long endTime) {
+        Map<String, List<IndicatorSubscription>> seriesSubscriptions = new LinkedHashMap<>();
+        int subscriptionCount = 0;
+        for (IndicatorSubscription subscription : subscriptionRepository.listAllEnabled()) {
+            if (userId != null && !userId.equals(subscription.getUserId())) {
+                continue;
+            }
+            if (pairIds != null && !pairIds.isEmpty() && !pairIds.contains(subscription.getTradingPairId())) {
+                continue;
+            }
+            if (timeframes != null && !timeframes.isEmpty() && !timeframes.contains(subscription.getTimeframe())) {
+                continue;
+            }
+            if (indicatorCodes != null && !indicatorCodes.isEmpty()
+                    && !indicatorCodes.contains(subscription.getIndicatorCode())) {
+                continue;
+            }
+            seriesSubscriptions.computeIfAbsent(
+                    subscription.getTradingPairId() + ":" + subscription.getTimeframe(),
+                    k -> new ArrayList<>()).add(subscription);
+            subscriptionCount++;
+        }
+
+        IndicatorRecomputeJob job = new IndicatorRecomputeJob(newJobId(),
+                new ArrayList<>(seriesSubscriptions.keySet()), startTime, endTime, subscriptionCount);
+        log.info("提交指标历史重算任务: jobId={}, series={}, subscriptions={}, from={}, to={}",
+                job.getJobId(), seriesSubscriptions.size(), subscriptionCount, startTime, endTime);
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (List<IndicatorSubscription> subscriptions : seriesSubscriptions.values()) {
+            tasks.add(() -> runSeries(job, subscriptions, startTime, endTime));
+        }
+        return launch(job, tasks);
+    }
+
+    @Override
+    protected String jobName() {
+        return "指标历史重算任务";
+    }
+
+    @Override
+    protected int maxRetainedJobs() {
+        return engineProperties.getRecomputeMaxRetainedJobs();
+    }
+
+    @Override
+    protected void onJobFinished(IndicatorRecomputeJob job) {
+        IndicatorRecomputeJobStatus snapshot = job.snapshot();
+        log.info("指标历史重算任务结束: jobId={}, status={}, 耗时{}ms, Bar{}根, 指标值{}行, 插入{}行, 失败序列{}",
+                job.getJobId(), snapshot.getStatus(), snapshot.getElapsedMs(), snapshot.getBarCount(),
+                snapshot.getValueCount(), snapshot.getInsertedCount(), snapshot.getFailedTasks());
+    }
+
+    /**
+     * 重算一个序列：编译计算图 -> 流式读取K线单遍计算 -> 批量写入
+     *
+     * @param subscriptions 同一pair/timeframe的订阅
+     */
+    private void runSeries(IndicatorRecomputeJob job, List<IndicatorSubscription> subscriptions,
+                           long startTime, long endTime) {
+        IndicatorSubscription first = subscriptions.get(0);
+        long pairId = first.getTradingPairId();
+        String timeframe = first.getTimeframe();
+        if (job.isCancelRequested()) {
+            job.recordTaskSkipped();
+            return;
+        }
+
+        try {
+            // 1. 相同指标（编码+版本+参数）只编译一次，结果分发给所有订阅
+            IndicatorGraph graph = new IndicatorGraph();
+            Map<String, RecomputeGroup> groups = new LinkedHashMap<>();
+            int unsupported = 0;
+            int requiredBars = 1;
+            for (IndicatorSubscription subscription : subscriptions) {
+                String code = subscription.getIndicatorCode();
+                IndicatorDefinition definition = indicatorRegistry.getDefinition(
+                        code, subscription.getIndicatorVersion());
+                if (definition == null || !StreamIndicators.supports(definition)) {
+                    unsupported++;
+                    continue;
+                }
+                String groupKey = code + ":" + subscription.getIndicatorVersion() + ":"
+                        + CalcFingerprint.canonicalParams(subscription.getParams());
+                RecomputeGroup group = groups.get(groupKey);
+                if (group == null) {
+                    StreamIndicators.CompiledIndicator compiled =
+                            StreamIndicators.compile(definition, subscription.getParams(), graph);
+                    String fingerprint = CalcFingerprint.generate(code, subscription.getIndicatorVersion(),
+                            subscription.getParams(), ENGINE_NAME);
+                    group = new RecomputeGroup(compiled, fingerprint, new ArrayList<>());
+                    groups.put(groupKey, group);
+                    requiredBars = Math.max(requiredBars, compiled.requiredBars());
+                }
+                group.subscriptions().add(subscription);
+            }
+            if (unsupported > 0) {
+                job.recordUnsupported(unsupported);
+            }
+            if (groups.isEmpty()) {
+                job.recordTaskCompleted();
+                return;
+            }
+
+            // 2. 从开始时间之前的预热Bar开始读取，只输出[startTime, endTime)内的Bar
+            long periodMillis = LiveTa4jSeries.parseTimeframeToDuration(timeframe).toMillis();
+            int warmupBars = Math.max(engineProperties.getRecomputeWarmupBars(), requiredBars);
+            LocalDateTime outputFrom = toUtc(startTime);
+            LocalDateTime outputTo = toUtc(endTime);
+            int batchSize = Math.max(1, persistenceProperties.getBatchSize());
+            List<IndicatorValue> batch = new ArrayList<>(batchSize);
+
+            long bars = klineReader.streamBars(pairId, timeframe, startTime - warmupBars * periodMillis, endTime,
+                    bar -> {
+                        if (job.isCancelRequested()) {
+                            throw new CancellationException();
+                        }
+                        graph.update(bar.open().doubleValue(), bar.high().doubleValue(), bar.low().doubleValue(),
+                                bar.close().doubleValue(), bar.volume().doubleValue());
+                        job.recordBar();
+                        if (bar.barTime().isBefore(outputFrom) || !bar.barTime().isBefore(outputTo)) {
+                            return;
+                        }
+                        for (RecomputeGroup group : groups.values()) {
+                            collectValues(group, graph.getBarCount(), bar, batch);
+                        }
+                        if (batch.size() >= batchSize) {
+                            flush(job, batch);
+                        }
+                    });
+            flush(job, batch);
+            job.recordTaskCompleted();
+
+            log.debug("指标历史重算序列完成: jobId={}, pairId={}, timeframe={}, bars={}, indicators={}, nodes={}",
+                    job.getJobId(), pairId, timeframe, bars, groups.size(), graph.getNodeCount());
+        } catch (CancellationException e) {
+            job.recordTaskSkipped();
+            log.info("指标历史重算序列已取消: jobId={}, pairId={}, timeframe={}", job.getJobId(), pairId, timeframe);
+        } catch (Exception e) {
+            log.error("指标历史重算序列失败: jobId={}, pairId={}, timeframe={}",
+                    job.getJobId(), pairId, timeframe, e);
+            job.recordTaskFailed(pairId + ":" + timeframe + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 读取一个指标在当前Bar的结果，为每个订阅生成一行indicator_value
+     *
+     * <p>数据不足或结果为NaN时不输出（与实时路径的INVALID结果一致，不写入）
+     */
+    private void collectValues(RecomputeGroup group, int barCount, NormalizedBar bar, List<IndicatorValue> batch) {
+        if (barCount < group.compiled().requiredBars()) {
+            return;
+        }
+        Map<String, BigDecimal> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> entry : group.compiled().values().entrySet()) {
+            double value = entry.getValue();
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                return;
+            }
+            values.put(entry.getKey(), BigDecimal.valueOf(value).setScale(8, RoundingMode.HALF_UP));
+        }
+
+        for (IndicatorSubscription subscription : group.subscriptions()) {
+            IndicatorValue value = new IndicatorValue();
+            value.setUserId(subscription.getUserId());
+            value.setTradingPairId(subscription.getTradingPairId());
+            value.setSymbol(subscription.getSymbol());
+            value.setMarketType(subscription.getMarketType());
+            value.setTimeframe(subscription.getTimeframe());
+            value.setBarTime(bar.barTime());
+            value.setIndicatorCode(subscription.getIndicatorCode());
+            value.setIndicatorVersion(subscription.getIndicatorVersion());
+            value.setCalcEngine(ENGINE_NAME);
+            value.setCalcFingerprint(group.fingerprint());
+            value.setCalcCostMs(0);
+            value.setSource("OKX"); // 默认数据源
+            value.setDataQuality("OK"); // 默认数据质量
+            if (values.size() == 1) {
+                value.setValue(values.values().iterator().next());
+                value.setExtraValues(null);
+            } else {
+                value.setValue(null);
+                value.setExtraValues(values);
+            }
+            batch.add(value);
+        }
+    }
+
+    /**
+     * 批量写入（INSERT IGNORE）并清空缓冲
+     */
+    private void flush(IndicatorRecomputeJob job, List<IndicatorValue> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        int inserted = valueRepository.insertIgnoreBatch(batch);
+        metrics.recordWriteFlush(METRICS_TYPE, batch.size(), System.nanoTime() - startNanos);
+        job.recordWrite(batch.size(), inserted);
+        batch.clear();
+    }
+
+    private static LocalDateTime toUtc(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    /**
+     * 同一指标（编码+版本+参数）的编译结果及其订阅
+     */
+    private record RecomputeGroup(StreamIndicators.CompiledIndicator compiled, String fingerprint,
+                                  List<IndicatorSubscription> subscriptions) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.qyl.v2trade.indicator.recompute;
+
+import com.qyl.v2trade.common.job.AsyncJobStatus;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.List;
+
+/**
+ * 指标历史重算任务进度快照
+ *
+ * <p>子任务为pair/timeframe序列，时间范围为[startTime, endTime)
+ *
+ * @author qyl
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class IndicatorRecomputeJobStatus extends AsyncJobStatus {
+
+    /**
+     * 重算的序列列表（pairId:timeframe）
+     */
+    private List<String> series;
+
+    /**
+     * 参与重算的订阅数量
+     */
+    private int subscriptionCount;
+
+    /**
+     * 流式引擎不支持、未重算的订阅数量
+     */
+    private int unsupportedSubscriptions;
+
+    /**
+     * 已计算的Bar数量（包括预热Bar）
+     */
+    private long barCount;
+
+    /**
+     * 已提交写入的指标值数量
+     */
+    private long valueCount;
+
+    /**
+     * 实际插入的指标值数量（已存在的行被忽略）
+     */
+    private long insertedCount;
+
+    /**
+     * 吞吐：每秒计算的Bar数量
+     */
+    private double barsPerSecond;
+
+    /**
+     * 吞吐：每秒写入的指标值数量
+     */
+    private double valuesPerSecond;
+}
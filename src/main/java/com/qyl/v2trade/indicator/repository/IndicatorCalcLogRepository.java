@@ -15,6 +15,14 @@ public interface IndicatorCalcLogRepository {
      */
     boolean append(IndicatorCalcLog log);
     
+    /**
+     * 批量追加写入计算日志（多行INSERT）
+     * 
+     * @param logs 计算日志列表
+     * @return 写入的行数
+     */
+    int appendBatch(java.util.List<IndicatorCalcLog> logs);
+    
     /**
      * 分页查询计算日志（用于前端API）
      * 
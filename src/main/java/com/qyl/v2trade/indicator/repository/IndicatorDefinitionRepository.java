@@ -16,6 +16,22 @@ public interface IndicatorDefinitionRepository {
      */
     void saveSystemDefinitions(List<IndicatorDefinition> defs);
     
+    /**
+     * 保存用户自定义指标定义（如公式指标）
+     * 
+     * @param def 指标定义
+     * @throws org.springframework.dao.DuplicateKeyException 相同用户下编码和版本已存在
+     */
+    void saveDefinition(IndicatorDefinition def);
+    
+    /**
+     * 查询指定引擎的所有启用指标定义（不区分用户）
+     * 
+     * @param engine 引擎（如：formula）
+     * @return 启用的指标定义列表
+     */
+    List<IndicatorDefinition> listEnabledByEngine(String engine);
+    
     /**
      * 查询启用的指标定义
      * 
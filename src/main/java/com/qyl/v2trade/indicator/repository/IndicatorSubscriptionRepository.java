@@ -46,6 +46,20 @@ public interface IndicatorSubscriptionRepository {
      */
     List<IndicatorSubscription> findByUserAndPairAndTimeframe(long userId, long pairId, String timeframe);
     
+    /**
+     * 查询所有启用订阅（用于加载内存订阅索引）
+     * 
+     * @return 订阅列表
+     */
+    List<IndicatorSubscription> listAllEnabled();
+    
+    /**
+     * 获取订阅表版本（总行数 + 最大updated_at），用于检测绕过API的变更
+     * 
+     * @return 版本字符串，任何插入/更新都会改变该值
+     */
+    String getVersion();
+    
     /**
      * Upsert订阅
      * 
@@ -17,6 +17,14 @@ public interface IndicatorValueRepository {
      */
     WriteResult insertIgnore(IndicatorValue value);
     
+    /**
+     * 批量幂等插入指标值（多行INSERT IGNORE，唯一键冲突的行被忽略）
+     * 
+     * @param values 指标值列表
+     * @return 实际插入的行数
+     */
+    int insertIgnoreBatch(java.util.List<IndicatorValue> values);
+    
     /**
      * 根据唯一键查找指标值（用于冲突检测）
      * 
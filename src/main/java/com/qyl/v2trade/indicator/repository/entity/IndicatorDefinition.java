@@ -35,6 +35,11 @@ public class IndicatorDefinition implements Serializable {
     
     private String engine;
     
+    /**
+     * 公式（engine=formula时有效）
+     */
+    private String formula;
+    
     @TableField(typeHandler = JacksonTypeHandler.class)
     private Map<String, Object> paramSchema;
     
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 指标计算日志Repository实现
@@ -49,6 +50,16 @@ public class IndicatorCalcLogRepositoryImpl implements IndicatorCalcLogRepositor
         }
     }
     
+    @Override
+    public int appendBatch(List<IndicatorCalcLog> logs) {
+        if (logs == null || logs.isEmpty()) {
+            return 0;
+        }
+        int inserted = mapper.insertBatch(logs);
+        log.debug("批量写入计算日志: rows={}", inserted);
+        return inserted;
+    }
+    
     @Override
     public Page<IndicatorCalcLog> queryWithPagination(
             Long userId, Long tradingPairId, String timeframe, 
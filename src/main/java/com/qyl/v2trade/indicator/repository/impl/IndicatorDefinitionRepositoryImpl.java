@@ -55,6 +55,22 @@ public class IndicatorDefinitionRepositoryImpl implements IndicatorDefinitionRep
         }
     }
     
+    @Override
+    public void saveDefinition(IndicatorDefinition def) {
+        int result = mapper.insert(def);
+        log.debug("插入指标定义: userId={}, code={}, version={}, engine={}, result={}",
+                def.getUserId(), def.getIndicatorCode(), def.getIndicatorVersion(), def.getEngine(), result);
+    }
+    
+    @Override
+    public List<IndicatorDefinition> listEnabledByEngine(String engine) {
+        return mapper.selectList(
+            new LambdaQueryWrapper<IndicatorDefinition>()
+                .eq(IndicatorDefinition::getEngine, engine)
+                .eq(IndicatorDefinition::getEnabled, 1)
+        );
+    }
+    
     @Override
     public List<IndicatorDefinition> listEnabled(long userId) {
         return mapper.selectList(
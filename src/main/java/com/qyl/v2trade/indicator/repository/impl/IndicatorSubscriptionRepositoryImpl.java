@@ -1,6 +1,7 @@
 package com.qyl.v2trade.indicator.repository.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.qyl.v2trade.indicator.repository.IndicatorSubscriptionRepository;
 import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 指标订阅Repository实现
@@ -57,6 +59,27 @@ public class IndicatorSubscriptionRepositoryImpl implements IndicatorSubscriptio
         return listEnabledByPairTf(userId, pairId, timeframe);
     }
     
+    @Override
+    public List<IndicatorSubscription> listAllEnabled() {
+        return mapper.selectList(
+            new LambdaQueryWrapper<IndicatorSubscription>()
+                .eq(IndicatorSubscription::getEnabled, 1)
+        );
+    }
+    
+    @Override
+    public String getVersion() {
+        List<Map<String, Object>> rows = mapper.selectMaps(
+            new QueryWrapper<IndicatorSubscription>()
+                .select("COUNT(*) AS cnt", "MAX(updated_at) AS max_updated_at")
+        );
+        if (rows == null || rows.isEmpty() || rows.get(0) == null) {
+            return "0:";
+        }
+        Map<String, Object> row = rows.get(0);
+        return row.get("cnt") + ":" + row.get("max_updated_at");
+    }
+    
     @Override
     public void upsert(IndicatorSubscription sub) {
         // 检查是否已存在
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -77,6 +78,17 @@ public class IndicatorValueRepositoryImpl implements IndicatorValueRepository {
         }
     }
     
+    @Override
+    public int insertIgnoreBatch(List<IndicatorValue> values) {
+        if (values == null || values.isEmpty()) {
+            return 0;
+        }
+        int inserted = mapper.insertIgnoreBatch(values);
+        log.debug("批量插入指标值: rows={}, inserted={}, ignored={}",
+                values.size(), inserted, values.size() - inserted);
+        return inserted;
+    }
+    
     @Override
     public Optional<IndicatorValue> findOneKey(long userId, long tradingPairId, String timeframe,
                                                 LocalDateTime barTime, String indicatorCode, String indicatorVersion) {
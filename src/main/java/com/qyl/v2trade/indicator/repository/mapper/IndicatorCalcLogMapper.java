@@ -2,12 +2,31 @@ package com.qyl.v2trade.indicator.repository.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.qyl.v2trade.indicator.repository.entity.IndicatorCalcLog;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 指标计算日志Mapper
  */
 @Mapper
 public interface IndicatorCalcLogMapper extends BaseMapper<IndicatorCalcLog> {
+    
+    /**
+     * 批量追加计算日志（多行INSERT）
+     * 
+     * @param logs 计算日志列表
+     * @return 插入的行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO indicator_calc_log (user_id, trading_pair_id, symbol, market_type, timeframe, bar_time, " +
+            "indicator_code, indicator_version, calc_engine, status, cost_ms, error_msg) VALUES " +
+            "<foreach collection='logs' item='l' separator=','>" +
+            "(#{l.userId}, #{l.tradingPairId}, #{l.symbol}, #{l.marketType}, #{l.timeframe}, #{l.barTime}, " +
+            "#{l.indicatorCode}, #{l.indicatorVersion}, #{l.calcEngine}, #{l.status}, #{l.costMs}, #{l.errorMsg})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("logs") List<IndicatorCalcLog> logs);
 }
-
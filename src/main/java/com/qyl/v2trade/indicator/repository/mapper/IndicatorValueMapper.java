@@ -2,12 +2,34 @@ package com.qyl.v2trade.indicator.repository.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.qyl.v2trade.indicator.repository.entity.IndicatorValue;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 指标值Mapper
  */
 @Mapper
 public interface IndicatorValueMapper extends BaseMapper<IndicatorValue> {
+    
+    /**
+     * 批量幂等插入（多行INSERT IGNORE，唯一键冲突的行被忽略）
+     * 
+     * @param values 指标值列表
+     * @return 实际插入的行数
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO indicator_value (user_id, trading_pair_id, symbol, market_type, timeframe, bar_time, " +
+            "indicator_code, indicator_version, value, extra_values, data_quality, calc_engine, calc_fingerprint, " +
+            "calc_cost_ms, source) VALUES " +
+            "<foreach collection='values' item='v' separator=','>" +
+            "(#{v.userId}, #{v.tradingPairId}, #{v.symbol}, #{v.marketType}, #{v.timeframe}, #{v.barTime}, " +
+            "#{v.indicatorCode}, #{v.indicatorVersion}, #{v.value}, " +
+            "#{v.extraValues,typeHandler=com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler}, " +
+            "#{v.dataQuality}, #{v.calcEngine}, #{v.calcFingerprint}, #{v.calcCostMs}, #{v.source})" +
+            "</foreach>" +
+            "</script>")
+    int insertIgnoreBatch(@Param("values") List<IndicatorValue> values);
 }
-
@@ -2,20 +2,35 @@ package com.qyl.v2trade.indicator.series;
 
 import com.qyl.v2trade.business.system.model.entity.MarketSubscriptionConfig;
 import com.qyl.v2trade.business.system.service.MarketSubscriptionConfigService;
+import com.qyl.v2trade.indicator.calculator.SubscriptionIndex;
+import com.qyl.v2trade.indicator.config.IndicatorSeriesProperties;
 import com.qyl.v2trade.indicator.domain.event.BarClosedEvent;
 import com.qyl.v2trade.indicator.domain.event.BarClosedEventPublisher;
 import com.qyl.v2trade.indicator.domain.model.NormalizedBar;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 /**
  * BarSeries管理器
@@ -44,8 +59,14 @@ public class BarSeriesManager {
     @Autowired(required = false)
     private BarClosedEventPublisher barClosedEventPublisher;
     
-    @Autowired(required = false)
-    private com.qyl.v2trade.indicator.infrastructure.resolver.TradingPairResolver tradingPairResolver;
+    @Autowired
+    private IndicatorSeriesProperties seriesProperties;
+    
+    @Autowired
+    private SubscriptionIndex subscriptionIndex;
+    
+    @Autowired
+    private SeriesDepthPlanner depthPlanner;
     
     /**
      * 支持的周期列表（指标模块只维护这5个周期）
@@ -60,6 +81,20 @@ public class BarSeriesManager {
      */
     private final Map<String, BarSeriesImpl> seriesMap = new ConcurrentHashMap<>();
     
+    /**
+     * 正在按需加载的序列：key = pairId:timeframe（占位Future，同一序列的并发调用等待同一次加载）
+     */
+    private final Map<String, CompletableFuture<BarSeriesImpl>> pendingLoads = new ConcurrentHashMap<>();
+    
+    /**
+     * 加深序列时加载历史K线（BarClosedEvent触发的加深不在事件线程上查询QuestDB）
+     */
+    private final ExecutorService resizeExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "BarSeries-Resize");
+        t.setDaemon(true);
+        return t;
+    });
+    
     /**
      * BarClosedEvent订阅者
      */
@@ -84,6 +119,7 @@ public class BarSeriesManager {
             barClosedEventPublisher.unsubscribe(eventConsumer);
             log.info("BarSeriesManager已取消订阅BarClosedEvent");
         }
+        resizeExecutor.shutdownNow();
     }
     
     /**
@@ -91,9 +127,13 @@ public class BarSeriesManager {
      * 
      * <p>根据行情订阅配置获取交易对，为每个交易对的5个周期（5m、15m、30m、1h、4h）都维护K线数据
      * <p>K线数据维护独立于指标订阅，确保基础数据始终可用
+     * 
+     * <p>先一次性批量解析所有交易对的交易所symbol，再以有界并发（bootstrap-parallelism）查询QuestDB；
+     * 延迟加载模式下只加载已有启用订阅的序列，其余序列在首个订阅或BarClosedEvent到达时加载
      */
     public void bootstrap() {
         log.info("========== 开始加载BarSeries历史数据（从行情订阅配置获取交易对） ==========");
+        long startNanos = System.nanoTime();
         
         // 1. 从行情订阅配置获取所有启用的交易对
         List<MarketSubscriptionConfig> marketConfigs;
@@ -109,79 +149,114 @@ public class BarSeriesManager {
             return;
         }
         
-        log.info("从行情订阅配置获取到{}个启用的交易对", marketConfigs.size());
-        
-        // 2. 为每个交易对的5个周期都加载历史数据
-        int totalLoaded = 0;
-        int totalSkipped = 0;
-        int totalFailed = 0;
-        int totalEmpty = 0;
-        
+        Set<Long> pairIds = new LinkedHashSet<>();
+        int invalidConfigs = 0;
         for (MarketSubscriptionConfig config : marketConfigs) {
-            Long pairId = config.getTradingPairId();
-            
-            if (pairId == null) {
+            if (config.getTradingPairId() == null) {
                 log.warn("行情订阅配置的tradingPairId为null，跳过: configId={}", config.getId());
-                totalFailed++;
+                invalidConfigs++;
                 continue;
             }
-            
-            // 获取symbol用于日志显示
-            String symbol = null;
-            if (tradingPairResolver != null) {
-                symbol = tradingPairResolver.tradingPairIdToSymbol(pairId);
+            pairIds.add(config.getTradingPairId());
+        }
+        log.info("从行情订阅配置获取到{}个启用的交易对", pairIds.size());
+        
+        // 2. 批量解析交易所symbol（一次MySQL查询）
+        long resolveStartNanos = System.nanoTime();
+        Map<Long, String> symbols = klineReader.resolveSymbolsOnExchange(pairIds);
+        long resolveMs = (System.nanoTime() - resolveStartNanos) / 1_000_000;
+        
+        // 3. 确定需要加载的序列（延迟加载模式只加载有启用订阅的序列）
+        List<Map.Entry<Long, String>> toLoad = new ArrayList<>();
+        int deferred = 0;
+        int skipped = 0;
+        for (Long pairId : pairIds) {
+            for (String timeframe : SUPPORTED_TIMEFRAMES) {
+                if (seriesMap.containsKey(buildSeriesKey(pairId, timeframe))) {
+                    skipped++;
+                    continue;
+                }
+                if (seriesProperties.isLazyLoad() && subscriptionIndex.get(pairId, timeframe).isEmpty()) {
+                    deferred++;
+                    continue;
+                }
+                toLoad.add(Map.entry(pairId, timeframe));
             }
+        }
+        
+        // 4. 有界并发加载
+        int parallelism = Math.max(1, Math.min(seriesProperties.getBootstrapParallelism(), Math.max(1, toLoad.size())));
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
             
-            log.info("处理交易对: pairId={}, symbol={}", pairId, symbol != null ? symbol : "未知");
-            
-            // 为每个支持的周期（5m、15m、30m、1h、4h）加载数据
-            for (String timeframe : SUPPORTED_TIMEFRAMES) {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "BarSeries-Bootstrap-" + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        long loadStartNanos = System.nanoTime();
+        List<SeriesLoadResult> results = new ArrayList<>();
+        try {
+            List<Future<SeriesLoadResult>> futures = new ArrayList<>();
+            for (Map.Entry<Long, String> item : toLoad) {
+                long pairId = item.getKey();
+                String timeframe = item.getValue();
+                futures.add(executor.submit(() -> loadAndRegister(pairId, timeframe, symbols.get(pairId))));
+            }
+            for (Future<SeriesLoadResult> future : futures) {
                 try {
-                    String seriesKey = buildSeriesKey(pairId, timeframe);
-                    
-                    // 检查是否已存在
-                    if (seriesMap.containsKey(seriesKey)) {
-                        log.debug("BarSeries已存在，跳过加载: pairId={}, timeframe={}", pairId, timeframe);
-                        totalSkipped++;
-                        continue;
-                    }
-                    
-                    // 加载历史数据（最多365根）
-                    log.debug("开始加载K线: pairId={}, symbol={}, timeframe={}", pairId, symbol != null ? symbol : "未知", timeframe);
-                    List<NormalizedBar> bars = klineReader.loadLatestBars(pairId, timeframe, 365);
-                    
-                    if (bars == null || bars.isEmpty()) {
-                        log.warn("加载的K线数据为空: pairId={}, symbol={}, timeframe={} (可能QuestDB中没有对应数据)", 
-                                pairId, symbol, timeframe);
-                        totalEmpty++;
-                        // 即使为空也创建BarSeries，后续可以通过BarClosedEvent填充
-                        BarSeriesImpl series = new BarSeriesImpl(pairId, timeframe, new ArrayList<>());
-                        seriesMap.put(seriesKey, series);
-                        log.info("创建空BarSeries: pairId={}, symbol={}, timeframe={} (等待后续BarClosedEvent填充)", 
-                                pairId, symbol != null ? symbol : "未知", timeframe);
-                    } else {
-                        // 创建BarSeries（会自动维护365根的限制）
-                        BarSeriesImpl series = new BarSeriesImpl(pairId, timeframe, bars);
-                        seriesMap.put(seriesKey, series);
-                        totalLoaded++;
-                        log.info("✓ 加载BarSeries成功: pairId={}, symbol={}, timeframe={}, bars={}根", 
-                                pairId, symbol != null ? symbol : "未知", timeframe, bars.size());
-                    }
-                    
-                } catch (Exception e) {
-                    log.error("✗ 加载BarSeries异常: pairId={}, symbol={}, timeframe={}", 
-                            pairId, symbol != null ? symbol : "未知", timeframe, e);
-                    totalFailed++;
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    log.error("✗ 加载BarSeries异常", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("BarSeries加载被中断");
+                    break;
                 }
             }
+        } finally {
+            executor.shutdownNow();
+        }
+        long loadMs = (System.nanoTime() - loadStartNanos) / 1_000_000;
+        
+        // 5. 启动耗时报告
+        int totalLoaded = 0;
+        int totalEmpty = 0;
+        int totalFailed = invalidConfigs + (toLoad.size() - results.size());
+        long totalBars = 0;
+        long serialMs = 0;
+        for (SeriesLoadResult result : results) {
+            serialMs += result.costMs();
+            totalBars += result.bars();
+            switch (result.status()) {
+                case LOADED -> totalLoaded++;
+                case EMPTY -> totalEmpty++;
+                default -> totalFailed++;
+            }
         }
+        long totalMs = (System.nanoTime() - startNanos) / 1_000_000;
         
         log.info("========== BarSeries历史数据加载完成 ==========");
-        log.info("统计: loadedSeries={}, emptySeries={}, skipped={}, failed={}, 支持的周期={}", 
-                totalLoaded, totalEmpty, totalSkipped, totalFailed, String.join(", ", SUPPORTED_TIMEFRAMES));
+        log.info("统计: loadedSeries={}, emptySeries={}, deferredSeries={}, skipped={}, failed={}, bars={}, 支持的周期={}", 
+                totalLoaded, totalEmpty, deferred, skipped, totalFailed, totalBars, String.join(", ", SUPPORTED_TIMEFRAMES));
+        log.info("耗时: total={}ms, resolveSymbols={}ms (pairs={}, resolved={}), load={}ms (series={}, parallelism={}, 串行累计={}ms), lazyLoad={}",
+                totalMs, resolveMs, pairIds.size(), symbols.size(), loadMs, toLoad.size(), parallelism, serialMs,
+                seriesProperties.isLazyLoad());
+        if (!results.isEmpty()) {
+            List<SeriesLoadResult> slowest = new ArrayList<>(results);
+            slowest.sort(Comparator.comparingLong(SeriesLoadResult::costMs).reversed());
+            StringBuilder report = new StringBuilder();
+            for (int i = 0; i < Math.min(seriesProperties.getBootstrapReportSlowest(), slowest.size()); i++) {
+                SeriesLoadResult result = slowest.get(i);
+                report.append(i == 0 ? "" : ", ").append(result.key()).append('=').append(result.costMs()).append("ms");
+            }
+            log.info("最慢的序列: {}", report);
+        }
         log.info("seriesMap当前大小: {}", seriesMap.size());
         
-        if (seriesMap.isEmpty()) {
+        if (seriesMap.isEmpty() && !seriesProperties.isLazyLoad()) {
             log.warn("⚠️ seriesMap为空！可能的原因：");
             log.warn("1. 数据库market_subscription_config表中没有enabled=1的记录");
             log.warn("2. trading_pair_id字段为null");
@@ -190,6 +265,163 @@ public class BarSeriesManager {
         }
     }
     
+    /**
+     * 确保序列已加载（订阅创建时调用；延迟加载模式下触发首次加载）
+     * 
+     * @param pairId 交易对ID
+     * @param timeframe 周期
+     */
+    public void ensureSeries(long pairId, String timeframe) {
+        if (!com.qyl.v2trade.indicator.infrastructure.time.QuestDbTsSemanticsProbe
+                .isTimeframeSupported(timeframe)) {
+            return;
+        }
+        adjustDepth(getOrLoadSeries(pairId, timeframe), false);
+    }
+    
+    /**
+     * 按当前启用订阅调整序列深度（订阅变化后调用；订阅列表未变化时直接返回）
+     * 
+     * <p>同一订阅快照只规划一次（并发调用只有一个执行调整）；变浅时只保留最新的Bar，
+     * 加深时从QuestDB补齐更早的历史K线后在序列锁内应用，应用前订阅又变化则放弃（由新的规划调整）
+     * 
+     * @param async 加深时是否异步加载历史K线（BarClosedEvent路径为true，订阅变更路径为false）
+     */
+    private void adjustDepth(BarSeriesImpl series, boolean async) {
+        List<IndicatorSubscription> subscriptions = subscriptionIndex.get(series.getTradingPairId(), series.getTimeframe());
+        int depth = depthPlanner.depthFor(subscriptions);
+        int current = series.plan(subscriptions);
+        if (current < 0 || depth == current) {
+            return;
+        }
+        if (depth < current) {
+            applyDepth(series, subscriptions, depth, current, List.of());
+            return;
+        }
+        
+        Runnable load = () -> {
+            try {
+                List<NormalizedBar> history = klineReader.loadLatestBars(
+                        series.getTradingPairId(), series.getTimeframe(), depth);
+                applyDepth(series, subscriptions, depth, current, history);
+            } catch (RuntimeException e) {
+                // 下次BarClosedEvent或订阅变更时重新规划
+                series.clearPlan(subscriptions);
+                log.error("加深BarSeries失败: pairId={}, timeframe={}, depth={} -> {}",
+                        series.getTradingPairId(), series.getTimeframe(), current, depth, e);
+            }
+        };
+        if (!async) {
+            load.run();
+            return;
+        }
+        try {
+            resizeExecutor.execute(load);
+        } catch (RejectedExecutionException e) {
+            series.clearPlan(subscriptions);
+            log.warn("BarSeries加深任务被拒绝: pairId={}, timeframe={}", series.getTradingPairId(), series.getTimeframe());
+        }
+    }
+    
+    private void applyDepth(BarSeriesImpl series, List<IndicatorSubscription> subscriptions, int depth, int previous,
+                            List<NormalizedBar> history) {
+        if (series.resizeIfPlanned(subscriptions, depth, history)) {
+            log.info("调整BarSeries深度: pairId={}, timeframe={}, subscriptions={}, depth={} -> {}, bars={}",
+                    series.getTradingPairId(), series.getTimeframe(), subscriptions.size(), previous, depth,
+                    series.size());
+        }
+    }
+    
+    /**
+     * 获取序列，不存在时从QuestDB加载历史K线后创建
+     * 
+     * <p>同一序列并发调用时只加载一次（pendingLoads中的占位Future，其他调用等待同一次加载）；
+     * QuestDB读取不在seriesMap的computeIfAbsent中执行，不阻塞同一分段上其他序列的读写。
+     * 加载期间如果已由BarClosedEvent创建了序列，把历史K线合并进已有序列（append去重）
+     */
+    private BarSeriesImpl getOrLoadSeries(long pairId, String timeframe) {
+        String seriesKey = buildSeriesKey(pairId, timeframe);
+        BarSeriesImpl series = seriesMap.get(seriesKey);
+        if (series != null) {
+            return series;
+        }
+        
+        CompletableFuture<BarSeriesImpl> loading = new CompletableFuture<>();
+        CompletableFuture<BarSeriesImpl> pending = pendingLoads.putIfAbsent(seriesKey, loading);
+        if (pending != null) {
+            try {
+                return pending.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        
+        try {
+            // 占位后再检查一次（上一次加载可能刚刚完成）
+            series = seriesMap.get(seriesKey);
+            if (series == null) {
+                long startNanos = System.nanoTime();
+                List<IndicatorSubscription> subscriptions = subscriptionIndex.get(pairId, timeframe);
+                int depth = depthPlanner.depthFor(subscriptions);
+                List<NormalizedBar> bars = klineReader.loadLatestBars(pairId, timeframe, depth);
+                log.info("按需加载BarSeries: pairId={}, timeframe={}, depth={}, bars={}根, 耗时{}ms",
+                        pairId, timeframe, depth, bars.size(), (System.nanoTime() - startNanos) / 1_000_000);
+                BarSeriesImpl created = new BarSeriesImpl(pairId, timeframe, depth, bars);
+                created.markPlanned(subscriptions);
+                series = seriesMap.putIfAbsent(seriesKey, created);
+                if (series == null) {
+                    series = created;
+                } else {
+                    bars.forEach(series::append);
+                }
+            }
+            loading.complete(series);
+            return series;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingLoads.remove(seriesKey, loading);
+        }
+    }
+    
+    /**
+     * 加载一个序列并注册（启动加载的并发任务）
+     * 
+     * <p>加载期间如果已由BarClosedEvent创建了序列，把历史K线合并进已有序列（append去重）
+     */
+    private SeriesLoadResult loadAndRegister(long pairId, String timeframe, String symbol) {
+        String seriesKey = buildSeriesKey(pairId, timeframe);
+        long startNanos = System.nanoTime();
+        try {
+            List<IndicatorSubscription> subscriptions = subscriptionIndex.get(pairId, timeframe);
+            int depth = depthPlanner.depthFor(subscriptions);
+            List<NormalizedBar> bars = klineReader.loadLatestBars(pairId, timeframe, depth);
+            long costMs = (System.nanoTime() - startNanos) / 1_000_000;
+            
+            BarSeriesImpl loaded = new BarSeriesImpl(pairId, timeframe, depth, bars);
+            loaded.markPlanned(subscriptions);
+            BarSeriesImpl existing = seriesMap.putIfAbsent(seriesKey, loaded);
+            if (existing != null) {
+                bars.forEach(existing::append);
+            }
+            
+            if (bars.isEmpty()) {
+                // 即使为空也创建BarSeries，后续可以通过BarClosedEvent填充
+                log.warn("加载的K线数据为空: pairId={}, symbol={}, timeframe={} (可能QuestDB中没有对应数据，等待后续BarClosedEvent填充)", 
+                        pairId, symbol, timeframe);
+                return new SeriesLoadResult(seriesKey, SeriesLoadStatus.EMPTY, 0, costMs);
+            }
+            log.debug("✓ 加载BarSeries成功: pairId={}, symbol={}, timeframe={}, bars={}根, 耗时{}ms", 
+                    pairId, symbol, timeframe, bars.size(), costMs);
+            return new SeriesLoadResult(seriesKey, SeriesLoadStatus.LOADED, bars.size(), costMs);
+        } catch (Exception e) {
+            log.error("✗ 加载BarSeries异常: pairId={}, symbol={}, timeframe={}", pairId, symbol, timeframe, e);
+            return new SeriesLoadResult(seriesKey, SeriesLoadStatus.FAILED, 0,
+                    (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+    
     /**
      * 处理BarClosedEvent
      * 
@@ -230,17 +462,33 @@ public class BarSeriesManager {
                 event.volume()
         );
         
-        // 获取或创建BarSeries
-        BarSeriesImpl series = seriesMap.get(seriesKey);
+        // 获取或创建BarSeries（延迟加载模式下先从QuestDB加载历史K线）
+        BarSeriesImpl series = seriesProperties.isLazyLoad()
+                ? getOrLoadSeries(pairId, timeframe)
+                : seriesMap.get(seriesKey);
         if (series == null) {
             // 如果不存在，创建新的BarSeries（支持动态添加）
             log.info("动态创建BarSeries: pairId={}, timeframe={} (收到BarClosedEvent但尚未初始化)",
                     pairId, timeframe);
-            series = new BarSeriesImpl(pairId, timeframe, new ArrayList<>());
-            seriesMap.put(seriesKey, series);
+            BarSeriesImpl created = new BarSeriesImpl(pairId, timeframe, depthPlanner.depthFor(List.of()),
+                    new ArrayList<>());
+            series = seriesMap.putIfAbsent(seriesKey, created);
+            if (series == null) {
+                series = created;
+            }
         }
         
-        // 追加K线（内部会自动维护365根的限制）
+        // 订阅变化后调整深度（订阅列表未变化时无开销；加深时异步加载历史K线）
+        adjustDepth(series, true);
+        
+        // 修订Bar：替换序列中已存在的同一时间Bar（不存在则按普通追加处理）
+        if (event.isAmendment() && series.replace(bar)) {
+            log.info("BarSeries修订: pairId={}, timeframe={}, barTime={}, revision={}",
+                    pairId, timeframe, event.barCloseTime(), event.revision());
+            return;
+        }
+        
+        // 追加K线（写满后覆盖最旧的Bar）
         series.append(bar);
         
         log.debug("BarSeries已更新: pairId={}, timeframe={}, barTime={}, totalBars={}",
@@ -261,6 +509,20 @@ public class BarSeriesManager {
         return seriesMap.get(key);
     }
     
+    /**
+     * 获取常驻的ta4j BarSeries（首次调用时从当前K线构建，之后随BarClosedEvent原地追加）
+     * 
+     * <p>只有使用ta4j引擎计算的pair/timeframe才会创建，避免为所有序列维护两份数据
+     * 
+     * @param pairId 交易对ID
+     * @param timeframe 周期
+     * @return LiveTa4jSeries，如果BarSeries不存在返回null
+     */
+    public LiveTa4jSeries getTa4jSeries(long pairId, String timeframe) {
+        BarSeriesImpl series = seriesMap.get(buildSeriesKey(pairId, timeframe));
+        return series != null ? series.getOrCreateTa4jSeries() : null;
+    }
+    
     /**
      * 构建series key
      * 
@@ -272,91 +534,304 @@ public class BarSeriesManager {
         return pairId + ":" + timeframe;
     }
     
+    /**
+     * 序列加载结果
+     */
+    private enum SeriesLoadStatus {
+        LOADED,
+        EMPTY,
+        FAILED
+    }
+    
+    /**
+     * 单个序列的加载结果（启动耗时报告使用）
+     */
+    private record SeriesLoadResult(String key, SeriesLoadStatus status, int bars, long costMs) {
+    }
+    
     /**
      * BarSeries实现（内部类）
      * 
      * <p>K线数据是共享的，不区分用户
+     * 
+     * <p>存储为列式环形缓冲区（ColumnarBarBuffer）：追加/裁剪O(1)，按下标读取不复制；
+     * 价格以double保存，getBar()按需还原为NormalizedBar
+     * 
+     * <p>精度取舍：还原的BigDecimal是double的最短十进制表示（BigDecimal.valueOf），
+     * 不保留原始BigDecimal的scale（如100.10还原为100.1），超过15位有效数字的值会被舍入。
+     * QuestDB的K线列本身是DOUBLE，从QuestDB加载的历史Bar（QuestDbAdapter同样经BigDecimal.valueOf转换）还原后完全相同；
+     * 实时Bar追加到常驻ta4j序列时使用原始BigDecimal，只有修订/乱序重建时经过double还原
      */
     private static class BarSeriesImpl implements BarSeriesView {
         private final Long tradingPairId;
         private final String timeframe;
-        private final List<NormalizedBar> bars;
+        private ColumnarBarBuffer buffer;
+        
+        /**
+         * 最近一次规划深度时的订阅列表（SubscriptionIndex的不可变快照，按引用比较判断订阅是否变化）
+         */
+        private List<IndicatorSubscription> plannedSubscriptions;
+        
+        /**
+         * 交易对符号（同一序列相同，不按Bar保存）
+         */
+        private String symbol;
+        
+        /**
+         * 常驻的ta4j序列（按需创建，未使用ta4j引擎时为null）
+         */
+        private LiveTa4jSeries ta4jSeries;
         
         /**
          * 构造BarSeries
          * 
          * @param tradingPairId 交易对ID
          * @param timeframe 周期
+         * @param capacity 序列深度（最多保留的Bar数量）
          * @param bars 初始K线列表
          */
-        public BarSeriesImpl(Long tradingPairId, String timeframe, List<NormalizedBar> bars) {
+        public BarSeriesImpl(Long tradingPairId, String timeframe, int capacity, List<NormalizedBar> bars) {
             this.tradingPairId = tradingPairId;
             this.timeframe = timeframe;
-            this.bars = new ArrayList<>(bars != null ? bars : new ArrayList<>());
+            this.buffer = new ColumnarBarBuffer(capacity);
+            if (bars != null) {
+                for (NormalizedBar bar : bars) {
+                    add(bar);
+                }
+            }
         }
         
         /**
-         * 追加bar（去重），并维护最新365根，去除最旧的
+         * 追加bar（去重），写满后去除最旧的
          * 
          * @param bar 要追加的bar
          */
         public synchronized void append(NormalizedBar bar) {
-            // 检查是否已存在（按barTime判断）
-            boolean exists = bars.stream()
-                    .anyMatch(b -> b.barTime().equals(bar.barTime()));
-            
-            if (exists) {
+            if (!add(bar)) {
                 log.debug("Bar已存在，跳过append: pairId={}, timeframe={}, barTime={}",
                         tradingPairId, timeframe, bar.barTime());
                 return;
             }
             
-            // 追加并保持升序
-            bars.add(bar);
-            bars.sort(Comparator.comparing(NormalizedBar::barTime));
-            
-            // 维护最新365根，去除最旧的（防止内存泄漏）
-            int maxBars = 365;
-            if (bars.size() > maxBars) {
-                int removeCount = bars.size() - maxBars;
-                List<NormalizedBar> removed = new ArrayList<>(bars.subList(0, removeCount));
-                bars.removeAll(removed);
-                log.debug("BarSeries维护: pairId={}, timeframe={}, 移除了{}根最旧的bar, 当前数量={}",
-                        tradingPairId, timeframe, removeCount, bars.size());
+            // 同步追加到常驻ta4j序列（乱序Bar无法追加，按当前序列重建）
+            if (ta4jSeries != null && !ta4jSeries.append(bar)) {
+                ta4jSeries.rebuild(getBars());
             }
             
             log.debug("Bar已追加: pairId={}, timeframe={}, barTime={}, totalBars={}",
-                    tradingPairId, timeframe, bar.barTime(), bars.size());
+                    tradingPairId, timeframe, bar.barTime(), buffer.size());
+        }
+        
+        /**
+         * 替换已存在的同一时间bar（用于修订）
+         * 
+         * @param bar 修订后的bar
+         * @return 如果找到并替换返回true
+         */
+        public synchronized boolean replace(NormalizedBar bar) {
+            int index = buffer.search(toEpochMillis(bar.barTime()));
+            if (index < 0) {
+                return false;
+            }
+            buffer.set(index, bar.open().doubleValue(), bar.high().doubleValue(), bar.low().doubleValue(),
+                    bar.close().doubleValue(), bar.volume().doubleValue());
+            // ta4j的Bar和缓存指标不可原地修改，重建
+            if (ta4jSeries != null) {
+                ta4jSeries.rebuild(getBars());
+            }
+            return true;
+        }
+        
+        /**
+         * 获取或创建常驻ta4j序列
+         */
+        public synchronized LiveTa4jSeries getOrCreateTa4jSeries() {
+            if (ta4jSeries == null) {
+                ta4jSeries = new LiveTa4jSeries(timeframe, getBars(), buffer.capacity());
+            }
+            return ta4jSeries;
+        }
+        
+        /**
+         * 调整序列深度
+         * 
+         * <p>早于当前最旧Bar的历史K线补到前面，已有的Bar保留（包括修订）；
+         * 超出新深度的最旧Bar被丢弃。常驻ta4j序列按新深度重建
+         * 
+         * @param capacity 新深度
+         * @param history 从QuestDB加载的历史K线（按时间升序，加深时使用）
+         */
+        private void resize(int capacity, List<NormalizedBar> history) {
+            ColumnarBarBuffer resized = new ColumnarBarBuffer(capacity);
+            long oldest = buffer.size() > 0 ? buffer.barTime(0) : Long.MAX_VALUE;
+            for (NormalizedBar bar : history) {
+                if (symbol == null) {
+                    symbol = bar.symbol();
+                }
+                long barTime = toEpochMillis(bar.barTime());
+                if (barTime < oldest) {
+                    resized.add(barTime, bar.open().doubleValue(), bar.high().doubleValue(),
+                            bar.low().doubleValue(), bar.close().doubleValue(), bar.volume().doubleValue());
+                }
+            }
+            for (int i = 0; i < buffer.size(); i++) {
+                resized.add(buffer.barTime(i), buffer.open(i), buffer.high(i), buffer.low(i),
+                        buffer.close(i), buffer.volume(i));
+            }
+            buffer = resized;
+            ta4jSeries = null;
+        }
+        
+        /**
+         * 登记按订阅快照规划深度
+         * 
+         * @return 当前深度，已按该订阅快照规划过时返回-1
+         */
+        public synchronized int plan(List<IndicatorSubscription> subscriptions) {
+            if (plannedSubscriptions == subscriptions) {
+                return -1;
+            }
+            plannedSubscriptions = subscriptions;
+            return buffer.capacity();
+        }
+        
+        /**
+         * 规划未能完成时撤销登记（仍是该订阅快照时）
+         */
+        public synchronized void clearPlan(List<IndicatorSubscription> subscriptions) {
+            if (plannedSubscriptions == subscriptions) {
+                plannedSubscriptions = null;
+            }
+        }
+        
+        /**
+         * 按规划调整深度（持有序列锁再次检查：订阅快照已变化或已是目标深度时不调整）
+         * 
+         * @return 如果调整了深度返回true
+         */
+        public synchronized boolean resizeIfPlanned(List<IndicatorSubscription> subscriptions, int capacity,
+                                                    List<NormalizedBar> history) {
+            if (plannedSubscriptions != subscriptions || buffer.capacity() == capacity) {
+                return false;
+            }
+            resize(capacity, history);
+            return true;
+        }
+        
+        public synchronized void markPlanned(List<IndicatorSubscription> subscriptions) {
+            plannedSubscriptions = subscriptions;
+        }
+        
+        /**
+         * 写入缓冲区（尾部O(1)，乱序时二分插入）
+         * 
+         * @return 如果Bar已存在返回false
+         */
+        private boolean add(NormalizedBar bar) {
+            if (symbol == null) {
+                symbol = bar.symbol();
+            }
+            return buffer.add(toEpochMillis(bar.barTime()), bar.open().doubleValue(), bar.high().doubleValue(),
+                    bar.low().doubleValue(), bar.close().doubleValue(), bar.volume().doubleValue());
+        }
+        
+        /**
+         * 按下标还原NormalizedBar（BigDecimal.valueOf(double)，精度见类注释）
+         */
+        private NormalizedBar toBar(int index) {
+            return NormalizedBar.of(
+                    tradingPairId,
+                    symbol,
+                    timeframe,
+                    toLocalDateTime(buffer.barTime(index)),
+                    BigDecimal.valueOf(buffer.open(index)),
+                    BigDecimal.valueOf(buffer.high(index)),
+                    BigDecimal.valueOf(buffer.low(index)),
+                    BigDecimal.valueOf(buffer.close(index)),
+                    BigDecimal.valueOf(buffer.volume(index))
+            );
         }
         
         @Override
-        public List<NormalizedBar> getBars() {
-            return new ArrayList<>(bars); // 返回副本
+        public synchronized List<NormalizedBar> getBars() {
+            List<NormalizedBar> bars = new ArrayList<>(buffer.size()); // 返回副本
+            for (int i = 0; i < buffer.size(); i++) {
+                bars.add(toBar(i));
+            }
+            return bars;
         }
         
         @Override
-        public NormalizedBar getBar(int index) {
-            if (index < 0 || index >= bars.size()) {
+        public synchronized NormalizedBar getBar(int index) {
+            if (index < 0 || index >= buffer.size()) {
                 return null;
             }
-            return bars.get(index);
+            return toBar(index);
         }
         
         @Override
-        public int size() {
-            return bars.size();
+        public synchronized int size() {
+            return buffer.size();
+        }
+        
+        @Override
+        public synchronized NormalizedBar getLatestBar() {
+            return buffer.size() == 0 ? null : toBar(buffer.size() - 1);
+        }
+        
+        @Override
+        public synchronized List<NormalizedBar> getBarsBefore(LocalDateTime beforeTime) {
+            int position = buffer.search(toEpochMillis(beforeTime));
+            int end = position >= 0 ? position : -position - 1;
+            List<NormalizedBar> bars = new ArrayList<>(end);
+            for (int i = 0; i < end; i++) {
+                bars.add(toBar(i));
+            }
+            return bars;
         }
         
         @Override
-        public NormalizedBar getLatestBar() {
-            return bars.isEmpty() ? null : bars.get(bars.size() - 1);
+        public synchronized int indexOf(LocalDateTime barTime) {
+            int index = buffer.search(toEpochMillis(barTime));
+            return index >= 0 ? index : -1;
         }
         
         @Override
-        public List<NormalizedBar> getBarsBefore(LocalDateTime beforeTime) {
-            return bars.stream()
-                    .filter(b -> b.barTime().isBefore(beforeTime))
-                    .collect(Collectors.toList());
+        public synchronized LocalDateTime getBarTime(int index) {
+            return toLocalDateTime(buffer.barTime(checkIndex(index)));
+        }
+        
+        @Override
+        public synchronized double getOpen(int index) {
+            return buffer.open(checkIndex(index));
+        }
+        
+        @Override
+        public synchronized double getHigh(int index) {
+            return buffer.high(checkIndex(index));
+        }
+        
+        @Override
+        public synchronized double getLow(int index) {
+            return buffer.low(checkIndex(index));
+        }
+        
+        @Override
+        public synchronized double getClose(int index) {
+            return buffer.close(checkIndex(index));
+        }
+        
+        @Override
+        public synchronized double getVolume(int index) {
+            return buffer.volume(checkIndex(index));
+        }
+        
+        /**
+         * 持有序列锁执行读取（getter的锁可重入，append/replace/resize在读取结束前等待）
+         */
+        @Override
+        public synchronized <T> T read(Function<BarSeriesView, T> reader) {
+            return reader.apply(this);
         }
         
         @Override
@@ -368,6 +843,17 @@ public class BarSeriesManager {
         public String getTimeframe() {
             return timeframe;
         }
+        
+        private int checkIndex(int index) {
+            return Objects.checkIndex(index, buffer.size());
+        }
+        
+        private static long toEpochMillis(LocalDateTime time) {
+            return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        
+        private static LocalDateTime toLocalDateTime(long epochMillis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+        }
     }
 }
-
@@ -4,11 +4,18 @@ import com.qyl.v2trade.indicator.domain.model.NormalizedBar;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * BarSeries只读视图
  * 
  * <p>用于指标计算引擎，提供只读访问
+ * 
+ * <p>按下标访问原始类型（getBarTime/getOpen/.../getClose）不复制序列、不创建NormalizedBar，
+ * 适合引擎的热路径；getBars()/getBarsBefore()返回副本
+ * 
+ * <p>单次方法调用是原子的，但多次调用之间序列可能被追加或调整深度（下标会移动）；
+ * 需要跨多次调用的一致下标时使用{@link #read}
  *
  * @author qyl
  */
@@ -51,6 +58,76 @@ public interface BarSeriesView {
      */
     List<NormalizedBar> getBarsBefore(LocalDateTime beforeTime);
     
+    /**
+     * 查找指定时间的bar的索引
+     * 
+     * @param barTime Bar收盘时间
+     * @return 索引，不存在返回-1
+     */
+    default int indexOf(LocalDateTime barTime) {
+        for (int i = size() - 1; i >= 0; i--) {
+            NormalizedBar bar = getBar(i);
+            if (bar != null && bar.barTime().equals(barTime)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 获取指定索引的bar时间
+     */
+    default LocalDateTime getBarTime(int index) {
+        return getBar(index).barTime();
+    }
+    
+    /**
+     * 获取指定索引的开盘价
+     */
+    default double getOpen(int index) {
+        return getBar(index).open().doubleValue();
+    }
+    
+    /**
+     * 获取指定索引的最高价
+     */
+    default double getHigh(int index) {
+        return getBar(index).high().doubleValue();
+    }
+    
+    /**
+     * 获取指定索引的最低价
+     */
+    default double getLow(int index) {
+        return getBar(index).low().doubleValue();
+    }
+    
+    /**
+     * 获取指定索引的收盘价
+     */
+    default double getClose(int index) {
+        return getBar(index).close().doubleValue();
+    }
+    
+    /**
+     * 获取指定索引的成交量
+     */
+    default double getVolume(int index) {
+        return getBar(index).volume().doubleValue();
+    }
+    
+    /**
+     * 在一致的序列视图上执行读取（读取期间序列不会被追加、修订或调整深度）
+     * 
+     * <p>先indexOf再按下标读取多根Bar的调用方必须在这里完成，否则下标可能在两次调用之间指向不同的Bar
+     * 
+     * @param reader 读取逻辑
+     * @return 读取结果
+     */
+    default <T> T read(Function<BarSeriesView, T> reader) {
+        return reader.apply(this);
+    }
+    
     /**
      * 获取交易对ID
      */
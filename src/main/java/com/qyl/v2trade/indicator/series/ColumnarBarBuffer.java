@@ -0,0 +1,173 @@
+package com.qyl.v2trade.indicator.series;
+
+/**
+ * 列式环形K线缓冲区（BarSeriesImpl内部存储）
+ *
+ * <p>按列保存原始类型：barTime（UTC毫秒）与OHLCV（double），容量固定：
+ * <ul>
+ *   <li>追加：只与尾部Bar比较时间，O(1)；写满后覆盖最旧的Bar（裁剪O(1)）</li>
+ *   <li>乱序Bar：二分查找插入位置，移动其后的元素（极少发生）</li>
+ *   <li>按时间查找：二分查找，O(log n)</li>
+ * </ul>
+ *
+ * <p>每根Bar占用48字节，不再为每根Bar保留NormalizedBar、5个BigDecimal和LocalDateTime对象
+ *
+ * <p>非线程安全，由BarSeriesImpl加锁访问
+ *
+ * @author qyl
+ */
+final class ColumnarBarBuffer {
+
+    private final int capacity;
+    private final long[] barTimes;
+    private final double[] opens;
+    private final double[] highs;
+    private final double[] lows;
+    private final double[] closes;
+    private final double[] volumes;
+
+    /**
+     * 最旧Bar的物理下标
+     */
+    private int head;
+    private int size;
+
+    ColumnarBarBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity必须大于0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.barTimes = new long[capacity];
+        this.opens = new double[capacity];
+        this.highs = new double[capacity];
+        this.lows = new double[capacity];
+        this.closes = new double[capacity];
+        this.volumes = new double[capacity];
+    }
+
+    /**
+     * 追加一根Bar（按时间保持升序，相同时间的Bar视为重复）
+     *
+     * @return 如果Bar已存在，或早于所有Bar且缓冲区已满（写入后会立即被裁剪），返回false
+     */
+    boolean add(long barTime, double open, double high, double low, double close, double volume) {
+        // 快速路径：晚于尾部Bar，直接写入环形尾部
+        if (size == 0 || barTime > barTimes[physical(size - 1)]) {
+            int tail;
+            if (size < capacity) {
+                tail = physical(size);
+                size++;
+            } else {
+                tail = head;
+                head = physical(1);
+            }
+            write(tail, barTime, open, high, low, close, volume);
+            return true;
+        }
+
+        // 乱序路径：二分查找插入位置
+        int position = search(barTime);
+        if (position >= 0) {
+            return false;
+        }
+        int insertAt = -position - 1;
+        if (size == capacity) {
+            if (insertAt == 0) {
+                return false;
+            }
+            // 丢弃最旧的Bar，腾出一个位置
+            head = physical(1);
+            size--;
+            insertAt--;
+        }
+        for (int i = size; i > insertAt; i--) {
+            copy(physical(i - 1), physical(i));
+        }
+        size++;
+        write(physical(insertAt), barTime, open, high, low, close, volume);
+        return true;
+    }
+
+    /**
+     * 覆盖指定逻辑下标的Bar价格（时间不变，用于修订）
+     */
+    void set(int index, double open, double high, double low, double close, double volume) {
+        int p = physical(index);
+        write(p, barTimes[p], open, high, low, close, volume);
+    }
+
+    /**
+     * 按时间二分查找
+     *
+     * @return 逻辑下标；不存在时返回 -(插入位置) - 1
+     */
+    int search(long barTime) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midTime = barTimes[physical(mid)];
+            if (midTime < barTime) {
+                low = mid + 1;
+            } else if (midTime > barTime) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long barTime(int index) {
+        return barTimes[physical(index)];
+    }
+
+    double open(int index) {
+        return opens[physical(index)];
+    }
+
+    double high(int index) {
+        return highs[physical(index)];
+    }
+
+    double low(int index) {
+        return lows[physical(index)];
+    }
+
+    double close(int index) {
+        return closes[physical(index)];
+    }
+
+    double volume(int index) {
+        return volumes[physical(index)];
+    }
+
+    /**
+     * 逻辑下标（0是最旧的Bar）转换为物理下标
+     */
+    private int physical(int index) {
+        int p = head + index;
+        return p >= capacity ? p - capacity : p;
+    }
+
+    private void write(int p, long barTime, double open, double high, double low, double close, double volume) {
+        barTimes[p] = barTime;
+        opens[p] = open;
+        highs[p] = high;
+        lows[p] = low;
+        closes[p] = close;
+        volumes[p] = volume;
+    }
+
+    private void copy(int from, int to) {
+        write(to, barTimes[from], opens[from], highs[from], lows[from], closes[from], volumes[from]);
+    }
+}
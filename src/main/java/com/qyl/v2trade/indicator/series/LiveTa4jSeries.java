@@ -0,0 +1,189 @@
+package com.qyl.v2trade.indicator.series;
+
+import com.qyl.v2trade.indicator.domain.model.NormalizedBar;
+import lombok.extern.slf4j.Slf4j;
+import org.ta4j.core.Bar;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BaseBar;
+import org.ta4j.core.BaseBarSeries;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 常驻的ta4j BarSeries（每个pair/timeframe一份）
+ *
+ * <p>由BarSeriesManager在收到BarClosedEvent时原地追加（setMaximumBarCount限制长度），
+ * 指标实例按key缓存在该序列上：ta4j的CachedIndicator会缓存已计算的下标，
+ * 新Bar到来后只需计算最新下标，不再每次计算都重建整个序列和指标
+ *
+ * <p>Bar的时间语义与Ta4jIndicatorEngine一致：beginTime = barTime，endTime = barTime + 周期
+ *
+ * <p>线程安全：ta4j的序列和缓存指标不是线程安全的，所有访问都必须持有该对象的锁
+ * （追加/重建方法已同步，调用方计算指标时使用synchronized(liveSeries)）
+ *
+ * @author qyl
+ */
+@Slf4j
+public class LiveTa4jSeries {
+
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    private final String timeframe;
+    private final Duration timePeriod;
+    private final int maximumBarCount;
+
+    private BaseBarSeries series;
+
+    /**
+     * 指标缓存：key由调用方定义（如指标编码+参数），序列重建时清空
+     */
+    private final Map<String, Object> indicatorCache = new HashMap<>();
+
+    public LiveTa4jSeries(String timeframe, List<NormalizedBar> bars, int maximumBarCount) {
+        this.timeframe = timeframe;
+        this.timePeriod = parseTimeframeToDuration(timeframe);
+        this.maximumBarCount = maximumBarCount;
+        rebuild(bars);
+    }
+
+    /**
+     * 追加一根Bar（必须晚于当前最后一根）
+     *
+     * @return 如果Bar早于或等于当前最后一根，返回false（调用方需要rebuild）
+     */
+    public synchronized boolean append(NormalizedBar bar) {
+        if (!series.isEmpty()) {
+            LocalDateTime lastBarTime = series.getLastBar().getBeginTime().toLocalDateTime();
+            if (!bar.barTime().isAfter(lastBarTime)) {
+                return false;
+            }
+        }
+        series.addBar(toTa4jBar(bar, timePeriod, series));
+        return true;
+    }
+
+    /**
+     * 用完整的Bar列表重建序列（修订或乱序时使用），同时清空指标缓存
+     *
+     * @param bars 按时间升序的Bar列表
+     */
+    public synchronized void rebuild(List<NormalizedBar> bars) {
+        BaseBarSeries rebuilt = new BaseBarSeries(timeframe);
+        rebuilt.setMaximumBarCount(maximumBarCount);
+        for (NormalizedBar bar : bars) {
+            try {
+                rebuilt.addBar(toTa4jBar(bar, timePeriod, rebuilt));
+            } catch (Exception e) {
+                log.warn("转换Bar失败，跳过: barTime={}, timeframe={}, error={}",
+                        bar.barTime(), timeframe, e.getMessage());
+            }
+        }
+        series = rebuilt;
+        indicatorCache.clear();
+    }
+
+    /**
+     * 获取或创建缓存在该序列上的指标
+     *
+     * @param key 缓存key
+     * @param factory 指标工厂（入参为当前序列）
+     * @return 指标（或调用方定义的指标组合）
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> T computeIfAbsent(String key, Function<BarSeries, T> factory) {
+        return (T) indicatorCache.computeIfAbsent(key, k -> factory.apply(series));
+    }
+
+    /**
+     * 查找指定Bar时间的下标（从最新一根向前查找，实时计算时O(1)）
+     *
+     * @return ta4j序列下标，不存在返回-1
+     */
+    public synchronized int findIndex(LocalDateTime barTime) {
+        if (series.isEmpty()) {
+            return -1;
+        }
+        for (int i = series.getEndIndex(); i >= series.getBeginIndex(); i--) {
+            LocalDateTime beginTime = series.getBar(i).getBeginTime().toLocalDateTime();
+            if (beginTime.equals(barTime)) {
+                return i;
+            }
+            if (beginTime.isBefore(barTime)) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    public synchronized BarSeries getSeries() {
+        return series;
+    }
+
+    public synchronized int getCachedIndicatorCount() {
+        return indicatorCache.size();
+    }
+
+    /**
+     * 转换为ta4j的Bar
+     *
+     * <p>ta4j 0.16 要求：需要设置时间周期和结束时间
+     */
+    public static Bar toTa4jBar(NormalizedBar bar, Duration timePeriod, BarSeries series) {
+        ZonedDateTime beginTime = bar.barTime().atZone(UTC);
+        return BaseBar.builder()
+                .timePeriod(timePeriod)
+                .endTime(beginTime.plus(timePeriod)) // endTime = beginTime + period
+                .openPrice(series.numOf(bar.open()))
+                .highPrice(series.numOf(bar.high()))
+                .lowPrice(series.numOf(bar.low()))
+                .closePrice(series.numOf(bar.close()))
+                .volume(series.numOf(bar.volume()))
+                .build();
+    }
+
+    /**
+     * 解析timeframe字符串为Duration
+     * 例如：5m -> Duration.ofMinutes(5), 1h -> Duration.ofHours(1)
+     */
+    public static Duration parseTimeframeToDuration(String timeframe) {
+        if (timeframe == null || timeframe.isEmpty()) {
+            return Duration.ofMinutes(1); // 默认1分钟
+        }
+
+        try {
+            // 提取数字和单位
+            String numberStr = timeframe.replaceAll("[^0-9]", "");
+            String unit = timeframe.replaceAll("[0-9]", "").toLowerCase();
+
+            if (numberStr.isEmpty()) {
+                return Duration.ofMinutes(1);
+            }
+
+            long number = Long.parseLong(numberStr);
+
+            switch (unit) {
+                case "m":
+                    return Duration.ofMinutes(number);
+                case "h":
+                    return Duration.ofHours(number);
+                case "d":
+                    return Duration.ofDays(number);
+                case "w":
+                    return Duration.ofDays(number * 7);
+                default:
+                    log.warn("未知的timeframe单位: {}, 使用默认1分钟", unit);
+                    return Duration.ofMinutes(1);
+            }
+        } catch (Exception e) {
+            log.warn("解析timeframe失败: {}, 使用默认1分钟", timeframe, e);
+            return Duration.ofMinutes(1);
+        }
+    }
+}
@@ -10,15 +10,23 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * QuestDB K线读取器
@@ -54,6 +62,26 @@ public class QuestDbKlineReader {
      */
     private static final String DEFAULT_EXCHANGE_CODE = "OKX";
     
+    /**
+     * 流式读取时每次从QuestDB拉取的行数
+     */
+    private static final int STREAM_FETCH_SIZE = 10000;
+    
+    /**
+     * 单次加载最新K线的数量上限（序列深度由SeriesDepthPlanner规划，这里只做保护）
+     */
+    private static final int MAX_LATEST_BARS = 10000;
+    
+    /**
+     * 交易所symbol缓存的有效期（ExchangeMarketPair在进程外维护，过期后重新查询）
+     */
+    private static final long SYMBOL_CACHE_EXPIRE_MILLIS = 10 * 60 * 1000L;
+    
+    /**
+     * 交易所symbol缓存：pairId -> symbolOnExchange（只缓存ExchangeMarketPair中查到的symbol）
+     */
+    private final Map<Long, CachedSymbol> exchangeSymbolCache = new ConcurrentHashMap<>();
+    
     /**
      * 加载指定交易对和周期的最新N根K线
      * 
@@ -61,7 +89,7 @@ public class QuestDbKlineReader {
      * 
      * @param pairId 交易对ID
      * @param timeframe 周期（如：5m, 15m, 1h），必须为支持的周期
-     * @param limit 数量（最多365根）
+     * @param limit 数量（最多MAX_LATEST_BARS根）
      * @return K线列表，按时间升序，barTime已归一化为bar_close_time
      */
     public List<NormalizedBar> loadLatestBars(long pairId, String timeframe, int limit) {
@@ -74,40 +102,8 @@ public class QuestDbKlineReader {
         }
         
         // 1. 获取symbolOnExchange（QuestDB中存储的是交易所格式的symbol，如BTC-USDT-SWAP）
-        String symbolOnExchange = null;
-        if (exchangeMarketPairService != null) {
-            try {
-                ExchangeMarketPair exchangePair = exchangeMarketPairService.getByExchangeAndTradingPairId(
-                        DEFAULT_EXCHANGE_CODE, pairId);
-                if (exchangePair != null) {
-                    String exchangeSymbol = exchangePair.getSymbolOnExchange();
-                    if (exchangeSymbol != null && !exchangeSymbol.isEmpty()) {
-                        symbolOnExchange = exchangeSymbol;
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("查询ExchangeMarketPair失败: pairId={}, exchangeCode={}", 
-                        pairId, DEFAULT_EXCHANGE_CODE, e);
-            }
-        }
-        
-        // 降级方案：如果无法获取symbolOnExchange，尝试使用标准symbol
-        if (symbolOnExchange == null && tradingPairResolver != null) {
-            String standardSymbol = tradingPairResolver.tradingPairIdToSymbol(pairId);
-            if (standardSymbol != null) {
-                // 尝试通过marketType推断symbolOnExchange
-                // 但这里无法获取marketType，所以只能使用标准symbol
-                symbolOnExchange = standardSymbol;
-                log.warn("无法获取symbolOnExchange，使用标准symbol: pairId={}, symbol={} (可能查询失败)", 
-                        pairId, standardSymbol);
-            }
-        }
-        
-        if (symbolOnExchange == null || symbolOnExchange.isEmpty()) {
-            log.warn("无法获取symbol: pairId={} (ExchangeMarketPairService={}, TradingPairResolver={})", 
-                    pairId, 
-                    exchangeMarketPairService != null ? "已注入" : "未注入",
-                    tradingPairResolver != null ? "已注入" : "未注入");
+        String symbolOnExchange = resolveSymbolOnExchange(pairId);
+        if (symbolOnExchange == null) {
             return new ArrayList<>();
         }
         
@@ -127,7 +123,7 @@ public class QuestDbKlineReader {
         
         try {
             // 3. 查询原始K线数据（使用symbolOnExchange）
-            int limitValue = Math.min(limit, 365);
+            int limitValue = Math.min(limit, MAX_LATEST_BARS);
             List<NormalizedKline> rawKlines = questDbJdbcTemplate.query(
                 sql,
                 (RowMapper<NormalizedKline>) (rs, rowNum) -> mapRowToNormalizedKline(rs, timeframe),
@@ -163,6 +159,156 @@ public class QuestDbKlineReader {
             return new ArrayList<>();
         }
     }
+
+    /**
+     * 流式读取指定时间范围内的K线（历史重算使用）
+     *
+     * <p>按ts升序逐行归一化后回调，不在内存中积累整个范围的K线
+     *
+     * <p>时间边界规范：ts >= fromMillis AND ts < toMillis（QuestDB原始ts，左闭右开）
+     *
+     * @param pairId 交易对ID
+     * @param timeframe 周期，必须为支持的聚合周期
+     * @param fromMillis 开始时间戳（毫秒，包含）
+     * @param toMillis 结束时间戳（毫秒，不包含）
+     * @param consumer Bar回调（barTime已归一化为bar_close_time）
+     * @return 回调的Bar数量
+     * @throws IllegalArgumentException 周期不支持或无法解析symbol
+     */
+    public long streamBars(long pairId, String timeframe, long fromMillis, long toMillis,
+                           Consumer<NormalizedBar> consumer) {
+        if (!com.qyl.v2trade.indicator.infrastructure.time.QuestDbTsSemanticsProbe
+                .isTimeframeSupported(timeframe)) {
+            throw new IllegalArgumentException("不支持的周期: " + timeframe);
+        }
+        String symbolOnExchange = resolveSymbolOnExchange(pairId);
+        if (symbolOnExchange == null) {
+            throw new IllegalArgumentException("无法获取symbol: pairId=" + pairId);
+        }
+
+        String sql = String.format(
+            "SELECT symbol, ts, open, high, low, close, volume " +
+            "FROM %s " +
+            "WHERE symbol = ? AND ts >= ? AND ts < ? " +
+            "ORDER BY ts ASC",
+            "kline_" + timeframe
+        );
+
+        long[] count = new long[1];
+        questDbJdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setString(1, symbolOnExchange);
+            ps.setTimestamp(2, Timestamp.from(Instant.ofEpochMilli(fromMillis)));
+            ps.setTimestamp(3, Timestamp.from(Instant.ofEpochMilli(toMillis)));
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            NormalizedKline rawKline = mapRowToNormalizedKline(rs, timeframe);
+            NormalizedBar bar;
+            try {
+                bar = questDbAdapter.normalize(rawKline);
+            } catch (Exception e) {
+                log.warn("归一化K线失败: symbol={}, timeframe={}, timestamp={}",
+                        rawKline.getSymbol(), rawKline.getInterval(), rawKline.getTimestamp(), e);
+                return;
+            }
+            consumer.accept(bar);
+            count[0]++;
+        });
+
+        log.debug("流式读取K线: pairId={}, symbolOnExchange={}, timeframe={}, from={}, to={}, loaded={}",
+                pairId, symbolOnExchange, timeframe, fromMillis, toMillis, count[0]);
+        return count[0];
+    }
+
+    /**
+     * 批量解析交易所symbol（一次查询默认交易所的全部ExchangeMarketPair）
+     * 
+     * <p>解析结果写入缓存，之后的K线读取不再逐个查询MySQL；
+     * 批量查询中不存在的交易对逐个走降级方案
+     * 
+     * @param pairIds 交易对ID列表
+     * @return pairId -> symbolOnExchange（无法解析的交易对不包含在内）
+     */
+    public Map<Long, String> resolveSymbolsOnExchange(Collection<Long> pairIds) {
+        if (exchangeMarketPairService != null) {
+            try {
+                for (ExchangeMarketPair exchangePair : exchangeMarketPairService.listByExchangeCode(DEFAULT_EXCHANGE_CODE)) {
+                    String exchangeSymbol = exchangePair.getSymbolOnExchange();
+                    if (exchangePair.getTradingPairId() != null && exchangeSymbol != null && !exchangeSymbol.isEmpty()) {
+                        exchangeSymbolCache.put(exchangePair.getTradingPairId(), new CachedSymbol(exchangeSymbol));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("批量查询ExchangeMarketPair失败，逐个解析: exchangeCode={}", DEFAULT_EXCHANGE_CODE, e);
+            }
+        }
+        
+        Map<Long, String> result = new HashMap<>();
+        for (Long pairId : pairIds) {
+            if (pairId == null) {
+                continue;
+            }
+            String symbolOnExchange = resolveSymbolOnExchange(pairId);
+            if (symbolOnExchange != null) {
+                result.put(pairId, symbolOnExchange);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 解析QuestDB中使用的交易所symbol（优先ExchangeMarketPair，降级为标准symbol）
+     *
+     * @return symbolOnExchange，无法解析返回null
+     */
+    private String resolveSymbolOnExchange(long pairId) {
+        CachedSymbol cached = exchangeSymbolCache.get(pairId);
+        if (cached != null && !cached.isExpired()) {
+            return cached.symbolOnExchange();
+        }
+        if (cached != null) {
+            exchangeSymbolCache.remove(pairId, cached);
+        }
+        String symbolOnExchange = null;
+        if (exchangeMarketPairService != null) {
+            try {
+                ExchangeMarketPair exchangePair = exchangeMarketPairService.getByExchangeAndTradingPairId(
+                        DEFAULT_EXCHANGE_CODE, pairId);
+                if (exchangePair != null) {
+                    String exchangeSymbol = exchangePair.getSymbolOnExchange();
+                    if (exchangeSymbol != null && !exchangeSymbol.isEmpty()) {
+                        symbolOnExchange = exchangeSymbol;
+                        exchangeSymbolCache.put(pairId, new CachedSymbol(exchangeSymbol));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("查询ExchangeMarketPair失败: pairId={}, exchangeCode={}", 
+                        pairId, DEFAULT_EXCHANGE_CODE, e);
+            }
+        }
+        
+        // 降级方案：如果无法获取symbolOnExchange，尝试使用标准symbol
+        if (symbolOnExchange == null && tradingPairResolver != null) {
+            String standardSymbol = tradingPairResolver.tradingPairIdToSymbol(pairId);
+            if (standardSymbol != null) {
+                // 尝试通过marketType推断symbolOnExchange
+                // 但这里无法获取marketType，所以只能使用标准symbol
+                symbolOnExchange = standardSymbol;
+                log.warn("无法获取symbolOnExchange，使用标准symbol: pairId={}, symbol={} (可能查询失败)", 
+                        pairId, standardSymbol);
+            }
+        }
+        
+        if (symbolOnExchange == null || symbolOnExchange.isEmpty()) {
+            log.warn("无法获取symbol: pairId={} (ExchangeMarketPairService={}, TradingPairResolver={})", 
+                    pairId, 
+                    exchangeMarketPairService != null ? "已注入" : "未注入",
+                    tradingPairResolver != null ? "已注入" : "未注入");
+            return null;
+        }
+        return symbolOnExchange;
+    }
     
     /**
      * 将ResultSet映射为NormalizedKline
@@ -243,5 +389,21 @@ public class QuestDbKlineReader {
             return 60;
         }
     }
+    
+    /**
+     * 缓存的交易所symbol
+     * 
+     * @param symbolOnExchange 交易所symbol
+     * @param cachedAtMillis 缓存时间
+     */
+    private record CachedSymbol(String symbolOnExchange, long cachedAtMillis) {
+        
+        CachedSymbol(String symbolOnExchange) {
+            this(symbolOnExchange, System.currentTimeMillis());
+        }
+        
+        boolean isExpired() {
+            return System.currentTimeMillis() - cachedAtMillis > SYMBOL_CACHE_EXPIRE_MILLIS;
+        }
+    }
 }
-
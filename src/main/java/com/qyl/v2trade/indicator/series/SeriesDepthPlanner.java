@@ -0,0 +1,101 @@
+package com.qyl.v2trade.indicator.series;
+
+import com.qyl.v2trade.indicator.config.IndicatorSeriesProperties;
+import com.qyl.v2trade.indicator.definition.IndicatorDefinition;
+import com.qyl.v2trade.indicator.definition.IndicatorRegistry;
+import com.qyl.v2trade.indicator.definition.ParameterSpec;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BarSeries深度规划
+ *
+ * <p>按序列上启用订阅的最大回看长度计算需要保留的Bar数量：
+ * <pre>
+ * 回看长度 = max(minRequiredBars, 所有INT参数之和)   // 如MACD: 12 + 26 + 9，按参数上界估算
+ * 序列深度 = clamp(最大回看长度 × 预热系数, minDepth, maxDepth)
+ * </pre>
+ *
+ * <p>INT参数取订阅参数值，未设置时取参数定义的默认值；没有订阅的序列使用defaultDepth
+ *
+ * @author qyl
+ */
+@Slf4j
+@Component
+public class SeriesDepthPlanner {
+
+    @Autowired
+    private IndicatorRegistry indicatorRegistry;
+
+    @Autowired
+    private IndicatorSeriesProperties properties;
+
+    /**
+     * 计算序列深度
+     *
+     * @param subscriptions 序列上的启用订阅
+     * @return 需要保留的Bar数量
+     */
+    public int depthFor(List<IndicatorSubscription> subscriptions) {
+        if (subscriptions == null || subscriptions.isEmpty()) {
+            return clamp(properties.getDefaultDepth());
+        }
+        int maxLookback = 0;
+        for (IndicatorSubscription subscription : subscriptions) {
+            maxLookback = Math.max(maxLookback, lookbackOf(subscription));
+        }
+        if (maxLookback <= 0) {
+            return clamp(properties.getDefaultDepth());
+        }
+        return clamp((int) Math.ceil(maxLookback * Math.max(1.0, properties.getWarmupFactor())));
+    }
+
+    /**
+     * 计算单个订阅的回看长度（未注册的指标返回0）
+     */
+    int lookbackOf(IndicatorSubscription subscription) {
+        IndicatorDefinition definition = indicatorRegistry.getDefinition(
+                subscription.getIndicatorCode(), subscription.getIndicatorVersion());
+        if (definition == null) {
+            return 0;
+        }
+
+        int periodSum = 0;
+        if (definition.parameters() != null && definition.parameters().parameters() != null) {
+            Map<String, Object> params = subscription.getParams();
+            for (ParameterSpec.ParameterDefinition parameter : definition.parameters().parameters()) {
+                if (parameter.type() != ParameterSpec.ParamType.INT) {
+                    continue;
+                }
+                Object value = params != null ? params.get(parameter.name()) : null;
+                periodSum += Math.max(0, toInt(value != null ? value : parameter.defaultValue()));
+            }
+        }
+        return Math.max(definition.minRequiredBars(), periodSum);
+    }
+
+    private int clamp(int depth) {
+        int min = Math.max(1, properties.getMinDepth());
+        int max = Math.max(min, properties.getMaxDepth());
+        return Math.min(max, Math.max(min, depth));
+    }
+
+    private static int toInt(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value != null) {
+            try {
+                return (int) Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                log.debug("无法解析INT参数: {}", value);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,72 @@
+package com.qyl.v2trade.market.aggregation.batch;
+
+import com.qyl.v2trade.common.job.AsyncJob;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 批量聚合任务（运行时状态）
+ *
+ * <p>一个任务按"symbol × 时间分片"拆成多个子任务在ForkJoinPool上并行执行，
+ * 子任务完成时累加进度计数器
+ *
+ * @author qyl
+ */
+public class BatchAggregationJob extends AsyncJob<BatchAggregationJobStatus> {
+
+    private final List<String> symbols;
+    private final boolean saveToDb;
+
+    private final AtomicLong sourceKlineCount = new AtomicLong();
+    private final AtomicLong aggregatedCount = new AtomicLong();
+    private final AtomicLong savedCount = new AtomicLong();
+    private final Map<String, LongAdder> aggregatedCountByPeriod = new ConcurrentHashMap<>();
+
+    public BatchAggregationJob(String jobId, List<String> symbols, long startTime, long endTime,
+                               boolean saveToDb, int totalChunks) {
+        super(jobId, startTime, endTime, totalChunks);
+        this.symbols = List.copyOf(symbols);
+        this.saveToDb = saveToDb;
+    }
+
+    /**
+     * 记录一个分片完成
+     *
+     * @param sourceKlines 分片读取的1m K线数量
+     * @param aggregatedByPeriod 分片生成的各周期聚合K线数量
+     * @param saved 分片写入数据库的数量
+     */
+    public void recordChunk(int sourceKlines, Map<String, Integer> aggregatedByPeriod, int saved) {
+        sourceKlineCount.addAndGet(sourceKlines);
+        aggregatedByPeriod.forEach((period, count) -> {
+            aggregatedCount.addAndGet(count);
+            aggregatedCountByPeriod.computeIfAbsent(period, k -> new LongAdder()).add(count);
+        });
+        savedCount.addAndGet(saved);
+        recordTaskCompleted();
+    }
+
+    @Override
+    protected BatchAggregationJobStatus newStatus() {
+        return new BatchAggregationJobStatus();
+    }
+
+    @Override
+    protected void fillStatus(BatchAggregationJobStatus snapshot, long elapsedMs) {
+        snapshot.setSymbols(symbols);
+        snapshot.setSaveToDb(saveToDb);
+        snapshot.setSourceKlineCount(sourceKlineCount.get());
+        snapshot.setAggregatedCount(aggregatedCount.get());
+        snapshot.setSavedCount(savedCount.get());
+        Map<String, Long> byPeriod = new TreeMap<>();
+        aggregatedCountByPeriod.forEach((period, count) -> byPeriod.put(period, count.sum()));
+        snapshot.setAggregatedCountByPeriod(byPeriod);
+        snapshot.setKlinesPerSecond(elapsedMs > 0 ? sourceKlineCount.get() * 1000.0 / elapsedMs : 0.0);
+        snapshot.setAggregatedPerSecond(elapsedMs > 0 ? aggregatedCount.get() * 1000.0 / elapsedMs : 0.0);
+    }
+}
@@ -0,0 +1,225 @@
+package com.qyl.v2trade.market.aggregation.batch;
+
+import com.qyl.v2trade.common.job.AsyncJobService;
+import com.qyl.v2trade.market.aggregation.config.AggregationProperties;
+import com.qyl.v2trade.market.aggregation.config.SupportedPeriod;
+import com.qyl.v2trade.market.aggregation.core.AggregationBucket;
+import com.qyl.v2trade.market.aggregation.core.PeriodCalculator;
+import com.qyl.v2trade.market.aggregation.event.AggregatedKLine;
+import com.qyl.v2trade.market.aggregation.persistence.AggregatedKLineStorageService;
+import com.qyl.v2trade.market.model.NormalizedKline;
+import com.qyl.v2trade.market.model.event.KlineEvent;
+import com.qyl.v2trade.market.web.query.MarketQueryService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量聚合任务服务
+ *
+ * <p>将大时间范围的批量聚合拆成按最大周期（4h）对齐的时间分片，
+ * 在ForkJoinPool上按"symbol × 分片"并行执行，每个分片读一次1m数据、同时聚合所有周期、
+ * 分片完成即批量写入，不在内存中积累全量结果
+ *
+ * <p>分片边界对齐到4h，所有周期的窗口都完整落在单个分片内，分片之间无需合并Bucket
+ *
+ * @author qyl
+ */
+@Slf4j
+@Service
+public class BatchAggregationJobService extends AsyncJobService<BatchAggregationJob> {
+
+    /**
+     * 分片对齐的周期（最大聚合周期）
+     */
+    private static final SupportedPeriod CHUNK_ALIGN_PERIOD = SupportedPeriod.H4;
+
+    @Autowired
+    @Qualifier("questDbMarketQueryService")
+    private MarketQueryService marketQueryService;
+
+    @Autowired
+    private AggregatedKLineStorageService storageService;
+
+    @Autowired
+    private AggregationProperties aggregationProperties;
+
+    @PostConstruct
+    public void init() {
+        initPool("Batch-Aggregation-Worker-", aggregationProperties.getBatchParallelism());
+    }
+
+    /**
+     * 提交批量聚合任务
+     *
+     * @param symbols 交易对列表
+     * @param startTime 开始时间戳（毫秒），向下对齐到4h
+     * @param endTime 结束时间戳（毫秒），向上对齐到4h
+     * @param exchange 交易所名称
+     * @param saveToDb 是否保存到数据库
+     * @return 任务
+     */
+    public BatchAggregationJob submit(List<String> symbols, long startTime, long endTime,
+                                      String exchange, boolean saveToDb) {
+        long alignMs = CHUNK_ALIGN_PERIOD.getDurationMs();
+        long alignedStart = PeriodCalculator.calculateWindowStart(startTime, CHUNK_ALIGN_PERIOD);
+        long alignedEnd = PeriodCalculator.calculateWindowStart(endTime - 1, CHUNK_ALIGN_PERIOD) + alignMs;
+        long chunkMs = Math.max(1, (aggregationProperties.getBatchChunkHours() * 3_600_000L + alignMs - 1) / alignMs)
+                * alignMs;
+
+        List<long[]> chunks = new ArrayList<>();
+        for (long chunkStart = alignedStart; chunkStart < alignedEnd; chunkStart += chunkMs) {
+            chunks.add(new long[]{chunkStart, Math.min(chunkStart + chunkMs, alignedEnd)});
+        }
+
+        BatchAggregationJob job = new BatchAggregationJob(newJobId(), symbols, alignedStart, alignedEnd,
+                saveToDb, symbols.size() * chunks.size());
+        log.info("提交批量聚合任务: jobId={}, symbols={}, from={}, to={}, chunks={}, saveToDb={}",
+                job.getJobId(), symbols.size(), alignedStart, alignedEnd, symbols.size() * chunks.size(), saveToDb);
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (String symbol : symbols) {
+            for (long[] chunk : chunks) {
+                tasks.add(() -> runChunk(job, symbol, exchange, chunk[0], chunk[1], saveToDb));
+            }
+        }
+        return launch(job, tasks);
+    }
+
+    @Override
+    protected String jobName() {
+        return "批量聚合任务";
+    }
+
+    @Override
+    protected int maxRetainedJobs() {
+        return aggregationProperties.getBatchMaxRetainedJobs();
+    }
+
+    @Override
+    protected void onJobFinished(BatchAggregationJob job) {
+        BatchAggregationJobStatus snapshot = job.snapshot();
+        log.info("批量聚合任务结束: jobId={}, status={}, 耗时{}ms, 1m K线{}根, 聚合K线{}根, 保存{}根, 失败分片{}",
+                job.getJobId(), snapshot.getStatus(), snapshot.getElapsedMs(), snapshot.getSourceKlineCount(),
+                snapshot.getAggregatedCount(), snapshot.getSavedCount(), snapshot.getFailedTasks());
+    }
+
+    /**
+     * 执行一个分片：读取1m数据 -> 聚合所有周期 -> 批量写入
+     */
+    private void runChunk(BatchAggregationJob job, String symbol, String exchange,
+                          long chunkStart, long chunkEnd, boolean saveToDb) {
+        if (job.isCancelRequested()) {
+            job.recordTaskSkipped();
+            return;
+        }
+        try {
+            List<NormalizedKline> sourceKlines = marketQueryService.queryKlines(
+                    symbol, "1m", chunkStart, chunkEnd, null);
+            if (sourceKlines == null || sourceKlines.isEmpty()) {
+                job.recordChunk(0, Map.of(), 0);
+                return;
+            }
+            sourceKlines.sort(Comparator.comparing(NormalizedKline::getTimestamp));
+
+            List<AggregatedKLine> aggregatedKLines = aggregateChunk(symbol, exchange, sourceKlines);
+
+            Map<String, Integer> aggregatedByPeriod = new HashMap<>();
+            for (AggregatedKLine aggregated : aggregatedKLines) {
+                aggregatedByPeriod.merge(aggregated.period(), 1, Integer::sum);
+            }
+
+            int saved = 0;
+            if (saveToDb && !aggregatedKLines.isEmpty()) {
+                saved = storageService.batchSave(aggregatedKLines);
+            }
+            job.recordChunk(sourceKlines.size(), aggregatedByPeriod, saved);
+
+            log.debug("批量聚合分片完成: jobId={}, symbol={}, from={}, to={}, 1m K线{}根, 聚合K线{}根, 保存{}根",
+                    job.getJobId(), symbol, chunkStart, chunkEnd, sourceKlines.size(),
+                    aggregatedKLines.size(), saved);
+        } catch (Exception e) {
+            log.error("批量聚合分片失败: jobId={}, symbol={}, from={}, to={}",
+                    job.getJobId(), symbol, chunkStart, chunkEnd, e);
+            job.recordTaskFailed(symbol + "@" + chunkStart + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 聚合一个分片内的1m K线（所有周期）
+     *
+     * <p>只输出已结束的窗口：窗口内最后一分钟到达时关闭；
+     * 缺少最后一分钟但windowEnd已过去的窗口在分片末尾补出，当前仍在进行中的窗口不输出
+     *
+     * @param symbol 交易对符号
+     * @param exchange 交易所名称
+     * @param sourceKlines 按时间升序的1m K线
+     * @return 聚合K线列表
+     */
+    private List<AggregatedKLine> aggregateChunk(String symbol, String exchange, List<NormalizedKline> sourceKlines) {
+        Map<String, AggregationBucket> buckets = new HashMap<>();
+        List<AggregatedKLine> result = new ArrayList<>();
+
+        for (NormalizedKline kline : sourceKlines) {
+            KlineEvent event = convertToKlineEvent(kline, exchange);
+            for (SupportedPeriod period : SupportedPeriod.values()) {
+                long windowStart = PeriodCalculator.calculateWindowStart(kline.getTimestamp(), period);
+                long windowEnd = PeriodCalculator.calculateWindowEnd(windowStart, period);
+                String bucketKey = period.getPeriod() + "_" + windowStart;
+
+                AggregationBucket bucket = buckets.computeIfAbsent(bucketKey,
+                        key -> new AggregationBucket(symbol, period.getPeriod(), windowStart, windowEnd));
+                if (bucket.update(event)) {
+                    AggregatedKLine aggregated = bucket.toAggregatedKLine();
+                    if (aggregated != null) {
+                        result.add(aggregated);
+                    }
+                    buckets.remove(bucketKey);
+                }
+            }
+        }
+
+        long currentTime = System.currentTimeMillis();
+        for (AggregationBucket bucket : buckets.values()) {
+            if (bucket.getWindowEnd() <= currentTime) {
+                AggregatedKLine aggregated = bucket.toAggregatedKLine();
+                if (aggregated != null) {
+                    result.add(aggregated);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 将NormalizedKline转换为KlineEvent
+     */
+    private KlineEvent convertToKlineEvent(NormalizedKline kline, String exchange) {
+        long openTime = kline.getTimestamp();
+        long closeTime = openTime + 60000; // 1分钟K线
+
+        return KlineEvent.of(
+                kline.getSymbol(),
+                exchange,
+                openTime,
+                closeTime,
+                kline.getInterval(),
+                BigDecimal.valueOf(kline.getOpen()),
+                BigDecimal.valueOf(kline.getHigh()),
+                BigDecimal.valueOf(kline.getLow()),
+                BigDecimal.valueOf(kline.getClose()),
+                BigDecimal.valueOf(kline.getVolume()),
+                true, // 历史数据都是已完成的
+                System.currentTimeMillis()
+        );
+    }
+}
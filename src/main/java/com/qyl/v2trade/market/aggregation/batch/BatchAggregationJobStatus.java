@@ -0,0 +1,60 @@
+package com.qyl.v2trade.market.aggregation.batch;
+
+import com.qyl.v2trade.common.job.AsyncJobStatus;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量聚合任务进度快照
+ *
+ * <p>子任务为"symbol × 时间分片"，startTime/endTime已对齐到4h
+ *
+ * @author qyl
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class BatchAggregationJobStatus extends AsyncJobStatus {
+
+    /**
+     * 交易对列表
+     */
+    private List<String> symbols;
+
+    /**
+     * 是否保存到数据库
+     */
+    private boolean saveToDb;
+
+    /**
+     * 已读取的1m K线数量
+     */
+    private long sourceKlineCount;
+
+    /**
+     * 已生成的聚合K线数量
+     */
+    private long aggregatedCount;
+
+    /**
+     * 已写入数据库的数量
+     */
+    private long savedCount;
+
+    /**
+     * 各周期生成的聚合K线数量
+     */
+    private Map<String, Long> aggregatedCountByPeriod;
+
+    /**
+     * 吞吐：每秒处理的1m K线数量
+     */
+    private double klinesPerSecond;
+
+    /**
+     * 吞吐：每秒生成的聚合K线数量
+     */
+    private double aggregatedPerSecond;
+}
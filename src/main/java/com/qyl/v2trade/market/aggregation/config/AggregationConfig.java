@@ -4,14 +4,18 @@ import com.qyl.v2trade.indicator.domain.event.BarClosedEvent;
 import com.qyl.v2trade.indicator.domain.event.BarClosedEventPublisher;
 import com.qyl.v2trade.indicator.infrastructure.converter.AggregatedKLineToBarClosedEventConverter;
 import com.qyl.v2trade.market.aggregation.core.KlineAggregator;
+import com.qyl.v2trade.market.aggregation.core.impl.AggregationCheckpointStore;
 import com.qyl.v2trade.market.aggregation.core.impl.KlineAggregatorImpl;
 import com.qyl.v2trade.market.aggregation.event.AggregationEventPublisher;
 import com.qyl.v2trade.market.aggregation.persistence.AggregatedKLineStorageService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
+
 /**
  * 聚合模块配置类
  * 
@@ -37,6 +41,12 @@ public class AggregationConfig {
     @Autowired(required = false)
     private ApplicationEventPublisher applicationEventPublisher;
     
+    @Autowired
+    private AggregationProperties aggregationProperties;
+    
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    
     /**
      * 创建KlineAggregator Bean
      * 
@@ -80,6 +90,22 @@ public class AggregationConfig {
             aggregator.setStorageService(aggregatedKLineStorageService);
         }
         
+        // 导出监控指标到Prometheus（如果存在MeterRegistry）
+        if (meterRegistry != null) {
+            aggregator.bindMetrics(meterRegistry);
+        }
+        
+        // 设置已关闭窗口的修订保留期
+        aggregator.setAmendmentHorizonMs(aggregationProperties.getAmendmentHorizonMinutes() * 60_000L);
+        
+        // 设置检查点并恢复未关闭的Bucket（在KlineEventConsumer订阅行情之前完成）
+        if (aggregationProperties.isCheckpointEnabled()) {
+            aggregator.setCheckpointStore(
+                    new AggregationCheckpointStore(Paths.get(aggregationProperties.getCheckpointPath())),
+                    aggregationProperties.getCheckpointMaxAgeMinutes() * 60_000L);
+            aggregator.restoreCheckpoint();
+        }
+        
         return aggregator;
     }
 }
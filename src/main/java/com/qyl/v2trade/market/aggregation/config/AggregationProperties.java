@@ -33,5 +33,52 @@ public class AggregationProperties {
      * 默认：true（不阻塞启动）
      */
     private boolean asyncInitialization = true;
+    
+    /**
+     * 是否启用聚合检查点（定期及关闭时持久化未关闭的Bucket，启动时恢复）
+     * 默认：true
+     */
+    private boolean checkpointEnabled = true;
+    
+    /**
+     * 检查点文件路径
+     * 默认：data/aggregation-checkpoint.bin
+     */
+    private String checkpointPath = "data/aggregation-checkpoint.bin";
+    
+    /**
+     * 检查点写入间隔（秒）
+     * 默认：60秒
+     */
+    private int checkpointIntervalSeconds = 60;
+    
+    /**
+     * 检查点最大有效期（分钟），超过则启动时不恢复
+     * 默认：240分钟（最长聚合周期4h）
+     */
+    private int checkpointMaxAgeMinutes = 240;
+    
+    /**
+     * 已关闭窗口的修订保留期（分钟），在此期间迟到/补拉的1m K线会修订已发布的聚合结果
+     * 默认：240分钟，0表示不修订
+     */
+    private int amendmentHorizonMinutes = 240;
+    
+    /**
+     * 批量聚合任务的并行度（ForkJoinPool）
+     * 默认：0（使用CPU核数）
+     */
+    private int batchParallelism = 0;
+    
+    /**
+     * 批量聚合任务的分片时长（小时），会向上对齐到最大聚合周期（4h）的整数倍
+     * 默认：24小时
+     */
+    private int batchChunkHours = 24;
+    
+    /**
+     * 保留的已结束批量聚合任务数量（用于进度查询）
+     * 默认：50
+     */
+    private int batchMaxRetainedJobs = 50;
 }
-
@@ -69,6 +69,21 @@ public class AggregationBucket {
      */
     private int klineCount;
     
+    /**
+     * 最后一根已聚合的1m K线开盘时间（毫秒），-1表示尚无K线
+     */
+    private long lastKlineOpenTime;
+    
+    /**
+     * 检查点已覆盖到的1m K线开盘时间（毫秒），-1表示非恢复的Bucket
+     */
+    private long restoredUpTo;
+    
+    /**
+     * 是否待补齐检查点之后缺失的分钟（恢复后首根实时K线触发一次）
+     */
+    private boolean pendingGapFill;
+    
     /**
      * 窗口是否已关闭
      */
@@ -93,9 +108,48 @@ public class AggregationBucket {
         this.close = null;
         this.volume = BigDecimal.ZERO;
         this.klineCount = 0;
+        this.lastKlineOpenTime = -1L;
+        this.restoredUpTo = -1L;
+        this.pendingGapFill = false;
         this.isComplete = false;
     }
     
+    /**
+     * 从检查点恢复Bucket
+     * 
+     * <p>恢复的Bucket只包含检查点写入时刻的聚合状态，
+     * 检查点之后缺失的1m K线由聚合器在收到首根实时K线时补齐
+     * 
+     * @param symbol 交易对符号
+     * @param period 周期字符串
+     * @param windowStart 窗口起始时间戳（毫秒）
+     * @param windowEnd 窗口结束时间戳（毫秒）
+     * @param open 开盘价
+     * @param high 最高价
+     * @param low 最低价
+     * @param close 收盘价
+     * @param volume 累计成交量
+     * @param klineCount 已聚合的1m K线数量
+     * @param lastKlineOpenTime 最后一根已聚合的1m K线开盘时间
+     * @return 恢复后的Bucket
+     */
+    public static AggregationBucket restore(String symbol, String period, long windowStart, long windowEnd,
+                                            BigDecimal open, BigDecimal high, BigDecimal low,
+                                            BigDecimal close, BigDecimal volume,
+                                            int klineCount, long lastKlineOpenTime) {
+        AggregationBucket bucket = new AggregationBucket(symbol, period, windowStart, windowEnd);
+        bucket.open = open;
+        bucket.high = high;
+        bucket.low = low;
+        bucket.close = close;
+        bucket.volume = volume != null ? volume : BigDecimal.ZERO;
+        bucket.klineCount = klineCount;
+        bucket.lastKlineOpenTime = lastKlineOpenTime;
+        bucket.restoredUpTo = lastKlineOpenTime;
+        bucket.pendingGapFill = true;
+        return bucket;
+    }
+    
     /**
      * 更新Bucket状态
      * 
@@ -135,6 +189,7 @@ public class AggregationBucket {
         
         // 增加K线计数
         klineCount++;
+        lastKlineOpenTime = Math.max(lastKlineOpenTime, event.openTime());
         
         // 判断窗口是否结束
         // 规则：如果 kline.openTime >= windowEnd，窗口结束
@@ -146,6 +201,19 @@ public class AggregationBucket {
         return windowComplete;
     }
     
+    /**
+     * 取出并清除"待补齐缺口"标记
+     * 
+     * <p>保证检查点之后的缺口只补齐一次
+     * 
+     * @return 如果是恢复的Bucket且尚未补齐，返回true
+     */
+    public synchronized boolean consumePendingGapFill() {
+        boolean pending = pendingGapFill;
+        pendingGapFill = false;
+        return pending;
+    }
+    
     /**
      * 判断窗口是否结束
      * 
@@ -247,6 +315,14 @@ public class AggregationBucket {
         return klineCount;
     }
     
+    public synchronized long getLastKlineOpenTime() {
+        return lastKlineOpenTime;
+    }
+    
+    public long getRestoredUpTo() {
+        return restoredUpTo;
+    }
+    
     public boolean isComplete() {
         return isComplete;
     }
@@ -1,6 +1,16 @@
 package com.qyl.v2trade.market.aggregation.core;
 
+import com.qyl.v2trade.market.aggregation.config.SupportedPeriod;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
 import java.io.Serializable;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -8,10 +18,19 @@ import java.util.concurrent.atomic.LongAdder;
  * 聚合监控指标
  * 
  * <p>用于收集和监控聚合器的运行指标
+ * 
+ * <p>绑定MeterRegistry后（{@link #bindTo}），以下延迟按周期（period标签）导出为Micrometer Timer，
+ * 同时发布P50/P90/P99/P99.9分位数和Prometheus直方图桶（可用histogram_quantile跨实例聚合告警）：
+ * <ul>
+ *   <li>aggregation.latency：单根1m K线在单个周期上的聚合耗时</li>
+ *   <li>aggregation.window.close.latency：窗口边界 -> 聚合结果发布的耗时</li>
+ *   <li>aggregation.storage.write.latency：聚合K线写入QuestDB的耗时</li>
+ * </ul>
+ * Timer内部使用无锁的环形时间窗直方图，记录路径不加锁；未绑定时只更新本地计数器
  *
  * @author qyl
  */
-public class AggregationMetrics implements Serializable {
+public class AggregationMetrics implements Serializable, MeterBinder {
     
     /**
      * 总处理的K线事件数量
@@ -58,6 +77,11 @@ public class AggregationMetrics implements Serializable {
      */
     private final LongAdder duplicateIgnoreCount = new LongAdder();
     
+    /**
+     * 已关闭窗口修订次数（迟到/补拉的1m K线）
+     */
+    private final LongAdder amendmentCount = new LongAdder();
+    
     /**
      * 聚合延迟统计（纳秒）
      */
@@ -65,6 +89,79 @@ public class AggregationMetrics implements Serializable {
     private final AtomicLong maxAggregationLatencyNs = new AtomicLong(0);
     private final AtomicLong minAggregationLatencyNs = new AtomicLong(Long.MAX_VALUE);
     
+    /**
+     * 按周期的Micrometer Timer（绑定MeterRegistry后创建，未绑定时为null）
+     */
+    private transient volatile Map<SupportedPeriod, Timer> aggregationTimers;
+    private transient volatile Map<SupportedPeriod, Timer> windowCloseTimers;
+    private transient volatile Map<SupportedPeriod, Timer> storageWriteTimers;
+    
+    /**
+     * 绑定到MeterRegistry：注册按周期的延迟Timer和计数器
+     * 
+     * @param registry MeterRegistry
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Map<SupportedPeriod, Timer> aggregation = new EnumMap<>(SupportedPeriod.class);
+        Map<SupportedPeriod, Timer> windowClose = new EnumMap<>(SupportedPeriod.class);
+        Map<SupportedPeriod, Timer> storageWrite = new EnumMap<>(SupportedPeriod.class);
+        for (SupportedPeriod period : SupportedPeriod.values()) {
+            aggregation.put(period, Timer.builder("aggregation.latency")
+                    .description("单根1m K线在单个周期上的聚合耗时")
+                    .tag("period", period.getPeriod())
+                    .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(500))
+                    .maximumExpectedValue(Duration.ofSeconds(5))
+                    .register(registry));
+            windowClose.put(period, Timer.builder("aggregation.window.close.latency")
+                    .description("窗口边界到聚合结果发布的耗时")
+                    .tag("period", period.getPeriod())
+                    .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofMinutes(5))
+                    .register(registry));
+            storageWrite.put(period, Timer.builder("aggregation.storage.write.latency")
+                    .description("聚合K线写入QuestDB的耗时")
+                    .tag("period", period.getPeriod())
+                    .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry));
+        }
+        aggregationTimers = aggregation;
+        windowCloseTimers = windowClose;
+        storageWriteTimers = storageWrite;
+        
+        FunctionCounter.builder("aggregation.events", totalEventCount, LongAdder::sum)
+                .description("处理的1m K线事件数量")
+                .register(registry);
+        FunctionCounter.builder("aggregation.events.failed", failCount, LongAdder::sum)
+                .description("处理失败的1m K线事件数量")
+                .register(registry);
+        FunctionCounter.builder("aggregation.events.duplicate", duplicateIgnoreCount, LongAdder::sum)
+                .description("忽略的重复1m K线数量")
+                .register(registry);
+        FunctionCounter.builder("aggregation.amendments", amendmentCount, LongAdder::sum)
+                .description("已关闭窗口的修订次数")
+                .register(registry);
+        FunctionCounter.builder("aggregation.storage.writes", writeSuccessCount, LongAdder::sum)
+                .description("聚合K线写入次数")
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("aggregation.storage.writes", writeSkipCount, LongAdder::sum)
+                .description("聚合K线写入次数")
+                .tag("result", "skip")
+                .register(registry);
+        FunctionCounter.builder("aggregation.storage.writes", writeFailCount, LongAdder::sum)
+                .description("聚合K线写入次数")
+                .tag("result", "fail")
+                .register(registry);
+    }
+    
     /**
      * 增加事件计数
      */
@@ -128,6 +225,13 @@ public class AggregationMetrics implements Serializable {
         duplicateIgnoreCount.increment();
     }
     
+    /**
+     * 增加窗口修订计数
+     */
+    public void incrementAmendmentCount() {
+        amendmentCount.increment();
+    }
+    
     /**
      * 记录聚合延迟
      */
@@ -137,6 +241,43 @@ public class AggregationMetrics implements Serializable {
         minAggregationLatencyNs.updateAndGet(current -> Math.min(current, latencyNs));
     }
     
+    /**
+     * 记录单个周期的聚合延迟
+     * 
+     * @param period 周期
+     * @param latencyNs 延迟（纳秒）
+     */
+    public void recordAggregationLatency(SupportedPeriod period, long latencyNs) {
+        record(aggregationTimers, period, latencyNs, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * 记录窗口关闭延迟（窗口边界 -> 发布）
+     * 
+     * @param period 周期
+     * @param latencyMs 延迟（毫秒）
+     */
+    public void recordWindowCloseLatency(SupportedPeriod period, long latencyMs) {
+        record(windowCloseTimers, period, latencyMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * 记录存储写入延迟
+     * 
+     * @param period 周期
+     * @param latencyNs 延迟（纳秒）
+     */
+    public void recordStorageWriteLatency(SupportedPeriod period, long latencyNs) {
+        record(storageWriteTimers, period, latencyNs, TimeUnit.NANOSECONDS);
+    }
+    
+    private static void record(Map<SupportedPeriod, Timer> timers, SupportedPeriod period, long amount, TimeUnit unit) {
+        if (timers == null || period == null || amount < 0) {
+            return;
+        }
+        timers.get(period).record(amount, unit);
+    }
+    
     /**
      * 获取聚合成功率
      */
@@ -224,6 +365,10 @@ public class AggregationMetrics implements Serializable {
         return duplicateIgnoreCount.sum();
     }
     
+    public long getAmendmentCount() {
+        return amendmentCount.sum();
+    }
+    
     /**
      * 重置所有指标
      */
@@ -237,6 +382,7 @@ public class AggregationMetrics implements Serializable {
         writeSkipCount.reset();
         outOfOrderRejectCount.reset();
         duplicateIgnoreCount.reset();
+        amendmentCount.reset();
         totalAggregationLatencyNs.set(0);
         maxAggregationLatencyNs.set(0);
         minAggregationLatencyNs.set(Long.MAX_VALUE);
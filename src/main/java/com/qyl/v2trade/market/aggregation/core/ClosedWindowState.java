@@ -0,0 +1,237 @@
+package com.qyl.v2trade.market.aggregation.core;
+
+import com.qyl.v2trade.market.aggregation.event.AggregatedKLine;
+import com.qyl.v2trade.market.model.NormalizedKline;
+import com.qyl.v2trade.market.model.event.KlineEvent;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 已关闭窗口状态（用于迟到/补拉K线的增量修订）
+ *
+ * <p>职责：窗口关闭后在修订保留期内保留聚合结果和分钟覆盖位图，
+ * 迟到的1m K线落在未覆盖的分钟时可直接增量修正OHLCV，无需回查整窗
+ *
+ * <p>生命周期：窗口关闭 -> 保留（接受修订）-> 超过修订保留期 -> 清理
+ *
+ * <p>线程安全：使用synchronized保护状态更新操作
+ *
+ * @author qyl
+ */
+public class ClosedWindowState {
+
+    /**
+     * 一分钟（毫秒）
+     */
+    private static final long MINUTE_MS = 60_000L;
+
+    /**
+     * 修订结果
+     */
+    public enum AmendResult {
+        /**
+         * 增量修订成功
+         */
+        AMENDED,
+        /**
+         * 该分钟已覆盖（数据被更正），无法增量撤销high/low，需要回查整窗重算
+         */
+        NEEDS_RECALCULATION,
+        /**
+         * K线不属于该窗口，忽略
+         */
+        IGNORED
+    }
+
+    private final String symbol;
+    private final String period;
+    private final long windowStart;
+    private final long windowEnd;
+
+    private BigDecimal open;
+    private BigDecimal high;
+    private BigDecimal low;
+    private BigDecimal close;
+    private BigDecimal volume;
+
+    /**
+     * 已覆盖的分钟位图（第i位表示windowStart + i分钟的1m K线已计入）
+     */
+    private final BitSet coveredMinutes = new BitSet();
+
+    /**
+     * 修订版本号（0表示窗口关闭时的首次结果）
+     */
+    private int revision;
+
+    /**
+     * 从窗口关闭时的聚合数据创建
+     *
+     * @param aggregated 首次发布的聚合结果
+     * @param windowEnd 窗口结束时间戳（毫秒）
+     * @param sourceBars 计算首次结果使用的1m K线
+     */
+    public ClosedWindowState(AggregatedKLine aggregated, long windowEnd, List<NormalizedKline> sourceBars) {
+        this.symbol = aggregated.symbol();
+        this.period = aggregated.period();
+        this.windowStart = aggregated.timestamp();
+        this.windowEnd = windowEnd;
+        this.open = aggregated.open();
+        this.high = aggregated.high();
+        this.low = aggregated.low();
+        this.close = aggregated.close();
+        this.volume = aggregated.volume();
+        this.revision = aggregated.revision();
+        for (NormalizedKline bar : sourceBars) {
+            coveredMinutes.set(sourceMinuteIndex(bar.getTimestamp()));
+        }
+    }
+
+    /**
+     * 增量应用一根迟到的1m K线
+     *
+     * <p>修订规则：
+     * <ul>
+     *   <li>早于已覆盖的第一分钟：open取该K线的open</li>
+     *   <li>晚于已覆盖的最后一分钟：close取该K线的close</li>
+     *   <li>high/low：取max/min</li>
+     *   <li>volume：累加</li>
+     * </ul>
+     *
+     * @param event 迟到的1m K线
+     * @return 修订结果
+     */
+    public synchronized AmendResult apply(KlineEvent event) {
+        int index = minuteIndex(event.openTime());
+        if (index < 0) {
+            return AmendResult.IGNORED;
+        }
+        if (coveredMinutes.get(index)) {
+            return AmendResult.NEEDS_RECALCULATION;
+        }
+
+        int firstIndex = coveredMinutes.nextSetBit(0);
+        int lastIndex = coveredMinutes.length() - 1;
+        if (firstIndex < 0 || index < firstIndex) {
+            open = event.open();
+        }
+        if (firstIndex < 0 || index > lastIndex) {
+            close = event.close();
+        }
+        high = high == null ? event.high() : high.max(event.high());
+        low = low == null ? event.low() : low.min(event.low());
+        volume = volume == null ? event.volume() : volume.add(event.volume());
+        coveredMinutes.set(index);
+        revision++;
+        return AmendResult.AMENDED;
+    }
+
+    /**
+     * 用整窗1m K线重新计算（数据更正时使用）
+     *
+     * @param bars 窗口内全部1m K线（按时间升序）
+     * @return 如果结果发生变化返回true（同时递增修订版本号）
+     */
+    public synchronized boolean recalculate(List<NormalizedKline> bars) {
+        if (bars == null || bars.isEmpty()) {
+            return false;
+        }
+        BigDecimal newOpen = BigDecimal.valueOf(bars.get(0).getOpen());
+        BigDecimal newClose = BigDecimal.valueOf(bars.get(bars.size() - 1).getClose());
+        BigDecimal newHigh = null;
+        BigDecimal newLow = null;
+        BigDecimal newVolume = BigDecimal.ZERO;
+        BitSet newCovered = new BitSet();
+        for (NormalizedKline bar : bars) {
+            BigDecimal barHigh = BigDecimal.valueOf(bar.getHigh());
+            BigDecimal barLow = BigDecimal.valueOf(bar.getLow());
+            newHigh = newHigh == null ? barHigh : newHigh.max(barHigh);
+            newLow = newLow == null ? barLow : newLow.min(barLow);
+            newVolume = newVolume.add(BigDecimal.valueOf(bar.getVolume()));
+            newCovered.set(sourceMinuteIndex(bar.getTimestamp()));
+        }
+
+        boolean changed = !sameValue(open, newOpen) || !sameValue(high, newHigh) || !sameValue(low, newLow)
+                || !sameValue(close, newClose) || !sameValue(volume, newVolume) || !coveredMinutes.equals(newCovered);
+        if (changed) {
+            open = newOpen;
+            high = newHigh;
+            low = newLow;
+            close = newClose;
+            volume = newVolume;
+            coveredMinutes.clear();
+            coveredMinutes.or(newCovered);
+            revision++;
+        }
+        return changed;
+    }
+
+    /**
+     * 生成当前修订版本的聚合K线
+     *
+     * @return 修订版AggregatedKLine
+     */
+    public synchronized AggregatedKLine toAggregatedKLine() {
+        return AggregatedKLine.amendment(symbol, period, windowStart,
+                open, high, low, close, volume, coveredMinutes.cardinality(), revision);
+    }
+
+    /**
+     * 判断是否超过修订保留期（用于清理）
+     *
+     * @param currentTime 当前时间戳（毫秒）
+     * @param horizonMs 修订保留期（毫秒）
+     * @return 如果超过保留期返回true
+     */
+    public boolean isExpired(long currentTime, long horizonMs) {
+        return currentTime > windowEnd + horizonMs;
+    }
+
+    private int minuteIndex(long klineOpenTime) {
+        if (klineOpenTime < windowStart || klineOpenTime >= windowEnd) {
+            return -1;
+        }
+        return (int) ((klineOpenTime - windowStart) / MINUTE_MS);
+    }
+
+    /**
+     * QuestDB查询结果的分钟序号
+     * 
+     * <p>查询结果的时间戳可能带8小时的时区偏移（见handleWindowComplete的首尾判断），
+     * 所有支持的周期都能整除该偏移，因此按窗口长度取模即可对齐到窗口内的分钟
+     */
+    private int sourceMinuteIndex(long barTimestamp) {
+        return (int) (Math.floorMod(barTimestamp - windowStart, windowEnd - windowStart) / MINUTE_MS);
+    }
+
+    private static boolean sameValue(BigDecimal a, BigDecimal b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.compareTo(b) == 0;
+    }
+
+    // Getter方法
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public long getWindowStart() {
+        return windowStart;
+    }
+
+    public long getWindowEnd() {
+        return windowEnd;
+    }
+
+    public synchronized int getRevision() {
+        return revision;
+    }
+}
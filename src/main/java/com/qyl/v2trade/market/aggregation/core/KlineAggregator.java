@@ -1,6 +1,7 @@
 package com.qyl.v2trade.market.aggregation.core;
 
 import com.qyl.v2trade.market.aggregation.config.SupportedPeriod;
+import com.qyl.v2trade.market.model.NormalizedKline;
 import com.qyl.v2trade.market.model.event.KlineEvent;
 
 import java.util.List;
@@ -50,5 +51,32 @@ public interface KlineAggregator {
      * @param windowStart 窗口起始时间戳
      */
     void backfillWindow(String symbol, SupportedPeriod period, long windowStart);
+    
+    /**
+     * 写入检查点（定时任务和关闭时调用）
+     * 
+     * <p>将未关闭的Bucket持久化到本地文件，重启后可快速恢复
+     * 
+     * @return 写入的Bucket数量，未启用检查点时返回0
+     */
+    int writeCheckpoint();
+    
+    /**
+     * 从检查点恢复未关闭的Bucket（启动时调用）
+     * 
+     * @return 恢复的Bucket数量
+     */
+    int restoreCheckpoint();
+    
+    /**
+     * 用迟到/补拉的1m K线修订已关闭的窗口（校准补拉写入QuestDB后调用）
+     * 
+     * <p>只修订修订保留期内、仍保留窗口状态的已关闭窗口；
+     * 修订结果会覆盖写入聚合表并以修订事件重新发布
+     * 
+     * @param symbol 交易对符号（与1m K线事件的symbol一致）
+     * @param klines 补拉的1m K线
+     * @return 被修订的窗口数量
+     */
+    int amendKlines(String symbol, List<NormalizedKline> klines);
 }
-
@@ -0,0 +1,180 @@
+package com.qyl.v2trade.market.aggregation.core.impl;
+
+import com.qyl.v2trade.market.aggregation.core.AggregationBucket;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 聚合检查点存储
+ *
+ * <p>将未关闭的Bucket以紧凑的二进制格式写入本地文件，重启时读取恢复，
+ * 避免启动瞬间对每个symbol/周期都从QuestDB回查整窗1m数据
+ *
+ * <p>文件格式（DataOutputStream，大端）：
+ * <pre>
+ * int magic | short version | long writtenAt | int count
+ * count * [UTF symbol | UTF period | long windowStart | long windowEnd
+ *          | decimal open/high/low/close/volume | int klineCount | long lastKlineOpenTime]
+ * decimal = int scale | short len | byte[len] unscaledValue
+ * </pre>
+ *
+ * <p>写入先落临时文件再原子替换，进程中途被杀也不会留下半个检查点
+ *
+ * @author qyl
+ */
+@Slf4j
+public class AggregationCheckpointStore {
+
+    /**
+     * 文件魔数："AGCP"
+     */
+    private static final int MAGIC = 0x41474350;
+
+    /**
+     * 文件格式版本
+     */
+    private static final short VERSION = 1;
+
+    private final Path path;
+
+    public AggregationCheckpointStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * 写入检查点
+     *
+     * <p>只写入未关闭且至少聚合过一根K线的Bucket
+     *
+     * @param buckets 当前所有Bucket
+     * @return 写入的Bucket数量
+     * @throws IOException 写入失败
+     */
+    public int write(Collection<AggregationBucket> buckets) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        List<AggregationBucket> openBuckets = new ArrayList<>(buckets.size());
+        for (AggregationBucket bucket : buckets) {
+            if (!bucket.isComplete() && bucket.getKlineCount() > 0) {
+                openBuckets.add(bucket);
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(openBuckets.size());
+            for (AggregationBucket bucket : openBuckets) {
+                // 与update()共用Bucket监视器，保证写出的是一致快照
+                synchronized (bucket) {
+                    out.writeUTF(bucket.getSymbol());
+                    out.writeUTF(bucket.getPeriod());
+                    out.writeLong(bucket.getWindowStart());
+                    out.writeLong(bucket.getWindowEnd());
+                    writeDecimal(out, bucket.getOpen());
+                    writeDecimal(out, bucket.getHigh());
+                    writeDecimal(out, bucket.getLow());
+                    writeDecimal(out, bucket.getClose());
+                    writeDecimal(out, bucket.getVolume());
+                    out.writeInt(bucket.getKlineCount());
+                    out.writeLong(bucket.getLastKlineOpenTime());
+                }
+            }
+        }
+
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return openBuckets.size();
+    }
+
+    /**
+     * 读取检查点
+     *
+     * @param maxAgeMs 检查点最大有效期（毫秒），超过则视为过期，返回空列表
+     * @return 恢复的Bucket列表（文件不存在、过期或格式不符时返回空列表）
+     * @throws IOException 读取失败
+     */
+    public List<AggregationBucket> read(long maxAgeMs) throws IOException {
+        List<AggregationBucket> result = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return result;
+        }
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path)))) {
+            int magic = in.readInt();
+            short version = in.readShort();
+            if (magic != MAGIC || version != VERSION) {
+                log.warn("聚合检查点格式不匹配，忽略: path={}, magic={}, version={}", path, magic, version);
+                return result;
+            }
+
+            long writtenAt = in.readLong();
+            long age = System.currentTimeMillis() - writtenAt;
+            if (age > maxAgeMs) {
+                log.info("聚合检查点已过期，忽略: path={}, ageMs={}, maxAgeMs={}", path, age, maxAgeMs);
+                return result;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String symbol = in.readUTF();
+                String period = in.readUTF();
+                long windowStart = in.readLong();
+                long windowEnd = in.readLong();
+                BigDecimal open = readDecimal(in);
+                BigDecimal high = readDecimal(in);
+                BigDecimal low = readDecimal(in);
+                BigDecimal close = readDecimal(in);
+                BigDecimal volume = readDecimal(in);
+                int klineCount = in.readInt();
+                long lastKlineOpenTime = in.readLong();
+                result.add(AggregationBucket.restore(symbol, period, windowStart, windowEnd,
+                        open, high, low, close, volume, klineCount, lastKlineOpenTime));
+            }
+        }
+        return result;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        BigDecimal v = value != null ? value : BigDecimal.ZERO;
+        byte[] unscaled = v.unscaledValue().toByteArray();
+        out.writeInt(v.scale());
+        out.writeShort(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readShort()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
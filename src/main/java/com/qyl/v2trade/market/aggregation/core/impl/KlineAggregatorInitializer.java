@@ -306,7 +306,8 @@ public class KlineAggregatorInitializer {
                         aggregated.low(),
                         aggregated.close(),
                         aggregated.volume(),
-                        aggregated.sourceKlineCount()
+                        aggregated.sourceKlineCount(),
+                        aggregated.revision()
                 );
                 
                 // 写入QuestDB（写入前再次检查，双重保证幂等性）
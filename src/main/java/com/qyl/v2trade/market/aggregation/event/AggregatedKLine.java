@@ -68,7 +68,14 @@ public record AggregatedKLine(
     /**
      * 聚合的1m K线数量（用于验证完整性）
      */
-    int sourceKlineCount
+    int sourceKlineCount,
+    
+    /**
+     * 修订版本号
+     * 
+     * <p>0表示窗口关闭时的首次结果；大于0表示迟到/补拉的1m K线修正后的修订结果
+     */
+    int revision
 ) implements Serializable {
     
     @Serial
@@ -101,8 +108,50 @@ public record AggregatedKLine(
         return new AggregatedKLine(
                 symbol, period, timestamp,
                 open, high, low, close, volume,
-                sourceKlineCount
+                sourceKlineCount, 0
+        );
+    }
+    
+    /**
+     * 创建修订版聚合K线事件（迟到/补拉的1m K线修正已关闭窗口）
+     * 
+     * @param symbol 交易对符号
+     * @param period 周期
+     * @param timestamp 时间戳（已对齐到周期起始点）
+     * @param open 开盘价
+     * @param high 最高价
+     * @param low 最低价
+     * @param close 收盘价
+     * @param volume 成交量
+     * @param sourceKlineCount 聚合的1m K线数量
+     * @param revision 修订版本号（从1开始）
+     * @return AggregatedKLine 实例
+     */
+    public static AggregatedKLine amendment(
+            String symbol,
+            String period,
+            long timestamp,
+            BigDecimal open,
+            BigDecimal high,
+            BigDecimal low,
+            BigDecimal close,
+            BigDecimal volume,
+            int sourceKlineCount,
+            int revision) {
+        return new AggregatedKLine(
+                symbol, period, timestamp,
+                open, high, low, close, volume,
+                sourceKlineCount, revision
         );
     }
+    
+    /**
+     * 是否为修订结果
+     * 
+     * @return revision大于0返回true
+     */
+    public boolean isAmendment() {
+        return revision > 0;
+    }
 }
 
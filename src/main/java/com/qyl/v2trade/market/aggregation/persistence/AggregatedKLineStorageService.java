@@ -51,5 +51,19 @@ public interface AggregatedKLineStorageService {
      * @return 如果存在返回true
      */
     boolean exists(String symbol, String period, long timestamp);
+    
+    /**
+     * 写入修订后的聚合K线（迟到/补拉的1m K线修正已关闭窗口）
+     * 
+     * <p>与{@link #save}不同，修订结果需要覆盖已存在的行：
+     * <ul>
+     *   <li>如果已存在，按(symbol, ts)更新OHLCV和source_kline_count</li>
+     *   <li>如果不存在，执行写入</li>
+     * </ul>
+     * 
+     * @param aggregatedKLine 修订后的聚合K线（时间戳必须已对齐到周期起始时间）
+     * @return 是否成功写入或更新
+     */
+    boolean saveRevision(AggregatedKLine aggregatedKLine);
 }
 
@@ -6,14 +6,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -31,6 +36,11 @@ public class QuestDbAggregatedKLineStorageServiceImpl implements AggregatedKLine
     @Qualifier("questDbJdbcTemplate")
     private JdbcTemplate questDbJdbcTemplate;
     
+    /**
+     * 批量写入每批的最大行数
+     */
+    private static final int BATCH_INSERT_SIZE = 500;
+    
     /**
      * 统计信息：总写入次数
      */
@@ -67,6 +77,15 @@ public class QuestDbAggregatedKLineStorageServiceImpl implements AggregatedKLine
                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
     }
     
+    /**
+     * 生成UPDATE SQL语句（仅用于修订结果）
+     */
+    private String getUpdateSql(String period) {
+        String tableName = getTableName(period);
+        return "UPDATE " + tableName + " SET open = ?, high = ?, low = ?, close = ?, volume = ?, source_kline_count = ? " +
+               "WHERE symbol = ? AND ts = ?";
+    }
+    
     /**
      * 生成EXISTS SQL语句
      */
@@ -179,6 +198,46 @@ public class QuestDbAggregatedKLineStorageServiceImpl implements AggregatedKLine
         }
     }
     
+    @Override
+    public boolean saveRevision(AggregatedKLine aggregatedKLine) {
+        totalWriteCount.incrementAndGet();
+        try {
+            Timestamp timestamp = Timestamp.from(Instant.ofEpochMilli(aggregatedKLine.timestamp()));
+            
+            int rows = questDbJdbcTemplate.update(getUpdateSql(aggregatedKLine.period()),
+                    aggregatedKLine.open().doubleValue(),
+                    aggregatedKLine.high().doubleValue(),
+                    aggregatedKLine.low().doubleValue(),
+                    aggregatedKLine.close().doubleValue(),
+                    aggregatedKLine.volume().doubleValue(),
+                    aggregatedKLine.sourceKlineCount(),
+                    aggregatedKLine.symbol(),
+                    timestamp
+            );
+            
+            // 原行不存在（首次写入失败或已被清理），按新行写入
+            if (rows == 0) {
+                rows = doSave(aggregatedKLine) ? 1 : 0;
+            }
+            
+            if (rows > 0) {
+                successWriteCount.incrementAndGet();
+                log.debug("修订聚合K线已写入QuestDB: symbol={}, period={}, timestamp={}, revision={}, sourceKlineCount={}", 
+                        aggregatedKLine.symbol(), aggregatedKLine.period(), aggregatedKLine.timestamp(),
+                        aggregatedKLine.revision(), aggregatedKLine.sourceKlineCount());
+                return true;
+            }
+            failWriteCount.incrementAndGet();
+            return false;
+        } catch (Exception e) {
+            failWriteCount.incrementAndGet();
+            log.error("写入修订聚合K线异常: symbol={}, period={}, timestamp={}, revision={}", 
+                    aggregatedKLine.symbol(), aggregatedKLine.period(), aggregatedKLine.timestamp(),
+                    aggregatedKLine.revision(), e);
+            return false;
+        }
+    }
+    
     /**
      * 异步写入（不阻塞聚合流程）
      */
@@ -188,21 +247,129 @@ public class QuestDbAggregatedKLineStorageServiceImpl implements AggregatedKLine
         return CompletableFuture.completedFuture(result);
     }
     
+    /**
+     * 批量写入（用于历史数据回放和批量聚合任务）
+     * 
+     * <p>按(周期, symbol)分组：每组一次范围查询取出已存在的ts，过滤后用JDBC batch写入，
+     * 避免逐条exists + INSERT的往返。batch失败时降级为逐条写入
+     */
     @Override
     public int batchSave(List<AggregatedKLine> aggregatedKLines) {
         if (aggregatedKLines == null || aggregatedKLines.isEmpty()) {
             return 0;
         }
         
-        AtomicInteger successCount = new AtomicInteger(0);
+        Map<String, List<AggregatedKLine>> groups = new LinkedHashMap<>();
         for (AggregatedKLine aggregatedKLine : aggregatedKLines) {
-            if (save(aggregatedKLine)) {
-                successCount.incrementAndGet();
+            String groupKey = aggregatedKLine.period() + "|" + aggregatedKLine.symbol();
+            groups.computeIfAbsent(groupKey, k -> new ArrayList<>()).add(aggregatedKLine);
+        }
+        
+        int successCount = 0;
+        for (List<AggregatedKLine> group : groups.values()) {
+            successCount += batchSaveGroup(group);
+        }
+        
+        log.debug("批量保存聚合K线: 总数={}, 成功={}", aggregatedKLines.size(), successCount);
+        return successCount;
+    }
+    
+    /**
+     * 批量写入同一周期、同一symbol的聚合K线
+     */
+    private int batchSaveGroup(List<AggregatedKLine> group) {
+        String symbol = group.get(0).symbol();
+        String period = group.get(0).period();
+        
+        // 1. 一次范围查询取出已存在的ts，保证不重复插入
+        long minTs = Long.MAX_VALUE;
+        long maxTs = Long.MIN_VALUE;
+        for (AggregatedKLine aggregatedKLine : group) {
+            minTs = Math.min(minTs, aggregatedKLine.timestamp());
+            maxTs = Math.max(maxTs, aggregatedKLine.timestamp());
+        }
+        Set<Long> existing;
+        try {
+            existing = queryExistingTimestamps(symbol, period, minTs, maxTs);
+        } catch (Exception e) {
+            log.warn("查询已存在的聚合K线失败，降级为逐条写入: symbol={}, period={}, size={}", 
+                    symbol, period, group.size(), e);
+            return saveOneByOne(group);
+        }
+        
+        totalWriteCount.addAndGet(group.size());
+        List<AggregatedKLine> toInsert = new ArrayList<>(group.size());
+        Set<Long> pending = new HashSet<>();
+        for (AggregatedKLine aggregatedKLine : group) {
+            if (existing.contains(aggregatedKLine.timestamp()) || !pending.add(aggregatedKLine.timestamp())) {
+                skipWriteCount.incrementAndGet();
+            } else {
+                toInsert.add(aggregatedKLine);
             }
         }
         
-        log.debug("批量保存聚合K线: 总数={}, 成功={}", aggregatedKLines.size(), successCount.get());
-        return successCount.get();
+        // 2. 分批写入
+        int inserted = 0;
+        String insertSql = getInsertSql(period);
+        for (int from = 0; from < toInsert.size(); from += BATCH_INSERT_SIZE) {
+            List<AggregatedKLine> chunk = toInsert.subList(from, Math.min(from + BATCH_INSERT_SIZE, toInsert.size()));
+            List<Object[]> batchArgs = new ArrayList<>(chunk.size());
+            for (AggregatedKLine aggregatedKLine : chunk) {
+                batchArgs.add(new Object[]{
+                        aggregatedKLine.symbol(),
+                        Timestamp.from(Instant.ofEpochMilli(aggregatedKLine.timestamp())),
+                        aggregatedKLine.open().doubleValue(),
+                        aggregatedKLine.high().doubleValue(),
+                        aggregatedKLine.low().doubleValue(),
+                        aggregatedKLine.close().doubleValue(),
+                        aggregatedKLine.volume().doubleValue(),
+                        aggregatedKLine.sourceKlineCount()
+                });
+            }
+            try {
+                questDbJdbcTemplate.batchUpdate(insertSql, batchArgs);
+                inserted += chunk.size();
+                successWriteCount.addAndGet(chunk.size());
+            } catch (Exception e) {
+                log.warn("批量写入聚合K线失败，降级为逐条写入: symbol={}, period={}, size={}", 
+                        symbol, period, chunk.size(), e);
+                // 逐条写入由save()自行计数，扣除本批已计入的总写入次数
+                totalWriteCount.addAndGet(-chunk.size());
+                inserted += saveOneByOne(chunk);
+            }
+        }
+        return inserted;
+    }
+    
+    /**
+     * 逐条写入（批量写入失败时的降级路径）
+     */
+    private int saveOneByOne(List<AggregatedKLine> aggregatedKLines) {
+        int successCount = 0;
+        for (AggregatedKLine aggregatedKLine : aggregatedKLines) {
+            if (save(aggregatedKLine)) {
+                successCount++;
+            }
+        }
+        return successCount;
+    }
+    
+    /**
+     * 查询时间范围内已存在的ts（毫秒）
+     * 
+     * <p>与写入路径一样经JDBC Timestamp读取（rs.getTimestamp），保证与batch写入的ts可比，
+     * 不能直接读取QuestDB原始微秒值（写入时经过了JDBC时区换算）
+     */
+    private Set<Long> queryExistingTimestamps(String symbol, String period, long fromTs, long toTs) {
+        Set<Long> existing = new HashSet<>();
+        String sql = "SELECT ts FROM " + getTableName(period) + 
+                     " WHERE symbol = ? AND ts >= ? AND ts <= ?";
+        questDbJdbcTemplate.query(sql,
+                (RowCallbackHandler) rs -> existing.add(rs.getTimestamp("ts").getTime()),
+                symbol,
+                Timestamp.from(Instant.ofEpochMilli(fromTs)),
+                Timestamp.from(Instant.ofEpochMilli(toTs)));
+        return existing;
     }
     
     @Override
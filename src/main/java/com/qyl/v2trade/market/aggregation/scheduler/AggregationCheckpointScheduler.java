@@ -0,0 +1,55 @@
+package com.qyl.v2trade.market.aggregation.scheduler;
+
+import com.qyl.v2trade.market.aggregation.core.KlineAggregator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聚合检查点定时任务调度器
+ * 
+ * <p>负责定期及应用关闭时写入聚合检查点，重启后恢复未关闭的Bucket
+ *
+ * @author qyl
+ */
+@Slf4j
+@Component
+public class AggregationCheckpointScheduler {
+    
+    @Autowired
+    private KlineAggregator klineAggregator;
+    
+    /**
+     * 定期写入检查点
+     * 默认每60秒执行一次（market.aggregation.checkpoint-interval-seconds）
+     */
+    @Scheduled(fixedRateString = "${market.aggregation.checkpoint-interval-seconds:60}",
+            initialDelayString = "${market.aggregation.checkpoint-interval-seconds:60}",
+            timeUnit = TimeUnit.SECONDS)
+    public void writeCheckpoint() {
+        log.debug("开始执行聚合检查点写入任务");
+        
+        try {
+            klineAggregator.writeCheckpoint();
+        } catch (Exception e) {
+            log.error("聚合检查点写入任务执行失败", e);
+        }
+    }
+    
+    /**
+     * 应用关闭时写入最终检查点
+     */
+    @PreDestroy
+    public void onShutdown() {
+        try {
+            int written = klineAggregator.writeCheckpoint();
+            log.info("应用关闭，聚合检查点已写入: bucketCount={}", written);
+        } catch (Exception e) {
+            log.error("应用关闭时写入聚合检查点失败", e);
+        }
+    }
+}
@@ -64,6 +64,7 @@ public class AggregationMonitorController {
                 result.put("writeSuccessRate", metrics.getWriteSuccessRate());
                 result.put("outOfOrderRejectCount", metrics.getOutOfOrderRejectCount());
                 result.put("duplicateIgnoreCount", metrics.getDuplicateIgnoreCount());
+                result.put("amendmentCount", metrics.getAmendmentCount());
                 result.put("averageAggregationLatencyMs", metrics.getAverageAggregationLatencyMs());
                 result.put("maxAggregationLatencyMs", metrics.getMaxAggregationLatencyMs());
                 result.put("minAggregationLatencyMs", metrics.getMinAggregationLatencyMs());
@@ -1,6 +1,11 @@
 package com.qyl.v2trade.market.aggregation.web;
 
 import com.qyl.v2trade.common.Result;
+import com.qyl.v2trade.common.job.AsyncJobController;
+import com.qyl.v2trade.common.job.AsyncJobService;
+import com.qyl.v2trade.market.aggregation.batch.BatchAggregationJob;
+import com.qyl.v2trade.market.aggregation.batch.BatchAggregationJobService;
+import com.qyl.v2trade.market.aggregation.batch.BatchAggregationJobStatus;
 import com.qyl.v2trade.market.aggregation.config.SupportedPeriod;
 import com.qyl.v2trade.market.aggregation.core.AggregationBucket;
 import com.qyl.v2trade.market.aggregation.core.PeriodCalculator;
@@ -28,6 +33,7 @@ import java.util.*;
  *   <li>从QuestDB查询指定时间范围内的1m K线数据</li>
  *   <li>聚合成5m、15m、30m、1h、4h周期</li>
  *   <li>保存聚合结果到QuestDB</li>
+ *   <li>异步任务：多交易对、大时间范围按分片并行执行，支持进度查询和取消</li>
  * </ul>
  *
  * @author qyl
@@ -35,7 +41,8 @@ import java.util.*;
 @Slf4j
 @RestController
 @RequestMapping("/api/market/aggregation/batch")
-public class BatchAggregationController {
+public class BatchAggregationController
+        extends AsyncJobController<BatchAggregationJob, BatchAggregationJobStatus> {
     
     @Autowired
     @Qualifier("questDbMarketQueryService")
@@ -44,6 +51,9 @@ public class BatchAggregationController {
     @Autowired
     private AggregatedKLineStorageService storageService;
     
+    @Autowired
+    private BatchAggregationJobService jobService;
+    
     /**
      * 批量聚合请求参数
      */
@@ -75,6 +85,37 @@ public class BatchAggregationController {
         private Boolean saveToDb = true;
     }
     
+    /**
+     * 异步批量聚合任务请求参数
+     */
+    @Data
+    public static class BatchAggregationJobRequest {
+        /**
+         * 交易对符号列表（如：BTC-USDT-SWAP）
+         */
+        private List<String> symbols;
+        
+        /**
+         * 开始时间戳（毫秒，向下对齐到4h）
+         */
+        private Long startTime;
+        
+        /**
+         * 结束时间戳（毫秒，向上对齐到4h）
+         */
+        private Long endTime;
+        
+        /**
+         * 交易所名称（可选，默认：OKX）
+         */
+        private String exchange = "OKX";
+        
+        /**
+         * 是否保存到数据库（默认：true）
+         */
+        private Boolean saveToDb = true;
+    }
+    
     /**
      * 批量聚合响应结果
      */
@@ -298,6 +339,64 @@ public class BatchAggregationController {
         }
     }
     
+    /**
+     * 提交异步批量聚合任务
+     * 
+     * <p>按4h对齐的时间分片在ForkJoinPool上按"symbol × 分片"并行执行，立即返回任务ID
+     * 
+     * <p>请求示例：
+     * <pre>
+     * POST /api/market/aggregation/batch/jobs
+     * {
+     *   "symbols": ["BTC-USDT-SWAP", "ETH-USDT-SWAP"],
+     *   "startTime": 1704067200000,
+     *   "endTime": 1706745600000,
+     *   "saveToDb": true
+     * }
+     * </pre>
+     * 
+     * @param request 任务请求
+     * @return 任务进度快照（包含jobId）
+     */
+    @PostMapping("/jobs")
+    public Result<BatchAggregationJobStatus> submitJob(@RequestBody BatchAggregationJobRequest request) {
+        try {
+            if (request.getSymbols() == null || request.getSymbols().isEmpty()) {
+                return Result.error("交易对符号列表不能为空");
+            }
+            if (request.getStartTime() == null || request.getEndTime() == null) {
+                return Result.error("开始时间和结束时间不能为空");
+            }
+            if (request.getStartTime() >= request.getEndTime()) {
+                return Result.error("开始时间必须小于结束时间");
+            }
+            
+            List<String> symbols = request.getSymbols().stream()
+                    .filter(s -> s != null && !s.trim().isEmpty())
+                    .map(String::trim)
+                    .distinct()
+                    .toList();
+            if (symbols.isEmpty()) {
+                return Result.error("交易对符号列表不能为空");
+            }
+            String exchange = request.getExchange() != null ? request.getExchange() : "OKX";
+            boolean saveToDb = request.getSaveToDb() != null ? request.getSaveToDb() : true;
+            
+            BatchAggregationJob job = jobService.submit(symbols, request.getStartTime(), request.getEndTime(),
+                    exchange, saveToDb);
+            return Result.success("任务已提交", job.snapshot());
+        } catch (Exception e) {
+            log.error("提交批量聚合任务失败: symbols={}, startTime={}, endTime={}", 
+                    request.getSymbols(), request.getStartTime(), request.getEndTime(), e);
+            return Result.error("提交批量聚合任务失败: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    protected AsyncJobService<BatchAggregationJob> jobService() {
+        return jobService;
+    }
+    
     /**
      * 将NormalizedKline转换为KlineEvent
      */
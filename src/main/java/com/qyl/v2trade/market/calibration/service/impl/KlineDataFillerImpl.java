@@ -1,5 +1,6 @@
 package com.qyl.v2trade.market.calibration.service.impl;
 
+import com.qyl.v2trade.market.aggregation.core.KlineAggregator;
 import com.qyl.v2trade.market.calibration.service.KlineDataFiller;
 import com.qyl.v2trade.market.model.NormalizedKline;
 import com.qyl.v2trade.market.subscription.persistence.storage.MarketStorageService;
@@ -7,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -19,6 +21,9 @@ public class KlineDataFillerImpl implements KlineDataFiller {
     @Autowired
     private MarketStorageService marketStorageService;
 
+    @Autowired(required = false)
+    private KlineAggregator klineAggregator;
+
     @Override
     public int fillMissingKlines(String symbol, List<NormalizedKline> klines) {
         log.info("开始填充缺失的K线数据: symbol={}, 数量={}", symbol, klines.size());
@@ -27,13 +32,29 @@ public class KlineDataFillerImpl implements KlineDataFiller {
             return 0;
         }
 
-        // 批量保存K线数据
-        // MarketStorageService的batchSaveKlines方法内部已经处理了幂等性（检查是否存在）
-        int savedCount = marketStorageService.batchSaveKlines(klines);
+        // 逐条保存K线数据，记录实际插入的K线
+        // MarketStorageService的saveKline方法内部已经处理了幂等性（检查是否存在）
+        List<NormalizedKline> savedKlines = new ArrayList<>();
+        for (NormalizedKline kline : klines) {
+            if (marketStorageService.saveKline(kline)) {
+                savedKlines.add(kline);
+            }
+        }
+        int savedCount = savedKlines.size();
 
         log.info("K线数据填充完成: symbol={}, 总数={}, 成功插入={}", 
                 symbol, klines.size(), savedCount);
 
+        // 补拉的1m K线可能落在已发布的聚合窗口内，只用实际插入的K线修订这些窗口
+        // （已存在的K线已计入聚合结果，不能再次修订）
+        if (savedCount > 0 && klineAggregator != null) {
+            try {
+                klineAggregator.amendKlines(symbol, savedKlines);
+            } catch (Exception e) {
+                log.error("补拉K线修订聚合窗口失败: symbol={}", symbol, e);
+            }
+        }
+
         return savedCount;
     }
 }
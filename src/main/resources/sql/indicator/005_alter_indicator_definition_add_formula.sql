@@ -0,0 +1,2 @@
+ALTER TABLE `indicator_definition`
+  ADD COLUMN `formula` VARCHAR(1024) DEFAULT NULL COMMENT '公式（engine=formula时有效，如 ema(close, fast) - ema(close, slow)）' AFTER `engine`;
@@ -0,0 +1,261 @@
+package com.qyl.v2trade.business.strategy.decision.logic.condition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qyl.v2trade.business.strategy.decision.context.DecisionContext;
+import com.qyl.v2trade.business.strategy.decision.context.snapshot.ParamSnapshot;
+import com.qyl.v2trade.business.strategy.decision.event.StrategyParamChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * ConditionEvaluator单元测试
+ */
+class ConditionEvaluatorTest {
+    
+    private static final Long STRATEGY_ID = 1L;
+    private static final LocalDateTime PARAM_VERSION = LocalDateTime.of(2025, 1, 15, 10, 0);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    
+    private TestFactorResolver resolver;
+    private FactorResolverRegistry registry;
+    private ConditionEvaluator evaluator;
+    
+    @BeforeEach
+    void setUp() {
+        resolver = new TestFactorResolver();
+        FactorResolverRegistry created = new FactorResolverRegistry(List.of(resolver));
+        created.init();
+        registry = spy(created);
+        evaluator = new ConditionEvaluator(registry, new OperatorExecutor());
+        
+        resolver.values.put("TEST.A", new BigDecimal("10"));
+        resolver.values.put("TEST.B", new BigDecimal("20"));
+        resolver.values.put("TEST.C", new BigDecimal("30"));
+    }
+    
+    @Test
+    void testAllModePassed() {
+        EvaluationResult result = evaluate(group("ALL", rule("TEST.A", "GT", 5), rule("TEST.B", "LT", 25)));
+        
+        assertTrue(result.isPassed());
+        assertFalse(result.isBlocked());
+        assertEquals(2, result.getHitReason().getRuleHits().size());
+        assertTrue(result.getHitReason().getRuleHits().stream().allMatch(HitReason.RuleHit::isHit));
+    }
+    
+    @Test
+    void testAllModeShortCircuitsOnFirstMiss() {
+        EvaluationResult result = evaluate(group("ALL",
+                rule("TEST.A", "GT", 50), rule("TEST.B", "LT", 25), rule("TEST.C", "GT", 0)));
+        
+        assertFalse(result.isPassed());
+        assertFalse(result.isBlocked());
+        // hitReason只记录到短路点为止的规则
+        List<HitReason.RuleHit> ruleHits = result.getHitReason().getRuleHits();
+        assertEquals(1, ruleHits.size());
+        assertEquals("TEST.A", ruleHits.get(0).getFactor());
+        assertFalse(ruleHits.get(0).isHit());
+        assertEquals(List.of("TEST.A"), resolver.resolved, "短路之后的规则不解析因子");
+    }
+    
+    @Test
+    void testAnyMode() {
+        EvaluationResult passed = evaluate(group("ANY",
+                rule("TEST.A", "GT", 50), rule("TEST.B", "EQ", 20), rule("TEST.C", "GT", 0)));
+        assertTrue(passed.isPassed());
+        assertEquals(2, passed.getHitReason().getRuleHits().size(), "ANY遇到第一个命中即返回");
+        assertTrue(passed.getHitReason().getRuleHits().get(1).isHit());
+        
+        EvaluationResult failed = evaluate(group("ANY", rule("TEST.A", "GT", 50), rule("TEST.B", "GT", 50)));
+        assertFalse(failed.isPassed());
+        assertFalse(failed.isBlocked());
+        assertEquals(2, failed.getHitReason().getRuleHits().size());
+    }
+    
+    @Test
+    void testNestedGroups() {
+        // A > 5 AND (B > 50 OR C > 25)
+        Map<String, Object> condition = group("ALL", rule("TEST.A", "GT", 5));
+        condition.put("groups", List.of(group("ANY", rule("TEST.B", "GT", 50), rule("TEST.C", "GT", 25))));
+        
+        EvaluationResult passed = evaluate(condition);
+        assertTrue(passed.isPassed());
+        List<HitReason.GroupHit> groupHits = passed.getHitReason().getGroupHits();
+        assertEquals(1, groupHits.size());
+        assertEquals("ANY", groupHits.get(0).getMode());
+        assertTrue(groupHits.get(0).isHit());
+        assertEquals(2, groupHits.get(0).getRuleHits().size());
+        
+        // 嵌套组未命中时ALL根节点未命中
+        resolver.values.put("TEST.C", new BigDecimal("1"));
+        EvaluationResult failed = evaluate(condition);
+        assertFalse(failed.isPassed());
+        assertFalse(failed.isBlocked());
+        assertFalse(failed.getHitReason().getGroupHits().get(0).isHit());
+    }
+    
+    @Test
+    void testBlockedPropagatesFromNestedGroup() {
+        // 嵌套组中缺值且nullable=false的因子使整个条件blocked
+        Map<String, Object> condition = group("ALL", rule("TEST.A", "GT", 5));
+        condition.put("groups", List.of(group("ANY", rule("TEST.MISSING", "GT", 1))));
+        
+        EvaluationResult result = evaluate(condition);
+        
+        assertTrue(result.isBlocked());
+        assertFalse(result.isPassed());
+        assertTrue(result.getBlockReason().contains("TEST.MISSING"), result.getBlockReason());
+    }
+    
+    @Test
+    void testBlockedOnWhitelistAndOperator() {
+        EvaluationResult unknownFactor = evaluate(group("ALL", rule("UNKNOWN.X", "GT", 1)));
+        assertTrue(unknownFactor.isBlocked());
+        assertTrue(unknownFactor.getBlockReason().contains("白名单"), unknownFactor.getBlockReason());
+        
+        EvaluationResult unknownOperator = evaluate(group("ALL", rule("TEST.A", "LIKE", 1)));
+        assertTrue(unknownOperator.isBlocked());
+        
+        EvaluationResult invalidJson = evaluator.evaluate(context(PARAM_VERSION), "{not json");
+        assertTrue(invalidJson.isBlocked());
+        
+        assertTrue(evaluator.evaluate(context(PARAM_VERSION), "").isBlocked());
+    }
+    
+    @Test
+    void testMissingFactorNullableAndAfterShortCircuit() {
+        // nullable=true：缺值视为未命中
+        Map<String, Object> nullable = rule("TEST.MISSING", "GT", 1);
+        nullable.put("nullable", true);
+        EvaluationResult failed = evaluate(group("ALL", nullable));
+        assertFalse(failed.isPassed());
+        assertFalse(failed.isBlocked());
+        assertEquals("因子值缺失（nullable=true）", failed.getHitReason().getRuleHits().get(0).getReason());
+        
+        // 短路点之后的缺值规则不评估：结果为failed而不是blocked
+        EvaluationResult shortCircuited = evaluate(group("ALL",
+                rule("TEST.A", "GT", 50), rule("TEST.MISSING", "GT", 1)));
+        assertFalse(shortCircuited.isPassed());
+        assertFalse(shortCircuited.isBlocked());
+        
+        // 短路点之前的缺值规则仍然blocked
+        EvaluationResult blocked = evaluate(group("ALL",
+                rule("TEST.MISSING", "GT", 1), rule("TEST.A", "GT", 50)));
+        assertTrue(blocked.isBlocked());
+    }
+    
+    @Test
+    void testRightValueFactorReference() {
+        // 右值为因子引用：B > A
+        Map<String, Object> rule = rule("TEST.B", "GT", "TEST.A");
+        EvaluationResult result = evaluate(group("ALL", rule));
+        assertTrue(result.isPassed());
+    }
+    
+    @Test
+    void testCompiledOnceAndInvalidatedOnParamChange() {
+        String json = json(group("ALL", rule("TEST.A", "GT", 5), rule("TEST.B", "LT", 25)));
+        
+        evaluator.evaluate(context(PARAM_VERSION), json);
+        evaluator.evaluate(context(PARAM_VERSION), json);
+        verify(registry, times(2)).findResolver(anyString());
+        
+        // 其他策略的参数变更不影响
+        evaluator.onStrategyParamChanged(new StrategyParamChangedEvent(this, 100L, 2L, false));
+        evaluator.evaluate(context(PARAM_VERSION), json);
+        verify(registry, times(2)).findResolver(anyString());
+        
+        // 本策略参数变更后重新编译
+        evaluator.onStrategyParamChanged(new StrategyParamChangedEvent(this, 100L, STRATEGY_ID, false));
+        EvaluationResult result = evaluator.evaluate(context(PARAM_VERSION), json);
+        verify(registry, times(4)).findResolver(anyString());
+        assertTrue(result.isPassed());
+        
+        // 参数版本变化也使用新的编译结果
+        evaluator.evaluate(context(PARAM_VERSION.plusSeconds(1)), json);
+        verify(registry, times(6)).findResolver(anyString());
+    }
+    
+    @Test
+    void testCollectFactorKeys() {
+        Map<String, Object> condition = group("ALL", rule("TEST.A", "GT", "TEST.B"));
+        condition.put("groups", List.of(group("ANY", rule("TEST.C", "GT", 1), rule("TEST.A", "LT", 100))));
+        
+        assertEquals(List.of("TEST.A", "TEST.B", "TEST.C"),
+                new ArrayList<>(evaluator.collectFactorKeys(json(condition))));
+        assertTrue(evaluator.collectFactorKeys("{not json").isEmpty());
+    }
+    
+    private EvaluationResult evaluate(Map<String, Object> condition) {
+        return evaluator.evaluate(context(PARAM_VERSION), json(condition));
+    }
+    
+    private static DecisionContext context(LocalDateTime paramVersion) {
+        return DecisionContext.builder()
+                .userId(100L)
+                .strategyId(STRATEGY_ID)
+                .tradingPairId(1L)
+                .paramSnapshot(ParamSnapshot.builder().paramVersion(paramVersion).build())
+                .build();
+    }
+    
+    @SafeVarargs
+    private static Map<String, Object> group(String mode, Map<String, Object>... rules) {
+        Map<String, Object> group = new HashMap<>();
+        group.put("mode", mode);
+        group.put("rules", List.of(rules));
+        return group;
+    }
+    
+    private static Map<String, Object> rule(String factor, String operator, Object value) {
+        Map<String, Object> rule = new HashMap<>();
+        rule.put("factor", factor);
+        rule.put("operator", operator);
+        rule.put("value", value);
+        rule.put("type", "NUMBER");
+        return rule;
+    }
+    
+    private static String json(Map<String, Object> condition) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(condition);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 测试用因子解析器（TEST.前缀，记录解析过的因子）
+     */
+    private static class TestFactorResolver implements FactorResolver {
+        
+        private final Map<String, BigDecimal> values = new HashMap<>();
+        private final List<String> resolved = new ArrayList<>();
+        
+        @Override
+        public Optional<TypedValue> resolve(String factorKey, DecisionContext ctx) {
+            resolved.add(factorKey);
+            BigDecimal value = values.get(factorKey);
+            return value != null ? Optional.of(TypedValue.ofNumber(value)) : Optional.empty();
+        }
+        
+        @Override
+        public String getSupportedPrefix() {
+            return "TEST.";
+        }
+    }
+}
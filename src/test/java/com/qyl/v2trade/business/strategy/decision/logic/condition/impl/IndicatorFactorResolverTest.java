@@ -0,0 +1,165 @@
+package com.qyl.v2trade.business.strategy.decision.logic.condition.impl;
+
+import com.qyl.v2trade.business.strategy.decision.context.DecisionContext;
+import com.qyl.v2trade.business.strategy.decision.context.snapshot.IndicatorSnapshot;
+import com.qyl.v2trade.business.strategy.decision.logic.condition.TypedValue;
+import com.qyl.v2trade.indicator.calculator.SubscriptionIndex;
+import com.qyl.v2trade.indicator.persistence.LatestIndicatorValueCache;
+import com.qyl.v2trade.indicator.persistence.MultiTimeframeIndicatorStore;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * IndicatorFactorResolver单元测试（最新指标值缓存回退）
+ */
+class IndicatorFactorResolverTest {
+    
+    private static final long USER_ID = 1L;
+    private static final long PAIR_ID = 100L;
+    private static final LocalDateTime AS_OF = LocalDateTime.of(2025, 1, 15, 10, 0);
+    
+    private LatestIndicatorValueCache cache;
+    private SubscriptionIndex subscriptionIndex;
+    private IndicatorFactorResolver resolver;
+    private final List<IndicatorSubscription> subscriptions = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        cache = mock(LatestIndicatorValueCache.class);
+        subscriptionIndex = mock(SubscriptionIndex.class);
+        when(subscriptionIndex.get(USER_ID, PAIR_ID, "1h")).thenReturn(subscriptions);
+        // 多周期存储未命中，走缓存回退
+        resolver = new IndicatorFactorResolver(cache, mock(MultiTimeframeIndicatorStore.class), subscriptionIndex);
+    }
+    
+    @Test
+    void testUsesSubscribedTimeframeAndVersion() {
+        subscriptions.add(subscription("RSI", "v2"));
+        when(cache.findCached(USER_ID, PAIR_ID, "1h", "RSI", "v2"))
+                .thenReturn(Optional.of(value("1h", "RSI", "v2", AS_OF.minusMinutes(30), "55")));
+        
+        Optional<TypedValue> resolved = resolver.resolve("IND.RSI@1h", context("5m"));
+        
+        assertTrue(resolved.isPresent());
+        assertEquals(0, new BigDecimal("55").compareTo(resolved.get().getNumberValue()));
+    }
+    
+    @Test
+    void testOtherTimeframeIsNotUsed() {
+        // 1h未订阅RSI：不回退到其他周期的值
+        when(cache.findCached(anyLong(), anyLong(), isNull(), anyString(), isNull()))
+                .thenReturn(Optional.of(value("5m", "RSI", "v1", AS_OF, "40")));
+        
+        assertTrue(resolver.resolve("IND.RSI@1h", context("5m")).isEmpty());
+        verify(cache, never()).findCached(anyLong(), anyLong(), isNull(), anyString(), any());
+    }
+    
+    @Test
+    void testUnspecifiedTimeframeUsesSnapshotTimeframeOnly() {
+        subscriptions.add(subscription("RSI", "v1"));
+        when(cache.findCached(USER_ID, PAIR_ID, "1h", "RSI", "v1"))
+                .thenReturn(Optional.of(value("1h", "RSI", "v1", AS_OF, "61")));
+        
+        assertTrue(resolver.resolve("IND.RSI", context("1h")).isPresent());
+        // 快照周期上没有订阅时不查找其他周期
+        assertTrue(resolver.resolve("IND.RSI", context("5m")).isEmpty());
+        // 没有快照周期时无法确定周期
+        assertTrue(resolver.resolve("IND.RSI", context(null)).isEmpty());
+    }
+    
+    @Test
+    void testValueOlderThanOneBarIsRejected() {
+        subscriptions.add(subscription("RSI", "v1"));
+        when(cache.findCached(USER_ID, PAIR_ID, "1h", "RSI", "v1"))
+                .thenReturn(Optional.of(value("1h", "RSI", "v1", AS_OF.minusHours(1), "50")))
+                .thenReturn(Optional.of(value("1h", "RSI", "v1", AS_OF.minusHours(1).minusMinutes(1), "50")))
+                .thenReturn(Optional.of(value("1h", "RSI", "v1", AS_OF.plusMinutes(1), "50")));
+        
+        assertTrue(resolver.resolve("IND.RSI@1h", context("5m")).isPresent(), "恰好一根Bar之前的值可用");
+        assertTrue(resolver.resolve("IND.RSI@1h", context("5m")).isEmpty(), "早于一根Bar的值过旧");
+        assertTrue(resolver.resolve("IND.RSI@1h", context("5m")).isEmpty(), "晚于截止时间的值不可用");
+    }
+    
+    @Test
+    void testAmbiguousVersionIsRejected() {
+        subscriptions.add(subscription("RSI", "v1"));
+        subscriptions.add(subscription("RSI", "v2"));
+        
+        assertTrue(resolver.resolve("IND.RSI@1h", context("5m")).isEmpty());
+        verify(cache, never()).findCached(anyLong(), anyLong(), anyString(), anyString(), anyString());
+    }
+    
+    @Test
+    void testExtraValueFromCache() {
+        subscriptions.add(subscription("MACD", "v1"));
+        IndicatorValue macd = value("1h", "MACD", "v1", AS_OF, "1.5");
+        macd.setExtraValues(Map.of("signal", new BigDecimal("0.8")));
+        when(cache.findCached(USER_ID, PAIR_ID, "1h", "MACD", "v1")).thenReturn(Optional.of(macd));
+        
+        Optional<TypedValue> resolved = resolver.resolve("IND.MACD.SIGNAL@1h", context("5m"));
+        
+        assertTrue(resolved.isPresent());
+        assertEquals(0, new BigDecimal("0.8").compareTo(resolved.get().getNumberValue()));
+    }
+    
+    // ==================== 辅助方法 ====================
+    
+    /**
+     * 决策上下文：快照只含其他指标（不命中快照），截止时间为AS_OF
+     */
+    private DecisionContext context(String snapshotTimeframe) {
+        IndicatorSnapshot snapshot = IndicatorSnapshot.builder()
+                .indicatorCode("EMA")
+                .timeframe(snapshotTimeframe)
+                .value(new BigDecimal("1"))
+                .asOfTime(AS_OF)
+                .build();
+        return DecisionContext.builder()
+                .userId(USER_ID)
+                .tradingPairId(PAIR_ID)
+                .indicatorSnapshot(snapshot)
+                .build();
+    }
+    
+    private IndicatorSubscription subscription(String code, String version) {
+        IndicatorSubscription subscription = new IndicatorSubscription();
+        subscription.setUserId(USER_ID);
+        subscription.setTradingPairId(PAIR_ID);
+        subscription.setTimeframe("1h");
+        subscription.setIndicatorCode(code);
+        subscription.setIndicatorVersion(version);
+        subscription.setEnabled(1);
+        return subscription;
+    }
+    
+    private IndicatorValue value(String timeframe, String code, String version, LocalDateTime barTime, String value) {
+        IndicatorValue indicatorValue = new IndicatorValue();
+        indicatorValue.setUserId(USER_ID);
+        indicatorValue.setTradingPairId(PAIR_ID);
+        indicatorValue.setTimeframe(timeframe);
+        indicatorValue.setIndicatorCode(code);
+        indicatorValue.setIndicatorVersion(version);
+        indicatorValue.setBarTime(barTime);
+        indicatorValue.setValue(new BigDecimal(value));
+        return indicatorValue;
+    }
+}
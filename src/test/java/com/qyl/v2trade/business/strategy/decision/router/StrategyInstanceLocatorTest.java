@@ -0,0 +1,209 @@
+package com.qyl.v2trade.business.strategy.decision.router;
+
+import com.qyl.v2trade.business.strategy.bootstrap.StrategyRuntimeRegistry;
+import com.qyl.v2trade.business.strategy.decision.event.StrategyParamChangedEvent;
+import com.qyl.v2trade.business.strategy.decision.logic.condition.ConditionEvaluator;
+import com.qyl.v2trade.business.strategy.factory.model.StrategyInstance;
+import com.qyl.v2trade.business.strategy.factory.model.StrategyRuntime;
+import com.qyl.v2trade.business.strategy.loader.StrategyConfigLoader;
+import com.qyl.v2trade.business.strategy.loader.model.StrategyDecisionConfig;
+import com.qyl.v2trade.business.strategy.model.entity.StrategyParam;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * StrategyInstanceLocator单元测试
+ */
+class StrategyInstanceLocatorTest {
+    
+    private static final Long PAIR_ID = 100L;
+    private static final Long OTHER_PAIR_ID = 200L;
+    
+    private ConditionEvaluator conditionEvaluator;
+    private StrategyConfigLoader configLoader;
+    private StrategyInstanceLocator locator;
+    
+    @BeforeEach
+    void setUp() {
+        conditionEvaluator = mock(ConditionEvaluator.class);
+        configLoader = mock(StrategyConfigLoader.class);
+        locator = new StrategyInstanceLocator(mock(StrategyRuntimeRegistry.class), conditionEvaluator, configLoader);
+    }
+    
+    @Test
+    void testTimeframeBoundAndUnboundReferences() {
+        StrategyRuntime bound = runtime(1L, "ENTRY_1", Set.of("IND.RSI@1h"), PAIR_ID);
+        StrategyRuntime unbound = runtime(2L, "ENTRY_2", Set.of("IND.RSI"), PAIR_ID);
+        locator.register(bound);
+        locator.register(unbound);
+        
+        // 指定周期的引用只匹配该周期，未指定周期的引用匹配任意周期
+        assertEquals(List.of(instance(bound, PAIR_ID), instance(unbound, PAIR_ID)),
+                locator.locateByTradingPairAndIndicator(PAIR_ID, "RSI", "1h"));
+        assertEquals(List.of(instance(unbound, PAIR_ID)),
+                locator.locateByTradingPairAndIndicator(PAIR_ID, "RSI", "5m"));
+        assertEquals(List.of(instance(unbound, PAIR_ID)),
+                locator.locateByTradingPairAndIndicator(PAIR_ID, "RSI", null));
+        assertTrue(locator.locateByTradingPairAndIndicator(PAIR_ID, "MACD", "1h").isEmpty());
+        assertTrue(locator.locateByTradingPairAndIndicator(OTHER_PAIR_ID, "RSI", "1h").isEmpty());
+    }
+    
+    @Test
+    void testSameStrategyReferencingBothFormsIsReturnedOnce() {
+        StrategyRuntime runtime = runtime(1L, "ENTRY_1", Set.of("IND.RSI@1h", "IND.RSI"), PAIR_ID);
+        locator.register(runtime);
+        
+        assertEquals(List.of(instance(runtime, PAIR_ID)),
+                locator.locateByTradingPairAndIndicator(PAIR_ID, "RSI", "1h"));
+    }
+    
+    @Test
+    void testIndicatorCodeIsCaseInsensitive() {
+        StrategyRuntime runtime = runtime(1L, "ENTRY_1", Set.of("IND.rsi.value@1h"), PAIR_ID);
+        locator.register(runtime);
+        
+        assertEquals(List.of(instance(runtime, PAIR_ID)),
+                locator.locateByTradingPairAndIndicator(PAIR_ID, "RSI", "1h"));
+        assertEquals(List.of(instance(runtime, PAIR_ID)),
+                locator.locateByTradingPairAndIndicator(PAIR_ID, "Rsi", "1h"));
+    }
+    
+    @Test
+    void testNonIndicatorFactorsAreIgnored() {
+        StrategyRuntime runtime = runtime(1L, "ENTRY_1", Set.of("STATE.PHASE", "SIGNAL.SIDE"), PAIR_ID);
+        locator.register(runtime);
+        
+        assertEquals(List.of(instance(runtime, PAIR_ID)), locator.locateByTradingPair(PAIR_ID));
+        assertTrue(locator.locateByTradingPairAndIndicator(PAIR_ID, "STATE", null).isEmpty());
+    }
+    
+    @Test
+    void testRegisterAndUnregister() {
+        StrategyRuntime first = runtime(1L, "ENTRY_1", Set.of("IND.RSI"), PAIR_ID, OTHER_PAIR_ID);
+        StrategyRuntime second = runtime(2L, "ENTRY_2", Set.of("IND.RSI"), PAIR_ID);
+        locator.register(first);
+        locator.register(second);
+        
+        assertEquals(List.of(instance(first, PAIR_ID), instance(second, PAIR_ID)),
+                sortByStrategy(locator.locateByTradingPair(PAIR_ID)));
+        assertEquals(List.of(instance(first, OTHER_PAIR_ID)), locator.locateByTradingPair(OTHER_PAIR_ID));
+        
+        locator.unregister(1L);
+        
+        assertEquals(List.of(instance(second, PAIR_ID)), locator.locateByTradingPair(PAIR_ID));
+        assertTrue(locator.locateByTradingPair(OTHER_PAIR_ID).isEmpty());
+        assertEquals(List.of(instance(second, PAIR_ID)),
+                locator.locateByTradingPairAndIndicator(PAIR_ID, "RSI", "1h"));
+        
+        // 重复注销无影响
+        locator.unregister(1L);
+        assertEquals(List.of(instance(second, PAIR_ID)), locator.locateByTradingPair(PAIR_ID));
+    }
+    
+    @Test
+    void testReRegisterReplacesPreviousRegistration() {
+        locator.register(runtime(1L, "ENTRY_OLD", Set.of("IND.RSI"), PAIR_ID));
+        StrategyRuntime replaced = runtime(1L, "ENTRY_NEW", Set.of("IND.MACD"), OTHER_PAIR_ID);
+        locator.register(replaced);
+        
+        assertTrue(locator.locateByTradingPair(PAIR_ID).isEmpty());
+        assertTrue(locator.locateByTradingPairAndIndicator(OTHER_PAIR_ID, "RSI", "1h").isEmpty());
+        assertEquals(List.of(instance(replaced, OTHER_PAIR_ID)),
+                locator.locateByTradingPairAndIndicator(OTHER_PAIR_ID, "MACD", "1h"));
+    }
+    
+    @Test
+    void testParamChangeRecollectsIndicatorRefs() {
+        StrategyRuntime runtime = runtime(1L, "ENTRY_OLD", Set.of("IND.RSI@1h"), PAIR_ID);
+        locator.register(runtime);
+        
+        StrategyParam changed = param("ENTRY_NEW");
+        when(conditionEvaluator.collectFactorKeys("ENTRY_NEW")).thenReturn(Set.of("IND.MACD.hist@4h"));
+        when(configLoader.loadDecisionConfig(1L))
+                .thenReturn(StrategyDecisionConfig.builder().strategyId(1L).param(changed).build());
+        
+        locator.onStrategyParamChanged(new StrategyParamChangedEvent(this, 1L, 1L, false));
+        
+        assertTrue(locator.locateByTradingPairAndIndicator(PAIR_ID, "RSI", "1h").isEmpty());
+        assertEquals(List.of(instance(runtime, PAIR_ID)),
+                locator.locateByTradingPairAndIndicator(PAIR_ID, "MACD", "4h"));
+        assertTrue(locator.locateByTradingPairAndIndicator(PAIR_ID, "MACD", "1h").isEmpty());
+        // 实例不随参数变更而变化
+        assertEquals(List.of(instance(runtime, PAIR_ID)), locator.locateByTradingPair(PAIR_ID));
+    }
+    
+    @Test
+    void testParamDeletedClearsIndicatorRefs() {
+        StrategyRuntime runtime = runtime(1L, "ENTRY_OLD", Set.of("IND.RSI"), PAIR_ID);
+        locator.register(runtime);
+        when(configLoader.loadDecisionConfig(1L)).thenReturn(null);
+        
+        locator.onStrategyParamChanged(new StrategyParamChangedEvent(this, 1L, 1L, true));
+        
+        assertTrue(locator.locateByTradingPairAndIndicator(PAIR_ID, "RSI", "1h").isEmpty());
+        assertEquals(List.of(instance(runtime, PAIR_ID)), locator.locateByTradingPair(PAIR_ID));
+    }
+    
+    @Test
+    void testParamChangeOfUnregisteredStrategyIsIgnored() {
+        locator.onStrategyParamChanged(new StrategyParamChangedEvent(this, 1L, 9L, false));
+        
+        verify(configLoader, never()).loadDecisionConfig(anyLong());
+        assertTrue(locator.locateByTradingPair(PAIR_ID).isEmpty());
+    }
+    
+    @Test
+    void testNullArguments() {
+        locator.register(runtime(1L, "ENTRY_1", Set.of("IND.RSI"), PAIR_ID));
+        
+        assertTrue(locator.locateByTradingPair(null).isEmpty());
+        assertTrue(locator.locateByTradingPairAndIndicator(null, "RSI", "1h").isEmpty());
+        assertTrue(locator.locateByTradingPairAndIndicator(PAIR_ID, null, "1h").isEmpty());
+    }
+    
+    // ==================== 辅助方法 ====================
+    
+    /**
+     * 构建策略运行时：入场条件引用给定因子，出场条件为空
+     */
+    private StrategyRuntime runtime(Long strategyId, String entryCondition, Set<String> factorKeys, Long... pairIds) {
+        when(conditionEvaluator.collectFactorKeys(entryCondition)).thenReturn(factorKeys);
+        Map<Long, StrategyInstance> instances = new LinkedHashMap<>();
+        for (Long pairId : pairIds) {
+            instances.put(pairId, StrategyInstance.builder().strategyId(strategyId).tradingPairId(pairId).build());
+        }
+        return StrategyRuntime.builder()
+                .strategyId(strategyId)
+                .param(param(entryCondition))
+                .instances(instances)
+                .build();
+    }
+    
+    private StrategyParam param(String entryCondition) {
+        StrategyParam param = new StrategyParam();
+        param.setEntryCondition(entryCondition);
+        return param;
+    }
+    
+    private StrategyInstance instance(StrategyRuntime runtime, Long pairId) {
+        return runtime.getInstance(pairId);
+    }
+    
+    private List<StrategyInstance> sortByStrategy(List<StrategyInstance> instances) {
+        return instances.stream()
+                .sorted((a, b) -> a.getStrategyId().compareTo(b.getStrategyId()))
+                .toList();
+    }
+}
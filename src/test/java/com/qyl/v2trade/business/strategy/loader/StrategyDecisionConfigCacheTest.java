@@ -0,0 +1,94 @@
+package com.qyl.v2trade.business.strategy.loader;
+
+import com.qyl.v2trade.business.strategy.loader.model.StrategyDecisionConfig;
+import com.qyl.v2trade.business.strategy.mapper.StrategyDefinitionMapper;
+import com.qyl.v2trade.business.strategy.mapper.StrategyParamMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * StrategyDecisionConfigCache单元测试
+ */
+class StrategyDecisionConfigCacheTest {
+    
+    private static final Long STRATEGY_ID = 1L;
+    
+    private StrategyConfigLoader configLoader;
+    private StrategyDecisionConfigCache cache;
+    
+    @BeforeEach
+    void setUp() {
+        configLoader = mock(StrategyConfigLoader.class);
+        cache = new StrategyDecisionConfigCache(configLoader,
+            mock(StrategyDefinitionMapper.class), mock(StrategyParamMapper.class));
+    }
+    
+    @Test
+    void testGetLoadsOnceAndCaches() {
+        StrategyDecisionConfig config = config(1);
+        when(configLoader.loadDecisionConfig(STRATEGY_ID)).thenReturn(config);
+        
+        assertSame(config, cache.get(STRATEGY_ID));
+        assertSame(config, cache.get(STRATEGY_ID));
+        verify(configLoader, times(1)).loadDecisionConfig(STRATEGY_ID);
+    }
+    
+    @Test
+    void testReloadReplacesCachedSnapshot() {
+        StrategyDecisionConfig before = config(1);
+        StrategyDecisionConfig after = config(2);
+        when(configLoader.loadDecisionConfig(STRATEGY_ID)).thenReturn(before, after);
+        cache.get(STRATEGY_ID);
+        
+        cache.reload(STRATEGY_ID);
+        
+        assertSame(after, cache.get(STRATEGY_ID));
+    }
+    
+    @Test
+    void testLoadOverlappingReloadIsNotCached() throws Exception {
+        // 首次加载读到提交前的快照，加载期间事务提交并触发reload
+        StrategyDecisionConfig stale = config(1);
+        StrategyDecisionConfig fresh = config(2);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        when(configLoader.loadDecisionConfig(STRATEGY_ID)).thenAnswer(invocation -> {
+            if (loads.incrementAndGet() == 1) {
+                loading.countDown();
+                assertTrue(committed.await(5, TimeUnit.SECONDS));
+                return stale;
+            }
+            return fresh;
+        });
+        
+        CompletableFuture<StrategyDecisionConfig> first = CompletableFuture.supplyAsync(() -> cache.get(STRATEGY_ID));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.reload(STRATEGY_ID);
+        committed.countDown();
+        
+        assertSame(fresh, first.get(5, TimeUnit.SECONDS));
+        assertSame(fresh, cache.get(STRATEGY_ID));
+    }
+    
+    // ==================== 辅助方法 ====================
+    
+    private StrategyDecisionConfig config(int version) {
+        return StrategyDecisionConfig.builder()
+            .strategyId(STRATEGY_ID)
+            .definitionVersion(LocalDateTime.of(2025, 1, 1, 0, version))
+            .build();
+    }
+}
@@ -0,0 +1,162 @@
+package com.qyl.v2trade.common.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AsyncJobService单元测试
+ */
+class AsyncJobServiceTest {
+    
+    private TestJobService service;
+    
+    @BeforeEach
+    void setUp() {
+        service = new TestJobService(2);
+        service.initPool("Test-Job-Worker-", 2);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+    
+    @Test
+    void testJobCompletesWhenAllTasksDone() throws Exception {
+        TestJob job = service.submit(3, null);
+        
+        assertTrue(service.finished.await(5, TimeUnit.SECONDS));
+        AsyncJobStatus snapshot = job.snapshot();
+        assertEquals("COMPLETED", snapshot.getStatus());
+        assertEquals(3, snapshot.getTotalTasks());
+        assertEquals(3, snapshot.getCompletedTasks());
+        assertEquals(100.0, snapshot.getProgressPercent());
+    }
+    
+    @Test
+    void testFailedTaskMarksJobFailed() throws Exception {
+        TestJob job = service.submit(2, "boom");
+        
+        assertTrue(service.finished.await(5, TimeUnit.SECONDS));
+        AsyncJobStatus snapshot = job.snapshot();
+        assertEquals("FAILED", snapshot.getStatus());
+        assertEquals(2, snapshot.getFailedTasks());
+        assertEquals("boom", snapshot.getLastError());
+    }
+    
+    @Test
+    void testCancelSkipsPendingTasks() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TestJob job = new TestJob(service.newJobId(), 1);
+        List<Runnable> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            awaitQuietly(release);
+            if (job.isCancelRequested()) {
+                job.recordTaskSkipped();
+            } else {
+                job.recordTaskCompleted();
+            }
+        });
+        service.launch(job, tasks);
+        
+        assertTrue(service.cancel(job.getJobId()));
+        release.countDown();
+        
+        assertTrue(service.finished.await(5, TimeUnit.SECONDS));
+        assertEquals(AsyncJob.Status.CANCELLED, job.getStatus());
+        assertEquals(1, job.snapshot().getSkippedTasks());
+        // 已结束的任务不能再取消
+        assertFalse(service.cancel(job.getJobId()));
+    }
+    
+    @Test
+    void testEvictsOldestFinishedJobs() throws Exception {
+        List<String> jobIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            service.finished = new CountDownLatch(1);
+            jobIds.add(service.submit(1, null).getJobId());
+            assertTrue(service.finished.await(5, TimeUnit.SECONDS));
+            Thread.sleep(2);
+        }
+        
+        // 最多保留2个已结束任务：提交第4个时清理最早的两个
+        assertNull(service.getJob(jobIds.get(0)));
+        assertNull(service.getJob(jobIds.get(1)));
+        assertNotNull(service.getJob(jobIds.get(2)));
+        assertEquals(jobIds.get(3), service.listJobs().get(0).getJobId());
+    }
+    
+    // ==================== 辅助方法 ====================
+    
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static class TestJob extends AsyncJob<AsyncJobStatus> {
+        
+        TestJob(String jobId, int totalTasks) {
+            super(jobId, 0L, 1L, totalTasks);
+        }
+        
+        @Override
+        protected AsyncJobStatus newStatus() {
+            return new AsyncJobStatus();
+        }
+        
+        @Override
+        protected void fillStatus(AsyncJobStatus snapshot, long elapsedMs) {
+        }
+    }
+    
+    private static class TestJobService extends AsyncJobService<TestJob> {
+        
+        private final int maxRetained;
+        private volatile CountDownLatch finished = new CountDownLatch(1);
+        
+        TestJobService(int maxRetained) {
+            this.maxRetained = maxRetained;
+        }
+        
+        TestJob submit(int taskCount, String error) {
+            TestJob job = new TestJob(newJobId(), taskCount);
+            List<Runnable> tasks = new ArrayList<>();
+            for (int i = 0; i < taskCount; i++) {
+                tasks.add(() -> {
+                    if (error != null) {
+                        job.recordTaskFailed(error);
+                    } else {
+                        job.recordTaskCompleted();
+                    }
+                });
+            }
+            return launch(job, tasks);
+        }
+        
+        @Override
+        protected String jobName() {
+            return "测试任务";
+        }
+        
+        @Override
+        protected int maxRetainedJobs() {
+            return maxRetained;
+        }
+        
+        @Override
+        protected void onJobFinished(TestJob job) {
+            finished.countDown();
+        }
+    }
+}
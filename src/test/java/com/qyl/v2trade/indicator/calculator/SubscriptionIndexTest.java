@@ -0,0 +1,89 @@
+package com.qyl.v2trade.indicator.calculator;
+
+import com.qyl.v2trade.indicator.repository.IndicatorSubscriptionRepository;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * SubscriptionIndex单元测试
+ */
+class SubscriptionIndexTest {
+    
+    private IndicatorSubscriptionRepository repository;
+    private SubscriptionIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        repository = mock(IndicatorSubscriptionRepository.class);
+        index = new SubscriptionIndex();
+        ReflectionTestUtils.setField(index, "subscriptionRepository", repository);
+        
+        when(repository.getVersion()).thenReturn("1:2025-01-15T10:00");
+        when(repository.listAllEnabled()).thenReturn(List.of(subscription(1L, "RSI", 1)));
+        index.reload();
+    }
+    
+    @Test
+    void testUnchangedVersionDoesNotReload() {
+        index.checkVersion();
+        
+        verify(repository, times(1)).listAllEnabled();
+    }
+    
+    @Test
+    void testApplyUpdatesIndexWithoutAdvancingVersion() {
+        index.apply(subscription(2L, "MACD", 1));
+        
+        assertEquals(2, index.get(100L, "5m").size());
+        // 只有全量加载读取版本
+        verify(repository, times(1)).getVersion();
+    }
+    
+    @Test
+    void testConcurrentExternalChangeIsPickedUpAfterApply() {
+        // API写入和另一节点的写入落在同一秒：表版本同时包含两者
+        when(repository.getVersion()).thenReturn("3:2025-01-15T10:01");
+        index.apply(subscription(2L, "MACD", 1));
+        when(repository.listAllEnabled()).thenReturn(List.of(
+                subscription(1L, "RSI", 1), subscription(2L, "MACD", 1), subscription(3L, "EMA", 1)));
+        
+        index.checkVersion();
+        
+        assertEquals(3, index.get(100L, "5m").size());
+        
+        // 全量加载后版本已推进，不再重复加载
+        index.checkVersion();
+        verify(repository, times(2)).listAllEnabled();
+    }
+    
+    @Test
+    void testApplyDisabledRemovesSubscription() {
+        index.apply(subscription(1L, "RSI", 0));
+        
+        assertTrue(index.get(100L, "5m").isEmpty());
+        verify(repository, never()).findByPairAndTimeframe(100L, "5m");
+    }
+    
+    private IndicatorSubscription subscription(Long id, String code, int enabled) {
+        IndicatorSubscription subscription = new IndicatorSubscription();
+        subscription.setId(id);
+        subscription.setUserId(1L);
+        subscription.setTradingPairId(100L);
+        subscription.setTimeframe("5m");
+        subscription.setIndicatorCode(code);
+        subscription.setIndicatorVersion("v1");
+        subscription.setEnabled(enabled);
+        return subscription;
+    }
+}
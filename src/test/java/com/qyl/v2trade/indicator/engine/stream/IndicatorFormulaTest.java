@@ -0,0 +1,139 @@
+package com.qyl.v2trade.indicator.engine.stream;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IndicatorFormula单元测试
+ */
+class IndicatorFormulaTest {
+    
+    @Test
+    void testParseErrorReportsPosition() {
+        assertParseError("ema(close, 12", "位置14", "缺少 ')'");
+        assertParseError("close + * 2", "位置9", "无法识别的字符 '*'");
+        assertParseError("close 2", "位置7", "多余的字符 '2'");
+        assertParseError("close +", "位置8", "公式不完整");
+        assertParseError("close + 1.2.3", "位置9", "数字格式错误");
+    }
+    
+    @Test
+    void testEmptyOrTooLongFormula() {
+        assertThrows(IllegalArgumentException.class, () -> IndicatorFormula.parse(" ", Map.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> IndicatorFormula.parse("close+".repeat(200) + "close", Map.of()));
+    }
+    
+    @Test
+    void testUnknownFunctionAndIdentifier() {
+        assertParseError("foo(close, 3)", "位置1", "未知函数 'foo'");
+        assertParseError("close + bar(1)", "位置9", "未知函数 'bar'");
+        assertParseError("close + fast", "位置9", "未知标识符 'fast'");
+    }
+    
+    @Test
+    void testArityErrors() {
+        assertParseError("ema(close)", "位置1", "ema需要2个参数，实际1个");
+        assertParseError("close - tr(close)", "位置9", "tr需要0个参数，实际1个");
+        assertParseError("max(close, open, high)", "位置1", "max需要2个参数，实际3个");
+        assertParseError("sma(close, close)", "位置1", "sma的周期只能是整数或参数名");
+    }
+    
+    @Test
+    void testInvalidPeriod() {
+        assertThrows(IllegalArgumentException.class, () -> IndicatorFormula.parse("sma(close, 2.5)", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> IndicatorFormula.parse("sma(close, 0)", Map.of()));
+        // 参数的默认值在解析时校验
+        assertThrows(IllegalArgumentException.class,
+                () -> IndicatorFormula.parse("sma(close, n)", Map.of("n", -3)));
+    }
+    
+    @Test
+    void testRequiredBars() {
+        assertEquals(1, requiredBars("close"));
+        assertEquals(1, requiredBars("(high + low) / 2"));
+        assertEquals(20, requiredBars("sma(close, 20)"));
+        assertEquals(14, requiredBars("ema(sma(close, 5), 10)"), "嵌套窗口：5 + 10 - 1");
+        assertEquals(11, requiredBars("roc(close, 10)"), "roc需要n根历史");
+        assertEquals(2, requiredBars("change(close)"));
+        assertEquals(15, requiredBars("rma(change(close), 14)"));
+        assertEquals(26, requiredBars("max(ema(close, 12), sma(close, 26))"), "取各分支的最大值");
+    }
+    
+    @Test
+    void testRequiredBarsWithParameters() {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("fast", 12);
+        defaults.put("slow", 26);
+        defaults.put("signal", null);
+        IndicatorFormula formula = IndicatorFormula.parse("ema(close, fast) - ema(close, slow)", defaults);
+        
+        assertEquals(26, formula.requiredBars(Map.of()));
+        assertEquals(30, formula.requiredBars(Map.of("slow", 30)));
+        assertEquals(Set.of("fast", "slow"), formula.referencedParameters());
+        
+        // 没有默认值的参数：解析时跳过，订阅时必须提供
+        IndicatorFormula withoutDefault = IndicatorFormula.parse("sma(close, signal)", defaults);
+        assertEquals(9, withoutDefault.requiredBars(Map.of("signal", "9")));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> withoutDefault.requiredBars(Map.of()));
+        assertTrue(e.getMessage().contains("缺少参数: signal"), e.getMessage());
+    }
+    
+    @Test
+    void testSharesNodesWithBuiltinMacd() {
+        IndicatorGraph graph = new IndicatorGraph();
+        StreamIndicators.CompiledIndicator macd = StreamIndicators.compile("MACD",
+                Map.of("shortPeriod", 12, "longPeriod", 26, "signalPeriod", 9), graph);
+        int nodeCount = graph.getNodeCount();
+        
+        StreamIndicators.CompiledIndicator formula = IndicatorFormula.parse("ema(close,12)-ema(close,26)", Map.of())
+                .compile(Map.of(), graph);
+        
+        assertEquals(nodeCount, graph.getNodeCount(), "公式不应新增节点");
+        assertSame(macd.outputs().get("macd"), formula.outputs().get("value"), "公式应复用MACD线节点");
+        assertEquals(26, formula.requiredBars());
+        
+        double price = 100;
+        for (int i = 0; i < 200; i++) {
+            price += Math.sin(i / 7.0) * 1.5;
+            graph.update(price - 0.5, price + 1, price - 1, price, 1000 + i);
+            assertEquals(macd.values().get("macd"), formula.values().get("value"), "index=" + i);
+        }
+        assertFalse(Double.isNaN(formula.values().get("value")));
+    }
+    
+    @Test
+    void testFormulaMatchesMacdOnSeparateGraph() {
+        // 独立的图上编译，结果与MACD线完全一致
+        IndicatorGraph macdGraph = new IndicatorGraph();
+        IndicatorGraph formulaGraph = new IndicatorGraph();
+        StreamIndicators.CompiledIndicator macd = StreamIndicators.compile("MACD", Map.of(), macdGraph);
+        StreamIndicators.CompiledIndicator formula = IndicatorFormula.parse("ema(close, 12) - ema(close, 26)", Map.of())
+                .compile(Map.of(), formulaGraph);
+        
+        double price = 100;
+        for (int i = 0; i < 100; i++) {
+            price += Math.cos(i / 5.0);
+            macdGraph.update(price, price + 1, price - 1, price, 1000);
+            formulaGraph.update(price, price + 1, price - 1, price, 1000);
+            assertEquals(macd.values().get("macd"), formula.values().get("value"), "index=" + i);
+        }
+    }
+    
+    private static int requiredBars(String source) {
+        return IndicatorFormula.parse(source, Map.of()).requiredBars(Map.of());
+    }
+    
+    private static void assertParseError(String source, String position, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> IndicatorFormula.parse(source, Map.of()), source);
+        assertTrue(e.getMessage().contains(position), source + " -> " + e.getMessage());
+        assertTrue(e.getMessage().contains(message), source + " -> " + e.getMessage());
+    }
+}
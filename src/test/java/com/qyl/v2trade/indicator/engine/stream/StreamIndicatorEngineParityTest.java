@@ -0,0 +1,197 @@
+package com.qyl.v2trade.indicator.engine.stream;
+
+import com.qyl.v2trade.indicator.domain.model.NormalizedBar;
+import com.qyl.v2trade.indicator.engine.IndicatorComputeRequest;
+import com.qyl.v2trade.indicator.engine.IndicatorResult;
+import com.qyl.v2trade.indicator.engine.ta4j.Ta4jIndicatorEngine;
+import com.qyl.v2trade.indicator.series.BarSeriesView;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StreamIndicatorEngine与Ta4jIndicatorEngine结果一致性单元测试
+ *
+ * <p>固定的Bar序列上逐根计算（流式引擎走增量路径），预热期之后所有结果键在8位小数内一致
+ */
+class StreamIndicatorEngineParityTest {
+    
+    private static final long PAIR_ID = 1L;
+    private static final String TIMEFRAME = "5m";
+    private static final int BAR_COUNT = 400;
+    
+    /**
+     * 预热Bar数量（EMA/Wilder类指标的种子差异在此之前收敛）
+     */
+    private static final int WARM_UP_BARS = 250;
+    
+    /**
+     * 两边都按8位小数输出，允许末位舍入差1
+     */
+    private static final BigDecimal TOLERANCE = new BigDecimal("0.00000001");
+    
+    private static ListBarSeries series;
+    
+    @BeforeAll
+    static void createFixture() {
+        series = new ListBarSeries(createBars(BAR_COUNT));
+    }
+    
+    @Test
+    void testSma() {
+        assertParity("SMA", Map.of("period", 20));
+    }
+    
+    @Test
+    void testEma() {
+        assertParity("EMA", Map.of("period", 20));
+    }
+    
+    @Test
+    void testWma() {
+        assertParity("WMA", Map.of("period", 20));
+    }
+    
+    @Test
+    void testRsi() {
+        assertParity("RSI", Map.of("period", 14));
+    }
+    
+    @Test
+    void testAtr() {
+        assertParity("ATR", Map.of("period", 14));
+    }
+    
+    @Test
+    void testBoll() {
+        assertParity("BOLL", Map.of("period", 20, "deviation", 2.0));
+    }
+    
+    @Test
+    void testMacd() {
+        assertParity("MACD", Map.of("shortPeriod", 12, "longPeriod", 26, "signalPeriod", 9));
+    }
+    
+    @Test
+    void testStochastic() {
+        // D = SMA(K, dPeriod)，两个引擎一致
+        assertParity("Stochastic", Map.of("kPeriod", 14, "dPeriod", 3));
+    }
+    
+    @Test
+    void testMomentum() {
+        assertParity("Momentum", Map.of("period", 10));
+    }
+    
+    private void assertParity(String code, Map<String, Object> parameters) {
+        Ta4jIndicatorEngine ta4jEngine = new Ta4jIndicatorEngine();
+        StreamIndicatorEngine streamEngine = new StreamIndicatorEngine();
+        
+        int compared = 0;
+        for (int i = 0; i < series.size(); i++) {
+            IndicatorComputeRequest request = new IndicatorComputeRequest(code, "v1", parameters,
+                    PAIR_ID, TIMEFRAME, series.getBarTime(i));
+            IndicatorResult actual = streamEngine.compute(request, series);
+            if (i < WARM_UP_BARS) {
+                continue;
+            }
+            IndicatorResult expected = ta4jEngine.compute(request, series);
+            assertEquals(IndicatorResult.Status.SUCCESS, expected.status(), code + " ta4j计算失败: index=" + i);
+            assertEquals(IndicatorResult.Status.SUCCESS, actual.status(), code + " 流式计算失败: index=" + i);
+            assertEquals(expected.values().keySet(), actual.values().keySet(), code + " 结果键不一致");
+            for (Map.Entry<String, BigDecimal> entry : expected.values().entrySet()) {
+                BigDecimal diff = entry.getValue().subtract(actual.values().get(entry.getKey())).abs();
+                assertTrue(diff.compareTo(TOLERANCE) <= 0, code + "." + entry.getKey() + " 不一致: index=" + i
+                        + ", ta4j=" + entry.getValue() + ", stream=" + actual.values().get(entry.getKey()));
+            }
+            compared++;
+        }
+        assertEquals(BAR_COUNT - WARM_UP_BARS, compared);
+    }
+    
+    /**
+     * 确定性的随机游走（固定种子，价格保留两位小数）
+     */
+    private static List<NormalizedBar> createBars(int count) {
+        List<NormalizedBar> bars = new ArrayList<>(count);
+        LocalDateTime barTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+        BigDecimal price = new BigDecimal("100.00");
+        long seed = 42;
+        for (int i = 0; i < count; i++) {
+            seed = nextSeed(seed);
+            BigDecimal close = price.multiply(BigDecimal.valueOf(100_000 + (seed >>> 11) % 2001 - 1000))
+                    .movePointLeft(5).setScale(2, java.math.RoundingMode.HALF_UP);
+            seed = nextSeed(seed);
+            BigDecimal wick = price.multiply(BigDecimal.valueOf((seed >>> 11) % 501))
+                    .movePointLeft(5).setScale(2, java.math.RoundingMode.HALF_UP);
+            seed = nextSeed(seed);
+            BigDecimal volume = BigDecimal.valueOf(1000 + (seed >>> 11) % 10_000);
+            bars.add(NormalizedBar.of(PAIR_ID, "BTC-USDT", TIMEFRAME, barTime, price,
+                    price.max(close).add(wick), price.min(close).subtract(wick), close, volume));
+            price = close;
+            barTime = barTime.plusMinutes(5);
+        }
+        return bars;
+    }
+    
+    private static long nextSeed(long seed) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed;
+    }
+    
+    /**
+     * 基于List的只读BarSeries
+     */
+    private static class ListBarSeries implements BarSeriesView {
+        
+        private final List<NormalizedBar> bars;
+        
+        ListBarSeries(List<NormalizedBar> bars) {
+            this.bars = bars;
+        }
+        
+        @Override
+        public List<NormalizedBar> getBars() {
+            return bars;
+        }
+        
+        @Override
+        public NormalizedBar getBar(int index) {
+            return bars.get(index);
+        }
+        
+        @Override
+        public int size() {
+            return bars.size();
+        }
+        
+        @Override
+        public NormalizedBar getLatestBar() {
+            return bars.get(bars.size() - 1);
+        }
+        
+        @Override
+        public List<NormalizedBar> getBarsBefore(LocalDateTime beforeTime) {
+            return bars.stream().filter(bar -> bar.barTime().isBefore(beforeTime)).toList();
+        }
+        
+        @Override
+        public Long getTradingPairId() {
+            return PAIR_ID;
+        }
+        
+        @Override
+        public String getTimeframe() {
+            return TIMEFRAME;
+        }
+    }
+}
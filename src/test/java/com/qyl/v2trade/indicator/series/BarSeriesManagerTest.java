@@ -0,0 +1,220 @@
+package com.qyl.v2trade.indicator.series;
+
+import com.qyl.v2trade.indicator.calculator.SubscriptionIndex;
+import com.qyl.v2trade.indicator.config.IndicatorSeriesProperties;
+import com.qyl.v2trade.indicator.domain.event.BarClosedEvent;
+import com.qyl.v2trade.indicator.domain.model.NormalizedBar;
+import com.qyl.v2trade.indicator.repository.entity.IndicatorSubscription;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * BarSeriesManager单元测试（按订阅调整序列深度）
+ */
+class BarSeriesManagerTest {
+    
+    private static final long PAIR_ID = 1L;
+    private static final String TIMEFRAME = "5m";
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 15, 10, 0);
+    
+    private QuestDbKlineReader klineReader;
+    private SubscriptionIndex subscriptionIndex;
+    private SeriesDepthPlanner depthPlanner;
+    private BarSeriesManager manager;
+    
+    @BeforeEach
+    void setUp() {
+        klineReader = mock(QuestDbKlineReader.class);
+        subscriptionIndex = mock(SubscriptionIndex.class);
+        depthPlanner = mock(SeriesDepthPlanner.class);
+        manager = new BarSeriesManager();
+        ReflectionTestUtils.setField(manager, "klineReader", klineReader);
+        ReflectionTestUtils.setField(manager, "subscriptionIndex", subscriptionIndex);
+        ReflectionTestUtils.setField(manager, "depthPlanner", depthPlanner);
+        ReflectionTestUtils.setField(manager, "seriesProperties", new IndicatorSeriesProperties());
+        
+        // 初始没有订阅：深度10
+        when(subscriptionIndex.get(PAIR_ID, TIMEFRAME)).thenReturn(List.of());
+        when(depthPlanner.depthFor(List.of())).thenReturn(10);
+        manager.onBarClosed(event(0));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        manager.destroy();
+    }
+    
+    @Test
+    void testDeepeningOnBarCloseLoadsHistoryOffEventThread() throws Exception {
+        subscribe(20);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        AtomicReference<String> loadThread = new AtomicReference<>();
+        when(klineReader.loadLatestBars(PAIR_ID, TIMEFRAME, 20)).thenAnswer(invocation -> {
+            loadThread.set(Thread.currentThread().getName());
+            release.await(5, TimeUnit.SECONDS);
+            loaded.countDown();
+            return history(-15, 0);
+        });
+        
+        // QuestDB加载阻塞期间BarClosedEvent照常追加
+        manager.onBarClosed(event(1));
+        assertEquals(2, manager.getSeries(PAIR_ID, TIMEFRAME).size());
+        
+        release.countDown();
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        assertEquals("BarSeries-Resize", loadThread.get());
+        awaitSize(17);
+        
+        BarSeriesView series = manager.getSeries(PAIR_ID, TIMEFRAME);
+        assertEquals(BASE_TIME.minusMinutes(15 * 5), series.getBarTime(0));
+        assertEquals(BASE_TIME.plusMinutes(5), series.getBarTime(16));
+    }
+    
+    @Test
+    void testConcurrentPlansLoadHistoryOnce() throws Exception {
+        subscribe(20);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(klineReader.loadLatestBars(PAIR_ID, TIMEFRAME, 20)).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return history(-15, 0);
+        });
+        
+        Thread first = new Thread(() -> manager.ensureSeries(PAIR_ID, TIMEFRAME));
+        first.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        
+        // 同一订阅快照已在调整中：不重复加载
+        manager.ensureSeries(PAIR_ID, TIMEFRAME);
+        manager.onBarClosed(event(1));
+        
+        release.countDown();
+        first.join(5000);
+        
+        verify(klineReader, times(1)).loadLatestBars(PAIR_ID, TIMEFRAME, 20);
+        assertEquals(17, manager.getSeries(PAIR_ID, TIMEFRAME).size());
+    }
+    
+    @Test
+    void testStalePlanIsNotApplied() throws Exception {
+        subscribe(20);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(klineReader.loadLatestBars(PAIR_ID, TIMEFRAME, 20)).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return history(-19, 0);
+        });
+        
+        Thread first = new Thread(() -> manager.ensureSeries(PAIR_ID, TIMEFRAME));
+        first.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        
+        // 加载期间订阅又变化为深度5：立即变浅，旧规划的加载结果不再应用
+        subscribe(5);
+        manager.ensureSeries(PAIR_ID, TIMEFRAME);
+        release.countDown();
+        first.join(5000);
+        
+        for (int i = 1; i <= 8; i++) {
+            manager.onBarClosed(event(i));
+        }
+        assertEquals(5, manager.getSeries(PAIR_ID, TIMEFRAME).size());
+    }
+    
+    @Test
+    void testShrinkingDoesNotLoadHistory() {
+        for (int i = 1; i < 10; i++) {
+            manager.onBarClosed(event(i));
+        }
+        subscribe(4);
+        
+        manager.onBarClosed(event(10));
+        
+        verify(klineReader, never()).loadLatestBars(anyLong(), anyString(), anyInt());
+        BarSeriesView series = manager.getSeries(PAIR_ID, TIMEFRAME);
+        assertEquals(4, series.size());
+        assertEquals(BASE_TIME.plusMinutes(10 * 5), series.getBarTime(3));
+    }
+    
+    @Test
+    void testFailedLoadIsRetriedOnNextBar() throws Exception {
+        subscribe(20);
+        when(klineReader.loadLatestBars(PAIR_ID, TIMEFRAME, 20))
+                .thenThrow(new IllegalStateException("QuestDB不可用"))
+                .thenReturn(history(-15, 0));
+        
+        manager.ensureSeries(PAIR_ID, TIMEFRAME);
+        assertEquals(1, manager.getSeries(PAIR_ID, TIMEFRAME).size());
+        
+        manager.ensureSeries(PAIR_ID, TIMEFRAME);
+        verify(klineReader, times(2)).loadLatestBars(eq(PAIR_ID), eq(TIMEFRAME), eq(20));
+        assertEquals(16, manager.getSeries(PAIR_ID, TIMEFRAME).size());
+    }
+    
+    // ==================== 辅助方法 ====================
+    
+    /**
+     * 订阅变化：SubscriptionIndex返回新的订阅快照，规划深度为depth
+     */
+    private List<IndicatorSubscription> subscribe(int depth) {
+        IndicatorSubscription subscription = new IndicatorSubscription();
+        subscription.setTradingPairId(PAIR_ID);
+        subscription.setTimeframe(TIMEFRAME);
+        subscription.setIndicatorCode("RSI");
+        List<IndicatorSubscription> subscriptions = List.of(subscription);
+        when(subscriptionIndex.get(PAIR_ID, TIMEFRAME)).thenReturn(subscriptions);
+        when(depthPlanner.depthFor(subscriptions)).thenReturn(depth);
+        return subscriptions;
+    }
+    
+    private void awaitSize(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (manager.getSeries(PAIR_ID, TIMEFRAME).size() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, manager.getSeries(PAIR_ID, TIMEFRAME).size());
+    }
+    
+    /**
+     * 历史K线：第from到to根（包含，相对BASE_TIME的Bar序号）
+     */
+    private List<NormalizedBar> history(int from, int to) {
+        List<NormalizedBar> bars = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            BigDecimal price = BigDecimal.valueOf(100 + i);
+            bars.add(NormalizedBar.of(PAIR_ID, "BTC-USDT", TIMEFRAME, BASE_TIME.plusMinutes(i * 5L),
+                    price, price, price, price, BigDecimal.ONE));
+        }
+        return bars;
+    }
+    
+    private BarClosedEvent event(int index) {
+        BigDecimal price = BigDecimal.valueOf(100 + index);
+        return BarClosedEvent.of(PAIR_ID, "BTC-USDT", TIMEFRAME, BASE_TIME.plusMinutes(index * 5L),
+                price, price, price, price, BigDecimal.ONE, 5);
+    }
+}
@@ -0,0 +1,144 @@
+package com.qyl.v2trade.indicator.series;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ColumnarBarBuffer单元测试
+ */
+class ColumnarBarBufferTest {
+    
+    private static final long BAR_MILLIS = 5 * 60 * 1000L;
+    private static final long BASE_TIME = 1736935200000L; // 2025-01-15 10:00:00 UTC
+    
+    @Test
+    void testAppendInOrder() {
+        ColumnarBarBuffer buffer = new ColumnarBarBuffer(4);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(add(buffer, i));
+        }
+        
+        assertEquals(3, buffer.size());
+        assertBars(buffer, 0, 1, 2);
+    }
+    
+    @Test
+    void testWraparoundAtCapacity() {
+        // 容量4，追加10根：只保留最新4根，逻辑下标0始终是最旧的Bar
+        ColumnarBarBuffer buffer = new ColumnarBarBuffer(4);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(add(buffer, i));
+            assertEquals(Math.min(i + 1, 4), buffer.size());
+        }
+        
+        assertEquals(4, buffer.capacity());
+        assertBars(buffer, 6, 7, 8, 9);
+        
+        // 绕回后二分查找仍按逻辑顺序
+        assertEquals(0, buffer.search(barTime(6)));
+        assertEquals(3, buffer.search(barTime(9)));
+        assertEquals(-1, buffer.search(barTime(5)), "早于最旧Bar的插入位置为0");
+        assertEquals(-5, buffer.search(barTime(10)), "晚于最新Bar的插入位置为size");
+    }
+    
+    @Test
+    void testOutOfOrderInsertIntoFullBuffer() {
+        // 写满并绕回后缺失的Bar补到中间：丢弃最旧的Bar，其后的元素后移
+        ColumnarBarBuffer buffer = new ColumnarBarBuffer(4);
+        for (int i : new int[]{0, 1, 2, 4, 5, 7}) {
+            assertTrue(add(buffer, i));
+        }
+        assertBars(buffer, 2, 4, 5, 7);
+        
+        assertTrue(add(buffer, 3), "紧邻最旧Bar之后的缺失Bar：丢弃最旧的Bar后插入到开头");
+        assertBars(buffer, 3, 4, 5, 7);
+        
+        assertTrue(add(buffer, 6));
+        assertEquals(4, buffer.size());
+        assertBars(buffer, 4, 5, 6, 7);
+    }
+    
+    @Test
+    void testOutOfOrderInsertOlderThanFullBuffer() {
+        // 缓冲区已满时早于所有Bar的Bar写入后会被立即裁剪，直接拒绝
+        ColumnarBarBuffer buffer = new ColumnarBarBuffer(3);
+        for (int i = 5; i < 8; i++) {
+            add(buffer, i);
+        }
+        
+        assertFalse(add(buffer, 2));
+        assertBars(buffer, 5, 6, 7);
+    }
+    
+    @Test
+    void testOutOfOrderInsertIntoPartialBuffer() {
+        ColumnarBarBuffer buffer = new ColumnarBarBuffer(8);
+        for (int i : new int[]{1, 3, 4}) {
+            add(buffer, i);
+        }
+        
+        assertTrue(add(buffer, 0));
+        assertTrue(add(buffer, 2));
+        assertBars(buffer, 0, 1, 2, 3, 4);
+    }
+    
+    @Test
+    void testDuplicateBarTime() {
+        // 相同时间的Bar视为重复：add拒绝且不修改已有的值，修订通过set覆盖
+        ColumnarBarBuffer buffer = new ColumnarBarBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            add(buffer, i);
+        }
+        
+        assertFalse(buffer.add(barTime(4), 1, 1, 1, 1, 1), "尾部重复");
+        assertFalse(buffer.add(barTime(3), 1, 1, 1, 1, 1), "中间重复（绕回后）");
+        assertEquals(3, buffer.size());
+        assertBars(buffer, 2, 3, 4);
+        
+        int index = buffer.search(barTime(3));
+        buffer.set(index, 200, 210, 190, 205, 9999);
+        assertEquals(barTime(3), buffer.barTime(index), "覆盖不修改时间");
+        assertEquals(200, buffer.open(index));
+        assertEquals(210, buffer.high(index));
+        assertEquals(190, buffer.low(index));
+        assertEquals(205, buffer.close(index));
+        assertEquals(9999, buffer.volume(index));
+        assertEquals(close(2), buffer.close(0), "其他Bar不受影响");
+        assertEquals(close(4), buffer.close(2), "其他Bar不受影响");
+    }
+    
+    @Test
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ColumnarBarBuffer(0));
+    }
+    
+    private static boolean add(ColumnarBarBuffer buffer, int bar) {
+        double close = close(bar);
+        return buffer.add(barTime(bar), close - 1, close + 2, close - 2, close, 1000 + bar);
+    }
+    
+    private static long barTime(int bar) {
+        return BASE_TIME + bar * BAR_MILLIS;
+    }
+    
+    private static double close(int bar) {
+        return 100 + bar;
+    }
+    
+    /**
+     * 按逻辑顺序校验缓冲区内的Bar
+     */
+    private static void assertBars(ColumnarBarBuffer buffer, int... expectedBars) {
+        assertEquals(expectedBars.length, buffer.size());
+        for (int i = 0; i < expectedBars.length; i++) {
+            int bar = expectedBars[i];
+            assertEquals(barTime(bar), buffer.barTime(i), "barTime不一致: index=" + i);
+            assertEquals(close(bar) - 1, buffer.open(i), "open不一致: index=" + i);
+            assertEquals(close(bar) + 2, buffer.high(i), "high不一致: index=" + i);
+            assertEquals(close(bar) - 2, buffer.low(i), "low不一致: index=" + i);
+            assertEquals(close(bar), buffer.close(i), "close不一致: index=" + i);
+            assertEquals(1000 + bar, buffer.volume(i), "volume不一致: index=" + i);
+        }
+    }
+}
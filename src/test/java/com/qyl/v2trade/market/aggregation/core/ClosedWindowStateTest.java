@@ -0,0 +1,131 @@
+package com.qyl.v2trade.market.aggregation.core;
+
+import com.qyl.v2trade.market.aggregation.event.AggregatedKLine;
+import com.qyl.v2trade.market.model.NormalizedKline;
+import com.qyl.v2trade.market.model.event.KlineEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ClosedWindowState单元测试
+ */
+class ClosedWindowStateTest {
+
+    private String symbol;
+    private long windowStart;
+    private long windowEnd;
+
+    @BeforeEach
+    void setUp() {
+        symbol = "BTC-USDT";
+        windowStart = createTimestamp(2025, 1, 15, 10, 0, 0);
+        windowEnd = createTimestamp(2025, 1, 15, 10, 5, 0);
+    }
+
+    @Test
+    void testAmendMissingMinute() {
+        // 测试迟到的缺失分钟增量修订（10:00~10:03已覆盖，10:04迟到）
+        List<NormalizedKline> bars = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            bars.add(createKline(windowStart + i * 60000L, 100, 105, 99, 103, 1000));
+        }
+        AggregatedKLine original = AggregatedKLine.of(symbol, "5m", windowStart,
+                new BigDecimal("100.0"), new BigDecimal("105.0"), new BigDecimal("99.0"),
+                new BigDecimal("103.0"), new BigDecimal("4000.0"), 4);
+        ClosedWindowState state = new ClosedWindowState(original, windowEnd, bars);
+
+        KlineEvent late = createKlineEvent(windowStart + 4 * 60000L, "103", "110", "98", "107", "500");
+        assertEquals(ClosedWindowState.AmendResult.AMENDED, state.apply(late), "缺失分钟应该增量修订");
+
+        AggregatedKLine amended = state.toAggregatedKLine();
+        assertTrue(amended.isAmendment(), "应该是修订结果");
+        assertEquals(1, amended.revision(), "修订版本号应该是1");
+        assertEquals(5, amended.sourceKlineCount(), "应该聚合5根1m K线");
+        assertEquals(0, new BigDecimal("100").compareTo(amended.open()), "开盘价不应该改变");
+        assertEquals(0, new BigDecimal("110").compareTo(amended.high()), "最高价应该被修订");
+        assertEquals(0, new BigDecimal("98").compareTo(amended.low()), "最低价应该被修订");
+        assertEquals(0, new BigDecimal("107").compareTo(amended.close()), "收盘价应该是最后一分钟的收盘价");
+        assertEquals(0, new BigDecimal("4500").compareTo(amended.volume()), "成交量应该累加");
+    }
+
+    @Test
+    void testCoveredMinuteNeedsRecalculation() {
+        // 测试已覆盖分钟的数据更正需要整窗重算
+        List<NormalizedKline> bars = new ArrayList<>();
+        bars.add(createKline(windowStart, 100, 105, 99, 103, 1000));
+        AggregatedKLine original = AggregatedKLine.of(symbol, "5m", windowStart,
+                new BigDecimal("100.0"), new BigDecimal("105.0"), new BigDecimal("99.0"),
+                new BigDecimal("103.0"), new BigDecimal("1000.0"), 1);
+        ClosedWindowState state = new ClosedWindowState(original, windowEnd, bars);
+
+        KlineEvent corrected = createKlineEvent(windowStart, "100", "104", "99", "103", "900");
+        assertEquals(ClosedWindowState.AmendResult.NEEDS_RECALCULATION, state.apply(corrected),
+                "已覆盖分钟应该需要重算");
+
+        // 重算数据与原结果相同：不产生修订
+        assertFalse(state.recalculate(bars), "数据未变化不应该产生修订");
+        assertEquals(0, state.getRevision(), "修订版本号不应该变化");
+
+        // 重算数据变化：产生修订
+        List<NormalizedKline> correctedBars = List.of(createKline(windowStart, 100, 104, 99, 103, 900));
+        assertTrue(state.recalculate(correctedBars), "数据变化应该产生修订");
+        assertEquals(1, state.getRevision(), "修订版本号应该是1");
+        assertEquals(0, new BigDecimal("104").compareTo(state.toAggregatedKLine().high()), "最高价应该被更正");
+    }
+
+    @Test
+    void testIgnoreKlineOutsideWindow() {
+        // 测试窗口外的K线被忽略
+        AggregatedKLine original = AggregatedKLine.of(symbol, "5m", windowStart,
+                new BigDecimal("100"), new BigDecimal("105"), new BigDecimal("99"),
+                new BigDecimal("103"), new BigDecimal("1000"), 1);
+        ClosedWindowState state = new ClosedWindowState(original, windowEnd,
+                List.of(createKline(windowStart, 100, 105, 99, 103, 1000)));
+
+        KlineEvent outside = createKlineEvent(windowEnd, "100", "105", "99", "103", "1000");
+        assertEquals(ClosedWindowState.AmendResult.IGNORED, state.apply(outside), "窗口外的K线应该被忽略");
+    }
+
+    /**
+     * 创建NormalizedKline
+     */
+    private NormalizedKline createKline(long timestamp, double open, double high, double low,
+                                        double close, double volume) {
+        return NormalizedKline.builder()
+                .symbol(symbol)
+                .interval("1m")
+                .open(open)
+                .high(high)
+                .low(low)
+                .close(close)
+                .volume(volume)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    /**
+     * 创建KlineEvent
+     */
+    private KlineEvent createKlineEvent(long openTime, String open, String high, String low,
+                                        String close, String volume) {
+        return KlineEvent.of(symbol, "OKX", openTime, openTime + 60000, "1m",
+                new BigDecimal(open), new BigDecimal(high), new BigDecimal(low),
+                new BigDecimal(close), new BigDecimal(volume), true, System.currentTimeMillis());
+    }
+
+    /**
+     * 创建时间戳（UTC时区）
+     */
+    private long createTimestamp(int year, int month, int day, int hour, int minute, int second) {
+        ZonedDateTime zdt = ZonedDateTime.of(year, month, day, hour, minute, second, 0, ZoneId.of("UTC"));
+        return zdt.toInstant().toEpochMilli();
+    }
+}
@@ -2,12 +2,16 @@ package com.qyl.v2trade.market.aggregation.core.impl;
 
 import com.qyl.v2trade.market.aggregation.config.SupportedPeriod;
 import com.qyl.v2trade.market.aggregation.core.AggregationStats;
+import com.qyl.v2trade.market.aggregation.core.PeriodCalculator;
 import com.qyl.v2trade.market.aggregation.event.AggregatedKLine;
 import com.qyl.v2trade.market.model.event.KlineEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -311,6 +315,53 @@ class KlineAggregatorImplTest {
         // 注意：实际上事件数量会增加，但不会处理，这是正常的
     }
     
+    @Test
+    void testCheckpointRestore(@TempDir Path tempDir) {
+        // 测试检查点写入与恢复（只恢复未结束的窗口）
+        String symbol = "BTC-USDT";
+        long windowStart = PeriodCalculator.calculateWindowStart(System.currentTimeMillis(), SupportedPeriod.H4);
+        String bucketKey4h = symbol + "_4h_" + windowStart;
+        AggregationCheckpointStore store = new AggregationCheckpointStore(tempDir.resolve("checkpoint.bin"));
+        aggregator.setCheckpointStore(store, 60 * 60 * 1000L);
+        
+        KlineEvent kline = createKlineEvent(symbol, windowStart, 
+                new BigDecimal("100"), new BigDecimal("105"), new BigDecimal("99"), 
+                new BigDecimal("103"), new BigDecimal("1000"));
+        aggregator.onKlineEvent(kline);
+        assertEquals(5, aggregator.writeCheckpoint(), "应该写入5个未关闭的Bucket");
+        
+        // 模拟重启：新的聚合器从检查点恢复
+        KlineAggregatorImpl restarted = new KlineAggregatorImpl(publishedEvents::add);
+        restarted.setCheckpointStore(store, 60 * 60 * 1000L);
+        int restoredCount = restarted.restoreCheckpoint();
+        assertTrue(restoredCount >= 1, "至少应该恢复4h窗口的Bucket");
+        assertTrue(restarted.getActiveBucketKeys().contains(bucketKey4h), "应该恢复4h窗口的Bucket");
+        
+        // 检查点已覆盖的K线再次到达，应该被去重
+        restarted.onKlineEvent(kline);
+        assertTrue(restarted.getMetrics().getDuplicateIgnoreCount() >= 1, "检查点已覆盖的K线应该被去重");
+    }
+    
+    @Test
+    void testBindMetrics() {
+        // 测试按周期导出的延迟Timer和Bucket数量Gauge
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        aggregator.bindMetrics(registry);
+        
+        long baseTime = createTimestamp(2025, 1, 15, 10, 0, 0);
+        aggregator.onKlineEvent(createKlineEvent("BTC-USDT", baseTime, 
+                new BigDecimal("100"), new BigDecimal("105"), new BigDecimal("99"), 
+                new BigDecimal("103"), new BigDecimal("1000")));
+        
+        for (SupportedPeriod period : SupportedPeriod.values()) {
+            assertEquals(1, registry.get("aggregation.latency").tag("period", period.getPeriod()).timer().count(), 
+                    "每个周期应该记录一次聚合延迟: " + period.getPeriod());
+            assertEquals(1.0, registry.get("aggregation.buckets.open").tag("period", period.getPeriod()).gauge().value(), 
+                    "每个周期应该有一个未关闭的Bucket: " + period.getPeriod());
+        }
+        assertEquals(1.0, registry.get("aggregation.events").functionCounter().count(), "应该统计1个事件");
+    }
+    
     /**
      * 创建KlineEvent
      */
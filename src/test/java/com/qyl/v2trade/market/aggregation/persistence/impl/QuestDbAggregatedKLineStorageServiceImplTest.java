@@ -0,0 +1,133 @@
+package com.qyl.v2trade.market.aggregation.persistence.impl;
+
+import com.qyl.v2trade.market.aggregation.event.AggregatedKLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * QuestDbAggregatedKLineStorageServiceImpl单元测试
+ */
+class QuestDbAggregatedKLineStorageServiceImplTest {
+    
+    /**
+     * 模拟JDBC写入路径的时区换算（库内原始值与Timestamp相差8小时）
+     */
+    private static final long ZONE_SHIFT_MILLIS = 8 * 60 * 60 * 1000L;
+    
+    private QuestDbAggregatedKLineStorageServiceImpl storageService;
+    private InMemoryQuestDb questDb;
+    
+    @BeforeEach
+    void setUp() {
+        questDb = new InMemoryQuestDb();
+        storageService = new QuestDbAggregatedKLineStorageServiceImpl();
+        ReflectionTestUtils.setField(storageService, "questDbJdbcTemplate", questDb);
+    }
+    
+    @Test
+    void testBatchSaveTwiceInsertsNothingSecondTime() {
+        // 同一批数据写两次（任务重跑），第二次应全部命中去重
+        List<AggregatedKLine> batch = new ArrayList<>();
+        long baseTime = 1736935200000L; // 2025-01-15 10:00:00 UTC
+        for (int i = 0; i < 10; i++) {
+            batch.add(createAggregatedKLine("BTC-USDT", "5m", baseTime + i * 5 * 60 * 1000L));
+        }
+        
+        int first = storageService.batchSave(batch);
+        int second = storageService.batchSave(batch);
+        
+        assertEquals(10, first, "第一次写入应插入全部10根");
+        assertEquals(0, second, "第二次写入不应插入任何数据");
+        assertEquals(10, questDb.rowCount(), "库内不应出现重复行");
+        assertEquals(10, storageService.getWriteStats().skipWriteCount(), "第二次写入应全部计为跳过");
+    }
+    
+    @Test
+    void testBatchSaveSkipsDuplicatesWithinBatch() {
+        // 同一批内的重复ts只写入一次
+        long ts = 1736935200000L;
+        List<AggregatedKLine> batch = List.of(
+                createAggregatedKLine("BTC-USDT", "5m", ts),
+                createAggregatedKLine("BTC-USDT", "5m", ts));
+        
+        assertEquals(1, storageService.batchSave(batch));
+        assertEquals(1, questDb.rowCount());
+    }
+    
+    private AggregatedKLine createAggregatedKLine(String symbol, String period, long timestamp) {
+        return AggregatedKLine.of(symbol, period, timestamp,
+                new BigDecimal("100"), new BigDecimal("105"), new BigDecimal("99"),
+                new BigDecimal("103"), new BigDecimal("1000"), 5);
+    }
+    
+    /**
+     * 内存版QuestDB：按JDBC Timestamp写入，库内保存经时区换算后的原始微秒值
+     */
+    private static class InMemoryQuestDb extends JdbcTemplate {
+        
+        private final List<Object[]> rows = new ArrayList<>();
+        
+        int rowCount() {
+            return rows.size();
+        }
+        
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            int[] result = new int[batchArgs.size()];
+            for (int i = 0; i < batchArgs.size(); i++) {
+                result[i] = update(sql, batchArgs.get(i));
+            }
+            return result;
+        }
+        
+        @Override
+        public int update(String sql, Object... args) {
+            assertTrue(sql.startsWith("INSERT"), "只支持INSERT: " + sql);
+            rows.add(new Object[]{args[0], toRawMicros((Timestamp) args[1])});
+            return 1;
+        }
+        
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            String symbol = (String) args[0];
+            long fromMicros = toRawMicros((Timestamp) args[1]);
+            long toMicros = toRawMicros((Timestamp) args[2]);
+            try {
+                for (Object[] row : rows) {
+                    long rawMicros = (Long) row[1];
+                    if (symbol.equals(row[0]) && rawMicros >= fromMicros && rawMicros <= toMicros) {
+                        rch.processRow(resultSet(rawMicros));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        
+        private static long toRawMicros(Timestamp ts) {
+            return (ts.getTime() + ZONE_SHIFT_MILLIS) * 1000;
+        }
+        
+        private static ResultSet resultSet(long rawMicros) throws SQLException {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getTimestamp("ts")).thenReturn(new Timestamp(rawMicros / 1000 - ZONE_SHIFT_MILLIS));
+            when(rs.getLong("ts")).thenReturn(rawMicros);
+            when(rs.getLong("ts_us")).thenReturn(rawMicros);
+            return rs;
+        }
+    }
+}
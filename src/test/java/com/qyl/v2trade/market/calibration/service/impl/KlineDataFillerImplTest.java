@@ -0,0 +1,78 @@
+package com.qyl.v2trade.market.calibration.service.impl;
+
+import com.qyl.v2trade.market.aggregation.core.KlineAggregator;
+import com.qyl.v2trade.market.model.NormalizedKline;
+import com.qyl.v2trade.market.subscription.persistence.storage.MarketStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * KlineDataFillerImpl单元测试
+ */
+class KlineDataFillerImplTest {
+    
+    private static final String SYMBOL = "BTC-USDT-SWAP";
+    
+    private MarketStorageService storageService;
+    private KlineAggregator aggregator;
+    private KlineDataFillerImpl filler;
+    
+    @BeforeEach
+    void setUp() {
+        storageService = mock(MarketStorageService.class);
+        aggregator = mock(KlineAggregator.class);
+        filler = new KlineDataFillerImpl();
+        ReflectionTestUtils.setField(filler, "marketStorageService", storageService);
+        ReflectionTestUtils.setField(filler, "klineAggregator", aggregator);
+    }
+    
+    @Test
+    void testAmendsOnlyInsertedKlines() {
+        NormalizedKline existing = kline(1_704_067_200_000L);
+        NormalizedKline inserted = kline(1_704_067_260_000L);
+        when(storageService.saveKline(existing)).thenReturn(false);
+        when(storageService.saveKline(inserted)).thenReturn(true);
+        
+        int saved = filler.fillMissingKlines(SYMBOL, List.of(existing, inserted));
+        
+        assertEquals(1, saved);
+        verify(aggregator).amendKlines(SYMBOL, List.of(inserted));
+    }
+    
+    @Test
+    void testNoAmendWhenNothingInserted() {
+        when(storageService.saveKline(any())).thenReturn(false);
+        
+        int saved = filler.fillMissingKlines(SYMBOL, List.of(kline(1_704_067_200_000L)));
+        
+        assertEquals(0, saved);
+        verify(aggregator, never()).amendKlines(anyString(), anyList());
+    }
+    
+    // ==================== 辅助方法 ====================
+    
+    private NormalizedKline kline(long timestamp) {
+        return NormalizedKline.builder()
+                .symbol(SYMBOL)
+                .interval("1m")
+                .timestamp(timestamp)
+                .open(100.0)
+                .high(101.0)
+                .low(99.0)
+                .close(100.5)
+                .volume(10.0)
+                .build();
+    }
+}